@@ -0,0 +1,119 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.utils.DBConnectionUtil;
+import com.example.aptutorialworkshop.utils.ImageStore;
+import com.example.aptutorialworkshop.utils.ImageUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * Benchmark Database
+ *
+ * Creates the users table in the in-memory H2 database configured in the
+ * benchmark application.properties, mirroring schema.sql closely enough for
+ * the DAO queries to run unchanged.
+ */
+public class BenchmarkDatabase {
+    // BCrypt hash of "password" at cost 4, so seeding stays fast
+    public static final String PASSWORD_HASH = "$2a$04$Ky4TQVr9Ut9.D24.e4/7duHDqy0htiYxmWqU8/EMKsDSgMmQHbSjC";
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Recreate the users table and insert sample users with legacy BLOB pictures
+     *
+     * @param userCount Number of users to insert
+     * @param imageBytes Size of each user's profile picture, 0 for none
+     * @throws SQLException if the database cannot be prepared
+     */
+    public static void reset(int userCount, int imageBytes) throws SQLException {
+        reset(userCount, imageBytes, false);
+    }
+
+    /**
+     * Recreate the users table and insert sample users
+     *
+     * @param userCount Number of users to insert
+     * @param imageBytes Size of each user's profile picture, 0 for none
+     * @param imageStore true to keep pictures in the ImageStore (hash column only),
+     *                   false to keep them as BLOBs like unmigrated rows
+     * @throws SQLException if the database cannot be prepared
+     */
+    public static void reset(int userCount, int imageBytes, boolean imageStore) throws SQLException {
+        try (Connection connection = DBConnectionUtil.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS users");
+            statement.execute("CREATE TABLE users ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "name VARCHAR(100) NOT NULL, "
+                    + "email VARCHAR(100) NOT NULL UNIQUE, "
+                    + "password VARCHAR(255) NOT NULL, "
+                    + "role ENUM('admin', 'user') NOT NULL DEFAULT 'user', "
+                    + "profile_picture MEDIUMBLOB, "
+                    + "profile_picture_hash CHAR(64) NULL)");
+            statement.execute("CREATE INDEX idx_users_role_id ON users(role, id)");
+            // MySQL's SHA2() is not built into H2
+            statement.execute("CREATE ALIAS IF NOT EXISTS SHA2 FOR \"" + BenchmarkDatabase.class.getName() + ".sha2\"");
+
+            byte[] image = imageBytes > 0 ? randomImage(imageBytes) : null;
+            String imageHash = image != null && imageStore ? ImageStore.store(image) : null;
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO users(name, email, password, role, profile_picture, profile_picture_hash)"
+                            + " VALUES(?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= userCount; i++) {
+                    insert.setString(1, "User " + i);
+                    insert.setString(2, emailOf(i));
+                    insert.setString(3, PASSWORD_HASH);
+                    insert.setString(4, i == 1 ? "admin" : "user");
+                    insert.setBytes(5, imageStore ? null : image);
+                    insert.setString(6, imageHash);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Get the email of the n-th seeded user
+     *
+     * @param n User number starting at 1
+     * @return Email address
+     */
+    public static String emailOf(int n) {
+        return "user" + n + "@example.com";
+    }
+
+    /**
+     * Create a fake JPEG of the given size
+     *
+     * @param size Number of bytes
+     * @return Random bytes with a JPEG signature
+     */
+    public static byte[] randomImage(int size) {
+        byte[] image = new byte[size];
+        new Random(42).nextBytes(image);
+        if (size >= 3) {
+            image[0] = (byte) 0xFF;
+            image[1] = (byte) 0xD8;
+            image[2] = (byte) 0xFF;
+        }
+        return image;
+    }
+
+    /**
+     * H2 implementation of MySQL's SHA2(data, 256)
+     *
+     * @param data Bytes to hash, may be null
+     * @param bits Digest length, only 256 is supported
+     * @return Lower-case hex digest, or null for null input
+     */
+    public static String sha2(byte[] data, int bits) {
+        return data == null ? null : ImageUtil.sha256Hex(data);
+    }
+}
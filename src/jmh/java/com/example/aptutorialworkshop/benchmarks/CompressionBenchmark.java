@@ -0,0 +1,74 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.utils.StaticAssets;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression Benchmark
+ *
+ * Measures what CompressionFilter spends per response to gzip a dynamic page
+ * (an admin dashboard with 25 user rows) at different deflate levels, and
+ * what compressing the stylesheet per request would cost compared with the
+ * precompressed variant AssetServlet sends. Compressed sizes are printed at
+ * setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class CompressionBenchmark {
+    @Param({"1", "6", "9"})
+    public int level;
+
+    private byte[] page;
+    private byte[] stylesheet;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head><title>Admin Dashboard</title></head><body>");
+        html.append("<table class=\"user-table\"><thead><tr><th>ID</th><th>Name</th><th>Email</th><th>Role</th></tr></thead><tbody>");
+        for (int i = 1; i <= 25; i++) {
+            html.append("<tr><td>").append(i).append("</td><td>Student User ").append(i)
+                    .append("</td><td>student").append(i).append("@example.com</td><td>user</td></tr>\n");
+        }
+        html.append("</tbody></table></body></html>");
+        page = html.toString().getBytes(StandardCharsets.UTF_8);
+        stylesheet = Files.readAllBytes(Paths.get("src/main/webapp/assets/css/styles.css"));
+
+        System.out.println("Level " + level + ": page " + page.length + " -> " + gzip(page).length
+                + " bytes, stylesheet " + stylesheet.length + " -> " + gzip(stylesheet).length
+                + " bytes (precompressed " + StaticAssets.gzip(stylesheet).length + " bytes)");
+    }
+
+    @Benchmark
+    public byte[] gzipPage() throws IOException {
+        return gzip(page);
+    }
+
+    @Benchmark
+    public byte[] gzipStylesheet() throws IOException {
+        return gzip(stylesheet);
+    }
+
+    private byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+}
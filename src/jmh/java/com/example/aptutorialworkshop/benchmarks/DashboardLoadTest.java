@@ -0,0 +1,184 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dashboard Load Test
+ *
+ * An HTTP load client for comparing a deployed instance with and without
+ * virtual threads (app.virtual_threads.enabled). It logs in once as an
+ * admin, then keeps the given number of requests to the admin dashboard in
+ * flight for a fixed time at each concurrency level, and prints throughput, errors and latency
+ * percentiles. Every client is a virtual thread, so 5000 concurrent
+ * requests do not need 5000 platform threads on the load generator.
+ *
+ * Every admin dashboard request queries a page of the user list, which is
+ * not cached, and in virtual-thread mode that query runs on a virtual
+ * thread through BlockingIoExecutor. (The user dashboard does no blocking
+ * work and runs the same code in both modes, so it cannot show a
+ * difference.) Deploy the WAR, run the test, switch the mode, restart and
+ * run it again:
+ *
+ *   mvn -P benchmarks test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.example.aptutorialworkshop.benchmarks.DashboardLoadTest \
+ *       -Dexec.args="http://localhost:8080/ap-tutorial-workshop-1.0-SNAPSHOT admin@example.com admin123 1000,5000 30"
+ *
+ * The operating system must allow enough open files for the sockets
+ * (ulimit -n) on both sides, and Tomcat's maxConnections (default 8192)
+ * must be above the highest concurrency.
+ */
+public class DashboardLoadTest {
+    // Requests before each measured run, so the JIT and the pools are warm
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 5;
+
+    private DashboardLoadTest() {
+    }
+
+    /**
+     * Run the load test
+     *
+     * @param args Base URL, admin email, admin password, comma separated concurrency levels (default 1000,5000)
+     *             and seconds per level (default 30)
+     * @throws Exception If the login fails or the run is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: DashboardLoadTest <base url> <admin email> <admin password> [concurrency,...] [seconds]");
+            System.exit(2);
+        }
+        String baseUrl = args[0].endsWith("/") ? args[0] : args[0] + "/";
+        String[] levels = (args.length > 3 ? args[3] : "1000,5000").split(",");
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 30;
+
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        login(client, baseUrl, args[1], args[2]);
+
+        HttpRequest dashboard = HttpRequest.newBuilder(URI.create(baseUrl + "AdminDashboardServlet"))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        for (String level : levels) {
+            run(client, dashboard, Integer.parseInt(level.trim()), seconds);
+        }
+    }
+
+    /**
+     * Log in so the client's cookie manager holds a session
+     *
+     * @param client HTTP client
+     * @param baseUrl Application URL ending in /
+     * @param email Login email
+     * @param password Login password
+     * @throws IOException If the login is rejected or the user is not an admin
+     * @throws InterruptedException If interrupted
+     */
+    private static void login(HttpClient client, String baseUrl, String email, String password)
+            throws IOException, InterruptedException {
+        String form = "email=" + URLEncoder.encode(email, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "LoginServlet"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || !location.contains("AdminDashboardServlet")) {
+            throw new IOException("Login failed with status " + response.statusCode());
+        }
+    }
+
+    /**
+     * Keep a number of dashboard requests in flight for a while
+     *
+     * @param client HTTP client
+     * @param dashboard Dashboard request
+     * @param concurrency Requests in flight at any time
+     * @param seconds Length of the measured run
+     * @throws InterruptedException If interrupted
+     */
+    private static void run(HttpClient client, HttpRequest dashboard, int concurrency, int seconds)
+            throws InterruptedException {
+        LatencyHistogram latencies = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicLong windowEnd = new AtomicLong();
+
+        List<Thread> clients = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            clients.add(Thread.ofVirtual().start(() -> {
+                for (int n = 0; n < WARMUP_REQUESTS_PER_CLIENT; n++) {
+                    send(client, dashboard, null, errors);
+                }
+                // A latch, not a monitor: Object.wait pins the carrier thread of a virtual thread
+                try {
+                    startSignal.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < windowEnd.get()) {
+                    send(client, dashboard, latencies, errors);
+                }
+            }));
+        }
+
+        // Start the measured window once the clients had time to warm up
+        Thread.sleep(Math.min(10_000, 10L * concurrency));
+        errors.reset();
+        long windowStart = System.nanoTime();
+        windowEnd.set(windowStart + seconds * 1_000_000_000L);
+        startSignal.countDown();
+        for (Thread thread : clients) {
+            thread.join();
+        }
+
+        double elapsed = (System.nanoTime() - windowStart) / 1e9;
+        System.out.printf("concurrency=%d requests=%d errors=%d throughput=%.0f req/s"
+                        + " p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                concurrency, latencies.getCount(), errors.sum(), latencies.getCount() / elapsed,
+                latencies.getPercentileMicros(50) / 1000.0, latencies.getPercentileMicros(99) / 1000.0,
+                latencies.getMaxMicros() / 1000.0);
+    }
+
+    /**
+     * Send one dashboard request
+     *
+     * @param client HTTP client
+     * @param dashboard Dashboard request
+     * @param latencies Histogram of successful requests, null while warming up
+     * @param errors Count of failed requests
+     */
+    private static void send(HttpClient client, HttpRequest dashboard, LatencyHistogram latencies, LongAdder errors) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(dashboard, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                errors.increment();
+            } else if (latencies != null) {
+                latencies.recordNanos(System.nanoTime() - start);
+            }
+        } catch (IOException e) {
+            errors.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.increment();
+        }
+    }
+}
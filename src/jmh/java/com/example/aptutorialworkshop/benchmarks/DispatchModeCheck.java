@@ -0,0 +1,163 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.utils.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatch Mode Check
+ *
+ * An in-process model of what app.virtual_threads.enabled changes for the
+ * admin dashboard, for when no Tomcat and MySQL are at hand;
+ * DashboardLoadTest measures a real deployment.
+ *
+ * Requests arrive on a fixed pool of container threads (Tomcat's default
+ * maxThreads=200). With virtual threads off, the container thread runs the
+ * user list query itself. With them on, it hands the query to a virtual
+ * thread and is free again, as AdminDashboardServlet does through
+ * BlockingIoExecutor. The query is UserDAO.listUsers against the benchmark
+ * H2 database, followed by a sleep that stands in for the round trip to
+ * MySQL; a fair semaphore of one permit per database connection is held
+ * around both, so the database bounds throughput the same way in both modes.
+ *
+ * Next to the dashboard load, a probe sends a request that needs no
+ * database (like a static asset or the login page) every 10 ms and records
+ * how long it waits for a container thread:
+ *
+ *   mvn -P benchmarks test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.example.aptutorialworkshop.benchmarks.DispatchModeCheck \
+ *       -Dexec.args="1000,5000 10 2 20"
+ */
+public class DispatchModeCheck {
+    // Tomcat's default maxThreads
+    private static final int CONTAINER_THREADS = 200;
+
+    private static final int USER_COUNT = 1000;
+    private static final int PAGE_SIZE = 26;
+    private static final long PROBE_INTERVAL_MILLIS = 10;
+    private static final long WARMUP_SECONDS = 2;
+
+    private DispatchModeCheck() {
+    }
+
+    /**
+     * Run the check
+     *
+     * @param args Comma separated concurrency levels (default 1000,5000), seconds per run (default 10),
+     *             simulated database round trip in ms (default 2) and database connections (default 20)
+     * @throws Exception If the database cannot be prepared or the run is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        String[] levels = (args.length > 0 ? args[0] : "1000,5000").split(",");
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long roundTripMillis = args.length > 2 ? Long.parseLong(args[2]) : 2;
+        int connections = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        BenchmarkDatabase.reset(USER_COUNT, 0);
+        for (String level : levels) {
+            for (boolean virtualThreads : new boolean[] {false, true}) {
+                run(Integer.parseInt(level.trim()), virtualThreads, seconds, roundTripMillis, connections);
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Keep a number of dashboard requests in flight in one mode
+     *
+     * @param concurrency Dashboard requests in flight at any time
+     * @param virtualThreads true to hand the query to a virtual thread
+     * @param seconds Length of the measured run
+     * @param roundTripMillis Simulated database round trip
+     * @param connections Queries that may run at once
+     * @throws InterruptedException If interrupted
+     */
+    private static void run(int concurrency, boolean virtualThreads, int seconds, long roundTripMillis,
+                            int connections) throws InterruptedException {
+        ExecutorService container = Executors.newFixedThreadPool(CONTAINER_THREADS);
+        ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor();
+        Semaphore database = new Semaphore(connections, true);
+        LatencyHistogram dashboard = new LatencyHistogram();
+        LatencyHistogram probe = new LatencyHistogram();
+        AtomicLong measureFrom = new AtomicLong(Long.MAX_VALUE);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS + seconds);
+        CountDownLatch done = new CountDownLatch(concurrency + 1);
+
+        Runnable query = () -> {
+            database.acquireUninterruptibly();
+            try {
+                UserDAO.listUsers(0, null, null, PAGE_SIZE);
+                Thread.sleep(roundTripMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                database.release();
+            }
+        };
+
+        List<Thread> clients = new ArrayList<>(concurrency + 1);
+        for (int i = 0; i < concurrency; i++) {
+            clients.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    CompletableFuture<Void> response = new CompletableFuture<>();
+                    container.execute(() -> {
+                        if (virtualThreads) {
+                            virtual.execute(() -> {
+                                query.run();
+                                response.complete(null);
+                            });
+                        } else {
+                            query.run();
+                            response.complete(null);
+                        }
+                    });
+                    response.join();
+                    if (start >= measureFrom.get()) {
+                        dashboard.recordNanos(System.nanoTime() - start);
+                    }
+                }
+                done.countDown();
+            }));
+        }
+        clients.add(Thread.ofVirtual().start(() -> {
+            while (System.nanoTime() < end) {
+                long start = System.nanoTime();
+                CompletableFuture<Void> response = new CompletableFuture<>();
+                container.execute(() -> response.complete(null));
+                response.join();
+                if (start >= measureFrom.get()) {
+                    probe.recordNanos(System.nanoTime() - start);
+                }
+                try {
+                    Thread.sleep(PROBE_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            done.countDown();
+        }));
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(WARMUP_SECONDS));
+        measureFrom.set(System.nanoTime());
+        done.await();
+        container.shutdown();
+        virtual.shutdown();
+
+        System.out.printf("mode=%s concurrency=%d dashboard: %.0f req/s p50=%.1f ms p99=%.1f ms"
+                        + " | probe: p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                virtualThreads ? "virtual" : "platform", concurrency, dashboard.getCount() / (double) seconds,
+                dashboard.getPercentileMicros(50) / 1000.0, dashboard.getPercentileMicros(99) / 1000.0,
+                probe.getPercentileMicros(50) / 1000.0, probe.getPercentileMicros(99) / 1000.0,
+                probe.getMaxMicros() / 1000.0);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.utils.ImageUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Image Encoding Benchmark
+ *
+ * Measures the per-request cost of embedding a profile picture as a Base64
+ * data URI, compared with hashing it for the image endpoint's ETag.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class ImageEncodingBenchmark {
+    @Param({"51200", "1048576", "5242880"})
+    public int imageBytes;
+
+    private byte[] image;
+
+    @Setup
+    public void setUp() {
+        image = BenchmarkDatabase.randomImage(imageBytes);
+    }
+
+    @Benchmark
+    public String base64Encode() {
+        return Base64.getEncoder().encodeToString(image);
+    }
+
+    @Benchmark
+    public String sha256Etag() {
+        return ImageUtil.sha256Hex(image);
+    }
+
+    @Benchmark
+    public String detectContentType() {
+        return ImageUtil.detectContentType(image);
+    }
+}
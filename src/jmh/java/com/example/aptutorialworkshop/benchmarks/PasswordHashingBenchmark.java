@@ -0,0 +1,45 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.models.UserModel;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password Hashing Benchmark
+ *
+ * Measures BCrypt hashing and UserModel.verifyPassword at several work
+ * factors. Verification always runs at the cost stored in the hash, so this
+ * shows what a login costs for hashes created at each setting.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class PasswordHashingBenchmark {
+    private static final String PASSWORD = "student123";
+
+    @Param({"4", "8", "10", "12"})
+    public int cost;
+
+    private UserModel user;
+
+    @Setup
+    public void setUp() {
+        user = new UserModel();
+        user.setPassword(BCrypt.hashpw(PASSWORD, BCrypt.gensalt(cost)));
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return BCrypt.hashpw(PASSWORD, BCrypt.gensalt(cost));
+    }
+
+    @Benchmark
+    public boolean verifyPassword() {
+        return user.verifyPassword(PASSWORD);
+    }
+}
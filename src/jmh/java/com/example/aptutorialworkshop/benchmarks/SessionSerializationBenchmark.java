@@ -0,0 +1,89 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.models.UserPrincipal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session Serialization Benchmark
+ *
+ * Measures serializing the session attribute as a container does for session
+ * persistence or replication: the full UserModel compared with the slim
+ * UserPrincipal. UserModel's compact Externalizable form leaves the picture
+ * out (see UserModelSerializationBenchmark for the comparison with default
+ * serialization). Serialized sizes are printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class SessionSerializationBenchmark {
+    @Param({"0", "51200", "1048576"})
+    public int imageBytes;
+
+    private UserModel user;
+    private UserPrincipal principal;
+    private byte[] serializedUser;
+    private byte[] serializedPrincipal;
+
+    @Setup
+    public void setUp() throws IOException {
+        user = new UserModel();
+        user.setId(42);
+        user.setName("Student User");
+        user.setEmail("student@example.com");
+        user.setPassword(BenchmarkDatabase.PASSWORD_HASH);
+        user.setRole(UserModel.Role.user);
+        user.setImage(imageBytes > 0 ? BenchmarkDatabase.randomImage(imageBytes) : null);
+        principal = UserPrincipal.from(user);
+
+        serializedUser = serialize(user);
+        serializedPrincipal = serialize(principal);
+        System.out.println("Serialized size: UserModel=" + serializedUser.length
+                + " bytes, UserPrincipal=" + serializedPrincipal.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] serializeUserModel() throws IOException {
+        return serialize(user);
+    }
+
+    @Benchmark
+    public byte[] serializeUserPrincipal() throws IOException {
+        return serialize(principal);
+    }
+
+    @Benchmark
+    public Object deserializeUserModel() throws IOException, ClassNotFoundException {
+        return deserialize(serializedUser);
+    }
+
+    @Benchmark
+    public Object deserializeUserPrincipal() throws IOException, ClassNotFoundException {
+        return deserialize(serializedPrincipal);
+    }
+
+    private static byte[] serialize(Serializable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.utils.AppConfig;
+import com.example.aptutorialworkshop.utils.ConnectionPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statement Cache Benchmark
+ *
+ * Runs the statements behind the login and profile lookups the way UserDAO
+ * does - borrow a connection, prepare, execute, close - on a pool with the
+ * prepared statement cache disabled (0) and enabled. Without the cache every
+ * call parses and plans the SQL again; with it only the first call on each
+ * connection does.
+ *
+ * H2's own per-session query cache is turned off so that re-preparing a
+ * statement really parses it again. This only measures the parse in an
+ * embedded database; it says nothing about MySQL's parser or the prepare
+ * and close round trips that useServerPrepStmts=true adds to every uncached
+ * call. StatementCacheServerCheck measures those against a MySQL server.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class StatementCacheBenchmark {
+    private static final int USER_COUNT = 100;
+
+    @Param({"0", "64"})
+    public int statementCacheSize;
+
+    private ConnectionPool pool;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.reset(USER_COUNT, 0);
+        pool = new ConnectionPool(AppConfig.get("db.url") + ";QUERY_CACHE_SIZE=0", AppConfig.get("db.username"),
+                AppConfig.get("db.password"), 1, 1, 30000, 0, statementCacheSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (statementCacheSize > 0) {
+            System.out.println("Statement cache hits=" + pool.getStatementCacheHitCount()
+                    + ", misses=" + pool.getStatementCacheMissCount());
+        }
+        pool.shutdown();
+    }
+
+    private int nextId() {
+        next = next % USER_COUNT + 1;
+        return next;
+    }
+
+    @Benchmark
+    public String selectCredentialsByEmail() throws SQLException {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(UserDAO.SELECT_CREDENTIALS_BY_EMAIL)) {
+            ps.setString(1, BenchmarkDatabase.emailOf(nextId()));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("password") : null;
+            }
+        }
+    }
+
+    @Benchmark
+    public String selectProfileById() throws SQLException {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(UserDAO.SELECT_PROFILE_BY_ID)) {
+            ps.setInt(1, nextId());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("name") : null;
+            }
+        }
+    }
+}
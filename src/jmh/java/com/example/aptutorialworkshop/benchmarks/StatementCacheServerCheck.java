@@ -0,0 +1,115 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.utils.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statement Cache Server Check
+ *
+ * Shows what the prepared statement cache saves on the MySQL side, which the
+ * H2 StatementCacheBenchmark cannot: it runs the login credential lookup the
+ * way UserDAO does (borrow, prepare, execute, close) on a one-connection pool
+ * with the cache off and on, and prints the server's COM_STMT_PREPARE,
+ * COM_STMT_EXECUTE and COM_STMT_CLOSE counters for that connection next to
+ * the average time per call. Only reads are issued, against an existing
+ * users table:
+ *
+ *   mvn -P benchmarks test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.example.aptutorialworkshop.benchmarks.StatementCacheServerCheck \
+ *       -Dexec.args="jdbc:mysql://localhost:3306/user_db user password 10000"
+ *
+ * With the cache off every call costs a prepare and a close round trip
+ * besides the execute; with it on, the connection prepares the query once.
+ */
+public class StatementCacheServerCheck {
+    private static final String[] COUNTERS = {"Com_stmt_prepare", "Com_stmt_execute", "Com_stmt_close"};
+
+    private StatementCacheServerCheck() {
+    }
+
+    /**
+     * Run the check
+     *
+     * @param args MySQL JDBC URL, user, password and optionally the number of calls (default 10000)
+     * @throws SQLException If the database cannot be reached
+     */
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 3) {
+            System.err.println("Usage: StatementCacheServerCheck <jdbc:mysql url> <user> <password> [calls]");
+            System.exit(2);
+        }
+        String url = args[0].contains("useServerPrepStmts") ? args[0]
+                : args[0] + (args[0].contains("?") ? "&" : "?") + "useServerPrepStmts=true";
+        int calls = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        for (int cacheSize : new int[] {0, 64}) {
+            ConnectionPool pool = new ConnectionPool(url, args[1], args[2], 1, 1, 30000, 0, cacheSize);
+            try {
+                // Warm the JIT and, with the cache on, prepare the statement once
+                lookUp(pool, 1000);
+                Map<String, Long> before = serverCounters(pool);
+                long start = System.nanoTime();
+                lookUp(pool, calls);
+                long elapsed = System.nanoTime() - start;
+                Map<String, Long> after = serverCounters(pool);
+
+                StringBuilder line = new StringBuilder("statement_cache_size=" + cacheSize);
+                for (String counter : COUNTERS) {
+                    long count = after.getOrDefault(counter, 0L) - before.getOrDefault(counter, 0L);
+                    line.append(' ').append(counter).append('=')
+                            .append(String.format("%.2f", (double) count / calls)).append("/call");
+                }
+                line.append(String.format(" time=%.1f us/call", elapsed / 1000.0 / calls));
+                System.out.println(line);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Look up credentials the way UserDAO does
+     *
+     * @param pool Pool to borrow from
+     * @param calls Number of lookups
+     * @throws SQLException If a query fails
+     */
+    private static void lookUp(ConnectionPool pool, int calls) throws SQLException {
+        for (int i = 0; i < calls; i++) {
+            try (Connection connection = pool.getConnection();
+                 PreparedStatement ps = connection.prepareStatement(UserDAO.SELECT_CREDENTIALS_BY_EMAIL)) {
+                ps.setString(1, "admin@example.com");
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the statement counters of the pool's only connection
+     *
+     * @param pool One-connection pool
+     * @return Counter values by name
+     * @throws SQLException If the status cannot be read
+     */
+    private static Map<String, Long> serverCounters(ConnectionPool pool) throws SQLException {
+        Map<String, Long> counters = new HashMap<>();
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SHOW SESSION STATUS LIKE 'Com_stmt_%'")) {
+            while (rs.next()) {
+                counters.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.models.UserModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User Mapping Benchmark
+ *
+ * Measures UserDAO lookups including the ResultSet to UserModel mapping
+ * against an in-memory H2 database. Comparing the full-row lookups with the
+ * projected ones shows what fetching the profile_picture BLOB costs, and the
+ * imageStore parameter compares legacy BLOB rows with rows that only keep the
+ * ImageStore hash.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class UserMappingBenchmark {
+    private static final int USER_COUNT = 100;
+
+    @Param({"0", "51200", "1048576"})
+    public int imageBytes;
+
+    @Param({"false", "true"})
+    public boolean imageStore;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.reset(USER_COUNT, imageBytes, imageStore);
+    }
+
+    private int nextId() {
+        next = next % USER_COUNT + 1;
+        return next;
+    }
+
+    @Benchmark
+    public UserModel getUserByIdFullRow() {
+        return UserDAO.getUserById(nextId());
+    }
+
+    @Benchmark
+    public UserModel getUserByEmailFullRow() {
+        return UserDAO.getUserByEmail(BenchmarkDatabase.emailOf(nextId()));
+    }
+
+    @Benchmark
+    public UserModel getUserProfileById() {
+        return UserDAO.getUserProfileById(nextId());
+    }
+
+    @Benchmark
+    public UserModel getUserCredentialsByEmail() {
+        return UserDAO.getUserCredentialsByEmail(BenchmarkDatabase.emailOf(nextId()));
+    }
+
+    @Benchmark
+    public byte[] getProfilePicture() {
+        return UserDAO.getProfilePicture(nextId());
+    }
+}
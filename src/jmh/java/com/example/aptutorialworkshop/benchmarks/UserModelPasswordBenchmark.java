@@ -0,0 +1,29 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.models.UserModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserModel Password Benchmark
+ *
+ * Measures UserModel.setPassword, which hashes plain text passwords at the
+ * application's configured BCrypt cost, as used during registration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class UserModelPasswordBenchmark {
+    private static final String PASSWORD = "student123";
+
+    @Benchmark
+    public String setPassword() {
+        UserModel user = new UserModel();
+        user.setPassword(PASSWORD);
+        return user.getPassword();
+    }
+}
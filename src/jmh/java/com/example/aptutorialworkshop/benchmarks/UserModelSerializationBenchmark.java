@@ -0,0 +1,113 @@
+package com.example.aptutorialworkshop.benchmarks;
+
+import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.utils.ImageUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserModel Serialization Benchmark
+ *
+ * Compares UserModel's hand-written Externalizable form with default Java
+ * serialization of the same fields (LegacyUserModel, a copy of UserModel
+ * before it became Externalizable). Serialized sizes are printed at setup;
+ * the legacy size includes the picture, which the compact form leaves out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class UserModelSerializationBenchmark {
+    @Param({"0", "51200"})
+    public int imageBytes;
+
+    private UserModel user;
+    private LegacyUserModel legacyUser;
+    private byte[] serializedUser;
+    private byte[] serializedLegacyUser;
+
+    /**
+     * UserModel's fields with the default serialized form
+     */
+    public static class LegacyUserModel implements Serializable {
+        private int id;
+        private String name;
+        private String email;
+        private String password;
+        private UserModel.Role role;
+        private byte[] image;
+        private String imageHash;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        user = new UserModel();
+        user.setId(42);
+        user.setName("Student User");
+        user.setEmail("student@example.com");
+        user.setStoredPassword(BenchmarkDatabase.PASSWORD_HASH);
+        user.setRole(UserModel.Role.user);
+        user.setImage(imageBytes > 0 ? BenchmarkDatabase.randomImage(imageBytes) : null);
+        // The compact form hashes the picture when no hash is known; keep that out of the timings
+        if (user.getImage() != null) {
+            user.setImageHash(ImageUtil.sha256Hex(user.getImage()));
+        }
+
+        legacyUser = new LegacyUserModel();
+        legacyUser.id = user.getId();
+        legacyUser.name = user.getName();
+        legacyUser.email = user.getEmail();
+        legacyUser.password = user.getPassword();
+        legacyUser.role = user.getRole();
+        legacyUser.image = user.getImage();
+        legacyUser.imageHash = user.getImageHash();
+
+        serializedUser = serialize(user);
+        serializedLegacyUser = serialize(legacyUser);
+        System.out.println("Serialized size: Externalizable UserModel=" + serializedUser.length
+                + " bytes, default serialization=" + serializedLegacyUser.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] serializeExternalizable() throws IOException {
+        return serialize(user);
+    }
+
+    @Benchmark
+    public byte[] serializeDefault() throws IOException {
+        return serialize(legacyUser);
+    }
+
+    @Benchmark
+    public Object deserializeExternalizable() throws IOException, ClassNotFoundException {
+        return deserialize(serializedUser);
+    }
+
+    @Benchmark
+    public Object deserializeDefault() throws IOException, ClassNotFoundException {
+        return deserialize(serializedLegacyUser);
+    }
+
+    private static byte[] serialize(Serializable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.aptutorialworkshop.controllers;
 
+import com.example.aptutorialworkshop.dao.UserDAO;
 import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.models.UserPrincipal;
 import com.example.aptutorialworkshop.services.AuthService;
+import com.example.aptutorialworkshop.utils.AppConfig;
+import com.example.aptutorialworkshop.utils.BlockingIoExecutor;
+import com.example.aptutorialworkshop.utils.StaticAssets;
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import jakarta.servlet.annotation.*;
 
 import java.io.IOException;
-import java.util.Base64;
+import java.util.List;
 
 /**
  * AdminDashboardServlet
@@ -16,12 +21,26 @@ import java.util.Base64;
  * displaying the admin dashboard and processing admin-specific actions.
  *
  * Session management implementation:
- * 1. Checks if the user is authenticated using AuthService
- * 2. Verifies that the user has the admin role
+ * 1. AuthenticationFilter has already required an admin and resolved the principal
+ * 2. The role is checked again on the resolved principal, which costs no session lookup
  * 3. If not authenticated or not an admin, redirects to the login page
+ *
+ * The user list is paged by ID: the "after" parameter is the last ID of the
+ * previous page (see UserDAO.listUsers), and "role" and "email" (a prefix)
+ * filter it.
+ *
+ * In virtual-thread mode (app.virtual_threads.enabled) the user list query
+ * runs on a virtual thread through BlockingIoExecutor, like the login and
+ * image requests, and the view is rendered after an async dispatch; the
+ * container thread is free while the query waits on the database.
  */
-@WebServlet(name = "AdminDashboardServlet", value = "/AdminDashboardServlet")
+@WebServlet(name = "AdminDashboardServlet", value = "/AdminDashboardServlet", asyncSupported = true, loadOnStartup = 1)
 public class AdminDashboardServlet extends HttpServlet {
+    // Users shown per page
+    private static final int PAGE_SIZE = AppConfig.getInt("admin.users.page_size", 25);
+
+    private static final String ADMIN_DASHBOARD_VIEW = "/WEB-INF/views/admin-dashboard.jsp";
+
     /**
      * Handles GET requests to the AdminDashboardServlet
      *
@@ -35,28 +54,104 @@ public class AdminDashboardServlet extends HttpServlet {
      */
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        // Check if the user is authenticated and is an admin
-        if (AuthService.isAuthenticated(request) && AuthService.isAdmin(request)) {
-            // Get the user from the session
-            UserModel user = AuthService.getCurrentUser(request);
+        // Get the user resolved by AuthenticationFilter for this request
+        UserPrincipal user = AuthService.getCurrentUser(request);
+        if (user != null && user.getRole() == UserModel.Role.admin) {
 
             // User is authenticated and is an admin
             request.setAttribute("user", user);
 
-            // Convert image bytes to Base64 for display in JSP
-            if (user.getImage() != null && user.getImage().length > 0) {
-                String base64Image = Base64.getEncoder().encodeToString(user.getImage());
-                request.setAttribute("base64Image", base64Image);
+            // Reference the 120px rendition by a versioned URL so the browser can cache it
+            if (user.hasImage()) {
+                String imageUrl = request.getContextPath() + "/ImageServlet?id=" + user.getId()
+                        + "&v=" + user.getImageHash();
+                request.setAttribute("profileImageUrl", imageUrl + "&size=120");
+                // High-density screens get the 256px rendition
+                request.setAttribute("profileImageSrcset", imageUrl + "&size=256 2x");
+            } else {
+                request.setAttribute("profileImageUrl", request.getContextPath() + StaticAssets.url("images/default-profile.svg"));
             }
 
-            // Forward to dashboard
-            request.getRequestDispatcher("/WEB-INF/views/admin-dashboard.jsp").forward(request, response);
+            if (!BlockingIoExecutor.isVirtualThreadsEnabled()) {
+                loadUserPage(request);
+                // Forward to dashboard
+                request.getRequestDispatcher(ADMIN_DASHBOARD_VIEW).forward(request, response);
+                return;
+            }
+
+            // Virtual-thread mode: query without holding a container thread, then render on the container
+            AsyncContext asyncContext = request.startAsync();
+            BlockingIoExecutor.execute(asyncContext, () -> {
+                try {
+                    loadUserPage(request);
+                    asyncContext.dispatch(ADMIN_DASHBOARD_VIEW);
+                } catch (RuntimeException e) {
+                    System.err.println("Error loading the user list: " + e.getMessage());
+                    response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    asyncContext.complete();
+                }
+            });
         } else {
             // If not authenticated or not an admin, redirect to login
             response.sendRedirect("LoginServlet");
         }
     }
 
+    /**
+     * Load one page of users into the request attributes
+     *
+     * Reads one row more than a page to know whether a next page exists.
+     *
+     * @param request The HTTP request object, with the after, role and email parameters
+     */
+    private static void loadUserPage(HttpServletRequest request) {
+        int afterId = parseAfterId(request.getParameter("after"));
+        UserModel.Role role = parseRole(request.getParameter("role"));
+        String emailPrefix = request.getParameter("email");
+        List<UserModel> users = UserDAO.listUsers(afterId, role, emailPrefix, PAGE_SIZE + 1);
+        if (users.size() > PAGE_SIZE) {
+            users = users.subList(0, PAGE_SIZE);
+            request.setAttribute("nextAfterId", users.get(PAGE_SIZE - 1).getId());
+        }
+        request.setAttribute("users", users);
+        request.setAttribute("roleFilter", role == null ? "" : role.name());
+        request.setAttribute("emailFilter", emailPrefix == null ? "" : emailPrefix.trim());
+    }
+
+    /**
+     * Parse the role filter of the user list
+     *
+     * @param value Request parameter value
+     * @return The role, or null for no filter (missing or unknown value)
+     */
+    static UserModel.Role parseRole(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return UserModel.Role.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse the keyset position of the user list
+     *
+     * @param value Request parameter value
+     * @return The last ID of the previous page, or 0 for the first page
+     */
+    private static int parseAfterId(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Handles POST requests to the AdminDashboardServlet
      *
@@ -70,13 +165,7 @@ public class AdminDashboardServlet extends HttpServlet {
      */
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        // Check if the user is authenticated and is an admin
-        if (!AuthService.isAuthenticated(request) || !AuthService.isAdmin(request)) {
-            // If not authenticated or not an admin, redirect to login
-            response.sendRedirect("LoginServlet");
-            return;
-        }
-
+        // Authorization is enforced by AuthenticationFilter; doGet checks the principal again
         // Process any admin-specific form submissions here
         // For now, just display the dashboard
         doGet(request, response);
@@ -0,0 +1,103 @@
+package com.example.aptutorialworkshop.controllers;
+
+import com.example.aptutorialworkshop.utils.StaticAssets;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import jakarta.servlet.annotation.*;
+import java.io.IOException;
+
+/**
+ * AssetServlet
+ *
+ * Serves the stylesheet, script and placeholder pictures under /assets from
+ * memory (see StaticAssets) instead of the container's default servlet.
+ *
+ * Fingerprinted URLs ("css/styles.1a2b3c4d5e6f.css") are cached by browsers
+ * and proxies for a year without revalidation. Plain URLs still work but must
+ * be revalidated, which costs a 304 when the file has not changed.
+ *
+ * Compressible files are sent as the precomputed brotli or gzip variant when
+ * the browser accepts it, so nothing is compressed per request. The entity tag
+ * is the content hash plus the coding, since each variant has different bytes.
+ */
+@WebServlet(name = "AssetServlet", value = "/assets/*", loadOnStartup = 1)
+public class AssetServlet extends HttpServlet {
+    // Fingerprinted URLs change with the content, so they never need revalidation
+    private static final String CACHE_CONTROL_FINGERPRINTED = "public, max-age=31536000, immutable";
+
+    // Plain URLs may be cached but must be checked against the ETag before use
+    private static final String CACHE_CONTROL_PLAIN = "public, no-cache";
+
+    /**
+     * Handles GET requests
+     *
+     * @param request HTTP request
+     * @param response HTTP response
+     * @throws ServletException If servlet error occurs
+     * @throws IOException If I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String pathInfo = request.getPathInfo();
+        StaticAssets.Asset asset = pathInfo == null ? null : StaticAssets.find(pathInfo.substring(1));
+        if (asset == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Pick the smallest variant the browser accepts
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        byte[] body = asset.identity();
+        String coding = null;
+        if (asset.brotli() != null && StaticAssets.acceptsEncoding(acceptEncoding, "br")) {
+            body = asset.brotli();
+            coding = "br";
+        } else if (asset.gzip() != null && StaticAssets.acceptsEncoding(acceptEncoding, "gzip")) {
+            body = asset.gzip();
+            coding = "gzip";
+        }
+
+        String etag = "\"" + asset.hash() + (coding == null ? "" : "-" + coding) + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", StaticAssets.isFingerprinted(pathInfo.substring(1))
+                ? CACHE_CONTROL_FINGERPRINTED : CACHE_CONTROL_PLAIN);
+        if (asset.gzip() != null || asset.brotli() != null) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+
+        // The browser already has this exact variant
+        if (matchesEtag(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String contentType = getServletContext().getMimeType(asset.path());
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (coding != null) {
+            response.setHeader("Content-Encoding", coding);
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Check an If-None-Match header against the current ETag
+     *
+     * @param ifNoneMatch Header value, possibly a comma separated list or "*"
+     * @param etag Current quoted ETag
+     * @return true if the client's cached copy is still current
+     */
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.aptutorialworkshop.controllers;
+
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.models.UserPrincipal;
+import com.example.aptutorialworkshop.services.AuthService;
+import com.example.aptutorialworkshop.utils.BlockingIoExecutor;
+import com.example.aptutorialworkshop.utils.ImageRenditions;
+import com.example.aptutorialworkshop.utils.ImageStore;
+import com.example.aptutorialworkshop.utils.ImageUtil;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import jakarta.servlet.annotation.*;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * ImageServlet
+ *
+ * Serves a user's profile picture as raw bytes so dashboards can reference it
+ * by URL instead of embedding a Base64 data URI in every page.
+ *
+ * Responses carry the detected Content-Type, a strong ETag derived from the
+ * SHA-256 of the image, and Cache-Control headers; a request whose
+ * If-None-Match matches the current ETag gets 304 Not Modified without a body.
+ * For the user's own picture the ETag is checked against the hash kept in the
+ * session principal, so revalidation does not touch the database at all; other
+ * users' hashes come from the cached profile lookup.
+ *
+ * Pictures are read from the content-addressed ImageStore. When the container
+ * supports sendfile (Tomcat) the file is handed to it and written by the kernel;
+ * otherwise it is copied with FileChannel.transferTo. Rows that still keep the
+ * picture as a BLOB are served from the database as a fallback.
+ *
+ * With size=N the smallest square rendition of at least N pixels is served
+ * (see ImageRenditions). Until it has been generated the original is served
+ * with a short cache lifetime and generation is scheduled in the background.
+ *
+ * Usage: ImageServlet?id=42&v=hash&size=120 (id defaults to the logged-in user).
+ * When v matches the image's hash the URL is immutable and cached long term.
+ * Regular users may only fetch their own picture; admins may fetch any.
+ */
+@WebServlet(name = "ImageServlet", value = "/ImageServlet", asyncSupported = true, loadOnStartup = 1)
+public class ImageServlet extends HttpServlet {
+    // Profile pictures are private to logged-in users, so only the browser may cache them
+    private static final String CACHE_CONTROL = "private, max-age=300";
+
+    // Versioned URLs change whenever the picture changes, so they never need revalidation
+    private static final String CACHE_CONTROL_VERSIONED = "private, max-age=31536000, immutable";
+
+    // Tomcat's sendfile request attributes
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Bytes needed to recognise every signature ImageUtil knows
+    private static final int SIGNATURE_LENGTH = 16;
+
+    /**
+     * Handles GET requests
+     *
+     * @param request HTTP request
+     * @param response HTTP response
+     * @throws ServletException If servlet error occurs
+     * @throws IOException If I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!BlockingIoExecutor.isVirtualThreadsEnabled()) {
+            serveImage(request, response);
+            return;
+        }
+
+        // Virtual-thread mode: read and stream the picture without holding a container thread
+        AsyncContext asyncContext = request.startAsync();
+        BlockingIoExecutor.execute(asyncContext, () -> {
+            try {
+                serveImage(request, response);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error serving profile picture: " + e.getMessage());
+                if (!response.isCommitted()) {
+                    response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+            } finally {
+                asyncContext.complete();
+            }
+        });
+    }
+
+    /**
+     * Write the requested profile picture or an error status
+     *
+     * @param request HTTP request
+     * @param response HTTP response
+     * @throws IOException If I/O error occurs
+     */
+    private void serveImage(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserPrincipal currentUser = AuthService.getCurrentUser(request);
+        if (currentUser == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        // Resolve which user's picture is requested
+        int userId = currentUser.getId();
+        String idParameter = request.getParameter("id");
+        if (idParameter != null && !idParameter.isEmpty()) {
+            try {
+                userId = Integer.parseInt(idParameter);
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid user id");
+                return;
+            }
+        }
+
+        // Regular users can only see their own picture
+        if (userId != currentUser.getId() && currentUser.getRole() != UserModel.Role.admin) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        // The hash comes from the session for the own picture, otherwise from the cached profile
+        String hash;
+        if (userId == currentUser.getId()) {
+            hash = currentUser.getImageHash();
+        } else {
+            UserModel profile = UserDAO.getUserProfileById(userId);
+            hash = profile != null ? profile.getImageHash() : null;
+        }
+        if (hash == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Resolve the rendition that fits the requested display size
+        int renditionSize = 0;
+        String sizeParameter = request.getParameter("size");
+        if (sizeParameter != null && !sizeParameter.isEmpty()) {
+            try {
+                renditionSize = ImageRenditions.fittingSize(Integer.parseInt(sizeParameter));
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid size");
+                return;
+            }
+        }
+        Path rendition = renditionSize > 0 ? ImageStore.findRendition(hash, renditionSize) : null;
+        if (renditionSize > 0 && rendition == null) {
+            // Not generated yet (or the image predates renditions): serve the original for now
+            ImageRenditions.schedule(hash);
+        }
+
+        // Each rendition is its own representation; a stand-in original must not be cached as immutable
+        String etag = rendition != null ? hash + "-" + renditionSize : hash;
+        boolean immutable = hash.equals(request.getParameter("v")) && (renditionSize == 0 || rendition != null);
+        writeCacheHeaders(response, etag, immutable);
+
+        // The browser already has this exact image
+        if (matchesEtag(request.getHeader("If-None-Match"), "\"" + etag + "\"")) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        if (rendition != null) {
+            serveFile(request, response, rendition);
+            return;
+        }
+
+        Path file = ImageStore.find(hash);
+        if (file != null) {
+            serveFile(request, response, file);
+            return;
+        }
+
+        // Fallback for rows whose picture has not been moved out of the database yet
+        byte[] image = UserDAO.getProfilePicture(userId);
+        if (image == null || image.length == 0) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setContentType(ImageUtil.detectContentType(image));
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentLength(image.length);
+        response.getOutputStream().write(image);
+    }
+
+    /**
+     * Write an image file from the ImageStore
+     *
+     * Only the first bytes are read into memory to detect the content type.
+     *
+     * @param request HTTP request
+     * @param response HTTP response
+     * @param file Image file
+     * @throws IOException If I/O error occurs
+     */
+    private void serveFile(HttpServletRequest request, HttpServletResponse response, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            long size = channel.size();
+            response.setContentType(ImageUtil.detectContentType(ImageStore.readHeader(channel, SIGNATURE_LENGTH)));
+            response.setHeader("X-Content-Type-Options", "nosniff");
+            response.setContentLengthLong(size);
+
+            // Let Tomcat send the file from the kernel once the servlet returns
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && !request.isAsyncStarted()) {
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return;
+            }
+
+            ImageStore.transferTo(channel, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    /**
+     * Set the ETag and Cache-Control headers
+     *
+     * @param response HTTP response
+     * @param etag Unquoted entity tag of the representation being served
+     * @param immutable true if the URL is versioned and the final representation is served
+     */
+    private static void writeCacheHeaders(HttpServletResponse response, String etag, boolean immutable) {
+        response.setHeader("ETag", "\"" + etag + "\"");
+        response.setHeader("Cache-Control", immutable ? CACHE_CONTROL_VERSIONED : CACHE_CONTROL);
+    }
+
+    /**
+     * Check an If-None-Match header against the current ETag
+     *
+     * @param ifNoneMatch Header value, possibly a comma separated list or "*"
+     * @param etag Current quoted ETag
+     * @return true if the client's cached copy is still current
+     */
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
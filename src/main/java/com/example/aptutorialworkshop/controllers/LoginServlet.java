@@ -1,11 +1,16 @@
 package com.example.aptutorialworkshop.controllers;
 import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.models.UserPrincipal;
 import com.example.aptutorialworkshop.services.AuthService;
+import com.example.aptutorialworkshop.services.SessionRejectedException;
+import com.example.aptutorialworkshop.utils.AsyncRequest;
+import com.example.aptutorialworkshop.utils.BlockingIoExecutor;
+import com.example.aptutorialworkshop.utils.ClientAddress;
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import jakarta.servlet.annotation.*;
 import java.io.IOException;
-import java.util.Base64;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * LoginServlet
@@ -14,8 +19,13 @@ import java.util.Base64;
  * Creates user sessions after successful authentication.
  * Redirects to appropriate dashboard based on user role.
  */
-@WebServlet(name = "LoginServlet", value = "/LoginServlet")
+@WebServlet(name = "LoginServlet", value = "/LoginServlet", asyncSupported = true, loadOnStartup = 1)
 public class LoginServlet extends HttpServlet {
+    private static final String LOGIN_VIEW = "/WEB-INF/views/login.jsp";
+
+    // HttpServletResponse has no constant for 429
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
     /**
      * Handles GET requests
      *
@@ -32,7 +42,7 @@ public class LoginServlet extends HttpServlet {
         // Check if the user is already logged in
         if (AuthService.isAuthenticated(request)) {
             // Get the user from the session
-            UserModel user = AuthService.getCurrentUser(request);
+            UserPrincipal user = AuthService.getCurrentUser(request);
 
             // Redirect to the appropriate dashboard based on user role
             if (user.getRole() == UserModel.Role.admin) {
@@ -51,7 +61,7 @@ public class LoginServlet extends HttpServlet {
         }
 
         // Forward to the login JSP page
-        request.getRequestDispatcher("/WEB-INF/views/login.jsp").forward(request, response);
+        request.getRequestDispatcher(LOGIN_VIEW).forward(request, response);
     }
 
     /**
@@ -60,6 +70,15 @@ public class LoginServlet extends HttpServlet {
      * Processes login form, validates credentials using BCrypt,
      * creates session on success, and redirects to appropriate dashboard.
      *
+     * The BCrypt verification runs on the hashing executor while the request is
+     * in async mode, so the container thread is released during the hash.
+     * When the executor is saturated the request fails fast with 503.
+     * Clients or emails over their login attempt allowance are answered with
+     * 429 before any credentials are looked up.
+     * In virtual-thread mode the database lookups run on virtual threads too.
+     * A login that is not answered within auth.request_timeout_millis gets
+     * the login page with 503.
+     *
      * @param request HTTP request
      * @param response HTTP response
      * @throws ServletException If servlet error occurs
@@ -75,45 +94,110 @@ public class LoginServlet extends HttpServlet {
             // Validate input - Email
             if (email == null || email.trim().isEmpty()) {
                 request.setAttribute("errorMessage", "Email is required");
-                request.getRequestDispatcher("/WEB-INF/views/login.jsp").forward(request, response);
+                request.getRequestDispatcher(LOGIN_VIEW).forward(request, response);
                 return;
             }
 
             // Validate input - Password
             if (password == null || password.trim().isEmpty()) {
                 request.setAttribute("errorMessage", "Password is required");
-                request.getRequestDispatcher("/WEB-INF/views/login.jsp").forward(request, response);
+                request.getRequestDispatcher(LOGIN_VIEW).forward(request, response);
                 return;
             }
 
-            // Authenticate user through the AuthService
-            UserModel user = AuthService.login(email, password);
+            // Reject attempts over the per-IP or per-email allowance before any BCrypt work
+            long retryAfterSeconds = AuthService.checkLoginRateLimit(ClientAddress.of(request), email);
+            if (retryAfterSeconds > 0) {
+                response.setStatus(SC_TOO_MANY_REQUESTS);
+                response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+                request.setAttribute("errorMessage", "Too many login attempts. Please try again in "
+                        + retryAfterSeconds + " seconds.");
+                request.getRequestDispatcher(LOGIN_VIEW).forward(request, response);
+                return;
+            }
 
-            if (user != null) {
-                // Login successful - Create a session for the user
-                AuthService.createUserSession(request, user, 1800); // 30 minutes timeout
+            // Release the container thread; the lookup runs on a virtual thread when that mode is enabled
+            AsyncRequest asyncRequest = AsyncRequest.start(request, LOGIN_VIEW);
+            if (BlockingIoExecutor.isVirtualThreadsEnabled()) {
+                asyncRequest.run(() -> authenticate(asyncRequest, email, password));
+            } else {
+                authenticate(asyncRequest, email, password);
+            }
+        } catch (Exception e) {
+            // Handle any exceptions
+            request.setAttribute("errorMessage", "An error occurred: " + e.getMessage());
+            request.getRequestDispatcher(LOGIN_VIEW).forward(request, response);
+        }
+    }
 
-                // Convert image bytes to Base64 for display in JSP
-                if (user.getImage() != null && user.getImage().length > 0) {
-                    String base64Image = Base64.getEncoder().encodeToString(user.getImage());
-                    request.setAttribute("base64Image", base64Image);
-                }
+    /**
+     * Start an asynchronous login
+     *
+     * Looks up the credentials and hands the password check to the hashing
+     * executor. When the executor is saturated the request fails fast with 503.
+     *
+     * @param asyncRequest Async part of the login request
+     * @param email Submitted email address
+     * @param password Submitted password
+     */
+    private void authenticate(AsyncRequest asyncRequest, String email, String password) {
+        try {
+            // Authenticate user through the AuthService; the password check runs on the hashing executor,
+            // the session is created back on a container or virtual thread
+            AuthService.loginAsync(email, password)
+                    .whenComplete((user, error) -> asyncRequest.run(() -> completeLogin(asyncRequest, user, error)));
+        } catch (RejectedExecutionException e) {
+            // Too many logins in flight - fail fast instead of queueing without bound
+            if (asyncRequest.claimResponse()) {
+                asyncRequest.showBusy("The server is busy. Please try again in a moment.");
+            }
+        } catch (Exception e) {
+            if (asyncRequest.claimResponse()) {
+                asyncRequest.showError("An error occurred: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Finish an asynchronous login
+     *
+     * Creates the session and redirects on success, otherwise dispatches back
+     * to the login page with an error message. Does nothing if the request
+     * has already timed out.
+     *
+     * @param asyncRequest Async part of the login request
+     * @param user Authenticated user, or null if the credentials were wrong
+     * @param error Failure raised while authenticating, or null
+     */
+    private void completeLogin(AsyncRequest asyncRequest, UserModel user, Throwable error) {
+        if (!asyncRequest.claimResponse()) {
+            return;
+        }
+        try {
+            if (error != null && error.getCause() instanceof RejectedExecutionException) {
+                // The database work after the password check could not be queued
+                asyncRequest.showBusy("The server is busy. Please try again in a moment.");
+            } else if (error != null) {
+                asyncRequest.showError("An error occurred: " + error.getMessage());
+            } else if (user != null) {
+                // Login successful - Create a session for the user
+                AuthService.createUserSession(asyncRequest.getRequest(), asyncRequest.getResponse(), user,
+                        1800); // 30 minutes timeout
 
                 // Redirect to appropriate dashboard based on user role
                 if (user.getRole() == UserModel.Role.admin) {
-                    response.sendRedirect("AdminDashboardServlet");
+                    asyncRequest.redirect("AdminDashboardServlet");
                 } else {
-                    response.sendRedirect("UserDashboardServlet");
+                    asyncRequest.redirect("UserDashboardServlet");
                 }
             } else {
                 // Login failed
-                request.setAttribute("errorMessage", "Invalid email or password");
-                request.getRequestDispatcher("/WEB-INF/views/login.jsp").forward(request, response);
+                asyncRequest.showError("Invalid email or password");
             }
+        } catch (SessionRejectedException e) {
+            asyncRequest.showBusy("Too many users are signed in right now. Please try again in a moment.");
         } catch (Exception e) {
-            // Handle any exceptions
-            request.setAttribute("errorMessage", "An error occurred: " + e.getMessage());
-            request.getRequestDispatcher("/WEB-INF/views/login.jsp").forward(request, response);
+            asyncRequest.showError("An error occurred: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
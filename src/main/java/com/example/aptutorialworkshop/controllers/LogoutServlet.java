@@ -9,10 +9,11 @@ import java.io.IOException;
 /**
  * LogoutServlet
  *
- * Handles user logout by invalidating the session.
+ * Handles user logout by invalidating the session (or removing the session
+ * token cookie in token mode).
  * Redirects to login page with success message.
  */
-@WebServlet(name = "LogoutServlet", value = "/LogoutServlet")
+@WebServlet(name = "LogoutServlet", value = "/LogoutServlet", loadOnStartup = 1)
 public class LogoutServlet extends HttpServlet {
 
     /**
@@ -28,13 +29,10 @@ public class LogoutServlet extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         // Check if the user is actually logged in
-        HttpSession session = request.getSession(false);
-        boolean wasLoggedIn = (session != null && session.getAttribute("user") != null);
+        boolean wasLoggedIn = AuthService.isAuthenticated(request);
 
-        // Invalidate the session using the AuthService
-        AuthService.logout(request);
-
-        // Note: Cookie implementation will be added separately
+        // Invalidate the session and clear the token cookie using the AuthService
+        AuthService.logout(request, response);
 
         // Redirect to the login page with a success message if the user was logged in
         if (wasLoggedIn) {
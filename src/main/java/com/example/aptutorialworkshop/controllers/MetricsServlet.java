@@ -0,0 +1,284 @@
+package com.example.aptutorialworkshop.controllers;
+
+import com.example.aptutorialworkshop.dao.EmailBloomFilter;
+import com.example.aptutorialworkshop.dao.UserCache;
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.dao.UserSearchIndex;
+import com.example.aptutorialworkshop.filters.CompressionFilter;
+import com.example.aptutorialworkshop.services.AuthService;
+import com.example.aptutorialworkshop.services.OffHeapSessionStore;
+import com.example.aptutorialworkshop.services.SessionStore;
+import com.example.aptutorialworkshop.services.TokenSessionStore;
+import com.example.aptutorialworkshop.utils.AppConfig;
+import com.example.aptutorialworkshop.utils.ConnectionPool;
+import com.example.aptutorialworkshop.utils.DBConnectionUtil;
+import com.example.aptutorialworkshop.utils.HashingExecutor;
+import com.example.aptutorialworkshop.utils.ImageRenditions;
+import com.example.aptutorialworkshop.utils.LatencyHistogram;
+import com.example.aptutorialworkshop.utils.MetricsRegistry;
+import com.example.aptutorialworkshop.utils.PasswordHasher;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import jakarta.servlet.annotation.*;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MetricsServlet
+ *
+ * Publishes application metrics in the Prometheus text exposition format:
+ * - per-servlet request latency percentiles, request and error counts and in-flight gauges
+ * - database time (connection hold time), connection pool state and prepared statement cache hits
+ * - password hashing executor saturation, BCrypt cost and stored hashes by cost
+ * - user profile cache effectiveness
+ * - registered email Bloom filter size and false-positive rate
+ * - image rendition pipeline progress
+ * - user search index size and load state (search latency is under UserSearchServlet)
+ * - session store size and, per store, token or off-heap slab counters
+ * - gzip compression of dynamic responses
+ */
+@WebServlet(name = "MetricsServlet", value = "/metrics", loadOnStartup = 1)
+public class MetricsServlet extends HttpServlet {
+    // Quantiles reported for every latency summary
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    // Counting stored hashes by cost scans the users table, so the result is reused for this long
+    private static final long PASSWORD_COSTS_REFRESH_NANOS =
+            TimeUnit.SECONDS.toNanos(AppConfig.getLong("metrics.password_costs_refresh_seconds", 300));
+
+    // Last stored hash count, shared by all requests and servlet instances
+    private static volatile PasswordCosts passwordCosts;
+
+    /**
+     * Handles GET requests
+     *
+     * @param request HTTP request
+     * @param response HTTP response
+     * @throws ServletException If servlet error occurs
+     * @throws IOException If I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        PrintWriter out = response.getWriter();
+
+        writeRequestMetrics(out);
+        writeDatabaseMetrics(out);
+        writeHashingMetrics(out);
+        writeUserCacheMetrics(out);
+        writeEmailFilterMetrics(out);
+        writeImageRenditionMetrics(out);
+        writeUserSearchMetrics(out);
+        writeSessionMetrics(out);
+        writeCompressionMetrics(out);
+    }
+
+    private void writeRequestMetrics(PrintWriter out) {
+        header(out, "http_request_duration_seconds", "summary", "Request latency by servlet");
+        for (MetricsRegistry.RequestStats stats : MetricsRegistry.getRequestStats().values()) {
+            summary(out, "http_request_duration_seconds", "servlet=\"" + stats.getServletName() + "\"", stats.getLatency());
+        }
+
+        header(out, "http_requests_total", "counter", "Finished requests by servlet");
+        for (MetricsRegistry.RequestStats stats : MetricsRegistry.getRequestStats().values()) {
+            sample(out, "http_requests_total", "servlet=\"" + stats.getServletName() + "\"", stats.getRequestCount());
+        }
+
+        header(out, "http_request_errors_total", "counter", "Requests that threw or returned a 5xx status");
+        for (MetricsRegistry.RequestStats stats : MetricsRegistry.getRequestStats().values()) {
+            sample(out, "http_request_errors_total", "servlet=\"" + stats.getServletName() + "\"", stats.getErrorCount());
+        }
+
+        header(out, "http_requests_in_flight", "gauge", "Requests currently being processed");
+        for (MetricsRegistry.RequestStats stats : MetricsRegistry.getRequestStats().values()) {
+            sample(out, "http_requests_in_flight", "servlet=\"" + stats.getServletName() + "\"", stats.getInFlight());
+        }
+    }
+
+    private void writeDatabaseMetrics(PrintWriter out) {
+        ConnectionPool pool = DBConnectionUtil.getPool();
+
+        header(out, "db_time_seconds", "summary", "Time database connections were held by DAO calls");
+        summary(out, "db_time_seconds", null, pool.getHoldTimeHistogram());
+
+        header(out, "db_pool_wait_seconds", "summary", "Time spent waiting for a pooled connection");
+        summary(out, "db_pool_wait_seconds", null, pool.getWaitTimeHistogram());
+
+        gauge(out, "db_pool_active_connections", "Connections checked out", pool.getActiveConnections());
+        gauge(out, "db_pool_idle_connections", "Open connections waiting in the pool", pool.getIdleConnections());
+        gauge(out, "db_pool_total_connections", "Open physical connections", pool.getTotalConnections());
+        gauge(out, "db_pool_max_connections", "Configured maximum pool size", pool.getMaxConnections());
+        gauge(out, "db_pool_waiting_threads", "Callers waiting for a connection", pool.getThreadsAwaitingConnection());
+        counter(out, "db_pool_timeouts_total", "Checkouts that timed out", pool.getTimeoutCount());
+        counter(out, "db_pool_leaks_total", "Connections held past the leak detection threshold", pool.getLeakCount());
+
+        gauge(out, "db_statement_cache_entries", "Idle prepared statements cached across connections", pool.getCachedStatementCount());
+        counter(out, "db_statement_cache_hits_total", "Statements reused from a connection's cache", pool.getStatementCacheHitCount());
+        counter(out, "db_statement_cache_misses_total", "Statements prepared on the server", pool.getStatementCacheMissCount());
+        counter(out, "db_statement_cache_evictions_total", "Statements closed by the cache size bound", pool.getStatementCacheEvictionCount());
+    }
+
+    private void writeHashingMetrics(PrintWriter out) {
+        gauge(out, "bcrypt_executor_active_tasks", "Password hashes in progress", HashingExecutor.getActiveTasks());
+        gauge(out, "bcrypt_executor_queued_tasks", "Password hashes waiting for a thread", HashingExecutor.getQueuedTasks());
+        counter(out, "bcrypt_executor_rejected_total", "Hashing requests rejected with 503", HashingExecutor.getRejectedTasks());
+
+        gauge(out, "bcrypt_target_cost", "Cost new password hashes are created with", PasswordHasher.getTargetCost());
+        header(out, "bcrypt_verifications_total", "counter", "Password verifications by cost of the stored hash");
+        sample(out, "bcrypt_verifications_total", "cost=\"plaintext\"", PasswordHasher.getVerificationCount(0));
+        for (int cost = 4; cost <= 31; cost++) {
+            long count = PasswordHasher.getVerificationCount(cost);
+            if (count > 0) {
+                sample(out, "bcrypt_verifications_total", "cost=\"" + cost + "\"", count);
+            }
+        }
+        header(out, "login_rate_limited_total", "counter", "Login attempts rejected with 429 before verification");
+        sample(out, "login_rate_limited_total", "limit=\"ip\"", AuthService.getIpRateLimitedCount());
+        sample(out, "login_rate_limited_total", "limit=\"email\"", AuthService.getEmailRateLimitedCount());
+        counter(out, "login_rate_limit_overflow_total", "Login attempts limited in a shared bucket because the limiter table was full", AuthService.getRateLimitOverflowCount());
+        counter(out, "bcrypt_rehashes_total", "Stored passwords replaced by a hash at the target cost after login", AuthService.getRehashCount());
+        counter(out, "bcrypt_rehashes_skipped_total", "Rehashes skipped because the hashing executor was busy", AuthService.getRehashSkippedCount());
+        counter(out, "bcrypt_rehashes_failed_total", "Rehashes that could not be computed or stored", AuthService.getRehashFailedCount());
+
+        Map<String, Long> costs = getPasswordCosts();
+        if (costs != null) {
+            header(out, "bcrypt_stored_hashes", "gauge", "Users by cost of their stored password hash (refreshed periodically)");
+            for (Map.Entry<String, Long> entry : costs.entrySet()) {
+                String cost = entry.getKey().startsWith("0") ? entry.getKey().substring(1) : entry.getKey();
+                sample(out, "bcrypt_stored_hashes", "cost=\"" + cost + "\"", entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Get the stored password counts by cost, reloading them when they are stale
+     *
+     * @return Counts by cost, or null if they could not be loaded
+     */
+    private static Map<String, Long> getPasswordCosts() {
+        long now = System.nanoTime();
+        PasswordCosts current = passwordCosts;
+        if (current == null || now - current.loadedAt() > PASSWORD_COSTS_REFRESH_NANOS) {
+            try {
+                current = new PasswordCosts(UserDAO.countPasswordsByCost(), now);
+                passwordCosts = current;
+            } catch (RuntimeException e) {
+                // Keep serving the other metrics; the error is logged by UserDAO
+                return current != null ? current.counts() : null;
+            }
+        }
+        return current.counts();
+    }
+
+    private void writeUserCacheMetrics(PrintWriter out) {
+        UserCache cache = UserDAO.getCache();
+        gauge(out, "user_cache_entries", "Cached user profiles", cache.size());
+        counter(out, "user_cache_hits_total", "Profile lookups served from the cache", cache.getHitCount());
+        counter(out, "user_cache_misses_total", "Profile lookups that went to the database", cache.getMissCount());
+        counter(out, "user_cache_evictions_total", "Profiles evicted by the size bound", cache.getEvictionCount());
+        counter(out, "user_cache_expirations_total", "Profiles dropped after their TTL", cache.getExpirationCount());
+    }
+
+    private void writeEmailFilterMetrics(PrintWriter out) {
+        EmailBloomFilter filter = UserDAO.getEmailFilter();
+        gauge(out, "email_bloom_loaded", "1 once every registered email has been added", filter.isLoaded() ? 1 : 0);
+        gauge(out, "email_bloom_memory_bytes", "Size of the Bloom filter bit array", filter.getMemoryBytes());
+        gauge(out, "email_bloom_hash_functions", "Bits set per email", filter.getHashCount());
+        counter(out, "email_bloom_additions_total", "Emails added to the filter", filter.getAdditionCount());
+        header(out, "email_bloom_estimated_false_positive_rate", "gauge", "False-positive rate implied by the filled bits");
+        sample(out, "email_bloom_estimated_false_positive_rate", null, filter.getEstimatedFalsePositiveRate());
+        counter(out, "email_bloom_negatives_total", "Email lookups the filter reported as unregistered", filter.getNegativeCount());
+        counter(out, "email_bloom_missed_total", "Registered emails the filter reported as unregistered, e.g. from another node", filter.getMissedCount());
+        counter(out, "email_bloom_false_positives_total", "Email lookups the filter passed that found no user", filter.getFalsePositiveCount());
+    }
+
+    private void writeSessionMetrics(PrintWriter out) {
+        SessionStore store = AuthService.getSessionStore();
+        if (store.getSessionCount() >= 0) {
+            gauge(out, "sessions_active", "Live sessions in the session store", store.getSessionCount());
+        }
+        if (store instanceof TokenSessionStore tokens) {
+            counter(out, "session_tokens_issued_total", "Session tokens issued at login or renewal", tokens.getIssuedCount());
+            counter(out, "session_tokens_rejected_total", "Session token cookies that failed verification or had expired", tokens.getRejectedCount());
+        }
+        if (store instanceof OffHeapSessionStore offHeap) {
+            gauge(out, "sessions_capacity", "Sessions the off-heap store can hold", offHeap.getCapacity());
+            gauge(out, "sessions_offheap_bytes", "Direct memory or mapped file taken by session slabs", offHeap.getMemoryBytes());
+            counter(out, "sessions_created_total", "Sessions created", offHeap.getCreatedCount());
+            counter(out, "sessions_expired_total", "Sessions ended by their idle timeout", offHeap.getExpiredCount());
+            counter(out, "sessions_rejected_total", "Logins refused because the session store was full", offHeap.getRejectedCount());
+        }
+    }
+
+    private void writeImageRenditionMetrics(PrintWriter out) {
+        gauge(out, "image_renditions_queued_tasks", "Originals waiting for thumbnail generation", ImageRenditions.getQueuedTasks());
+        counter(out, "image_renditions_generated_total", "Originals whose thumbnails were written", ImageRenditions.getGeneratedCount());
+        counter(out, "image_renditions_dropped_total", "Generation tasks dropped because the queue was full", ImageRenditions.getDroppedCount());
+        counter(out, "image_renditions_failed_total", "Originals that could not be decoded or written", ImageRenditions.getFailedCount());
+    }
+
+    private void writeUserSearchMetrics(PrintWriter out) {
+        UserSearchIndex index = UserDAO.getSearchIndex();
+        gauge(out, "user_search_index_users", "Users in the search index", index.size());
+        gauge(out, "user_search_index_grams", "Distinct trigrams in the search index", index.getGramCount());
+        gauge(out, "user_search_index_complete", "1 once every user has been loaded into the index", index.isComplete() ? 1 : 0);
+        counter(out, "user_search_queries_total", "Searches served by the index", index.getSearchCount());
+    }
+
+    private void writeCompressionMetrics(PrintWriter out) {
+        counter(out, "http_compressed_responses_total", "Dynamic responses sent gzip-compressed", CompressionFilter.getCompressedResponseCount());
+        counter(out, "http_compression_input_bytes_total", "Body bytes of compressed responses before compression", CompressionFilter.getBytesIn());
+        counter(out, "http_compression_output_bytes_total", "Body bytes of compressed responses as sent", CompressionFilter.getBytesOut());
+    }
+
+    private static void header(PrintWriter out, String name, String type, String help) {
+        out.print("# HELP ");
+        out.print(name);
+        out.print(' ');
+        out.println(help);
+        out.print("# TYPE ");
+        out.print(name);
+        out.print(' ');
+        out.println(type);
+    }
+
+    private static void gauge(PrintWriter out, String name, String help, long value) {
+        header(out, name, "gauge", help);
+        sample(out, name, null, value);
+    }
+
+    private static void counter(PrintWriter out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        sample(out, name, null, value);
+    }
+
+    private static void sample(PrintWriter out, String name, String labels, Object value) {
+        out.print(name);
+        if (labels != null) {
+            out.print('{');
+            out.print(labels);
+            out.print('}');
+        }
+        out.print(' ');
+        out.println(value);
+    }
+
+    private static void summary(PrintWriter out, String name, String labels, LatencyHistogram histogram) {
+        String prefix = labels == null ? "" : labels + ",";
+        for (double quantile : QUANTILES) {
+            sample(out, name, prefix + "quantile=\"" + quantile + "\"",
+                    histogram.getPercentileMicros(quantile * 100) / 1_000_000.0);
+        }
+        sample(out, name + "_sum", labels, histogram.getSumMicros() / 1_000_000.0);
+        sample(out, name + "_count", labels, histogram.getCount());
+    }
+
+    /**
+     * Stored password counts by cost and the time they were read
+     */
+    private record PasswordCosts(Map<String, Long> counts, long loadedAt) {
+    }
+}
@@ -1,10 +1,19 @@
 package com.example.aptutorialworkshop.controllers;
+import com.example.aptutorialworkshop.dao.UserDAO;
 import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.models.UserPrincipal;
 import com.example.aptutorialworkshop.services.AuthService;
+import com.example.aptutorialworkshop.services.SessionRejectedException;
+import com.example.aptutorialworkshop.utils.AsyncRequest;
+import com.example.aptutorialworkshop.utils.ImageRenditions;
+import com.example.aptutorialworkshop.utils.ImageStore;
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import jakarta.servlet.annotation.*;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * RegisterServlet
@@ -12,14 +21,42 @@ import java.io.IOException;
  * Handles user registration with profile picture uploads.
  * Secures passwords using BCrypt hashing.
  * Creates user sessions after successful registration.
+ *
+ * The profile picture is streamed from the multipart part into the ImageStore
+ * and never held as a whole on the heap; the container keeps at most
+ * fileSizeThreshold bytes of an upload in memory and spills the rest to disk.
+ *
+ * The servlet is registered by AppContextListener (see register) rather than
+ * by annotation, so its multipart limits follow storage.image_max_bytes.
  */
-@WebServlet(name = "RegisterServlet", value = "/RegisterServlet")
-@MultipartConfig(
-        fileSizeThreshold = 1024 * 1024, // 1MB
-        maxFileSize = 1024 * 1024 * 5, // 5MB
-        maxRequestSize = 1024 * 1024 * 20 // 20MB - Maximum size of the entire request
-)
 public class RegisterServlet extends HttpServlet {
+    private static final String REGISTER_VIEW = "/WEB-INF/views/register.jsp";
+
+    // Uploads larger than this are buffered on disk, not on the heap
+    private static final int FILE_SIZE_THRESHOLD = 64 * 1024;
+
+    // Room for the form fields and multipart headers on top of the image
+    private static final long FORM_OVERHEAD_BYTES = 1024 * 1024;
+
+    /**
+     * Register the servlet with the container
+     *
+     * The container rejects a picture larger than storage.image_max_bytes
+     * before it is spooled to disk, and ImageStore applies the same limit
+     * while storing it, so raising the setting raises both.
+     *
+     * @param context The servlet context being initialized
+     */
+    public static void register(ServletContext context) {
+        long maxImageBytes = ImageStore.getMaxImageBytes();
+        ServletRegistration.Dynamic registration = context.addServlet("RegisterServlet", RegisterServlet.class);
+        registration.addMapping("/RegisterServlet");
+        registration.setAsyncSupported(true);
+        registration.setLoadOnStartup(1);
+        registration.setMultipartConfig(new MultipartConfigElement(
+                "", maxImageBytes, maxImageBytes + FORM_OVERHEAD_BYTES, FILE_SIZE_THRESHOLD));
+    }
+
     /**
      * Handles GET requests
      *
@@ -36,7 +73,7 @@ public class RegisterServlet extends HttpServlet {
         // Check if the user is already logged in
         if (AuthService.isAuthenticated(request)) {
             // Get the user from the session
-            UserModel user = AuthService.getCurrentUser(request);
+            UserPrincipal user = AuthService.getCurrentUser(request);
 
             // Redirect to the appropriate dashboard based on user role
             if (user.getRole() == UserModel.Role.admin) {
@@ -48,7 +85,7 @@ public class RegisterServlet extends HttpServlet {
         }
 
         // User is not logged in, show the registration form
-        request.getRequestDispatcher("/WEB-INF/views/register.jsp").forward(request, response);
+        request.getRequestDispatcher(REGISTER_VIEW).forward(request, response);
     }
 
     /**
@@ -57,6 +94,13 @@ public class RegisterServlet extends HttpServlet {
      * Processes registration form, validates input, creates user with BCrypt hashed password,
      * and creates session on success.
      *
+     * The password is hashed on the hashing executor while the request is in
+     * async mode; the database insert then continues on a container thread,
+     * or on a virtual thread when that mode is enabled.
+     * When the executor is saturated the request fails fast with 503, and a
+     * registration not answered within auth.request_timeout_millis gets the
+     * form back with 503.
+     *
      * @param request HTTP request
      * @param response HTTP response
      * @throws ServletException If servlet error occurs
@@ -65,6 +109,18 @@ public class RegisterServlet extends HttpServlet {
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         try {
+            // Parse the multipart body first; an oversized picture fails here, not as a missing field
+            Part imagePart;
+            try {
+                imagePart = request.getPart("image");
+            } catch (IllegalStateException e) {
+                // The container refused the upload for exceeding the registered limit
+                request.setAttribute("errorMessage", "Profile picture must not be larger than "
+                        + (ImageStore.getMaxImageBytes() / (1024 * 1024)) + "MB");
+                request.getRequestDispatcher(REGISTER_VIEW).forward(request, response);
+                return;
+            }
+
             // Get form parameters
             String name = request.getParameter("name");
             String email = request.getParameter("email");
@@ -75,64 +131,149 @@ public class RegisterServlet extends HttpServlet {
             // Validate input - Name
             if (name == null || name.trim().isEmpty()) {
                 request.setAttribute("errorMessage", "Name is required");
-                request.getRequestDispatcher("/WEB-INF/views/register.jsp").forward(request, response);
+                request.getRequestDispatcher(REGISTER_VIEW).forward(request, response);
                 return;
             }
 
             // Validate input - Email
             if (email == null || email.trim().isEmpty() || !email.contains("@")) {
                 request.setAttribute("errorMessage", "Valid email is required");
-                request.getRequestDispatcher("/WEB-INF/views/register.jsp").forward(request, response);
+                request.getRequestDispatcher(REGISTER_VIEW).forward(request, response);
                 return;
             }
 
             // Validate input - Password
             if (password == null || password.trim().isEmpty()) {
                 request.setAttribute("errorMessage", "Password is required");
-                request.getRequestDispatcher("/WEB-INF/views/register.jsp").forward(request, response);
+                request.getRequestDispatcher(REGISTER_VIEW).forward(request, response);
                 return;
             }
 
             // Validate input - Password confirmation
             if (!password.equals(confirmPassword)) {
                 request.setAttribute("errorMessage", "Passwords do not match");
-                request.getRequestDispatcher("/WEB-INF/views/register.jsp").forward(request, response);
+                request.getRequestDispatcher(REGISTER_VIEW).forward(request, response);
+                return;
+            }
+
+            // Reject a duplicate email before storing the picture and hashing the password;
+            // the Bloom filter answers most new emails without a query
+            if (UserDAO.isEmailRegistered(email)) {
+                request.setAttribute("errorMessage", "Email is already registered");
+                request.getRequestDispatcher(REGISTER_VIEW).forward(request, response);
                 return;
             }
 
-            // Process profile image upload
-            Part imagePart = request.getPart("image");
-            byte[] imageBytes = null;
+            // Stream the profile image upload into the image store
+            String imageHash = null;
 
             if (imagePart != null && imagePart.getSize() > 0) {
-                imageBytes = imagePart.getInputStream().readAllBytes();
+                try (InputStream imageStream = imagePart.getInputStream()) {
+                    imageHash = ImageStore.store(imageStream);
+                    // Thumbnails are produced in the background while the password is hashed
+                    if (imageHash != null) {
+                        ImageRenditions.schedule(imageHash);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Image exceeds the size limit
+                    request.setAttribute("errorMessage", e.getMessage());
+                    request.getRequestDispatcher(REGISTER_VIEW).forward(request, response);
+                    return;
+                }
+            }
+
+            // Hash the password on the hashing executor
+            CompletableFuture<String> passwordHash;
+            try {
+                passwordHash = AuthService.hashPasswordAsync(password);
+            } catch (RejectedExecutionException e) {
+                // Too many hashes in flight - fail fast instead of queueing without bound
+                response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                response.setHeader("Retry-After", "1");
+                request.setAttribute("errorMessage", "The server is busy. Please try again in a moment.");
+                request.getRequestDispatcher(REGISTER_VIEW).forward(request, response);
+                return;
+            }
+
+            // Release the container thread while hashing, then insert on a container or virtual thread
+            AsyncRequest asyncRequest = AsyncRequest.start(request, REGISTER_VIEW);
+            String image = imageHash;
+            passwordHash.whenComplete((hash, error) -> asyncRequest.run(
+                    () -> completeRegistration(asyncRequest, name, email, hash, role, image, error)));
+        } catch (Exception e) {
+            // Handle any exceptions
+            request.setAttribute("errorMessage", "An error occurred: " + e.getMessage());
+            request.getRequestDispatcher(REGISTER_VIEW).forward(request, response);
+        }
+    }
+
+    /**
+     * Finish an asynchronous registration
+     *
+     * Inserts the user with the computed hash, creates the session and redirects
+     * on success, otherwise dispatches back to the registration page. If the
+     * request timed out during the insert, the account exists but no session
+     * is created; the user can log in.
+     *
+     * @param asyncRequest Async part of the registration request
+     * @param name User's full name
+     * @param email User's email address
+     * @param passwordHash BCrypt hash of the password, or null if hashing failed
+     * @param role User's role
+     * @param imageHash ImageStore hash of the profile picture, or null
+     * @param error Failure raised while hashing, or null
+     */
+    private void completeRegistration(AsyncRequest asyncRequest, String name, String email, String passwordHash,
+                                      String role, String imageHash, Throwable error) {
+        int userID;
+        try {
+            if (error != null) {
+                throw new IllegalStateException(error.getMessage(), error);
             }
 
             // Register user through the AuthService
-            int userID = AuthService.register(name, email, password, role, imageBytes);
+            userID = AuthService.registerWithHash(name, email, passwordHash, role, imageHash);
+        } catch (Exception e) {
+            // Handle any exceptions
+            if (asyncRequest.claimResponse()) {
+                asyncRequest.showError("An error occurred: " + e.getMessage());
+            }
+            return;
+        }
+        if (!asyncRequest.claimResponse()) {
+            return;
+        }
 
+        // The response is claimed from here on; failures are answered on it without claiming again
+        try {
             if (userID != -1) {
                 // Registration successful - Get the user and create a session
                 UserModel user = AuthService.getUserById(userID);
+                if (user == null) {
+                    asyncRequest.showError("Your account was created. Please log in.");
+                    return;
+                }
 
                 // Create a session for the new user
-                AuthService.createUserSession(request, user, 1800); // 30 minutes timeout
+                AuthService.createUserSession(asyncRequest.getRequest(), asyncRequest.getResponse(), user,
+                        1800); // 30 minutes timeout
 
                 // Redirect to the appropriate dashboard based on user role
                 if (user.getRole() == UserModel.Role.admin) {
-                    response.sendRedirect("AdminDashboardServlet");
+                    asyncRequest.redirect("AdminDashboardServlet");
                 } else {
-                    response.sendRedirect("UserDashboardServlet");
+                    asyncRequest.redirect("UserDashboardServlet");
                 }
             } else {
                 // Registration failed
-                request.setAttribute("errorMessage", "Registration failed. Email may already be in use.");
-                request.getRequestDispatcher("/WEB-INF/views/register.jsp").forward(request, response);
+                asyncRequest.showError("Registration failed. Email may already be in use.");
             }
+        } catch (SessionRejectedException e) {
+            // The account exists; only the session could not be started
+            asyncRequest.showBusy("Your account was created, but too many users are signed in right now."
+                    + " Please log in again in a moment.");
         } catch (Exception e) {
-            // Handle any exceptions
-            request.setAttribute("errorMessage", "An error occurred: " + e.getMessage());
-            request.getRequestDispatcher("/WEB-INF/views/register.jsp").forward(request, response);
+            asyncRequest.showError("An error occurred: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
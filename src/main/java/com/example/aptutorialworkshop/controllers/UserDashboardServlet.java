@@ -1,11 +1,12 @@
 package com.example.aptutorialworkshop.controllers;
 import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.models.UserPrincipal;
 import com.example.aptutorialworkshop.services.AuthService;
+import com.example.aptutorialworkshop.utils.StaticAssets;
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import jakarta.servlet.annotation.*;
 import java.io.IOException;
-import java.util.Base64;
 
 /**
  * UserDashboardServlet
@@ -14,11 +15,11 @@ import java.util.Base64;
  * displaying the user dashboard and processing user-specific actions.
  *
  * Session management implementation:
- * 1. Checks if the user is authenticated using AuthService
- * 2. If authenticated, displays the dashboard with user information
- * 3. If not authenticated, redirects to the login page
+ * 1. AuthenticationFilter has already required a logged-in user and resolved the principal
+ * 2. Displays the dashboard with user information
+ * 3. Admins are sent on to the admin dashboard
  */
-@WebServlet(name = "UserDashboardServlet", value = "/UserDashboardServlet")
+@WebServlet(name = "UserDashboardServlet", value = "/UserDashboardServlet", loadOnStartup = 1)
 public class UserDashboardServlet extends HttpServlet {
     /**
      * Handles GET requests to the UserDashboardServlet
@@ -33,10 +34,9 @@ public class UserDashboardServlet extends HttpServlet {
      */
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        // Check if the user is authenticated
-        if (AuthService.isAuthenticated(request)) {
-            // Get the user from the session
-            UserModel user = AuthService.getCurrentUser(request);
+        // Get the user resolved by AuthenticationFilter for this request
+        UserPrincipal user = AuthService.getCurrentUser(request);
+        if (user != null) {
 
             // Check if this is a regular user (not admin)
             if (user.getRole() != UserModel.Role.user) {
@@ -48,10 +48,15 @@ public class UserDashboardServlet extends HttpServlet {
             // User is authenticated and has the correct role
             request.setAttribute("user", user);
 
-            // Convert image bytes to Base64 for display in JSP
-            if (user.getImage() != null && user.getImage().length > 0) {
-                String base64Image = Base64.getEncoder().encodeToString(user.getImage());
-                request.setAttribute("base64Image", base64Image);
+            // Reference the 120px rendition by a versioned URL so the browser can cache it
+            if (user.hasImage()) {
+                String imageUrl = request.getContextPath() + "/ImageServlet?id=" + user.getId()
+                        + "&v=" + user.getImageHash();
+                request.setAttribute("profileImageUrl", imageUrl + "&size=120");
+                // High-density screens get the 256px rendition
+                request.setAttribute("profileImageSrcset", imageUrl + "&size=256 2x");
+            } else {
+                request.setAttribute("profileImageUrl", request.getContextPath() + StaticAssets.url("images/default-profile.svg"));
             }
 
             // Forward to dashboard
@@ -75,13 +80,7 @@ public class UserDashboardServlet extends HttpServlet {
      */
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        // Check if the user is authenticated
-        if (!AuthService.isAuthenticated(request)) {
-            // If not authenticated, redirect to login
-            response.sendRedirect("LoginServlet");
-            return;
-        }
-
+        // Authentication is enforced by AuthenticationFilter; doGet handles the principal
         // Process any user-specific form submissions here
         // For now, just display the dashboard
         doGet(request, response);
@@ -0,0 +1,98 @@
+package com.example.aptutorialworkshop.controllers;
+
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.utils.AppConfig;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import jakarta.servlet.annotation.*;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * UserExportServlet
+ *
+ * Streams the user list as CSV (id, name, email, role) for the admin
+ * dashboard's "Export User Data" action. Admin access is enforced by
+ * AuthenticationFilter for everything under /admin/.
+ *
+ * Users are read with UserDAO.listUsers in keyset batches of
+ * admin.users.export_batch_size and written out batch by batch, so exporting
+ * a million users holds one batch in memory, and a database connection is
+ * only borrowed while a batch is read, never while the client downloads.
+ * The export stops at the next batch when the client disconnects.
+ *
+ * Accepts the same role and email filters as the dashboard list.
+ */
+@WebServlet(name = "UserExportServlet", value = "/admin/export", loadOnStartup = 1)
+public class UserExportServlet extends HttpServlet {
+    // Users fetched per query
+    private static final int BATCH_SIZE = AppConfig.getInt("admin.users.export_batch_size", 1000);
+
+    /**
+     * Handles GET requests
+     *
+     * @param request HTTP request
+     * @param response HTTP response
+     * @throws ServletException If servlet error occurs
+     * @throws IOException If I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        UserModel.Role role = AdminDashboardServlet.parseRole(request.getParameter("role"));
+        String emailPrefix = request.getParameter("email");
+
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"users.csv\"");
+        response.setHeader("Cache-Control", "no-store");
+        PrintWriter out = response.getWriter();
+
+        out.print("id,name,email,role\r\n");
+        int afterId = 0;
+        StringBuilder line = new StringBuilder(128);
+        while (true) {
+            List<UserModel> users = UserDAO.listUsers(afterId, role, emailPrefix, BATCH_SIZE);
+            for (UserModel user : users) {
+                line.setLength(0);
+                line.append(user.getId()).append(',');
+                appendField(line, user.getName());
+                line.append(',');
+                appendField(line, user.getEmail());
+                line.append(',').append(user.getRole().name()).append("\r\n");
+                out.append(line);
+            }
+            if (users.size() < BATCH_SIZE) {
+                break;
+            }
+            afterId = users.get(users.size() - 1).getId();
+            // Send what we have so the download progresses and the buffer does not grow
+            out.flush();
+            // PrintWriter swallows IOExceptions; stop paging once the client has gone
+            if (out.checkError()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Append a CSV field, quoted when it contains a separator, quote or line break
+     *
+     * Values starting with a spreadsheet formula character are prefixed with
+     * an apostrophe so opening the export cannot run a formula a user put in
+     * their name.
+     *
+     * @param line Destination
+     * @param value Field value
+     */
+    private static void appendField(StringBuilder line, String value) {
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.aptutorialworkshop.controllers;
+
+import com.example.aptutorialworkshop.services.ImportJob;
+import com.example.aptutorialworkshop.services.UserImportService;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import jakarta.servlet.annotation.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * UserImportServlet
+ *
+ * Admin endpoint for bulk user imports (admin access is enforced by
+ * AuthenticationFilter for everything under /admin/).
+ *
+ * POST uploads a CSV or JSON-lines file, either as the "file" part of a
+ * multipart form or as the raw request body. The upload is streamed to a
+ * temporary file and imported in the background; the response is
+ * 202 Accepted with the job status and a Location to poll.
+ *
+ * GET ?job=ID returns the progress, throughput and row errors of a job;
+ * GET without a job lists recent jobs.
+ *
+ * The format comes from the "format" parameter (csv or jsonl), the file
+ * name, or the Content-Type, in that order; CSV is the default.
+ *
+ * Because an import creates accounts, including admins, a POST must carry
+ * an X-Requested-With header, which a cross-site form cannot send, and an
+ * Origin or Referer header, when present, must name this host. Both are
+ * checked before the upload is read.
+ */
+@WebServlet(name = "UserImportServlet", value = "/admin/import", loadOnStartup = 1)
+@MultipartConfig(
+        fileSizeThreshold = 64 * 1024, // 64KB - larger uploads are buffered on disk
+        maxFileSize = 1024L * 1024 * 200, // 200MB
+        maxRequestSize = 1024L * 1024 * 201
+)
+public class UserImportServlet extends HttpServlet {
+    // Header a cross-site form cannot set without a CORS preflight
+    private static final String REQUESTED_WITH_HEADER = "X-Requested-With";
+
+    /**
+     * Handles GET requests
+     *
+     * @param request HTTP request
+     * @param response HTTP response
+     * @throws ServletException If servlet error occurs
+     * @throws IOException If I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        PrintWriter out = response.getWriter();
+
+        String jobId = request.getParameter("job");
+        if (jobId == null) {
+            // List recent jobs without their row errors
+            List<ImportJob> jobs = UserImportService.getJobs();
+            out.print('[');
+            for (int i = 0; i < jobs.size(); i++) {
+                if (i > 0) {
+                    out.print(',');
+                }
+                out.print(jobs.get(i).toJson(false));
+            }
+            out.print(']');
+            return;
+        }
+
+        ImportJob job = UserImportService.getJob(jobId);
+        if (job == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            out.print("{\"error\":\"Unknown import job\"}");
+            return;
+        }
+        out.print(job.toJson(true));
+    }
+
+    /**
+     * Handles POST requests
+     *
+     * @param request HTTP request
+     * @param response HTTP response
+     * @throws ServletException If servlet error occurs
+     * @throws IOException If I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+
+        // Refuse cross-site requests before anything is spooled
+        if (!isSameOriginRequest(request)) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            response.getWriter().print("{\"error\":\"Cross-site import requests are not allowed\"}");
+            return;
+        }
+
+        String formatHint = request.getParameter("format");
+        Path file = Files.createTempFile("user-import-", ".tmp");
+        try {
+            // Spool the upload so the import can outlive the request
+            String contentType = request.getContentType();
+            if (contentType != null && contentType.startsWith("multipart/")) {
+                Part part = request.getPart("file");
+                if (part == null || part.getSize() == 0) {
+                    Files.deleteIfExists(file);
+                    response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                    response.getWriter().print("{\"error\":\"No file uploaded\"}");
+                    return;
+                }
+                try (InputStream in = part.getInputStream()) {
+                    Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (formatHint == null || formatHint.isEmpty()) {
+                    formatHint = part.getSubmittedFileName();
+                }
+            } else {
+                try (InputStream in = request.getInputStream()) {
+                    Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            if (formatHint == null || formatHint.isEmpty()) {
+                formatHint = contentType;
+            }
+
+            ImportJob job = UserImportService.submit(file, UserImportService.Format.fromHint(formatHint));
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
+            response.setHeader("Location", request.getContextPath() + "/admin/import?job=" + job.getId());
+            response.getWriter().print(job.toJson(false));
+        } catch (RejectedExecutionException e) {
+            // Imports already running and queued - ask the client to come back later
+            Files.deleteIfExists(file);
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "60");
+            response.getWriter().print("{\"error\":\"Another import is in progress\"}");
+        } catch (IOException | ServletException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Check that a request was not sent by another site
+     *
+     * The X-Requested-With header is required. Browsers send Origin (or at
+     * least Referer) with a POST, so when either is present its host and
+     * port must match the Host header; clients such as curl send neither.
+     *
+     * @param request HTTP request
+     * @return true if the request may start an import
+     */
+    static boolean isSameOriginRequest(HttpServletRequest request) {
+        String requestedWith = request.getHeader(REQUESTED_WITH_HEADER);
+        if (requestedWith == null || requestedWith.isEmpty()) {
+            return false;
+        }
+
+        String host = request.getHeader("Host");
+        String origin = request.getHeader("Origin");
+        if (origin != null) {
+            return host != null && host.equalsIgnoreCase(authorityOf(origin));
+        }
+        String referer = request.getHeader("Referer");
+        if (referer != null) {
+            return host != null && host.equalsIgnoreCase(authorityOf(referer));
+        }
+        return true;
+    }
+
+    /**
+     * Get the host[:port] part of an absolute URL
+     *
+     * @param url Origin or Referer header value
+     * @return The authority, or null if the value is not an absolute http(s) URL (e.g. "null")
+     */
+    private static String authorityOf(String url) {
+        try {
+            URI uri = new URI(url);
+            String scheme = uri.getScheme();
+            if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) {
+                return null;
+            }
+            return uri.getRawAuthority();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.aptutorialworkshop.controllers;
+
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.dao.UserSearchIndex;
+import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.utils.JsonUtil;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import jakarta.servlet.annotation.*;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * UserSearchServlet
+ *
+ * Typeahead search for the admin dashboard: GET ?q=text&limit=n returns the
+ * users whose email or name contains the text, as JSON. Admin access is
+ * enforced by AuthenticationFilter for everything under /admin/.
+ *
+ * Searches are answered from the in-memory UserSearchIndex without touching
+ * the database. "complete" is false while the index is still loading at
+ * startup, in which case recently loaded users may be missing.
+ */
+@WebServlet(name = "UserSearchServlet", value = "/admin/search", loadOnStartup = 1)
+public class UserSearchServlet extends HttpServlet {
+    // Results returned when no limit is given, and the most a request may ask for
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    /**
+     * Handles GET requests
+     *
+     * @param request HTTP request
+     * @param response HTTP response
+     * @throws ServletException If servlet error occurs
+     * @throws IOException If I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+
+        UserSearchIndex index = UserDAO.getSearchIndex();
+        if (!index.isEnabled()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.getWriter().print("{\"error\":\"User search is disabled\"}");
+            return;
+        }
+
+        String query = request.getParameter("q");
+        int limit = DEFAULT_LIMIT;
+        String limitParam = request.getParameter("limit");
+        if (limitParam != null) {
+            try {
+                limit = Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(limitParam)));
+            } catch (NumberFormatException e) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.getWriter().print("{\"error\":\"Invalid limit\"}");
+                return;
+            }
+        }
+
+        List<UserModel> users = index.search(query, limit);
+
+        StringBuilder json = new StringBuilder(64 + users.size() * 96);
+        json.append("{\"complete\":").append(index.isComplete()).append(",\"results\":[");
+        for (int i = 0; i < users.size(); i++) {
+            UserModel user = users.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(user.getId()).append(",\"name\":");
+            JsonUtil.appendQuoted(json, user.getName());
+            json.append(",\"email\":");
+            JsonUtil.appendQuoted(json, user.getEmail());
+            json.append(",\"role\":\"").append(user.getRole().name()).append("\"}");
+        }
+        json.append("]}");
+        response.getWriter().print(json);
+    }
+}
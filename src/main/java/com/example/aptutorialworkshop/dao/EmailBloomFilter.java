@@ -0,0 +1,264 @@
+package com.example.aptutorialworkshop.dao;
+
+import com.example.aptutorialworkshop.models.UserModel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EmailBloomFilter Class
+ *
+ * A Bloom filter over the normalized emails of all registered users. It
+ * answers "definitely not registered" without a database round trip; a
+ * "maybe" still has to be confirmed by a query.
+ *
+ * The filter is sized for expectedUsers at the target false-positive rate
+ * and stored in an AtomicLongArray, so additions are lock-free and lookups
+ * take no lock at all. load() fills it from the users table at startup;
+ * until that has finished mightContain() answers "maybe" for everything, so
+ * no registered user is ever reported as unknown. UserDAO adds every email
+ * it inserts afterwards.
+ *
+ * Emails registered by another node sharing the database, or inserted into
+ * it directly, are not seen until they are added here, so a negative is only
+ * trusted where a mistake is caught later (the unique index on email catches
+ * a duplicate registration). Login lookups always query the database and
+ * pass an email the filter missed to addMissed().
+ */
+public class EmailBloomFilter {
+    private final boolean enabled;
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedUsers;
+    private volatile boolean loaded;
+
+    private final LongAdder bitsSet = new LongAdder();
+    private final LongAdder additions = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder missed = new LongAdder();
+
+    /**
+     * Create an empty filter
+     *
+     * @param enabled false to create a filter that always answers "maybe"
+     * @param expectedUsers Number of emails the filter is sized for
+     * @param falsePositiveRate Target false-positive rate at that size, e.g. 0.01
+     */
+    public EmailBloomFilter(boolean enabled, long expectedUsers, double falsePositiveRate) {
+        this.enabled = enabled;
+        this.expectedUsers = Math.max(1, expectedUsers);
+        // Optimal size and hash count: m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long bits = enabled
+                ? (long) Math.ceil(-this.expectedUsers * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)))
+                : 64;
+        this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64));
+        this.bitCount = words.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / this.expectedUsers * Math.log(2)));
+    }
+
+    /**
+     * Add all registered emails from the database
+     *
+     * @param batchSize Users read per query
+     */
+    public void load(int batchSize) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        int afterId = 0;
+        long count = 0;
+        try {
+            while (true) {
+                List<UserModel> batch = UserDAO.listUsers(afterId, null, null, batchSize);
+                for (UserModel user : batch) {
+                    add(user.getEmail());
+                }
+                count += batch.size();
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } catch (RuntimeException e) {
+            // Stay unloaded: every lookup keeps going to the database
+            System.err.println("Error loading email Bloom filter: " + e.getMessage());
+            return;
+        }
+        loaded = true;
+        System.out.println("Email Bloom filter loaded " + count + " emails in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms (" + getMemoryBytes() / 1024 + " KB, "
+                + hashCount + " hashes)");
+        if (count > expectedUsers) {
+            System.err.println("Email Bloom filter holds more emails than bloom.email.expected_users ("
+                    + expectedUsers + "); raise it to keep the false-positive rate down");
+        }
+    }
+
+    /**
+     * Add a registered email
+     *
+     * @param email Email address
+     */
+    public void add(String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+        long hash = hash(email);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    bitsSet.increment();
+                    break;
+                }
+                current = words.get(word);
+            }
+        }
+        additions.increment();
+    }
+
+    /**
+     * Add a registered email the filter reported as unregistered
+     *
+     * @param email Email address found in the database
+     */
+    public void addMissed(String email) {
+        missed.increment();
+        add(email);
+    }
+
+    /**
+     * Check whether an email may be registered
+     *
+     * @param email Email address
+     * @return false if the email was not registered when the filter last saw it
+     */
+    public boolean mightContain(String email) {
+        if (!loaded || email == null) {
+            return true;
+        }
+        long hash = hash(email);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                negatives.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Record that a "maybe" answer turned out to be an unregistered email
+     */
+    public void recordFalsePositive() {
+        if (loaded) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Check whether the filter answers lookups
+     *
+     * @return true once load() has finished successfully
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Get the memory used by the bit array
+     *
+     * @return Size in bytes
+     */
+    public long getMemoryBytes() {
+        return words.length() * 8L;
+    }
+
+    /**
+     * Get the number of hash functions
+     *
+     * @return Bits set per email
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Get the number of emails added (including repeated additions)
+     *
+     * @return Addition count
+     */
+    public long getAdditionCount() {
+        return additions.sum();
+    }
+
+    /**
+     * Estimate the current false-positive rate from how full the bit array is
+     *
+     * @return Probability that an unregistered email is reported as "maybe"
+     */
+    public double getEstimatedFalsePositiveRate() {
+        return Math.pow((double) bitsSet.sum() / bitCount, hashCount);
+    }
+
+    /**
+     * Get the number of lookups answered "definitely not registered"
+     *
+     * @return Negative count
+     */
+    public long getNegativeCount() {
+        return negatives.sum();
+    }
+
+    /**
+     * Get the number of "maybe" answers the database showed to be wrong
+     *
+     * @return False-positive count
+     */
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    /**
+     * Get the number of registered emails the filter reported as unregistered
+     *
+     * @return Emails found by a lookup after a negative answer
+     */
+    public long getMissedCount() {
+        return missed.sum();
+    }
+
+    /**
+     * Hash a normalized email (64-bit FNV-1a over its UTF-8 bytes, then mixed)
+     *
+     * @param email Email address
+     * @return 64-bit hash
+     */
+    private static long hash(String email) {
+        byte[] bytes = UserDAO.normalizeEmail(email).getBytes(StandardCharsets.UTF_8);
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
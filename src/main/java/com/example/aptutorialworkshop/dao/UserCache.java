@@ -0,0 +1,257 @@
+package com.example.aptutorialworkshop.dao;
+
+import com.example.aptutorialworkshop.models.UserModel;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * UserCache Class
+ *
+ * A bounded in-process cache of user profiles (no password hash, no picture
+ * bytes) keyed by user id, with a secondary email to id index.
+ *
+ * - Size bound: once maxEntries is reached the least recently used entry is evicted.
+ * - TTL: entries older than the configured time to live are treated as misses.
+ * - Invalidation: UserDAO removes or replaces entries when users are written.
+ *
+ * Emails are indexed in UserDAO.normalizeEmail form (lower-cased, accents
+ * stripped) because MySQL compares the email column that way. Callers always receive a copy, so a cached entry can
+ * never be modified through a returned UserModel.
+ */
+public class UserCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // Access-ordered map: iteration starts at the least recently used entry
+    private final LinkedHashMap<Integer, CachedUser> entries;
+    private final Map<String, Integer> idsByEmail = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Create a cache
+     *
+     * @param maxEntries Maximum number of cached users; 0 disables caching
+     * @param ttlSeconds Seconds an entry stays valid after it was loaded
+     */
+    public UserCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Look up a user by id
+     *
+     * @param id User ID
+     * @return A copy of the cached profile, or null on a miss
+     */
+    public UserModel getById(int id) {
+        lock.lock();
+        try {
+            CachedUser cached = entries.get(id);
+            if (cached == null) {
+                misses.increment();
+                return null;
+            }
+            if (System.nanoTime() - cached.loadedAt() > ttlNanos) {
+                removeEntry(id);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return copyOf(cached.user());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Look up a user by email
+     *
+     * @param email Email address
+     * @return A copy of the cached profile, or null on a miss
+     */
+    public UserModel getByEmail(String email) {
+        Integer id;
+        lock.lock();
+        try {
+            id = idsByEmail.get(normalize(email));
+        } finally {
+            lock.unlock();
+        }
+        if (id == null) {
+            misses.increment();
+            return null;
+        }
+        return getById(id);
+    }
+
+    /**
+     * Add or replace a user
+     *
+     * @param user Profile loaded from the database
+     */
+    public void put(UserModel user) {
+        if (maxEntries <= 0 || user == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            removeEntry(user.getId());
+            entries.put(user.getId(), new CachedUser(copyOf(user), System.nanoTime()));
+            if (user.getEmail() != null) {
+                idsByEmail.put(normalize(user.getEmail()), user.getId());
+            }
+
+            // Evict least recently used entries beyond the size bound
+            Iterator<Map.Entry<Integer, CachedUser>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                CachedUser evicted = eldest.next().getValue();
+                eldest.remove();
+                removeEmail(evicted.user());
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a user by id
+     *
+     * @param id User ID
+     */
+    public void invalidate(int id) {
+        lock.lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a user by email
+     *
+     * @param email Email address
+     */
+    public void invalidateEmail(String email) {
+        lock.lock();
+        try {
+            Integer id = idsByEmail.remove(normalize(email));
+            if (id != null) {
+                entries.remove(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove every entry
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            idsByEmail.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of cached users
+     *
+     * @return Entry count
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of lookups served from the cache
+     *
+     * @return Hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups that went to the database
+     *
+     * @return Miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of entries evicted by the size bound
+     *
+     * @return Eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Get the number of entries dropped because their TTL had passed
+     *
+     * @return Expiration count
+     */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    private void removeEntry(int id) {
+        CachedUser removed = entries.remove(id);
+        if (removed != null) {
+            removeEmail(removed.user());
+        }
+    }
+
+    private void removeEmail(UserModel user) {
+        if (user.getEmail() != null) {
+            idsByEmail.remove(normalize(user.getEmail()), user.getId());
+        }
+    }
+
+    private static String normalize(String email) {
+        return UserDAO.normalizeEmail(email);
+    }
+
+    private static UserModel copyOf(UserModel user) {
+        UserModel copy = new UserModel();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setRole(user.getRole());
+        copy.setImageHash(user.getImageHash());
+        return copy;
+    }
+
+    /**
+     * A cached profile and the time it was loaded
+     */
+    private record CachedUser(UserModel user, long loadedAt) {
+    }
+}
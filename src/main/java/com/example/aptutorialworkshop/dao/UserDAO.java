@@ -1,22 +1,64 @@
 package com.example.aptutorialworkshop.dao;
 
 import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.utils.AppConfig;
 import com.example.aptutorialworkshop.utils.DBConnectionUtil;
+import com.example.aptutorialworkshop.utils.ImageStore;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
 
 /**
  * UserDAO (Data Access Object) Class
  *
  * Handles database operations for users including registration, authentication, and retrieval.
  * Supports BCrypt password hashing and session management.
+ *
+ * Besides the full-row lookups, projected lookups fetch only the columns a flow
+ * needs so the MEDIUMBLOB profile picture is not sent over the wire:
+ * - getUserCredentialsByEmail: id, email, password hash and role for login
+ * - getUserProfileById: everything except the password and picture, plus the picture's hash
+ * - getProfilePicture: only the picture bytes
+ * - listUsers: one page of id, name, email and role for the admin user list
+ *
+ * Profile pictures live in the content-addressed ImageStore; the users row
+ * only keeps their SHA-256 in profile_picture_hash. Rows written before the
+ * store existed may still carry the bytes in profile_picture until they are
+ * moved out with tools.ImageMigrationTool. Profile lookups only read the
+ * stored hash; the first lookup of such a row has MySQL hash its BLOB once
+ * and store the result, so later lookups do not read the BLOB again.
+ *
+ * Profile lookups are read through a UserCache (cache.user.max_entries,
+ * cache.user.ttl_seconds). registerUser puts the new user's profile straight
+ * into the cache, so the lookup that follows a registration needs no query.
+ *
+ * Registered users, including bulk imports, are also added to the
+ * UserSearchIndex that serves the admin user search.
+ *
+ * Duplicate checks (registration, import) first ask the EmailBloomFilter, so
+ * a new email is accepted without a database round trip; the unique index on
+ * email still rejects a duplicate the filter missed. The login and profile
+ * lookups by email always query the database: another node sharing it may
+ * have registered the email after this one loaded its filter. When such a
+ * lookup finds an email the filter ruled out, the email is added to it.
  */
 public class UserDAO {
     // SQL query to insert a new user into the database
-    public static final String INSERT_USER = "INSERT INTO users(name,email,password,role, profile_picture) VALUES(?,?,?,?, ?)";
+    public static final String INSERT_USER = "INSERT INTO users(name,email,password,role, profile_picture_hash) VALUES(?,?,?,?, ?)";
 
     // SQL query to select a user by email and password for authentication
     public static final String SELECT_USER_BY_EMAIL_PASSWORD = "SELECT * FROM users WHERE email = ? AND password = ?";
@@ -27,23 +69,113 @@ public class UserDAO {
     // SQL query to select a user by email
     public static final String SELECT_USER_BY_EMAIL = "SELECT * FROM users WHERE email = ?";
 
+    // SQL query to select only what login needs to verify a password
+    public static final String SELECT_CREDENTIALS_BY_EMAIL = "SELECT id, email, password, role FROM users WHERE email = ?";
+
+    // SQL query to select a user's profile without the password or picture bytes; the NULL check
+    // on the BLOB only reads the row header, it flags legacy rows that have no stored hash yet
+    public static final String SELECT_PROFILE_BY_ID =
+            "SELECT id, name, email, role, profile_picture_hash, profile_picture IS NOT NULL AS legacy_picture"
+                    + " FROM users WHERE id = ?";
+
+    // SQL query to select a user's profile by email, see SELECT_PROFILE_BY_ID
+    public static final String SELECT_PROFILE_BY_EMAIL =
+            "SELECT id, name, email, role, profile_picture_hash, profile_picture IS NOT NULL AS legacy_picture"
+                    + " FROM users WHERE email = ?";
+
+    // SQL statement to store the hash of a legacy BLOB picture, once per row
+    public static final String UPDATE_LEGACY_PICTURE_HASH =
+            "UPDATE users SET profile_picture_hash = SHA2(profile_picture, 256)"
+                    + " WHERE id = ? AND profile_picture_hash IS NULL AND LENGTH(profile_picture) > 0";
+
+    // SQL query to read the hash stored by UPDATE_LEGACY_PICTURE_HASH
+    public static final String SELECT_PICTURE_HASH_BY_ID = "SELECT profile_picture_hash FROM users WHERE id = ?";
+
+    // SQL query to select only the legacy BLOB profile picture of a user
+    public static final String SELECT_PROFILE_PICTURE_BY_ID = "SELECT profile_picture FROM users WHERE id = ?";
+
+    // SQL query prefix to find which of a batch of emails are already registered; placeholders are appended
+    public static final String SELECT_EXISTING_EMAILS_PREFIX = "SELECT email FROM users WHERE email IN (";
+
+    // Placeholder counts of the email IN list; a batch is padded up to the next one, larger batches are split
+    private static final int[] EMAIL_IN_LIST_SIZES = {1, 4, 16, 64, 256};
+
+    // SELECT_EXISTING_EMAILS_PREFIX completed for each size in EMAIL_IN_LIST_SIZES
+    private static final String[] SELECT_EXISTING_EMAILS = new String[EMAIL_IN_LIST_SIZES.length];
+
+    // SQL query prefix for one page of the admin user list; filters and ORDER BY id LIMIT ? are appended
+    public static final String SELECT_USER_PAGE_PREFIX = "SELECT id, name, email, role FROM users WHERE id > ?";
+
+    // SELECT_USER_PAGE_PREFIX completed for each filter combination: bit 0 role, bit 1 email prefix
+    private static final String[] SELECT_USER_PAGE = new String[4];
+
+    static {
+        // Every statement is one of a few fixed strings, so they all stay in the pool's statement cache
+        for (int i = 0; i < EMAIL_IN_LIST_SIZES.length; i++) {
+            SELECT_EXISTING_EMAILS[i] = SELECT_EXISTING_EMAILS_PREFIX
+                    + String.join(",", Collections.nCopies(EMAIL_IN_LIST_SIZES[i], "?")) + ")";
+        }
+        for (int filters = 0; filters < SELECT_USER_PAGE.length; filters++) {
+            SELECT_USER_PAGE[filters] = SELECT_USER_PAGE_PREFIX
+                    + ((filters & 1) != 0 ? " AND role = ?" : "")
+                    + ((filters & 2) != 0 ? " AND email LIKE ?" : "")
+                    + " ORDER BY id LIMIT ?";
+        }
+    }
+
+    // SQL query to replace a password hash, only if it has not been changed meanwhile
+    public static final String UPDATE_PASSWORD = "UPDATE users SET password = ? WHERE id = ? AND password = ?";
+
+    // SQL query to count stored passwords by BCrypt cost; anything that is not a hash counts as plaintext
+    public static final String SELECT_PASSWORD_COSTS =
+            "SELECT CASE WHEN password LIKE '$2_$__$%' THEN SUBSTRING(password, 5, 2) ELSE 'plaintext' END AS cost,"
+                    + " COUNT(*) AS users FROM users GROUP BY cost";
+
+    // Result of registerUsers for a row whose email is already registered
+    public static final int BATCH_DUPLICATE_EMAIL = -2;
+
+    // Result of registerUsers for a row that failed for another reason
+    public static final int BATCH_FAILED = -1;
+
+    // Accents and other marks left by Unicode decomposition; ignored by MySQL's default collation
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // Read-through cache of user profiles
+    private static final UserCache CACHE = new UserCache(
+            AppConfig.getInt("cache.user.max_entries", 10000),
+            AppConfig.getLong("cache.user.ttl_seconds", 300));
+
+    // Set of registered emails for negative lookups, loaded at startup by AppContextListener
+    private static final EmailBloomFilter EMAIL_FILTER = new EmailBloomFilter(
+            AppConfig.getBoolean("bloom.email.enabled", true),
+            AppConfig.getLong("bloom.email.expected_users", 1_000_000),
+            AppConfig.getDouble("bloom.email.false_positive_rate", 0.01));
+
+    // In-memory email and name search, loaded at startup by AppContextListener
+    private static final UserSearchIndex SEARCH_INDEX = new UserSearchIndex(
+            AppConfig.getBoolean("search.index.enabled", true));
+
     /**
      * Register a new user
      *
      * Inserts user record into database with BCrypt hashed password.
+     * The profile picture bytes, if any, are written to the ImageStore first and
+     * only their hash is inserted. If the user already carries an image hash
+     * (the picture was stored by the caller) that hash is used as is.
      *
      * @param user UserModel with registration information
-     * @return Generated user ID if successful, -1 otherwise
+     * @return Generated user ID if successful, -1 otherwise (also when the email is already registered)
      */
     public static int registerUser(UserModel user) {
+        // Write the picture before borrowing a connection, so file I/O does not hold one
+        if (user.getImageHash() == null && user.getImage() != null && user.getImage().length > 0) {
+            user.setImageHash(ImageStore.store(user.getImage()));
+        }
+
         try (Connection connection = DBConnectionUtil.getConnection();
              PreparedStatement ps = connection.prepareStatement(INSERT_USER, PreparedStatement.RETURN_GENERATED_KEYS);) {
-            // Set parameters for the prepared statement
-            ps.setString(1, user.getName());
-            ps.setString(2, user.getEmail());
-            ps.setString(3, user.getPassword()); // Password is already hashed by UserModel
-            ps.setString(4, user.getRole().name());
-            ps.setBytes(5, user.getImage());
+            // Set parameters for the prepared statement; the password is already hashed by UserModel
+            bindInsert(ps, user);
 
             // Execute the insert statement
             int rows = ps.executeUpdate();
@@ -52,9 +184,17 @@ public class UserDAO {
             if (rows > 0) {
                 ResultSet generatedKeys = ps.getGeneratedKeys();
                 if (generatedKeys.next()) {
-                    return generatedKeys.getInt(1);
+                    int id = generatedKeys.getInt(1);
+                    cacheRegisteredUser(id, user);
+                    EMAIL_FILTER.add(user.getEmail());
+                    SEARCH_INDEX.add(id, user);
+                    return id;
                 }
             }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // The email exists, e.g. registered on another node after isEmailRegistered was checked
+            EMAIL_FILTER.add(user.getEmail());
+            return -1;
         } catch (SQLException e) {
             // Log the exception details for debugging
             System.err.println("Error registering user: " + e.getMessage());
@@ -63,6 +203,238 @@ public class UserDAO {
         return -1; // Return -1 to indicate registration failure
     }
 
+    /**
+     * Register many users with one JDBC batch
+     *
+     * Rows whose email is already registered are found with one IN query and
+     * skipped, the rest are inserted as a single batch in one transaction
+     * (sent as multi-row INSERTs when rewriteBatchedStatements is on). If the
+     * batch still fails, e.g. because a duplicate was registered concurrently,
+     * it is rolled back and the rows are inserted one by one so every row gets
+     * its own result. Any other error rolls the batch back before it is
+     * rethrown, so no part of it is committed. Passwords must already be hashed and the rows must not
+     * contain the same email twice. The profile cache is not filled.
+     *
+     * @param users Users to insert
+     * @return Per row: the generated ID (0 if the driver did not report it),
+     *         BATCH_DUPLICATE_EMAIL or BATCH_FAILED
+     */
+    public static int[] registerUsers(List<UserModel> users) {
+        int[] ids = new int[users.size()];
+        if (users.isEmpty()) {
+            return ids;
+        }
+
+        try (Connection connection = DBConnectionUtil.getConnection()) {
+            // Report rows that already exist instead of letting them fail the batch
+            List<String> emails = new ArrayList<>(users.size());
+            for (UserModel user : users) {
+                emails.add(user.getEmail());
+            }
+            Set<String> existing = findExistingEmails(connection, emails);
+            List<Integer> pending = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                if (existing.contains(normalizeEmail(users.get(i).getEmail()))) {
+                    ids[i] = BATCH_DUPLICATE_EMAIL;
+                } else {
+                    pending.add(i);
+                }
+            }
+            if (pending.isEmpty()) {
+                return ids;
+            }
+
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_USER, PreparedStatement.RETURN_GENERATED_KEYS)) {
+                for (int index : pending) {
+                    bindInsert(ps, users.get(index));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                // Keys come back in insertion order
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    for (int index : pending) {
+                        ids[index] = generatedKeys.next() ? generatedKeys.getInt(1) : 0;
+                    }
+                }
+                connection.commit();
+            } catch (BatchUpdateException e) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+                registerIndividually(connection, users, pending, ids);
+            } catch (SQLException | RuntimeException e) {
+                // Restoring auto-commit below would commit the rows inserted so far
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            // Log the exception details for debugging
+            System.err.println("Error registering users in batch: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+
+        // Make the new users searchable; a row without a reported ID is picked up at the next startup
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] > 0) {
+                EMAIL_FILTER.add(users.get(i).getEmail());
+                SEARCH_INDEX.add(ids[i], users.get(i));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Insert rows one at a time after a failed batch
+     *
+     * @param connection Connection in auto-commit mode
+     * @param users All rows of the batch
+     * @param pending Indexes of the rows to insert
+     * @param ids Per-row results to fill in
+     * @throws SQLException if the statement cannot be prepared
+     */
+    private static void registerIndividually(Connection connection, List<UserModel> users, List<Integer> pending,
+                                             int[] ids) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_USER, PreparedStatement.RETURN_GENERATED_KEYS)) {
+            for (int index : pending) {
+                try {
+                    bindInsert(ps, users.get(index));
+                    ps.executeUpdate();
+                    try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                        ids[index] = generatedKeys.next() ? generatedKeys.getInt(1) : 0;
+                    }
+                } catch (SQLIntegrityConstraintViolationException e) {
+                    ids[index] = BATCH_DUPLICATE_EMAIL;
+                } catch (SQLException e) {
+                    System.err.println("Error registering user " + users.get(index).getEmail() + ": " + e.getMessage());
+                    ids[index] = BATCH_FAILED;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find which of a list of emails are already registered
+     *
+     * Lets a bulk import skip existing users before spending BCrypt time on them.
+     *
+     * @param emails Emails to check
+     * @return Normalized emails that already exist
+     */
+    public static Set<String> findRegisteredEmails(List<String> emails) {
+        if (emails.isEmpty()) {
+            return new HashSet<>();
+        }
+        try (Connection connection = DBConnectionUtil.getConnection()) {
+            return findExistingEmails(connection, emails);
+        } catch (SQLException e) {
+            // Log the exception details for debugging
+            System.err.println("Error checking registered emails: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Find which emails of a batch are already registered
+     *
+     * @param connection Open connection
+     * @param emails Emails of the batch
+     * @return Normalized emails that already exist
+     * @throws SQLException if the query fails
+     */
+    private static Set<String> findExistingEmails(Connection connection, List<String> emails) throws SQLException {
+        // Only emails the Bloom filter cannot rule out need to be looked up
+        List<String> candidates = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            if (EMAIL_FILTER.mightContain(email)) {
+                candidates.add(email);
+            }
+        }
+        Set<String> existing = new HashSet<>();
+        if (candidates.isEmpty()) {
+            return existing;
+        }
+
+        // Query in chunks of the largest IN list; the last one is padded by repeating its last email
+        int maxSize = EMAIL_IN_LIST_SIZES[EMAIL_IN_LIST_SIZES.length - 1];
+        for (int from = 0; from < candidates.size(); from += maxSize) {
+            List<String> chunk = candidates.subList(from, Math.min(from + maxSize, candidates.size()));
+            int size = 0;
+            while (EMAIL_IN_LIST_SIZES[size] < chunk.size()) {
+                size++;
+            }
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_EXISTING_EMAILS[size])) {
+                for (int i = 0; i < EMAIL_IN_LIST_SIZES[size]; i++) {
+                    ps.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(normalizeEmail(rs.getString("email")));
+                    }
+                }
+            }
+        }
+        // Each distinct candidate the database does not know was a Bloom filter false positive
+        Set<String> notFound = new HashSet<>();
+        for (String email : candidates) {
+            String normalized = normalizeEmail(email);
+            if (!existing.contains(normalized)) {
+                notFound.add(normalized);
+            }
+        }
+        for (int i = 0; i < notFound.size(); i++) {
+            EMAIL_FILTER.recordFalsePositive();
+        }
+        return existing;
+    }
+
+    /**
+     * Set the INSERT_USER parameters for a user
+     *
+     * @param ps Prepared INSERT_USER statement
+     * @param user User to insert
+     * @throws SQLException if a parameter cannot be set
+     */
+    private static void bindInsert(PreparedStatement ps, UserModel user) throws SQLException {
+        ps.setString(1, user.getName());
+        ps.setString(2, user.getEmail());
+        ps.setString(3, user.getPassword());
+        ps.setString(4, user.getRole().name());
+        ps.setString(5, user.getImageHash());
+    }
+
+    /**
+     * Normalize an email close to the way MySQL compares it
+     *
+     * The default utf8mb4_0900_ai_ci collation ignores case and accents, so
+     * accents are stripped as well as lower-cased. It is an approximation
+     * (the collation also equates some letters that Java does not, such as
+     * \u00df and ss); the database stays authoritative for equality.
+     *
+     * @param email Email address
+     * @return Trimmed lower-case email without accents
+     */
+    public static String normalizeEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        String trimmed = email.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (trimmed.charAt(i) >= 0x80) {
+                // Decompose, then drop the accents and other combining marks
+                trimmed = COMBINING_MARKS.matcher(Normalizer.normalize(trimmed, Normalizer.Form.NFD)).replaceAll("");
+                break;
+            }
+        }
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+
     /**
      * Authenticate a user by email and password
      *
@@ -89,6 +461,9 @@ public class UserDAO {
      * @return Complete UserModel if found, null otherwise
      */
     public static UserModel getUserByEmail(String email) {
+        // Only a hint here: another node may have registered the email since this filter was loaded
+        boolean maybeRegistered = EMAIL_FILTER.mightContain(email);
+
         try (Connection connection = DBConnectionUtil.getConnection();
              PreparedStatement ps = connection.prepareStatement(SELECT_USER_BY_EMAIL);) {
             // Set the email parameter
@@ -103,9 +478,13 @@ public class UserDAO {
                 userFromDB.setId(rs.getInt("id"));
                 userFromDB.setName(rs.getString("name"));
                 userFromDB.setEmail(rs.getString("email"));
-                userFromDB.setPassword(rs.getString("password"));
+                userFromDB.setStoredPassword(rs.getString("password"));
                 userFromDB.setRole(UserModel.Role.valueOf(rs.getString("role")));
                 userFromDB.setImage(rs.getBytes("profile_picture"));
+                userFromDB.setImageHash(rs.getString("profile_picture_hash"));
+                if (!maybeRegistered) {
+                    EMAIL_FILTER.addMissed(email);
+                }
                 return userFromDB;
             }
         } catch (SQLException e) {
@@ -113,6 +492,9 @@ public class UserDAO {
             System.err.println("Error retrieving user by email: " + e.getMessage());
             throw new RuntimeException(e);
         }
+        if (maybeRegistered) {
+            EMAIL_FILTER.recordFalsePositive();
+        }
         return null; // Return null if user not found
     }
 
@@ -140,9 +522,10 @@ public class UserDAO {
                 userFromDB.setId(rs.getInt("id"));
                 userFromDB.setName(rs.getString("name"));
                 userFromDB.setEmail(rs.getString("email"));
-                userFromDB.setPassword(rs.getString("password"));
+                userFromDB.setStoredPassword(rs.getString("password"));
                 userFromDB.setRole(UserModel.Role.valueOf(rs.getString("role")));
                 userFromDB.setImage(rs.getBytes("profile_picture"));
+                userFromDB.setImageHash(rs.getString("profile_picture_hash"));
                 return userFromDB;
             }
         } catch (SQLException e) {
@@ -154,73 +537,428 @@ public class UserDAO {
     }
 
     /**
-     * Filter Implementation Guide
-     *
-     * To implement authentication and authorization filters:
-     *
-     * 1. Create an AuthenticationFilter class:
-     *    ```java
-     *    @WebFilter(urlPatterns = {"/*"})  // Apply to all URLs
-     *    public class AuthenticationFilter implements Filter {
-     *        @Override
-     *        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
-     *                throws IOException, ServletException {
-     *            HttpServletRequest httpRequest = (HttpServletRequest) request;
-     *            HttpServletResponse httpResponse = (HttpServletResponse) response;
-     *            HttpSession session = httpRequest.getSession(false);
-     *
-     *            // Get the requested URL
-     *            String requestURI = httpRequest.getRequestURI();
-     *
-     *            // Check if the user is accessing a public resource
-     *            boolean isPublicResource = requestURI.contains("login.jsp") ||
-     *                                      requestURI.contains("register.jsp") ||
-     *                                      requestURI.contains("LoginServlet") ||
-     *                                      requestURI.contains("RegisterServlet") ||
-     *                                      requestURI.contains("/assets/");
-     *
-     *            // If it's not a public resource and no session exists, redirect to login
-     *            if (!isPublicResource && (session == null || session.getAttribute("user") == null)) {
-     *                httpResponse.sendRedirect(httpRequest.getContextPath() + "/LoginServlet");
-     *            } else {
-     *                // Continue the filter chain
-     *                chain.doFilter(request, response);
-     *            }
-     *        }
-     *
-     *        // Other filter methods (init, destroy)
-     *    }
-     *    ```
-     *
-     * 2. Create a RoleBasedAuthorizationFilter for role-specific access:
-     *    ```java
-     *    @WebFilter(urlPatterns = {"/AdminDashboardServlet", "/admin/*"})  // Apply to admin URLs
-     *    public class AdminAuthorizationFilter implements Filter {
-     *        @Override
-     *        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
-     *                throws IOException, ServletException {
-     *            HttpServletRequest httpRequest = (HttpServletRequest) request;
-     *            HttpServletResponse httpResponse = (HttpServletResponse) response;
-     *            HttpSession session = httpRequest.getSession(false);
-     *
-     *            boolean isAuthorized = false;
-     *
-     *            if (session != null && session.getAttribute("user") != null) {
-     *                UserModel user = (UserModel) session.getAttribute("user");
-     *                if (user.getRole() == UserModel.Role.admin) {
-     *                    isAuthorized = true;
-     *                }
-     *            }
-     *
-     *            if (isAuthorized) {
-     *                chain.doFilter(request, response);
-     *            } else {
-     *                httpResponse.sendRedirect(httpRequest.getContextPath() + "/LoginServlet");
-     *            }
-     *        }
-     *
-     *        // Other filter methods (init, destroy)
-     *    }
-     *    ```
+     * Get login credentials by email
+     *
+     * Retrieves only the id, email, password hash and role, which is all that
+     * BCrypt verification and the role check need.
+     *
+     * @param email Email address to look up
+     * @return UserModel with id, email, password and role set, null if not found
+     */
+    public static UserModel getUserCredentialsByEmail(String email) {
+        // Only a hint here: another node may have registered the email since this filter was loaded
+        boolean maybeRegistered = EMAIL_FILTER.mightContain(email);
+
+        try (Connection connection = DBConnectionUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_CREDENTIALS_BY_EMAIL);) {
+            // Set the email parameter
+            ps.setString(1, email);
+
+            // Execute the query
+            ResultSet rs = ps.executeQuery();
+
+            // If the user is found, map the credential columns
+            if (rs.next()) {
+                UserModel userFromDB = new UserModel();
+                userFromDB.setId(rs.getInt("id"));
+                userFromDB.setEmail(rs.getString("email"));
+                userFromDB.setStoredPassword(rs.getString("password"));
+                userFromDB.setRole(UserModel.Role.valueOf(rs.getString("role")));
+                if (!maybeRegistered) {
+                    EMAIL_FILTER.addMissed(email);
+                }
+                return userFromDB;
+            }
+        } catch (SQLException e) {
+            // Log the exception details for debugging
+            System.err.println("Error retrieving user credentials: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        if (maybeRegistered) {
+            EMAIL_FILTER.recordFalsePositive();
+        }
+        return null; // Return null if user not found
+    }
+
+    /**
+     * Get a user's profile by ID
+     *
+     * Retrieves the user without the password hash or the picture bytes.
+     * The picture's SHA-256 is computed by the database so callers can build
+     * cacheable image URLs without transferring the image.
+     *
+     * @param id User ID to look up
+     * @return UserModel with id, name, email, role and image hash set, null if not found
+     */
+    public static UserModel getUserProfileById(int id) {
+        // Serve repeated profile reads from the cache
+        UserModel cached = CACHE.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        try (Connection connection = DBConnectionUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_PROFILE_BY_ID);) {
+            // Set the user ID parameter
+            ps.setInt(1, id);
+
+            // Execute the query
+            ResultSet rs = ps.executeQuery();
+
+            // If the user is found, map the profile columns
+            if (rs.next()) {
+                UserModel userFromDB = mapProfile(connection, rs);
+                CACHE.put(userFromDB);
+                return userFromDB;
+            }
+        } catch (SQLException e) {
+            // Log the exception details for debugging
+            System.err.println("Error retrieving user profile: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        return null; // Return null if user not found
+    }
+
+    /**
+     * Map a row of SELECT_PROFILE_BY_ID or SELECT_PROFILE_BY_EMAIL
+     *
+     * A row whose picture is still a BLOB without a stored hash gets the hash
+     * computed and stored by MySQL first, so the BLOB is hashed only once.
+     *
+     * @param connection Connection the row was read on
+     * @param rs Result set positioned on the row
+     * @return UserModel with id, name, email, role and image hash set
+     * @throws SQLException If a database access error occurs
+     */
+    private static UserModel mapProfile(Connection connection, ResultSet rs) throws SQLException {
+        UserModel userFromDB = new UserModel();
+        userFromDB.setId(rs.getInt("id"));
+        userFromDB.setName(rs.getString("name"));
+        userFromDB.setEmail(rs.getString("email"));
+        userFromDB.setRole(UserModel.Role.valueOf(rs.getString("role")));
+        String imageHash = rs.getString("profile_picture_hash");
+        if (imageHash == null && rs.getBoolean("legacy_picture")) {
+            imageHash = storeLegacyPictureHash(connection, userFromDB.getId());
+        }
+        userFromDB.setImageHash(imageHash);
+        return userFromDB;
+    }
+
+    /**
+     * Have MySQL hash a legacy BLOB picture and store the hash in the row
+     *
+     * @param connection Connection to use
+     * @param id User ID
+     * @return The stored hash, or null for an empty picture
+     * @throws SQLException If a database access error occurs
+     */
+    private static String storeLegacyPictureHash(Connection connection, int id) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(UPDATE_LEGACY_PICTURE_HASH)) {
+            update.setInt(1, id);
+            update.executeUpdate();
+        }
+        try (PreparedStatement select = connection.prepareStatement(SELECT_PICTURE_HASH_BY_ID)) {
+            select.setInt(1, id);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next() ? rs.getString("profile_picture_hash") : null;
+            }
+        }
+    }
+
+    /**
+     * Get a user's profile by email
+     *
+     * Same projection as getUserProfileById, served from the cache's email index
+     * when possible.
+     *
+     * @param email Email address to look up
+     * @return UserModel with id, name, email, role and image hash set, null if not found
+     */
+    public static UserModel getUserProfileByEmail(String email) {
+        // Serve repeated profile reads from the cache
+        UserModel cached = CACHE.getByEmail(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Only a hint here: another node may have registered the email since this filter was loaded
+        boolean maybeRegistered = EMAIL_FILTER.mightContain(email);
+
+        try (Connection connection = DBConnectionUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_PROFILE_BY_EMAIL);) {
+            // Set the email parameter
+            ps.setString(1, email);
+
+            // Execute the query
+            ResultSet rs = ps.executeQuery();
+
+            // If the user is found, map the profile columns
+            if (rs.next()) {
+                UserModel userFromDB = mapProfile(connection, rs);
+                CACHE.put(userFromDB);
+                if (!maybeRegistered) {
+                    EMAIL_FILTER.addMissed(email);
+                }
+                return userFromDB;
+            }
+        } catch (SQLException e) {
+            // Log the exception details for debugging
+            System.err.println("Error retrieving user profile by email: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        if (maybeRegistered) {
+            EMAIL_FILTER.recordFalsePositive();
+        }
+        return null; // Return null if user not found
+    }
+
+    /**
+     * Replace a user's password hash
+     *
+     * The row is only changed if it still holds the expected old value, so a
+     * rehash after login cannot overwrite a password that was changed in the
+     * meantime.
+     *
+     * @param id User ID
+     * @param currentPassword Stored hash (or legacy plain text) that is being replaced
+     * @param newHash New BCrypt hash
+     * @return true if the password was updated
+     */
+    public static boolean updatePassword(int id, String currentPassword, String newHash) {
+        try (Connection connection = DBConnectionUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(UPDATE_PASSWORD);) {
+            // Set the new hash, the user ID and the expected old value
+            ps.setString(1, newHash);
+            ps.setInt(2, id);
+            ps.setString(3, currentPassword);
+
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            // Log the exception details for debugging
+            System.err.println("Error updating password: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Count stored passwords by BCrypt cost
+     *
+     * Scans the password column of every user, so callers should cache the
+     * result rather than run it per request.
+     *
+     * @return User count by two-digit cost ("10", "12", ...) or "plaintext"
+     */
+    public static Map<String, Long> countPasswordsByCost() {
+        try (Connection connection = DBConnectionUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_PASSWORD_COSTS);
+             ResultSet rs = ps.executeQuery()) {
+            Map<String, Long> counts = new TreeMap<>();
+            while (rs.next()) {
+                counts.put(rs.getString("cost"), rs.getLong("users"));
+            }
+            return counts;
+        } catch (SQLException e) {
+            // Log the exception details for debugging
+            System.err.println("Error counting password costs: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * List users for the admin dashboard
+     *
+     * Uses keyset pagination: a page starts after the last ID of the previous
+     * page instead of skipping rows with OFFSET, so every page costs the same
+     * no matter how deep into the table it is. Only the listed columns are
+     * selected; the password and picture never leave the database.
+     *
+     * The role filter is served by the (role, id) index. The email prefix
+     * filter has no index that matches both the range and ORDER BY id: MySQL
+     * either scans the prefix range of the unique email index and sorts the
+     * matches, or walks the primary key from afterId and skips rows that do
+     * not match. A rare prefix is cheap; a page of a common prefix late in
+     * the table can read many rows.
+     *
+     * @param afterId Return users with an ID greater than this (0 for the first page)
+     * @param role Only users with this role, or null for all roles
+     * @param emailPrefix Only users whose email starts with this, or null/empty for all
+     * @param limit Maximum number of users to return
+     * @return Users in ascending ID order with id, name, email and role set
+     */
+    public static List<UserModel> listUsers(int afterId, UserModel.Role role, String emailPrefix, int limit) {
+        String prefix = normalizeEmail(emailPrefix);
+        boolean filterEmail = prefix != null && !prefix.isEmpty();
+
+        String sql = SELECT_USER_PAGE[(role != null ? 1 : 0) | (filterEmail ? 2 : 0)];
+
+        try (Connection connection = DBConnectionUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);) {
+            // Set the keyset and filter parameters
+            int index = 1;
+            ps.setInt(index++, afterId);
+            if (role != null) {
+                ps.setString(index++, role.name());
+            }
+            if (filterEmail) {
+                ps.setString(index++, escapeLike(prefix) + "%");
+            }
+            ps.setInt(index, limit);
+
+            // Map the page of users
+            List<UserModel> users = new ArrayList<>(Math.min(limit, 1000));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    UserModel userFromDB = new UserModel();
+                    userFromDB.setId(rs.getInt("id"));
+                    userFromDB.setName(rs.getString("name"));
+                    userFromDB.setEmail(rs.getString("email"));
+                    userFromDB.setRole(UserModel.Role.valueOf(rs.getString("role")));
+                    users.add(userFromDB);
+                }
+            }
+            return users;
+        } catch (SQLException e) {
+            // Log the exception details for debugging
+            System.err.println("Error listing users: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Escape LIKE wildcards so a search prefix is matched literally
+     *
+     * @param value Search text
+     * @return Text with backslash, % and _ escaped by a backslash
      */
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Prepare the login, profile and user list statements on a connection
+     *
+     * Closing them leaves them in the pool's statement cache of that
+     * connection, so the first requests it serves do not prepare them. Used
+     * by the startup warmup.
+     *
+     * @param connection Pooled connection
+     * @return The number of statements prepared
+     * @throws SQLException If a statement cannot be prepared
+     */
+    public static int prepareHotStatements(Connection connection) throws SQLException {
+        List<String> statements = new ArrayList<>(List.of(SELECT_CREDENTIALS_BY_EMAIL, SELECT_PROFILE_BY_ID,
+                SELECT_PROFILE_BY_EMAIL));
+        Collections.addAll(statements, SELECT_USER_PAGE);
+        for (String sql : statements) {
+            connection.prepareStatement(sql).close();
+        }
+        return statements.size();
+    }
+
+    /**
+     * Get the user profile cache
+     *
+     * Exposes hit, miss and eviction counters and allows explicit invalidation
+     * when a user is changed outside this class.
+     *
+     * @return The shared user cache
+     */
+    public static UserCache getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Check whether an email is already registered
+     *
+     * Lets registration reject a duplicate before hashing the password and
+     * storing the picture. Only emails the Bloom filter cannot rule out are
+     * looked up in the database; an email the filter missed because another
+     * node registered it is still rejected by the insert.
+     *
+     * @param email Email address
+     * @return true if a user with this email exists
+     */
+    public static boolean isEmailRegistered(String email) {
+        if (!EMAIL_FILTER.mightContain(email)) {
+            return false;
+        }
+        return !findRegisteredEmails(List.of(email)).isEmpty();
+    }
+
+    /**
+     * Get the registered email Bloom filter
+     *
+     * @return The shared filter
+     */
+    public static EmailBloomFilter getEmailFilter() {
+        return EMAIL_FILTER;
+    }
+
+    /**
+     * Get the user search index
+     *
+     * @return The shared search index
+     */
+    public static UserSearchIndex getSearchIndex() {
+        return SEARCH_INDEX;
+    }
+
+    /**
+     * Put a newly registered user into the cache
+     *
+     * Any stale entry for the same email is dropped first.
+     *
+     * @param id Generated user ID
+     * @param user The registered user
+     */
+    private static void cacheRegisteredUser(int id, UserModel user) {
+        CACHE.invalidateEmail(user.getEmail());
+
+        UserModel profile = new UserModel();
+        profile.setId(id);
+        profile.setName(user.getName());
+        profile.setEmail(user.getEmail());
+        profile.setRole(user.getRole());
+        profile.setImageHash(user.getImageHash());
+        CACHE.put(profile);
+    }
+
+    /**
+     * Get a user's legacy profile picture
+     *
+     * Fetches only the BLOB picture column so the image endpoint does not load
+     * the rest of the user row. Only rows not yet moved to the ImageStore have
+     * bytes here; the image endpoint uses this as a fallback.
+     *
+     * @param id User ID to look up
+     * @return The picture bytes, or null if the user or the picture does not exist
+     */
+    public static byte[] getProfilePicture(int id) {
+        try (Connection connection = DBConnectionUtil.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_PROFILE_PICTURE_BY_ID);) {
+            // Set the user ID parameter
+            ps.setInt(1, id);
+
+            // Execute the query
+            ResultSet rs = ps.executeQuery();
+
+            // Return the picture if the user is found
+            if (rs.next()) {
+                return rs.getBytes("profile_picture");
+            }
+        } catch (SQLException e) {
+            // Log the exception details for debugging
+            System.err.println("Error retrieving profile picture: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        return null; // Return null if user not found
+    }
 }
@@ -0,0 +1,454 @@
+package com.example.aptutorialworkshop.dao;
+
+import com.example.aptutorialworkshop.models.UserModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * UserSearchIndex Class
+ *
+ * An in-memory index for finding users by part of their email or name, so the
+ * admin lookup never runs a LIKE '%x%' scan over the users table.
+ *
+ * Every user is reduced to one lower-cased search text: the email, the full
+ * name and each word of the name, each preceded by a start marker. The index
+ * maps every three-character sequence (trigram) of that text to the ascending
+ * list of users containing it, plus the marker followed by the first
+ * character, so one- and two-character queries can still match the start of
+ * an email or name.
+ *
+ * A search intersects the lists of the query's trigrams, rarest first, and
+ * checks each candidate's text, stopping as soon as enough results are found:
+ * - First, users with an email, name or name word starting with the query
+ * - Then, for queries of three or more characters, users containing it anywhere
+ *
+ * The index is filled by load() in ID batches at startup. Users registered
+ * while it loads are queued and added once loading ends, so nobody is lost or
+ * indexed twice. Until then searches run against the users loaded so far and
+ * isComplete() returns false. Users are only ever added; the application has
+ * no way to change or delete them.
+ *
+ * A disabled index (search.index.enabled=false) ignores loads and additions
+ * and finds nothing, so it costs no memory.
+ */
+public class UserSearchIndex {
+    // Precedes the email, the name and each name word in the search text
+    private static final char START = '\u0002';
+
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Indexed users by document number (insertion order), guarded by lock
+    private int count;
+    private int[] ids = new int[1024];
+    private String[] names = new String[1024];
+    private String[] emails = new String[1024];
+    private UserModel.Role[] roles = new UserModel.Role[1024];
+    private String[] texts = new String[1024];
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    // Users registered while load() runs; null when not loading
+    private List<UserModel> pending;
+    private volatile boolean complete;
+
+    private final LongAdder searches = new LongAdder();
+
+    /**
+     * Create an empty index
+     *
+     * @param enabled false to create an index that stays empty
+     */
+    public UserSearchIndex(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Load all users from the database
+     *
+     * Reads the users table in ID order with UserDAO.listUsers, so only one
+     * batch is held in memory besides the index itself.
+     *
+     * @param batchSize Users read per query
+     */
+    public void load(int batchSize) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        int afterId = 0;
+        boolean loaded = false;
+        try {
+            while (true) {
+                List<UserModel> batch = UserDAO.listUsers(afterId, null, null, batchSize);
+                lock.writeLock().lock();
+                try {
+                    for (UserModel user : batch) {
+                        addDocument(user.getId(), user);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+            loaded = true;
+        } catch (RuntimeException e) {
+            System.err.println("Error loading user search index: " + e.getMessage());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // Documents are in ascending ID order so far, so a binary search finds users loaded already
+                int loadedCount = count;
+                for (UserModel user : pending) {
+                    if (Arrays.binarySearch(ids, 0, loadedCount, user.getId()) < 0) {
+                        addDocument(user.getId(), user);
+                    }
+                }
+                pending = null;
+                complete = loaded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (loaded) {
+            System.out.println("User search index loaded " + size() + " users in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Add a newly registered user
+     *
+     * @param id Generated user ID
+     * @param user The user; name, email and role are indexed
+     */
+    public void add(int id, UserModel user) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                UserModel copy = new UserModel();
+                copy.setId(id);
+                copy.setName(user.getName());
+                copy.setEmail(user.getEmail());
+                copy.setRole(user.getRole());
+                pending.add(copy);
+            } else {
+                addDocument(id, user);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find users by part of their email or name
+     *
+     * @param query Search text, case-insensitive
+     * @param limit Maximum number of results
+     * @return Matching users with id, name, email and role set; prefix matches
+     *         first, each group in registration order
+     */
+    public List<UserModel> search(String query, int limit) {
+        searches.increment();
+        List<UserModel> results = new ArrayList<>(Math.min(limit, 100));
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return results;
+        }
+        String prefix = START + normalized;
+
+        lock.readLock().lock();
+        try {
+            // Matches at the start of the email, the name or a name word
+            collect(gramsOf(prefix), prefix, null, limit, results);
+
+            // Matches anywhere else; shorter queries have no trigram to look up
+            if (results.size() < limit && normalized.length() >= 3) {
+                collect(gramsOf(normalized), normalized, prefix, limit, results);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    /**
+     * Check whether the index is in use
+     *
+     * @return false if search.index.enabled is off
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Check whether every user in the database has been indexed
+     *
+     * @return true once load() has finished successfully
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Get the number of indexed users
+     *
+     * @return Indexed user count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of distinct trigrams
+     *
+     * @return Posting list count
+     */
+    public int getGramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of searches served
+     *
+     * @return Search count
+     */
+    public long getSearchCount() {
+        return searches.sum();
+    }
+
+    /**
+     * Append a user as the next document and index its trigrams
+     *
+     * Must be called with the write lock held.
+     *
+     * @param id User ID
+     * @param user The user
+     */
+    private void addDocument(int id, UserModel user) {
+        if (count == ids.length) {
+            int capacity = count * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            emails = Arrays.copyOf(emails, capacity);
+            roles = Arrays.copyOf(roles, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+        int document = count++;
+        ids[document] = id;
+        names[document] = user.getName();
+        emails[document] = user.getEmail();
+        roles[document] = user.getRole();
+
+        // Search text: start marker before the email, the full name and each later name word
+        String name = normalize(user.getName());
+        StringBuilder text = new StringBuilder(64).append(START).append(normalize(user.getEmail()))
+                .append(START).append(name);
+        int space = name.indexOf(' ');
+        while (space >= 0) {
+            text.append(START).append(name, space + 1, nextSpace(name, space));
+            space = name.indexOf(' ', space + 1);
+        }
+        texts[document] = text.toString();
+
+        for (long gram : gramsOf(texts[document])) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(document);
+        }
+    }
+
+    /**
+     * Add documents that match a pattern to the results
+     *
+     * Walks the rarest posting list and keeps the documents found in every
+     * other list whose text really contains the pattern (trigrams can match in
+     * a different order).
+     *
+     * @param grams Trigrams of the pattern
+     * @param pattern Text the document must contain
+     * @param exclude Skip documents containing this (already reported), or null
+     * @param limit Maximum total number of results
+     * @param results Destination
+     */
+    private void collect(long[] grams, String pattern, String exclude, int limit, List<UserModel> results) {
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        int[] cursors = new int[lists.length];
+        Postings rarest = lists[0];
+        candidates:
+        for (int i = 0; i < rarest.size && results.size() < limit; i++) {
+            int document = rarest.documents[i];
+            for (int list = 1; list < lists.length; list++) {
+                cursors[list] = lists[list].seek(cursors[list], document);
+                if (cursors[list] == lists[list].size) {
+                    return; // A shorter list has run out, nothing further can match
+                }
+                if (lists[list].documents[cursors[list]] != document) {
+                    continue candidates;
+                }
+            }
+
+            String text = texts[document];
+            if (text.contains(pattern) && (exclude == null || !text.contains(exclude))) {
+                UserModel user = new UserModel();
+                user.setId(ids[document]);
+                user.setName(names[document]);
+                user.setEmail(emails[document]);
+                user.setRole(roles[document]);
+                results.add(user);
+            }
+        }
+    }
+
+    /**
+     * Get the distinct trigrams of a text
+     *
+     * Besides every three-character sequence, the start marker followed by a
+     * single character counts as a gram, so short prefixes can be looked up.
+     *
+     * @param text Normalized text
+     * @return Packed grams
+     */
+    private static long[] gramsOf(String text) {
+        long[] grams = new long[text.length() * 2];
+        int size = 0;
+        for (int i = 0; i < text.length() - 1; i++) {
+            if (text.charAt(i) == START) {
+                grams[size++] = pack('\0', START, text.charAt(i + 1));
+            }
+            if (i + 2 < text.length()) {
+                grams[size++] = pack(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2));
+            }
+        }
+        // Documents are added to a posting list once, however often a gram repeats
+        long[] distinct = Arrays.copyOf(grams, size);
+        Arrays.sort(distinct);
+        int unique = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i == 0 || distinct[i] != distinct[i - 1]) {
+                distinct[unique++] = distinct[i];
+            }
+        }
+        return Arrays.copyOf(distinct, unique);
+    }
+
+    private static long pack(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+
+    private static int nextSpace(String name, int space) {
+        int next = name.indexOf(' ', space + 1);
+        return next < 0 ? name.length() : next;
+    }
+
+    /**
+     * Lower-case a name, email or query and collapse whitespace
+     *
+     * @param value Text to normalize, may be null
+     * @return Normalized text, empty for null
+     */
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(value.length());
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c) || c == START) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ascending document numbers that contain one gram
+     */
+    private static class Postings {
+        private int[] documents = new int[4];
+        private int size;
+
+        private void add(int document) {
+            if (size > 0 && documents[size - 1] == document) {
+                return;
+            }
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+
+        /**
+         * Find the first position at or after from whose document is not below target
+         *
+         * Gallops ahead and then binary searches, so walking a long list for a
+         * few candidates of a short one skips most of it.
+         *
+         * @param from Position to start at
+         * @param target Document to look for
+         * @return Position of the first document >= target, or size if there is none
+         */
+        private int seek(int from, int target) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && documents[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (documents[middle] < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -1,61 +1,138 @@
 package com.example.aptutorialworkshop.filters;
 
+import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.models.UserPrincipal;
+import com.example.aptutorialworkshop.services.AuthService;
+import com.example.aptutorialworkshop.utils.AppConfig;
 import jakarta.servlet.*;
-import jakarta.servlet.annotation.*;
 import jakarta.servlet.http.*;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * AuthenticationFilter
  *
- * This class should be implemented as a filter to check if a user is authenticated
- * before allowing access to protected resources. When implemented, it will intercept
- * requests to protected URLs and redirect unauthenticated users to the login page.
+ * Checks authentication and admin authorization for every request in one place.
  *
- * Implementation Guidelines:
- * 1. Uncomment the @WebFilter annotation with appropriate URL patterns to protect
- * 2. Implement the doFilter method to check for authentication
+ * The access level of each path comes from a RouteTable compiled once at class
+ * load, so the check costs one walk over the request path regardless of how
+ * many routes exist. Public paths pass straight through without touching the
+ * session. For everything else the session principal is resolved once through
+ * AuthService.getCurrentUser, which keeps it on the request so servlets and
+ * JSPs can read it again without another session lookup.
  *
- * In the doFilter method, you should:
- * 1. Cast the request and response to HttpServletRequest and HttpServletResponse
- * 2. Get the current session (without creating a new one if none exists)
- * 3. Check if the user is authenticated by looking for a user object in the session
- * 4. Get the requested URL and check if it's a public resource (login page, register page, etc.)
- * 5. If the user is authenticated or accessing a public resource, allow the request to proceed
- * 6. Otherwise, redirect to the login page
+ * In token session mode the filter also lets AuthService renew the session
+ * token cookie while the response can still take a header.
  *
- * Example URL patterns to protect:
- * - "/UserDashboardServlet"
- * - "/AdminDashboardServlet"
- * - "/WEB-INF/views/user-dashboard.jsp"
- * - "/WEB-INF/views/admin-dashboard.jsp"
+ * Paths that match no route require a logged-in user, so new servlets are
+ * protected unless they are explicitly made public.
  *
- * Example public resources to exclude from authentication:
- * - "login.jsp"
- * - "register.jsp"
- * - "LoginServlet"
- * - "RegisterServlet"
- * - "/assets/" (for CSS, JS, images, etc.)
+ * Unauthenticated users, and non-admins requesting admin paths, are redirected
+ * to the login page; LoginServlet sends logged-in users on to their dashboard.
+ *
+ * /metrics exposes login, session, pool and password cost figures, so it is
+ * limited to admins and to the Prometheus scraper, which is recognised by
+ * the shared metrics.token (sent as "Authorization: Bearer <token>") or by
+ * its address in metrics.allowed_ips. A scraper with a wrong token gets 401.
+ *
+ * Declared in web.xml, which runs it after MetricsFilter and before
+ * CompressionFilter, so rejected requests are still counted and redirects
+ * never reach the compressor.
  */
-// @WebFilter(urlPatterns = {"/UserDashboardServlet", "/AdminDashboardServlet", "/WEB-INF/views/user-dashboard.jsp", "/WEB-INF/views/admin-dashboard.jsp"})
 public class AuthenticationFilter implements Filter {
 
+    // Shared secret of the metrics scraper; unset means no token is accepted
+    private static final byte[] METRICS_TOKEN = bytesOrNull(AppConfig.get("metrics.token"));
+
+    // Remote addresses allowed to read /metrics without logging in
+    private static final Set<String> METRICS_ALLOWED_IPS = Arrays.stream(AppConfig.get("metrics.allowed_ips", "").split(","))
+            .map(String::trim)
+            .filter(ip -> !ip.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+
+    // Route table shared by all requests; read-only after construction
+    static final RouteTable ROUTES = new RouteTable(RouteTable.Access.USER)
+            // Public pages and endpoints
+            .exact("/", RouteTable.Access.PUBLIC)
+            .exact("/index.jsp", RouteTable.Access.PUBLIC)
+            .exact("/LoginServlet", RouteTable.Access.PUBLIC)
+            .exact("/RegisterServlet", RouteTable.Access.PUBLIC)
+            .exact("/LogoutServlet", RouteTable.Access.PUBLIC)
+            .exact("/favicon.ico", RouteTable.Access.PUBLIC)
+            // Static resources (CSS, JS, images)
+            .prefix("/assets/", RouteTable.Access.PUBLIC)
+            // Logged-in users
+            .exact("/UserDashboardServlet", RouteTable.Access.USER)
+            .exact("/ImageServlet", RouteTable.Access.USER)
+            // Admins only
+            .exact("/AdminDashboardServlet", RouteTable.Access.ADMIN)
+            .prefix("/admin/", RouteTable.Access.ADMIN)
+            // Admins and the metrics scraper
+            .exact("/metrics", RouteTable.Access.METRICS);
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
-        // Initialization code
+        // Routes are compiled statically
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
-        // TODO: Implement authentication logic here
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        RouteTable.Access access = ROUTES.match(httpRequest.getServletPath(), httpRequest.getPathInfo());
+        if (access == RouteTable.Access.PUBLIC) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (access == RouteTable.Access.METRICS) {
+            String authorization = httpRequest.getHeader("Authorization");
+            if (authorization != null && authorization.startsWith("Bearer ")) {
+                if (isMetricsToken(authorization.substring("Bearer ".length()))) {
+                    chain.doFilter(request, response);
+                } else {
+                    httpResponse.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                }
+                return;
+            }
+            if (METRICS_ALLOWED_IPS.contains(httpRequest.getRemoteAddr())) {
+                chain.doFilter(request, response);
+                return;
+            }
+        }
+
+        // Resolve the principal once; it stays on the request for the servlet
+        UserPrincipal user = AuthService.getCurrentUser(httpRequest);
+        if (user == null || (access != RouteTable.Access.USER && user.getRole() != UserModel.Role.admin)) {
+            httpResponse.sendRedirect(httpRequest.getContextPath() + "/LoginServlet");
+            return;
+        }
+        AuthService.renewSession(httpRequest, httpResponse);
 
-        // For now, just pass the request along the filter chain
         chain.doFilter(request, response);
     }
 
+    /**
+     * Check a bearer token against metrics.token in constant time
+     *
+     * @param token Token sent by the client
+     * @return true if metrics.token is set and matches
+     */
+    private static boolean isMetricsToken(String token) {
+        return METRICS_TOKEN != null && MessageDigest.isEqual(METRICS_TOKEN, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytesOrNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim().getBytes(StandardCharsets.UTF_8);
+    }
+
     @Override
     public void destroy() {
-        // Cleanup code
+        // No resources to release
     }
 }
@@ -0,0 +1,482 @@
+package com.example.aptutorialworkshop.filters;
+
+import com.example.aptutorialworkshop.utils.AppConfig;
+import com.example.aptutorialworkshop.utils.StaticAssets;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CompressionFilter
+ *
+ * Gzips dynamic responses (JSP pages, JSON, CSV exports, metrics) for
+ * browsers that accept it.
+ *
+ * Output is held in a buffer of compression.min_bytes (default 1024) first.
+ * A response that ends within the buffer is sent as is, because compressing
+ * a few hundred bytes saves less than it costs. Once the buffer overflows,
+ * or the servlet flushes, the rest is streamed through gzip with sync
+ * flushes, so streamed exports still reach the browser as they are written.
+ * Only text formats are compressed, and responses that already carry a
+ * Content-Encoding are left alone.
+ *
+ * /assets and /ImageServlet are skipped: static assets are served from
+ * precompressed variants by AssetServlet and pictures do not compress.
+ * Async servlets write through AsyncContext.getResponse(), which is not
+ * wrapped; their output is compressed when they dispatch to a JSP.
+ *
+ * Declared in web.xml, which runs it last, after MetricsFilter and
+ * AuthenticationFilter, for REQUEST and ASYNC dispatches.
+ */
+public class CompressionFilter implements Filter {
+    private static final boolean ENABLED = AppConfig.getBoolean("compression.enabled", true);
+
+    // Responses up to this size are sent uncompressed
+    private static final int MIN_BYTES = AppConfig.getInt("compression.min_bytes", 1024);
+
+    // Deflate level 1-9; pages are compressed on every request, so a middle level is the best trade-off
+    private static final int LEVEL = AppConfig.getInt("compression.level", 6);
+
+    private static final LongAdder COMPRESSED_RESPONSES = new LongAdder();
+    private static final LongAdder BYTES_IN = new LongAdder();
+    private static final LongAdder BYTES_OUT = new LongAdder();
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // Settings are read statically
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        String servletPath = httpRequest.getServletPath();
+        if (!ENABLED || servletPath.equals("/assets") || servletPath.equals("/ImageServlet")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Caches must keep compressed and uncompressed responses apart
+        if (!httpResponse.getHeaders("Vary").contains("Accept-Encoding")) {
+            httpResponse.addHeader("Vary", "Accept-Encoding");
+        }
+        if (!StaticAssets.acceptsEncoding(httpRequest.getHeader("Accept-Encoding"), "gzip")
+                || "HEAD".equals(httpRequest.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        GzipResponseWrapper wrapper = new GzipResponseWrapper(httpResponse);
+        boolean completed = false;
+        try {
+            chain.doFilter(request, wrapper);
+            completed = true;
+        } finally {
+            // After an exception, unsent output is dropped so the container can still send an error page
+            if (completed || wrapper.stream.isCompressing()) {
+                wrapper.finish();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // No resources to release
+    }
+
+    /**
+     * Get the number of responses sent gzip-compressed
+     *
+     * @return Compressed response count
+     */
+    public static long getCompressedResponseCount() {
+        return COMPRESSED_RESPONSES.sum();
+    }
+
+    /**
+     * Get the uncompressed size of all compressed responses
+     *
+     * @return Bytes before compression
+     */
+    public static long getBytesIn() {
+        return BYTES_IN.sum();
+    }
+
+    /**
+     * Get the compressed size of all compressed responses
+     *
+     * @return Bytes sent
+     */
+    public static long getBytesOut() {
+        return BYTES_OUT.sum();
+    }
+
+    /**
+     * Check whether a content type is a text format worth compressing
+     *
+     * @param contentType Response content type, may be null
+     * @return true for text, JSON, JavaScript, XML and SVG
+     */
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("json") || type.contains("javascript")
+                || type.contains("xml");
+    }
+
+    /**
+     * Response wrapper that routes the body through a CompressingOutputStream
+     * and holds back Content-Length, which is wrong once the body is compressed
+     */
+    private static class GzipResponseWrapper extends HttpServletResponseWrapper {
+        private final HttpServletResponse response;
+        private final CompressingOutputStream stream;
+        private PrintWriter writer;
+        private boolean usingStream;
+        private long contentLength = -1;
+
+        private GzipResponseWrapper(HttpServletResponse response) {
+            super(response);
+            this.response = response;
+            this.stream = new CompressingOutputStream(this);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called for this response");
+            }
+            usingStream = true;
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (usingStream) {
+                throw new IllegalStateException("getOutputStream() has already been called for this response");
+            }
+            if (writer == null) {
+                // Fix the charset in the Content-Type header as the container does when getWriter is called
+                String charset = getCharacterEncoding();
+                response.setCharacterEncoding(charset);
+                writer = new PrintWriter(new OutputStreamWriter(stream, Charset.forName(charset))) {
+                    @Override
+                    public void close() {
+                        // Closing flushes the encoder first; that flush must not force compression
+                        stream.finishing = true;
+                        super.close();
+                    }
+                };
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                contentLength = value == null ? -1 : Long.parseLong(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                setHeader(name, value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                contentLength = value;
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                contentLength = value;
+            } else {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.flush();
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return stream.isCompressing() || super.isCommitted();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            stream.clear();
+            contentLength = -1;
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            stream.clear();
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            stream.bypass();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            stream.bypass();
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            stream.bypass();
+            super.sendRedirect(location);
+        }
+
+        /**
+         * Send whatever is still buffered and end the gzip stream
+         *
+         * @throws IOException If I/O error occurs
+         */
+        private void finish() throws IOException {
+            stream.finishing = true;
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.finish();
+        }
+    }
+
+    /**
+     * Output stream that buffers the start of the body and then decides
+     * between sending it as is and streaming it through gzip
+     */
+    private static class CompressingOutputStream extends ServletOutputStream {
+        private final GzipResponseWrapper wrapper;
+        private final byte[] buffer = new byte[MIN_BYTES];
+        private int count;
+        private OutputStream target;
+        private LevelGzipOutputStream gzip;
+        private boolean identityOnly;
+        private boolean finishing;
+        private boolean finished;
+
+        private CompressingOutputStream(GzipResponseWrapper wrapper) {
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (target == null && !finished && count < buffer.length) {
+                buffer[count++] = (byte) b;
+                return;
+            }
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                throw new IOException("Response body has already been completed");
+            }
+            if (target == null) {
+                if (count + len <= buffer.length) {
+                    System.arraycopy(b, off, buffer, count, len);
+                    count += len;
+                    return;
+                }
+                start(true);
+            }
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target == null) {
+                // The final flush of the writer must not force compression of a small body
+                if (finishing || finished) {
+                    return;
+                }
+                start(true);
+            }
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // RequestDispatcher.forward closes the response when the JSP is done
+            finishing = true;
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            try {
+                return wrapper.response.getOutputStream().isReady();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                wrapper.response.getOutputStream().setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private boolean isCompressing() {
+            return gzip != null;
+        }
+
+        /**
+         * Drop the buffered start of the body
+         */
+        private void clear() {
+            if (target == null) {
+                count = 0;
+            }
+        }
+
+        /**
+         * Send anything written from now on uncompressed (error pages, redirects)
+         */
+        private void bypass() {
+            clear();
+            identityOnly = true;
+        }
+
+        /**
+         * Pick the output and send the buffered bytes
+         *
+         * @param large true if the body outgrew the buffer or is being streamed
+         * @throws IOException If I/O error occurs
+         */
+        private void start(boolean large) throws IOException {
+            HttpServletResponse response = wrapper.response;
+            int status = response.getStatus();
+            boolean compress = large && !identityOnly && isCompressible(response.getContentType())
+                    && response.getHeader("Content-Encoding") == null
+                    && status != HttpServletResponse.SC_NO_CONTENT
+                    && status != HttpServletResponse.SC_PARTIAL_CONTENT
+                    && status != HttpServletResponse.SC_NOT_MODIFIED;
+            if (compress) {
+                response.setHeader("Content-Encoding", "gzip");
+                gzip = new LevelGzipOutputStream(response.getOutputStream(), LEVEL);
+                target = gzip;
+                COMPRESSED_RESPONSES.increment();
+            } else {
+                if (wrapper.contentLength >= 0) {
+                    response.setContentLengthLong(wrapper.contentLength);
+                }
+                target = response.getOutputStream();
+            }
+            if (count > 0) {
+                target.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        /**
+         * Send the buffered bytes or end the gzip stream
+         *
+         * @throws IOException If I/O error occurs
+         */
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (target == null) {
+                if (count == 0) {
+                    // Nothing written, e.g. the servlet went async or redirected
+                    return;
+                }
+                start(false);
+            }
+            if (gzip != null) {
+                try {
+                    gzip.finish();
+                    BYTES_IN.add(gzip.getBytesRead());
+                    BYTES_OUT.add(gzip.getBytesWritten());
+                } finally {
+                    // The container owns the response stream, so the Deflater is ended instead of closing gzip
+                    gzip.end();
+                }
+            }
+        }
+    }
+
+    /**
+     * GZIPOutputStream with a configurable level that flushes compressed data
+     * on flush() and reports its byte counts
+     *
+     * GZIPOutputStream only ends its Deflater in close(), which would also
+     * close the response stream, so end() is called when the body is done.
+     */
+    private static class LevelGzipOutputStream extends GZIPOutputStream {
+        // Gzip header and trailer, which the Deflater does not count
+        private static final int FRAMING_BYTES = 18;
+
+        private LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 8192, true);
+            def.setLevel(level);
+        }
+
+        private long getBytesRead() {
+            return def.getBytesRead();
+        }
+
+        private long getBytesWritten() {
+            return def.getBytesWritten() + FRAMING_BYTES;
+        }
+
+        /**
+         * Release the Deflater's native memory without closing the response stream
+         */
+        private void end() {
+            def.end();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.aptutorialworkshop.filters;
+
+import com.example.aptutorialworkshop.utils.MetricsRegistry;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import java.io.IOException;
+
+/**
+ * MetricsFilter
+ *
+ * Records latency, request count, error count and the in-flight gauge for
+ * every request, grouped by the name of the servlet that handled it.
+ * The numbers are published by MetricsServlet at /metrics.
+ *
+ * The filter sits on every request, so it avoids per-request allocation:
+ * stats objects are created once per servlet, and timing uses System.nanoTime.
+ * Requests that go async (login, registration) are measured until the async
+ * cycle completes rather than until the container thread is released.
+ *
+ * Declared in web.xml, which runs it first so the time spent in the other
+ * filters is measured too.
+ */
+public class MetricsFilter implements Filter {
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // No configuration needed
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        MetricsRegistry.RequestStats stats = MetricsRegistry.forServlet(
+                httpRequest.getHttpServletMapping().getServletName());
+        long start = System.nanoTime();
+        stats.requestStarted();
+
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && httpRequest.isAsyncStarted()) {
+                // Finish the measurement when the async cycle ends
+                httpRequest.getAsyncContext().addListener(new AsyncCompletionListener(stats, start));
+            } else {
+                stats.requestFinished(System.nanoTime() - start, failed || httpResponse.getStatus() >= 500);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // No resources to release
+    }
+
+    /**
+     * Records an async request once its async cycle completes, errors or times out
+     */
+    private static class AsyncCompletionListener implements AsyncListener {
+        private final MetricsRegistry.RequestStats stats;
+        private final long start;
+        private boolean failed;
+
+        private AsyncCompletionListener(MetricsRegistry.RequestStats stats, long start) {
+            this.stats = stats;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            int status = ((HttpServletResponse) event.getSuppliedResponse()).getStatus();
+            stats.requestFinished(System.nanoTime() - start, failed || status >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A new async cycle on the same request (e.g. after dispatch): keep listening
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.aptutorialworkshop.filters;
+
+/**
+ * RouteTable
+ *
+ * A precompiled table that maps request paths to the access level they require.
+ *
+ * Rules are either exact paths ("/LoginServlet") or prefixes ending in "/"
+ * ("/assets/"). All rules are compiled into one character trie, so matching
+ * walks the path once: the cost is O(path length) no matter how many rules
+ * exist, and no strings are created while matching. An exact rule wins over a
+ * prefix rule; among prefixes the longest one wins. Paths that match no rule
+ * get the default access level.
+ */
+public class RouteTable {
+
+    /**
+     * Access levels, from least to most restrictive; METRICS is ADMIN plus
+     * the monitoring system, which cannot log in
+     */
+    public enum Access {
+        // Anyone, no session lookup needed
+        PUBLIC,
+        // Any logged-in user
+        USER,
+        // Logged-in users with the admin role
+        ADMIN,
+        // Admins, or a metrics scraper presenting the metrics token or connecting from an allowed address
+        METRICS
+    }
+
+    private final Node root = new Node();
+    private final Access defaultAccess;
+
+    /**
+     * Create an empty route table
+     *
+     * @param defaultAccess Access level for paths that match no rule
+     */
+    public RouteTable(Access defaultAccess) {
+        this.defaultAccess = defaultAccess;
+    }
+
+    /**
+     * Add an exact path rule
+     *
+     * @param path Path relative to the context root, e.g. "/LoginServlet"
+     * @param access Required access level
+     * @return This table, for chaining
+     */
+    public RouteTable exact(String path, Access access) {
+        nodeFor(path).exactAccess = access;
+        return this;
+    }
+
+    /**
+     * Add a prefix rule
+     *
+     * @param prefix Path prefix relative to the context root, e.g. "/assets/"
+     * @param access Required access level for every path below the prefix
+     * @return This table, for chaining
+     */
+    public RouteTable prefix(String prefix, Access access) {
+        nodeFor(prefix).prefixAccess = access;
+        return this;
+    }
+
+    /**
+     * Find the access level required for a request
+     *
+     * The path is given in the two parts the container already holds, so
+     * nothing has to be concatenated.
+     *
+     * @param servletPath Request servlet path
+     * @param pathInfo Request path info, may be null
+     * @return The required access level
+     */
+    public Access match(String servletPath, String pathInfo) {
+        Access best = defaultAccess;
+        Node node = root;
+        int total = servletPath.length() + (pathInfo == null ? 0 : pathInfo.length());
+
+        for (int i = 0; i < total && node != null; i++) {
+            if (node.prefixAccess != null) {
+                best = node.prefixAccess;
+            }
+            char c = i < servletPath.length() ? servletPath.charAt(i) : pathInfo.charAt(i - servletPath.length());
+            node = node.child(c);
+        }
+
+        if (node != null) {
+            if (node.exactAccess != null) {
+                return node.exactAccess;
+            }
+            if (node.prefixAccess != null) {
+                return node.prefixAccess;
+            }
+        }
+        return best;
+    }
+
+    private Node nodeFor(String path) {
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.childOrCreate(path.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * A trie node; children are kept in small parallel arrays because most
+     * nodes of a path trie have a single child
+     */
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private Access exactAccess;
+        private Access prefixAccess;
+
+        private Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node childOrCreate(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            Node created = new Node();
+            keys = java.util.Arrays.copyOf(keys, keys.length + 1);
+            children = java.util.Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = created;
+            return created;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.aptutorialworkshop.listeners;
+
+import com.example.aptutorialworkshop.controllers.RegisterServlet;
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.services.AuthService;
+import com.example.aptutorialworkshop.services.StartupWarmup;
+import com.example.aptutorialworkshop.services.UserImportService;
+import com.example.aptutorialworkshop.utils.AppConfig;
+import com.example.aptutorialworkshop.utils.BlockingIoExecutor;
+import com.example.aptutorialworkshop.utils.DBConnectionUtil;
+import com.example.aptutorialworkshop.utils.HashingExecutor;
+import com.example.aptutorialworkshop.utils.ImageRenditions;
+import com.example.aptutorialworkshop.utils.PasswordHasher;
+import com.example.aptutorialworkshop.utils.StaticAssets;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+/**
+ * AppContextListener
+ *
+ * Starts and stops application-wide resources together with the web application.
+ *
+ * On startup it creates the session store, failing the deployment if its
+ * configuration is invalid, loads the static assets and publishes their fingerprinted URLs
+ * for the JSPs, registers RegisterServlet with multipart limits taken from
+ * storage.image_max_bytes, opens the database connection pool so the first request does not
+ * pay for the connection handshake, calibrates the BCrypt cost so the first
+ * login does not pay for it, and loads the registered email Bloom filter and
+ * the user search index on a background thread so deployment does not wait
+ * for them. Finally it warms the views, the DAO and BCrypt (StartupWarmup) so
+ * the first request after a deploy is not slower than later ones. On shutdown it closes the pooled connections, stops the password
+ * hashing, blocking I/O, image rendition and user import executors, and
+ * closes the session store (flushing a file-backed off-heap store).
+ */
+@WebListener
+public class AppContextListener implements ServletContextListener {
+
+    /**
+     * Called when the web application starts
+     *
+     * @param sce The servlet context event
+     */
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        // Create the session store first; an invalid setup, e.g. token mode without auth.token.keys, stops the deployment
+        AuthService.getSessionStore();
+
+        // Assets do not need the database, so pages render with the right URLs even if it is down
+        StaticAssets.load(sce.getServletContext());
+
+        // Registered here so its multipart limits come from storage.image_max_bytes
+        RegisterServlet.register(sce.getServletContext());
+
+        try {
+            // Loading DBConnectionUtil creates the pool and opens the minimum number of connections
+            DBConnectionUtil.getPool();
+        } catch (RuntimeException e) {
+            // Keep the application deployable; requests will report the configuration error
+            System.err.println("Error initializing database connection pool: " + e.getMessage());
+            return;
+        }
+
+        // Loading PasswordHasher times BCrypt on this host unless auth.bcrypt.cost is set
+        PasswordHasher.getTargetCost();
+
+        // Fill the email Bloom filter, then the search index, from the users table
+        int batchSize = AppConfig.getInt("search.index.load_batch_size", 5000);
+        Thread loader = new Thread(() -> {
+            UserDAO.getEmailFilter().load(batchSize);
+            UserDAO.getSearchIndex().load(batchSize);
+        }, "user-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+
+        StartupWarmup.run(sce.getServletContext());
+    }
+
+    /**
+     * Called when the web application stops
+     *
+     * @param sce The servlet context event
+     */
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        try {
+            HashingExecutor.shutdown();
+            BlockingIoExecutor.shutdown();
+            ImageRenditions.shutdown();
+            UserImportService.shutdown();
+            AuthService.shutdown();
+            DBConnectionUtil.shutdown();
+        } catch (RuntimeException | ExceptionInInitializerError | NoClassDefFoundError e) {
+            // Configuration was never loaded, so nothing was started
+        }
+    }
+}
@@ -1,16 +1,55 @@
 package com.example.aptutorialworkshop.models;
 
-import java.io.Serializable;
-import org.mindrot.jbcrypt.BCrypt;
+import com.example.aptutorialworkshop.utils.PasswordHasher;
+import com.example.aptutorialworkshop.utils.VarInt;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.HexFormat;
 
 /**
  * UserModel Class
  *
  * Represents a user with attributes like id, name, email, password, role, and profile image.
- * Implements Serializable to support session storage and retrieval.
- * Uses BCrypt for secure password hashing.
+ * Implements Externalizable to support session storage and retrieval.
+ * Uses BCrypt for secure password hashing, at the cost chosen by PasswordHasher.
+ *
+ * The serialized form is hand-written rather than Java's reflective default:
+ * a format version byte, a varint id, a byte of flags for the fields that
+ * are set, the role ordinal, varint-length UTF-8 strings and the 32 raw bytes
+ * of the image hash. The picture bytes are left out; the hash is enough for
+ * ImageServlet to load the picture again. A legacy row read with its bytes
+ * but without a hash is written without either, rather than hashing the
+ * picture on every write; ImageServlet then looks the hash up by id. A
+ * serialized profile takes about 170 bytes instead of about 480 plus the
+ * picture.
+ *
+ * Compatibility: fields added later are appended after the existing ones and
+ * announced by a new flag bit, so older readers ignore them (Java
+ * serialization skips unread externalizable data). FORMAT_VERSION only
+ * changes for an incompatible layout, which older readers reject.
  */
-public class UserModel implements Serializable {
+public class UserModel implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    // Layout written by writeExternal; readers reject newer versions
+    private static final int FORMAT_VERSION = 1;
+
+    // Flags marking which optional fields follow
+    private static final int HAS_NAME = 1;
+    private static final int HAS_EMAIL = 1 << 1;
+    private static final int HAS_PASSWORD = 1 << 2;
+    private static final int HAS_ROLE = 1 << 3;
+    private static final int HAS_IMAGE_HASH = 1 << 4;
+
+    // Longest string accepted when reading, far above the VARCHAR(255) columns
+    private static final int MAX_STRING_BYTES = 4096;
+
+    // Length of a raw SHA-256 image hash
+    private static final int IMAGE_HASH_BYTES = 32;
 
     /**
      * Role Enumeration
@@ -30,7 +69,7 @@ public class UserModel implements Serializable {
     // User's email address (used for login)
     private String email;
 
-    // User's password (BCrypt hashed)
+    // User's password (BCrypt hashed; plain text only in legacy rows)
     private String password;
 
     // User's role (admin or regular user)
@@ -39,9 +78,12 @@ public class UserModel implements Serializable {
     // User's profile picture stored as byte array
     private byte[] image;
 
+    // SHA-256 of the profile picture, set when the picture itself was not loaded
+    private String imageHash;
+
     /**
      * Default constructor
-     * Required for JavaBean specification and session serialization
+     * Required for JavaBean specification and Externalizable deserialization
      */
     public UserModel() {
     }
@@ -114,20 +156,48 @@ public class UserModel implements Serializable {
      *
      * This method hashes the password using BCrypt before storing it.
      * BCrypt automatically generates and includes a salt in the hash.
+     * Values that already are BCrypt hashes ($2a$, $2b$ or $2y$) are stored as is.
      *
      * @param password The user's plain text password to be hashed and stored
      */
     public void setPassword(String password) {
-        // Check if the password is already hashed (starts with $2a$)
-        if (password != null && !password.startsWith("$2a$")) {
+        // Check if the password is already a BCrypt hash
+        if (password != null && !PasswordHasher.isHash(password)) {
             // Hash the password with BCrypt
-            this.password = BCrypt.hashpw(password, BCrypt.gensalt(12));
+            this.password = hashPassword(password);
         } else {
             // Password is already hashed or null
             this.password = password;
         }
     }
 
+    /**
+     * Set the password exactly as it is stored
+     *
+     * Used when loading a user from the database and when the hash was
+     * computed beforehand. Unlike setPassword this never hashes, so a legacy
+     * plain-text row stays recognizable as plain text and is not hashed again
+     * on every login.
+     *
+     * @param storedPassword BCrypt hash, or a legacy plain-text password
+     */
+    public void setStoredPassword(String storedPassword) {
+        this.password = storedPassword;
+    }
+
+    /**
+     * Hash a plain text password
+     *
+     * Produces the BCrypt hash that setPassword stores. Exposed separately so the
+     * expensive hashing can run on a dedicated executor before the model is built.
+     *
+     * @param plainTextPassword The plain text password to hash
+     * @return The BCrypt hash including its salt
+     */
+    public static String hashPassword(String plainTextPassword) {
+        return PasswordHasher.hash(plainTextPassword);
+    }
+
     /**
      * Get the user's role
      *
@@ -164,21 +234,107 @@ public class UserModel implements Serializable {
         this.image = image;
     }
 
+    /**
+     * Get the profile picture hash
+     *
+     * @return SHA-256 of the profile picture as hex, or null if not known
+     */
+    public String getImageHash() {
+        return imageHash;
+    }
+
+    /**
+     * Set the profile picture hash
+     *
+     * @param imageHash SHA-256 of the profile picture as hex
+     */
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
+    }
+
     /**
      * Verify a plain text password against the stored hash
      *
      * This method uses BCrypt to check if the provided plain text password
-     * matches the stored hashed password.
+     * matches the stored hashed password. Legacy plain-text passwords are
+     * compared directly; AuthService replaces them with a hash after login.
      *
      * @param plainTextPassword The plain text password to verify
      * @return true if the password matches, false otherwise
      */
     public boolean verifyPassword(String plainTextPassword) {
-        if (this.password == null || plainTextPassword == null) {
-            return false;
-        }
-        return BCrypt.checkpw(plainTextPassword, this.password);
+        return PasswordHasher.verify(plainTextPassword, this.password);
     }
 
+    /**
+     * Write the compact serialized form
+     *
+     * @param out Object stream
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        boolean rawHash = imageHash != null && imageHash.length() == IMAGE_HASH_BYTES * 2;
+
+        int flags = (name != null ? HAS_NAME : 0)
+                | (email != null ? HAS_EMAIL : 0)
+                | (password != null ? HAS_PASSWORD : 0)
+                | (role != null ? HAS_ROLE : 0)
+                | (rawHash ? HAS_IMAGE_HASH : 0);
 
+        out.writeByte(FORMAT_VERSION);
+        VarInt.writeInt(out, id);
+        VarInt.writeInt(out, flags);
+        if (role != null) {
+            out.writeByte(role.ordinal());
+        }
+        if (name != null) {
+            VarInt.writeString(out, name);
+        }
+        if (email != null) {
+            VarInt.writeString(out, email);
+        }
+        if (password != null) {
+            VarInt.writeString(out, password);
+        }
+        if (rawHash) {
+            out.write(HexFormat.of().parseHex(imageHash));
+        }
+    }
+
+    /**
+     * Read the compact serialized form
+     *
+     * Assigns the password as stored, without hashing it again.
+     *
+     * @param in Object stream
+     * @throws IOException if reading fails or the data is not a UserModel in a known version
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new InvalidObjectException("Unsupported UserModel format version " + version);
+        }
+        id = VarInt.readInt(in);
+        int flags = VarInt.readInt(in);
+        if ((flags & HAS_ROLE) != 0) {
+            int ordinal = in.readUnsignedByte();
+            Role[] roles = Role.values();
+            if (ordinal >= roles.length) {
+                throw new InvalidObjectException("Unknown role " + ordinal);
+            }
+            role = roles[ordinal];
+        }
+        name = (flags & HAS_NAME) != 0 ? VarInt.readString(in, MAX_STRING_BYTES) : null;
+        email = (flags & HAS_EMAIL) != 0 ? VarInt.readString(in, MAX_STRING_BYTES) : null;
+        password = (flags & HAS_PASSWORD) != 0 ? VarInt.readString(in, MAX_STRING_BYTES) : null;
+        if ((flags & HAS_IMAGE_HASH) != 0) {
+            byte[] hash = new byte[IMAGE_HASH_BYTES];
+            in.readFully(hash);
+            imageHash = HexFormat.of().formatHex(hash);
+        }
+        image = null;
+        // Fields from newer writers follow here; their flags are ignored and Java serialization skips the bytes
+    }
 }
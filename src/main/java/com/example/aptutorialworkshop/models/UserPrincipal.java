@@ -0,0 +1,191 @@
+package com.example.aptutorialworkshop.models;
+
+import com.example.aptutorialworkshop.utils.ImageUtil;
+import com.example.aptutorialworkshop.utils.VarInt;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.HexFormat;
+
+/**
+ * UserPrincipal Class
+ *
+ * The slim view of a logged-in user that is kept in the HTTP session.
+ *
+ * Unlike UserModel it never carries the password hash or the profile picture
+ * bytes, only the picture's content hash, so a session costs a few hundred
+ * bytes of heap instead of up to the size of the uploaded image. The picture
+ * itself is loaded on demand by ImageServlet.
+ *
+ * writeTo/readFrom give a compact binary form for session stores that keep
+ * principals outside the Java heap (OffHeapSessionStore): typically well
+ * under 100 bytes, against about 300 for Java serialization.
+ */
+public class UserPrincipal implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Version byte leading the binary form, so the layout can change later
+    private static final byte BINARY_VERSION = 1;
+
+    // Length of a raw SHA-256 image hash in the binary form
+    private static final int IMAGE_HASH_BYTES = 32;
+
+    // Longest binary form of a principal whose name and email fit their VARCHAR(100) utf8mb4 columns
+    // (up to 400 UTF-8 bytes each): version, id, role, both strings with their lengths, flag and image hash
+    public static final int MAX_BINARY_BYTES = 1 + 5 + 1 + 2 * (2 + 400) + 1 + IMAGE_HASH_BYTES;
+
+    // Unique identifier for the user
+    private final int id;
+
+    // User's full name
+    private final String name;
+
+    // User's email address
+    private final String email;
+
+    // User's role (admin or regular user)
+    private final UserModel.Role role;
+
+    // SHA-256 of the profile picture, null if the user has none; changes whenever the picture changes
+    private final String imageHash;
+
+    /**
+     * Create a principal
+     *
+     * @param id The user's unique identifier
+     * @param name The user's full name
+     * @param email The user's email address
+     * @param role The user's role
+     * @param imageHash SHA-256 of the profile picture, or null if there is none
+     */
+    public UserPrincipal(int id, String name, String email, UserModel.Role role, String imageHash) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.role = role;
+        this.imageHash = imageHash;
+    }
+
+    /**
+     * Build a principal from a user loaded from the database
+     *
+     * Uses the image hash already on the model, or hashes the picture bytes
+     * if only those are available.
+     *
+     * @param user The authenticated user
+     * @return A principal without password or image bytes
+     */
+    public static UserPrincipal from(UserModel user) {
+        String imageHash = user.getImageHash();
+        if (imageHash == null && user.getImage() != null && user.getImage().length > 0) {
+            imageHash = ImageUtil.sha256Hex(user.getImage());
+        }
+        return new UserPrincipal(user.getId(), user.getName(), user.getEmail(), user.getRole(), imageHash);
+    }
+
+    /**
+     * Write the binary form of this principal
+     *
+     * Layout: version byte, varint id, role ordinal byte, name and email as
+     * varint-length UTF-8, then a flag byte followed by the 32 raw bytes of
+     * the image hash when there is one.
+     *
+     * @param buffer Target buffer
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put(BINARY_VERSION);
+        VarInt.writeInt(buffer, id);
+        buffer.put((byte) role.ordinal());
+        VarInt.writeString(buffer, name);
+        VarInt.writeString(buffer, email);
+        if (imageHash != null && imageHash.length() == IMAGE_HASH_BYTES * 2) {
+            buffer.put((byte) 1);
+            buffer.put(HexFormat.of().parseHex(imageHash));
+        } else {
+            buffer.put((byte) 0);
+        }
+    }
+
+    /**
+     * Read a principal written by writeTo
+     *
+     * @param buffer Source buffer positioned at the principal
+     * @return The principal
+     * @throws IllegalArgumentException if the data is not a principal in a known version
+     */
+    public static UserPrincipal readFrom(ByteBuffer buffer) {
+        if (buffer.get() != BINARY_VERSION) {
+            throw new IllegalArgumentException("Unknown principal encoding version");
+        }
+        int id = VarInt.readInt(buffer);
+        int roleIndex = buffer.get();
+        UserModel.Role[] roles = UserModel.Role.values();
+        if (roleIndex < 0 || roleIndex >= roles.length) {
+            throw new IllegalArgumentException("Unknown role " + roleIndex);
+        }
+        String name = VarInt.readString(buffer);
+        String email = VarInt.readString(buffer);
+        String imageHash = null;
+        if (buffer.get() != 0) {
+            byte[] hash = new byte[IMAGE_HASH_BYTES];
+            buffer.get(hash);
+            imageHash = HexFormat.of().formatHex(hash);
+        }
+        return new UserPrincipal(id, name, email, roles[roleIndex], imageHash);
+    }
+
+    /**
+     * Get the user's ID
+     *
+     * @return The user's unique identifier
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the user's name
+     *
+     * @return The user's full name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the user's email
+     *
+     * @return The user's email address
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Get the user's role
+     *
+     * @return The user's role (admin or user)
+     */
+    public UserModel.Role getRole() {
+        return role;
+    }
+
+    /**
+     * Get the profile picture hash
+     *
+     * @return SHA-256 of the profile picture, or null if the user has none
+     */
+    public String getImageHash() {
+        return imageHash;
+    }
+
+    /**
+     * Check whether the user has a profile picture
+     *
+     * @return true if a picture is stored for the user
+     */
+    public boolean hasImage() {
+        return imageHash != null;
+    }
+}
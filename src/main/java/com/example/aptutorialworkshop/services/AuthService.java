@@ -2,8 +2,19 @@ package com.example.aptutorialworkshop.services;
 
 import com.example.aptutorialworkshop.dao.UserDAO;
 import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.models.UserPrincipal;
+import com.example.aptutorialworkshop.utils.AppConfig;
+import com.example.aptutorialworkshop.utils.BlockingIoExecutor;
+import com.example.aptutorialworkshop.utils.HashingExecutor;
+import com.example.aptutorialworkshop.utils.PasswordHasher;
+import com.example.aptutorialworkshop.utils.TokenBucketLimiter;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * AuthService Class
@@ -11,8 +22,55 @@ import jakarta.servlet.http.HttpSession;
  * Provides authentication, session management, and user operations.
  * Handles user login, registration, session creation/validation, and logout.
  * Uses BCrypt for secure password verification.
+ *
+ * The async variants run BCrypt on the bounded HashingExecutor so servlet
+ * container threads are not held for the duration of a hash.
+ *
+ * The session principal is resolved at most once per request and kept in the
+ * PRINCIPAL_ATTRIBUTE request attribute; AuthenticationFilter resolves it up
+ * front, and every later check in the same request is an attribute read.
+ *
+ * After a successful login, a stored password that is plain text or hashed
+ * below PasswordHasher's target cost is rehashed in the background and
+ * written back (auth.bcrypt.rehash_on_login), so hashes follow cost increases
+ * without anyone resetting their password. Stronger hashes are kept as they
+ * are (see PasswordHasher.needsRehash).
+ *
+ * Login attempts are rate limited per client IP and per email before any
+ * password is verified (checkLoginRateLimit), so a credential-stuffing burst
+ * cannot turn into a BCrypt burst.
+ *
+ * Sessions are kept by the SessionStore chosen with auth.session_mode:
+ * container (default, HttpSession), token (signed cookie, no server state)
+ * or offheap (direct memory slabs, optionally file-backed).
  */
 public class AuthService {
+    // Request attribute holding the principal resolved for the current request
+    public static final String PRINCIPAL_ATTRIBUTE = AuthService.class.getName() + ".principal";
+
+    // Marker stored when the request was resolved and has no logged-in user
+    private static final Object ANONYMOUS = new Object();
+
+    // Replace outdated password hashes after a successful login
+    private static final boolean REHASH_ON_LOGIN = AppConfig.getBoolean("auth.bcrypt.rehash_on_login", true);
+
+    // Login attempts per client IP and per email (auth.rate_limit.*)
+    private static final boolean RATE_LIMIT_ENABLED = AppConfig.getBoolean("auth.rate_limit.enabled", true);
+    private static final TokenBucketLimiter IP_LIMITER = new TokenBucketLimiter(
+            AppConfig.getInt("auth.rate_limit.ip.attempts", 20),
+            AppConfig.getLong("auth.rate_limit.ip.period_seconds", 60), TimeUnit.SECONDS,
+            AppConfig.getInt("auth.rate_limit.slots", 65536));
+    private static final TokenBucketLimiter EMAIL_LIMITER = new TokenBucketLimiter(
+            AppConfig.getInt("auth.rate_limit.email.attempts", 5),
+            AppConfig.getLong("auth.rate_limit.email.period_seconds", 60), TimeUnit.SECONDS,
+            AppConfig.getInt("auth.rate_limit.slots", 65536));
+
+    // Where logins are kept between requests (auth.session_mode)
+    private static final SessionStore SESSION_STORE = createSessionStore(AppConfig.get("auth.session_mode", "container"));
+
+    private static final LongAdder REHASHED = new LongAdder();
+    private static final LongAdder REHASH_SKIPPED = new LongAdder();
+    private static final LongAdder REHASH_FAILED = new LongAdder();
 
     /**
      * Register a new user
@@ -40,57 +98,232 @@ public class AuthService {
         return UserDAO.registerUser(user);
     }
 
+    /**
+     * Register a new user with an already hashed password
+     *
+     * Used together with hashPasswordAsync so the BCrypt work happens off the
+     * request thread and only the database insert runs here. The profile
+     * picture has already been streamed into the ImageStore, so only its hash
+     * is passed along.
+     *
+     * @param name User's full name
+     * @param email User's email address
+     * @param passwordHash BCrypt hash of the user's password
+     * @param role User's role ("admin" or "user")
+     * @param imageHash ImageStore hash of the profile picture, or null for none
+     * @return Generated user ID if successful, -1 otherwise
+     */
+    public static int registerWithHash(String name, String email, String passwordHash, String role, String imageHash) {
+        UserModel user = new UserModel();
+        user.setName(name);
+        user.setEmail(email);
+        user.setStoredPassword(passwordHash); // Already hashed, stored as is
+        user.setRole(UserModel.Role.valueOf(role));
+        user.setImageHash(imageHash);
+
+        return UserDAO.registerUser(user);
+    }
+
+    /**
+     * Hash a password on the hashing executor
+     *
+     * @param password Plain text password
+     * @return Future completed with the BCrypt hash
+     * @throws RejectedExecutionException if the hashing executor is saturated
+     */
+    public static CompletableFuture<String> hashPasswordAsync(String password) {
+        return HashingExecutor.submit(() -> UserModel.hashPassword(password));
+    }
+
+    /**
+     * Take a login attempt from the client's and the email's allowance
+     *
+     * Called before the credentials are looked up. The IP is checked first,
+     * so a client that is already limited does not use up the allowance of
+     * the emails it tries.
+     *
+     * @param clientIp Client address, see ClientAddress
+     * @param email Submitted email address
+     * @return 0 if the attempt may proceed, otherwise the seconds to wait before retrying
+     */
+    public static long checkLoginRateLimit(String clientIp, String email) {
+        if (!RATE_LIMIT_ENABLED) {
+            return 0;
+        }
+        long waitMillis = IP_LIMITER.tryAcquire(clientIp);
+        if (waitMillis == 0) {
+            waitMillis = EMAIL_LIMITER.tryAcquire(UserDAO.normalizeEmail(email));
+        }
+        return waitMillis == 0 ? 0 : Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999));
+    }
+
+    /**
+     * Get the number of login attempts rejected by the per-IP limit
+     *
+     * @return Rejected attempt count
+     */
+    public static long getIpRateLimitedCount() {
+        return IP_LIMITER.getRejectedCount();
+    }
+
+    /**
+     * Get the number of login attempts rejected by the per-email limit
+     *
+     * @return Rejected attempt count
+     */
+    public static long getEmailRateLimitedCount() {
+        return EMAIL_LIMITER.getRejectedCount();
+    }
+
+    /**
+     * Get the number of login attempts whose IP or email found no free limiter slot
+     *
+     * @return Attempts counted in the limiters' shared overflow buckets
+     */
+    public static long getRateLimitOverflowCount() {
+        return IP_LIMITER.getOverflowCount() + EMAIL_LIMITER.getOverflowCount();
+    }
+
     /**
      * Authenticate a user
      *
-     * Retrieves user by email and verifies password using BCrypt.
+     * Retrieves only the user's credentials by email and verifies the password
+     * using BCrypt. The profile (without the picture) is loaded only after a
+     * successful verification.
      *
      * @param email User's email address
      * @param password User's plain text password
-     * @return Complete UserModel if authenticated, null otherwise
+     * @return UserModel profile if authenticated, null otherwise
      */
     public static UserModel login(String email, String password){
-        // Get the user by email
-        UserModel user = UserDAO.getUserByEmail(email);
+        // Get the credentials by email
+        UserModel credentials = UserDAO.getUserCredentialsByEmail(email);
 
         // If user exists and password matches the hash
-        if (user != null && user.verifyPassword(password)) {
-            return user;
+        if (credentials != null && credentials.verifyPassword(password)) {
+            rehashIfOutdated(credentials, password);
+            return UserDAO.getUserProfileById(credentials.getId());
         }
 
         // Authentication failed
         return null;
     }
 
+    /**
+     * Authenticate a user asynchronously
+     *
+     * Looks the credentials up on the calling thread, then verifies the password
+     * on the hashing executor. Unknown emails complete immediately without hashing.
+     * After a successful verification the profile (without the picture) is loaded.
+     *
+     * @param email User's email address
+     * @param password User's plain text password
+     * @return Future completed with the UserModel profile if authenticated, null otherwise
+     * @throws RejectedExecutionException if the hashing executor is saturated
+     */
+    public static CompletableFuture<UserModel> loginAsync(String email, String password) {
+        // Get the credentials by email
+        UserModel credentials = UserDAO.getUserCredentialsByEmail(email);
+        if (credentials == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Verify the password hash off the request thread, then load the profile by primary key
+        return HashingExecutor.submit(() -> credentials.verifyPassword(password))
+                .thenApplyAsync(verified -> {
+                    if (!verified) {
+                        return null;
+                    }
+                    rehashIfOutdated(credentials, password);
+                    return UserDAO.getUserProfileById(credentials.getId());
+                }, BlockingIoExecutor.executor());
+    }
+
+    /**
+     * Replace a verified password's stored value if it is outdated
+     *
+     * Plain text and hashes below the target cost are rehashed on the hashing
+     * executor and written back without delaying the login. When the executor
+     * is saturated the rehash is skipped; the next login tries again.
+     *
+     * @param credentials Credentials the password was verified against
+     * @param password The verified plain text password
+     */
+    private static void rehashIfOutdated(UserModel credentials, String password) {
+        String stored = credentials.getPassword();
+        if (!REHASH_ON_LOGIN || !PasswordHasher.needsRehash(stored)) {
+            return;
+        }
+        try {
+            HashingExecutor.submit(() -> PasswordHasher.hash(password))
+                    .thenAcceptAsync(hash -> {
+                        if (UserDAO.updatePassword(credentials.getId(), stored, hash)) {
+                            REHASHED.increment();
+                        }
+                    }, BlockingIoExecutor.executor())
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            REHASH_FAILED.increment();
+                            System.err.println("Error rehashing password of user " + credentials.getId() + ": "
+                                    + error.getMessage());
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            REHASH_SKIPPED.increment();
+        }
+    }
+
+    /**
+     * Get the number of stored passwords replaced by a hash at the target cost
+     *
+     * @return Rehash count
+     */
+    public static long getRehashCount() {
+        return REHASHED.sum();
+    }
+
+    /**
+     * Get the number of rehashes skipped because the hashing executor was busy
+     *
+     * @return Skipped rehash count
+     */
+    public static long getRehashSkippedCount() {
+        return REHASH_SKIPPED.sum();
+    }
+
+    /**
+     * Get the number of rehashes that failed
+     *
+     * @return Failed rehash count
+     */
+    public static long getRehashFailedCount() {
+        return REHASH_FAILED.sum();
+    }
+
     /**
      * Retrieve a user by ID
      *
-     * Gets complete user record from database using ID.
+     * Gets the user's profile from the database using ID, without the
+     * password hash or picture bytes.
      * Used after registration to retrieve the newly created user.
      *
      * @param id User ID to look up
-     * @return Complete UserModel if found, null otherwise
+     * @return UserModel profile if found, null otherwise
      */
     public static UserModel getUserById(int id) {
-        return UserDAO.getUserById(id);
+        return UserDAO.getUserProfileById(id);
     }
 
     /**
      * Check if user is authenticated
      *
-     * Verifies if a valid user object exists in the current session.
+     * Verifies if a valid user principal exists for the current request.
      *
      * @param request HTTP request object
      * @return true if authenticated, false otherwise
      */
     public static boolean isAuthenticated(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session == null) {
-            return false;
-        }
-
-        UserModel user = (UserModel) session.getAttribute("user");
-        return user != null;
+        return getCurrentUser(request) != null;
     }
 
     /**
@@ -102,57 +335,120 @@ public class AuthService {
      * @return true if user is admin, false otherwise
      */
     public static boolean isAdmin(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session == null) {
-            return false;
-        }
-
-        UserModel user = (UserModel) session.getAttribute("user");
+        UserPrincipal user = getCurrentUser(request);
         return user != null && user.getRole() == UserModel.Role.admin;
     }
 
     /**
      * Create user session
      *
-     * Creates/uses a session and stores user object with timeout.
+     * Stores a slim UserPrincipal in the configured SessionStore with the
+     * given idle timeout. The password hash and profile picture bytes are
+     * never put in the session.
      *
      * @param request HTTP request object
+     * @param response HTTP response object, may receive a session cookie
      * @param user Authenticated user object
      * @param timeoutSeconds Session timeout in seconds
      */
-    public static void createUserSession(HttpServletRequest request, UserModel user, int timeoutSeconds) {
-        HttpSession session = request.getSession();
-        session.setAttribute("user", user);
-        session.setMaxInactiveInterval(timeoutSeconds);
+    public static void createUserSession(HttpServletRequest request, HttpServletResponse response, UserModel user,
+                                         int timeoutSeconds) {
+        UserPrincipal principal = UserPrincipal.from(user);
+        SESSION_STORE.create(request, response, principal, timeoutSeconds);
+
+        // Later checks in this request see the new login
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
     }
 
     /**
      * Get current user
      *
-     * Retrieves authenticated user from session.
+     * Returns the principal already resolved for this request, or resolves it
+     * through the session store and remembers it on the request.
      *
      * @param request HTTP request object
-     * @return User object or null if not authenticated
+     * @return User principal or null if not authenticated
      */
-    public static UserModel getCurrentUser(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session == null) {
+    public static UserPrincipal getCurrentUser(HttpServletRequest request) {
+        Object resolved = request.getAttribute(PRINCIPAL_ATTRIBUTE);
+        if (resolved instanceof UserPrincipal principal) {
+            return principal;
+        }
+        if (resolved == ANONYMOUS) {
             return null;
         }
-        return (UserModel) session.getAttribute("user");
+
+        // First lookup in this request: ask the session store once
+        UserPrincipal principal = SESSION_STORE.resolve(request);
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal != null ? principal : ANONYMOUS);
+        return principal;
     }
 
     /**
-     * Logout user
+     * Extend the session of the current request
      *
-     * Invalidates the current session.
+     * Called by AuthenticationFilter after the principal has been resolved and
+     * before the response is committed, so stores that renew a cookie can
+     * still send it.
      *
      * @param request HTTP request object
+     * @param response HTTP response object
+     */
+    public static void renewSession(HttpServletRequest request, HttpServletResponse response) {
+        if (request.getAttribute(PRINCIPAL_ATTRIBUTE) instanceof UserPrincipal principal) {
+            SESSION_STORE.renew(request, response, principal);
+        }
+    }
+
+    /**
+     * Get the session store
+     *
+     * @return The store selected by auth.session_mode
+     */
+    public static SessionStore getSessionStore() {
+        return SESSION_STORE;
+    }
+
+    /**
+     * Release the session store's resources
+     *
+     * Called when the web application is undeployed.
+     */
+    public static void shutdown() {
+        SESSION_STORE.shutdown();
+    }
+
+    /**
+     * Create the session store for a session mode
+     *
+     * @param mode container, token or offheap
+     * @return The session store
      */
-    public static void logout(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            session.invalidate();
+    private static SessionStore createSessionStore(String mode) {
+        switch (mode.trim().toLowerCase()) {
+            case "token":
+                return new TokenSessionStore();
+            case "offheap":
+                return new OffHeapSessionStore();
+            case "container":
+                return new ContainerSessionStore();
+            default:
+                System.err.println("Unknown auth.session_mode '" + mode + "'; using container sessions");
+                return new ContainerSessionStore();
         }
     }
+
+    /**
+     * Logout user
+     *
+     * Ends the current session in the session store, removing its cookie
+     * where the store has one.
+     *
+     * @param request HTTP request object
+     * @param response HTTP response object
+     */
+    public static void logout(HttpServletRequest request, HttpServletResponse response) {
+        SESSION_STORE.invalidate(request, response);
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, ANONYMOUS);
+    }
 }
@@ -0,0 +1,39 @@
+package com.example.aptutorialworkshop.services;
+
+import com.example.aptutorialworkshop.models.UserPrincipal;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * ContainerSessionStore Class
+ *
+ * Keeps the principal in the servlet container's HttpSession under the
+ * "user" attribute. The container handles the idle timeout and the session
+ * cookie; behind a load balancer this needs sticky sessions or session
+ * replication.
+ */
+public class ContainerSessionStore implements SessionStore {
+
+    @Override
+    public void create(HttpServletRequest request, HttpServletResponse response, UserPrincipal principal,
+                       int timeoutSeconds) {
+        HttpSession session = request.getSession();
+        session.setAttribute("user", principal);
+        session.setMaxInactiveInterval(timeoutSeconds);
+    }
+
+    @Override
+    public UserPrincipal resolve(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session == null ? null : (UserPrincipal) session.getAttribute("user");
+    }
+
+    @Override
+    public void invalidate(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.aptutorialworkshop.services;
+
+import com.example.aptutorialworkshop.utils.JsonUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ImportJob Class
+ *
+ * Progress and outcome of one bulk user import run by UserImportService.
+ * Counters are updated by the import thread and read by status requests, so
+ * they are atomic; the list of row errors is capped so a bad file cannot use
+ * unbounded memory.
+ */
+public class ImportJob {
+
+    /**
+     * Lifecycle of an import
+     */
+    public enum State {QUEUED, RUNNING, COMPLETED, FAILED}
+
+    /**
+     * A row that was not imported
+     *
+     * @param line Line number in the input (1-based, header included)
+     * @param email Email of the row, if it could be read
+     * @param message Why the row was rejected
+     */
+    public record RowError(long line, String email, String message) {
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String format;
+    private final int maxReportedErrors;
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<RowError> errors = new ArrayList<>();
+    private volatile State state = State.QUEUED;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private volatile String failureMessage;
+
+    /**
+     * Create a queued import job
+     *
+     * @param format Input format name
+     * @param maxReportedErrors Maximum number of row errors kept for the report
+     */
+    public ImportJob(String format, int maxReportedErrors) {
+        this.format = format;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Mark the job as running
+     */
+    public void started() {
+        startNanos = System.nanoTime();
+        state = State.RUNNING;
+    }
+
+    /**
+     * Mark the job as finished
+     *
+     * @param failure Error that stopped the import, or null if the whole input was processed
+     */
+    public void finished(Throwable failure) {
+        endNanos = System.nanoTime();
+        if (failure != null) {
+            failureMessage = failure.getMessage();
+            state = State.FAILED;
+        } else {
+            state = State.COMPLETED;
+        }
+    }
+
+    /**
+     * Count a row read from the input
+     */
+    public void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    /**
+     * Count rows that were inserted
+     *
+     * @param count Number of inserted rows
+     */
+    public void rowsImported(int count) {
+        imported.addAndGet(count);
+    }
+
+    /**
+     * Record a rejected row
+     *
+     * @param line Line number in the input
+     * @param email Email of the row, may be null
+     * @param message Why the row was rejected
+     */
+    public void rowFailed(long line, String email, String message) {
+        failed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new RowError(line, email, message));
+            }
+        }
+    }
+
+    /**
+     * Get the job ID
+     *
+     * @return Unique job identifier
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Get the job state
+     *
+     * @return Current state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Get the number of data rows read
+     *
+     * @return Rows read from the input
+     */
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    /**
+     * Get the number of inserted rows
+     *
+     * @return Imported row count
+     */
+    public long getImported() {
+        return imported.get();
+    }
+
+    /**
+     * Get the number of rejected rows
+     *
+     * @return Failed row count
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Get the time the import has been running
+     *
+     * @return Elapsed milliseconds, 0 if not started
+     */
+    public long getElapsedMillis() {
+        if (startNanos == 0) {
+            return 0;
+        }
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Get the throughput so far
+     *
+     * @return Processed (imported or failed) rows per second
+     */
+    public double getRowsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : (imported.get() + failed.get()) * 1000.0 / elapsed;
+    }
+
+    /**
+     * Get the reported row errors
+     *
+     * @return Copy of the first row errors, up to the configured maximum
+     */
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    /**
+     * Render the job status as JSON
+     *
+     * @param includeErrors true to include the row errors
+     * @return JSON object text
+     */
+    public String toJson(boolean includeErrors) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"id\":").append(JsonUtil.quote(id))
+                .append(",\"format\":").append(JsonUtil.quote(format))
+                .append(",\"state\":").append(JsonUtil.quote(state.name()))
+                .append(",\"rowsRead\":").append(getRowsRead())
+                .append(",\"imported\":").append(getImported())
+                .append(",\"failed\":").append(getFailed())
+                .append(",\"elapsedMillis\":").append(getElapsedMillis())
+                .append(",\"rowsPerSecond\":").append(Math.round(getRowsPerSecond() * 10) / 10.0);
+        if (failureMessage != null) {
+            json.append(",\"failure\":").append(JsonUtil.quote(failureMessage));
+        }
+        if (includeErrors) {
+            json.append(",\"errors\":[");
+            List<RowError> rowErrors = getErrors();
+            for (int i = 0; i < rowErrors.size(); i++) {
+                RowError error = rowErrors.get(i);
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append("{\"line\":").append(error.line())
+                        .append(",\"email\":").append(JsonUtil.quote(error.email()))
+                        .append(",\"message\":").append(JsonUtil.quote(error.message()))
+                        .append('}');
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+}
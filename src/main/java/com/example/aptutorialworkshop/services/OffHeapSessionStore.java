@@ -0,0 +1,525 @@
+package com.example.aptutorialworkshop.services;
+
+import com.example.aptutorialworkshop.models.UserPrincipal;
+import com.example.aptutorialworkshop.utils.AppConfig;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OffHeapSessionStore Class
+ *
+ * Keeps sessions in fixed-size slots of direct ByteBuffer slabs instead of
+ * HttpSession objects, so a million logged-in users add about a gigabyte
+ * outside the Java heap and nothing the garbage collector has to trace. Each slot holds the session secret, last access time, idle timeout
+ * and the principal in UserPrincipal's compact binary form.
+ *
+ * The auth.offheap.cookie_name cookie carries the slot number and a 128-bit
+ * random secret, so a lookup goes straight to its slot without any index and
+ * compares the secret in constant time. Slots are guarded by striped locks.
+ *
+ * Slots are never smaller than the longest principal the users table can
+ * hold, so every user fits. When all slots are taken, create() throws
+ * SessionRejectedException and the login is answered with a 503.
+ *
+ * A sweeper thread frees sessions idle past their timeout every
+ * auth.offheap.sweep_interval_seconds; lookups also reject and free expired
+ * sessions themselves.
+ *
+ * With auth.offheap.file set, the slabs are memory-mapped from that file
+ * instead of allocated, so sessions survive a restart (or a redeploy) and the
+ * operating system writes them back in the background. A file written with a
+ * different slot layout is discarded.
+ *
+ * Configuration (application.properties):
+ * - auth.offheap.max_sessions: session capacity (default 100000)
+ * - auth.offheap.slot_bytes: bytes per session (default 1056: 1024 for the principal and the 32-byte header;
+ *   smaller values are raised to fit 100-character names and emails of 4-byte characters)
+ * - auth.offheap.file: file to map the slabs from; unset keeps them in memory only
+ * - auth.offheap.sweep_interval_seconds: time between idle sweeps (default 60)
+ * - auth.offheap.cookie_name: session cookie name (default SESSION_ID)
+ */
+public class OffHeapSessionStore implements SessionStore {
+    // Slot layout: secret, last access (epoch ms), idle timeout (s), principal length, principal
+    private static final int SECRET_OFFSET = 0;
+    private static final int SECRET_BYTES = 16;
+    private static final int LAST_ACCESS_OFFSET = 16;
+    private static final int TIMEOUT_OFFSET = 24;
+    private static final int LENGTH_OFFSET = 28;
+    private static final int PAYLOAD_OFFSET = 32;
+
+    // Cookie value: slot number and secret, base64url encoded
+    private static final int SESSION_ID_BYTES = 4 + SECRET_BYTES;
+
+    private static final int MAX_SLOTS_PER_SLAB = 4096;
+    private static final int LOCK_STRIPES = 64;
+
+    // File header: magic, format version, slot size, slots per slab; slabs start after it
+    private static final int FILE_MAGIC = 0x53455353; // "SESS"
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 4096;
+
+    private final int slotBytes;
+    private final int slotsPerSlab;
+    private final int maxSlots;
+    private final String cookieName;
+    private final AtomicReferenceArray<ByteBuffer> slabs;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final SecureRandom random = new SecureRandom();
+    private final FileChannel file;
+    private final ScheduledExecutorService sweeper;
+
+    // Free slots below highWater (a stack) and the first slot never handed out; guarded by this
+    private final int[] freeSlots;
+    private int freeCount;
+    private int highWater;
+
+    private final AtomicInteger liveSessions = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // Per-thread buffer the principal is encoded into and decoded from
+    private final ThreadLocal<byte[]> buffers;
+
+    /**
+     * Create a store from the auth.offheap.* settings
+     *
+     * Opens or creates the backing file when one is configured and starts the sweeper.
+     */
+    public OffHeapSessionStore() {
+        this(AppConfig.getInt("auth.offheap.max_sessions", 100_000), AppConfig.getInt("auth.offheap.slot_bytes", 1056),
+                AppConfig.get("auth.offheap.file"), AppConfig.getLong("auth.offheap.sweep_interval_seconds", 60),
+                AppConfig.get("auth.offheap.cookie_name", "SESSION_ID"));
+    }
+
+    /**
+     * Create a store
+     *
+     * @param maxSessions Session capacity
+     * @param slotBytes Bytes per session, including a 32-byte header; raised to fit the longest principal
+     * @param filePath File to map the slabs from, or null to keep them in memory only
+     * @param sweepIntervalSeconds Time between idle sweeps
+     * @param cookieName Session cookie name
+     */
+    public OffHeapSessionStore(int maxSessions, int slotBytes, String filePath, long sweepIntervalSeconds,
+                               String cookieName) {
+        int minSlotBytes = PAYLOAD_OFFSET + UserPrincipal.MAX_BINARY_BYTES;
+        if (slotBytes < minSlotBytes) {
+            System.err.println("auth.offheap.slot_bytes=" + slotBytes + " cannot hold every user; using " + minSlotBytes);
+        }
+        this.slotBytes = Math.max(minSlotBytes, slotBytes);
+        this.slotsPerSlab = Math.max(1, Math.min(MAX_SLOTS_PER_SLAB, maxSessions));
+        int slabCount = (Math.max(1, maxSessions) + slotsPerSlab - 1) / slotsPerSlab;
+        this.maxSlots = slabCount * slotsPerSlab;
+        this.cookieName = cookieName;
+        this.slabs = new AtomicReferenceArray<>(slabCount);
+        this.freeSlots = new int[maxSlots];
+        this.buffers = ThreadLocal.withInitial(() -> new byte[this.slotBytes - PAYLOAD_OFFSET]);
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+
+        this.file = filePath == null || filePath.isBlank() ? null : openFile(Path.of(filePath));
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, sweepIntervalSeconds);
+        sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void create(HttpServletRequest request, HttpServletResponse response, UserPrincipal principal,
+                       int timeoutSeconds) {
+        // Replace rather than reuse the session the request came with (session fixation)
+        release(SessionCookies.read(request, cookieName));
+
+        byte[] buffer = buffers.get();
+        ByteBuffer payload = ByteBuffer.wrap(buffer);
+        try {
+            principal.writeTo(payload);
+        } catch (BufferOverflowException e) {
+            // Only possible for names or emails longer than the columns allow
+            rejected.increment();
+            System.err.println("Session of user " + principal.getId() + " does not fit in auth.offheap.slot_bytes="
+                    + slotBytes);
+            throw new SessionRejectedException("Session of user " + principal.getId() + " is too large");
+        }
+
+        int slot = allocateSlot();
+        if (slot < 0) {
+            rejected.increment();
+            throw new SessionRejectedException("Session store is full (auth.offheap.max_sessions=" + maxSlots + ")");
+        }
+
+        byte[] sessionId = new byte[SESSION_ID_BYTES];
+        random.nextBytes(sessionId);
+        ByteBuffer id = ByteBuffer.wrap(sessionId).putInt(0, slot);
+        long secretHigh = id.getLong(4);
+        long secretLow = id.getLong(12);
+        if ((secretHigh | secretLow) == 0) {
+            secretLow = 1; // An all-zero secret marks a free slot
+            id.putLong(12, secretLow);
+        }
+
+        ByteBuffer slab = slabs.get(slot / slotsPerSlab);
+        int base = (slot % slotsPerSlab) * slotBytes;
+        synchronized (lockFor(slot)) {
+            slab.putLong(base + LAST_ACCESS_OFFSET, System.currentTimeMillis());
+            slab.putInt(base + TIMEOUT_OFFSET, timeoutSeconds);
+            slab.putInt(base + LENGTH_OFFSET, payload.position());
+            slab.put(base + PAYLOAD_OFFSET, buffer, 0, payload.position());
+            // Writing the secret last makes the slot live
+            slab.putLong(base + SECRET_OFFSET, secretHigh);
+            slab.putLong(base + SECRET_OFFSET + 8, secretLow);
+        }
+        liveSessions.incrementAndGet();
+        created.increment();
+
+        SessionCookies.write(request, response, cookieName,
+                Base64.getUrlEncoder().withoutPadding().encodeToString(sessionId), -1);
+    }
+
+    @Override
+    public UserPrincipal resolve(HttpServletRequest request) {
+        ByteBuffer id = parseSessionId(SessionCookies.read(request, cookieName));
+        if (id == null) {
+            return null;
+        }
+        int slot = id.getInt(0);
+        ByteBuffer slab = slabs.get(slot / slotsPerSlab);
+        int base = (slot % slotsPerSlab) * slotBytes;
+        byte[] buffer = buffers.get();
+        int length;
+        synchronized (lockFor(slot)) {
+            if (!matches(slab, base, id)) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            if (isExpired(slab, base, now)) {
+                free(slab, base, slot);
+                expired.increment();
+                return null;
+            }
+            length = slab.getInt(base + LENGTH_OFFSET);
+            if (length < 0 || length > buffer.length) {
+                System.err.println("Discarding corrupt session in slot " + slot);
+                free(slab, base, slot);
+                return null;
+            }
+            slab.putLong(base + LAST_ACCESS_OFFSET, now);
+            slab.get(base + PAYLOAD_OFFSET, buffer, 0, length);
+        }
+        try {
+            return UserPrincipal.readFrom(ByteBuffer.wrap(buffer, 0, length));
+        } catch (RuntimeException e) {
+            System.err.println("Discarding unreadable session in slot " + slot + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void invalidate(HttpServletRequest request, HttpServletResponse response) {
+        String cookie = SessionCookies.read(request, cookieName);
+        if (cookie != null) {
+            release(cookie);
+            SessionCookies.clear(request, response, cookieName);
+        }
+    }
+
+    @Override
+    public long getSessionCount() {
+        return liveSessions.get();
+    }
+
+    /**
+     * Stop the sweeper and flush the backing file
+     */
+    @Override
+    public void shutdown() {
+        sweeper.shutdownNow();
+        if (file != null) {
+            for (int i = 0; i < slabs.length(); i++) {
+                if (slabs.get(i) instanceof MappedByteBuffer mapped) {
+                    mapped.force();
+                }
+            }
+            try {
+                file.close();
+            } catch (IOException e) {
+                System.err.println("Error closing session file: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the direct memory (or mapped file size) taken by allocated slabs
+     *
+     * @return Size in bytes
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (int i = 0; i < slabs.length(); i++) {
+            if (slabs.get(i) != null) {
+                bytes += (long) slotsPerSlab * slotBytes;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Get the session capacity
+     *
+     * @return Maximum number of sessions
+     */
+    public int getCapacity() {
+        return maxSlots;
+    }
+
+    /**
+     * Get the number of sessions created
+     *
+     * @return Created session count
+     */
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    /**
+     * Get the number of sessions ended by their idle timeout
+     *
+     * @return Expired session count
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * Get the number of logins refused because the store was full or the session did not fit
+     *
+     * @return Rejected session count
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Free every session idle past its timeout
+     */
+    private void sweep() {
+        try {
+            int limit;
+            synchronized (this) {
+                limit = highWater;
+            }
+            long now = System.currentTimeMillis();
+            int count = 0;
+            for (int slot = 0; slot < limit; slot++) {
+                ByteBuffer slab = slabs.get(slot / slotsPerSlab);
+                int base = (slot % slotsPerSlab) * slotBytes;
+                synchronized (lockFor(slot)) {
+                    if (isLive(slab, base) && isExpired(slab, base, now)) {
+                        free(slab, base, slot);
+                        count++;
+                    }
+                }
+            }
+            expired.add(count);
+        } catch (RuntimeException e) {
+            System.err.println("Session sweep failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Free the session a cookie refers to, if it is still live
+     *
+     * @param cookie Cookie value, may be null
+     */
+    private void release(String cookie) {
+        ByteBuffer id = parseSessionId(cookie);
+        if (id == null) {
+            return;
+        }
+        int slot = id.getInt(0);
+        ByteBuffer slab = slabs.get(slot / slotsPerSlab);
+        int base = (slot % slotsPerSlab) * slotBytes;
+        synchronized (lockFor(slot)) {
+            if (matches(slab, base, id)) {
+                free(slab, base, slot);
+            }
+        }
+    }
+
+    private Object lockFor(int slot) {
+        return locks[slot & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Decode a session cookie
+     *
+     * @param cookie Cookie value
+     * @return Buffer holding the slot number and secret, or null if the cookie is malformed or out of range
+     */
+    private ByteBuffer parseSessionId(String cookie) {
+        if (cookie == null || cookie.length() != (SESSION_ID_BYTES * 4 + 2) / 3) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cookie);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        ByteBuffer id = ByteBuffer.wrap(bytes);
+        int slot = id.getInt(0);
+        if (slot < 0 || slot >= maxSlots || slabs.get(slot / slotsPerSlab) == null) {
+            return null;
+        }
+        return id;
+    }
+
+    private static boolean matches(ByteBuffer slab, int base, ByteBuffer id) {
+        long high = slab.getLong(base + SECRET_OFFSET);
+        long low = slab.getLong(base + SECRET_OFFSET + 8);
+        // Constant-time compare; a free slot (all zero) never matches an issued secret
+        return (high | low) != 0 && ((high ^ id.getLong(4)) | (low ^ id.getLong(12))) == 0;
+    }
+
+    private static boolean isLive(ByteBuffer slab, int base) {
+        return (slab.getLong(base + SECRET_OFFSET) | slab.getLong(base + SECRET_OFFSET + 8)) != 0;
+    }
+
+    private static boolean isExpired(ByteBuffer slab, int base, long now) {
+        long idleMillis = now - slab.getLong(base + LAST_ACCESS_OFFSET);
+        return idleMillis > TimeUnit.SECONDS.toMillis(slab.getInt(base + TIMEOUT_OFFSET));
+    }
+
+    /**
+     * Clear a live slot and return it to the free list; the caller holds the slot's lock
+     */
+    private void free(ByteBuffer slab, int base, int slot) {
+        slab.putLong(base + SECRET_OFFSET, 0);
+        slab.putLong(base + SECRET_OFFSET + 8, 0);
+        liveSessions.decrementAndGet();
+        synchronized (this) {
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    /**
+     * Take a free slot, allocating a new slab when the used ones are full
+     *
+     * @return Slot number, or -1 if the store is at capacity
+     */
+    private synchronized int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (highWater >= maxSlots) {
+            return -1;
+        }
+        int slot = highWater;
+        int slabIndex = slot / slotsPerSlab;
+        if (slabs.get(slabIndex) == null) {
+            slabs.set(slabIndex, newSlab(slabIndex));
+        }
+        highWater++;
+        return slot;
+    }
+
+    private ByteBuffer newSlab(int slabIndex) {
+        int size = slotsPerSlab * slotBytes;
+        if (file == null) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        try {
+            return file.map(FileChannel.MapMode.READ_WRITE, FILE_HEADER_BYTES + (long) slabIndex * size, size);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map session file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Open the backing file and map the slabs it already holds
+     *
+     * Live sessions in the file are kept; their slots are marked used and all
+     * other slots of the mapped slabs go on the free list.
+     *
+     * @param path File path
+     * @return The open channel
+     */
+    private FileChannel openFile(Path path) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(16);
+            channel.read(header, 0);
+            header.flip();
+            boolean compatible = header.remaining() == 16 && header.getInt() == FILE_MAGIC
+                    && header.getInt() == FILE_VERSION && header.getInt() == slotBytes && header.getInt() == slotsPerSlab;
+            if (!compatible) {
+                if (channel.size() > 0) {
+                    System.err.println("Session file " + path + " has another layout; starting with no sessions");
+                }
+                channel.truncate(0);
+                header.clear();
+                header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(slotBytes).putInt(slotsPerSlab).flip();
+                channel.write(header, 0);
+            }
+
+            long slabBytes = (long) slotsPerSlab * slotBytes;
+            int existingSlabs = (int) Math.min(slabs.length(), Math.max(0, channel.size() - FILE_HEADER_BYTES) / slabBytes);
+            long now = System.currentTimeMillis();
+            int restored = 0;
+            for (int slabIndex = 0; slabIndex < existingSlabs; slabIndex++) {
+                ByteBuffer slab = channel.map(FileChannel.MapMode.READ_WRITE,
+                        FILE_HEADER_BYTES + slabIndex * slabBytes, slabBytes);
+                slabs.set(slabIndex, slab);
+                for (int i = 0; i < slotsPerSlab; i++) {
+                    int base = i * slotBytes;
+                    if (isLive(slab, base) && !isExpired(slab, base, now)) {
+                        restored++;
+                    } else {
+                        slab.putLong(base + SECRET_OFFSET, 0);
+                        slab.putLong(base + SECRET_OFFSET + 8, 0);
+                    }
+                }
+            }
+            // Free slots are handed out lowest first
+            highWater = existingSlabs * slotsPerSlab;
+            for (int slot = highWater - 1; slot >= 0; slot--) {
+                ByteBuffer slab = slabs.get(slot / slotsPerSlab);
+                if (!isLive(slab, (slot % slotsPerSlab) * slotBytes)) {
+                    freeSlots[freeCount++] = slot;
+                }
+            }
+            liveSessions.set(restored);
+            System.out.println("Session file " + path + " opened with " + restored + " live sessions");
+            return channel;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open session file " + path + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.aptutorialworkshop.services;
+
+import com.example.aptutorialworkshop.utils.AppConfig;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * SessionCookies Class
+ *
+ * Reads and writes the cookies of the session stores that manage their own
+ * cookie (TokenSessionStore, OffHeapSessionStore). Cookies are HttpOnly,
+ * SameSite=Lax, scoped to the context path, and Secure on HTTPS requests or
+ * always with auth.session.cookie_secure=true (for TLS ending at a proxy).
+ */
+class SessionCookies {
+    private static final boolean SECURE = AppConfig.getBoolean("auth.session.cookie_secure", false);
+
+    private SessionCookies() {
+    }
+
+    /**
+     * Get the value of a cookie
+     *
+     * @param request HTTP request object
+     * @param name Cookie name
+     * @return The value, or null if the request has no such cookie
+     */
+    static String read(HttpServletRequest request, String name) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (name.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Set a session cookie
+     *
+     * @param request HTTP request object
+     * @param response HTTP response object
+     * @param name Cookie name
+     * @param value Cookie value
+     * @param maxAgeSeconds Lifetime in the browser
+     */
+    static void write(HttpServletRequest request, HttpServletResponse response, String name, String value,
+                      int maxAgeSeconds) {
+        Cookie cookie = new Cookie(name, value);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(SECURE || request.isSecure());
+        cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+        cookie.setMaxAge(maxAgeSeconds);
+        cookie.setAttribute("SameSite", "Lax");
+        response.addCookie(cookie);
+    }
+
+    /**
+     * Remove a session cookie from the browser
+     *
+     * @param request HTTP request object
+     * @param response HTTP response object
+     * @param name Cookie name
+     */
+    static void clear(HttpServletRequest request, HttpServletResponse response, String name) {
+        write(request, response, name, "", 0);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.aptutorialworkshop.services;
+
+/**
+ * SessionRejectedException Class
+ *
+ * Thrown by SessionStore.create when a store with a fixed capacity cannot
+ * take another session. The login itself succeeded; the servlets answer with
+ * a 503 so the user can try again once sessions have expired.
+ */
+public class SessionRejectedException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Create the exception
+     *
+     * @param message Why the session was refused
+     */
+    public SessionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.aptutorialworkshop.services;
+
+import com.example.aptutorialworkshop.models.UserPrincipal;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * SessionStore Interface
+ *
+ * Where AuthService keeps logins between requests. The implementation is
+ * chosen with auth.session_mode:
+ * - container: the servlet container's HttpSession (ContainerSessionStore)
+ * - token: a signed cookie that needs no server-side state (TokenSessionStore)
+ * - offheap: principals in direct memory slabs, optionally file-backed so
+ *   sessions survive a restart (OffHeapSessionStore)
+ *
+ * AuthService caches the resolved principal on the request, so resolve() is
+ * called at most once per request.
+ */
+public interface SessionStore {
+
+    /**
+     * Start a session for a user who has just logged in or registered
+     *
+     * @param request HTTP request object
+     * @param response HTTP response object, may receive a cookie
+     * @param principal The logged-in user
+     * @param timeoutSeconds Idle time after which the session ends
+     * @throws SessionRejectedException if the store has no room for another session
+     */
+    void create(HttpServletRequest request, HttpServletResponse response, UserPrincipal principal, int timeoutSeconds);
+
+    /**
+     * Find the logged-in user of a request
+     *
+     * @param request HTTP request object
+     * @return The principal, or null if the request has no valid session
+     */
+    UserPrincipal resolve(HttpServletRequest request);
+
+    /**
+     * Extend the session of a resolved request
+     *
+     * Called by AuthenticationFilter before the response is committed. Stores
+     * that track activity while resolving do nothing here.
+     *
+     * @param request HTTP request object
+     * @param response HTTP response object
+     * @param principal Principal resolved for the request
+     */
+    default void renew(HttpServletRequest request, HttpServletResponse response, UserPrincipal principal) {
+    }
+
+    /**
+     * End the session of a request
+     *
+     * @param request HTTP request object
+     * @param response HTTP response object, may have a cookie removed
+     */
+    void invalidate(HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * Get the number of live sessions
+     *
+     * @return Session count, or -1 if the store cannot count them
+     */
+    default long getSessionCount() {
+        return -1;
+    }
+
+    /**
+     * Release the store's resources when the application stops
+     */
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.aptutorialworkshop.services;
+
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.utils.AppConfig;
+import com.example.aptutorialworkshop.utils.ConnectionPool;
+import com.example.aptutorialworkshop.utils.DBConnectionUtil;
+import com.example.aptutorialworkshop.utils.PasswordHasher;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletRegistration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StartupWarmup Class
+ *
+ * Runs the code behind the first requests while the application is being
+ * deployed, so the first user after a (rolling) deploy does not pay for JSP
+ * compilation, class loading, statement preparation or a cold JIT.
+ *
+ * - Views: a WAR built with the jspc profile contains precompiled JSP servlets
+ *   that the container loads at deploy (load-on-startup in the generated
+ *   web.xml). JSPs that were not precompiled, e.g. when running from an IDE,
+ *   are registered as jsp-file servlets with load-on-startup, which makes the
+ *   container's JSP engine compile them during deployment instead.
+ * - Statements: every open pooled connection is borrowed at the same time,
+ *   so each is a different physical connection, and the login, profile and
+ *   admin list statements are prepared into its statement cache.
+ * - DAO: the login and admin list lookups run app.warmup.iterations times
+ *   so the driver and row mapping are compiled by the JIT; each sample
+ *   profile is read once, which fills the user cache. Only reads are issued,
+ *   apart from the hash a legacy picture row gets on its first profile read.
+ * - BCrypt: verified app.warmup.iterations times at cost 4 (calibration
+ *   already does this unless auth.bcrypt.cost is fixed).
+ *
+ * The container starts accepting requests for the application only after
+ * the listeners and load-on-startup servlets are done. Failures are logged
+ * and do not stop the deployment.
+ */
+public class StartupWarmup {
+    private static final boolean ENABLED = AppConfig.getBoolean("app.warmup.enabled", true);
+    private static final int ITERATIONS = AppConfig.getInt("app.warmup.iterations", 100);
+
+    // Users whose rows the DAO warmup reads
+    private static final int SAMPLE_USERS = 5;
+
+    // Load-on-startup order of views registered for compilation; after the servlets (1) that forward to them
+    private static final int VIEW_LOAD_ON_STARTUP = 2;
+
+    private StartupWarmup() {
+    }
+
+    /**
+     * Warm the views, the DAO and BCrypt
+     *
+     * @param context Servlet context of the web application
+     */
+    public static void run(ServletContext context) {
+        if (!ENABLED) {
+            return;
+        }
+        long start = System.nanoTime();
+        int compiledAtStartup = registerUncompiledViews(context);
+        int connections = prepareStatements();
+        int calls = warmUpDao();
+        PasswordHasher.warmUp(ITERATIONS);
+        System.out.println("Startup warmup finished in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                + " ms (" + connections + " connections prepared, " + calls + " DAO calls, "
+                + compiledAtStartup + " JSPs to compile at deploy)");
+    }
+
+    /**
+     * Register the JSPs that were not precompiled for compilation at deploy
+     *
+     * @param context Servlet context of the web application
+     * @return The number of JSPs registered
+     */
+    private static int registerUncompiledViews(ServletContext context) {
+        // Precompiled JSPs are mapped to their own path in the generated web.xml
+        Set<String> mapped = new HashSet<>();
+        for (ServletRegistration registration : context.getServletRegistrations().values()) {
+            mapped.addAll(registration.getMappings());
+        }
+
+        // Public pages at the root (index.jsp) and the views servlets forward to
+        List<String> views = new ArrayList<>();
+        for (String directory : new String[] {"/", "/WEB-INF/views/"}) {
+            Set<String> paths = context.getResourcePaths(directory);
+            if (paths != null) {
+                for (String path : paths) {
+                    if (path.endsWith(".jsp")) {
+                        views.add(path);
+                    }
+                }
+            }
+        }
+
+        int registered = 0;
+        for (String view : views) {
+            if (mapped.contains(view)) {
+                continue;
+            }
+            try {
+                ServletRegistration.Dynamic registration = context.addJspFile("warmup:" + view, view);
+                if (registration != null) {
+                    registration.setLoadOnStartup(VIEW_LOAD_ON_STARTUP);
+                    registered++;
+                }
+            } catch (IllegalStateException | UnsupportedOperationException e) {
+                System.err.println("Cannot register " + view + " for compilation at startup: " + e.getMessage());
+            }
+        }
+        return registered;
+    }
+
+    /**
+     * Prepare the hot statements on every open pooled connection
+     *
+     * The connections are held until all are prepared, so the pool cannot
+     * hand the same physical connection out twice.
+     *
+     * @return The number of connections prepared
+     */
+    private static int prepareStatements() {
+        ConnectionPool pool = DBConnectionUtil.getPool();
+        if (pool.getStatementCacheSize() == 0) {
+            return 0;
+        }
+        int open = Math.max(1, pool.getTotalConnections());
+        List<Connection> borrowed = new ArrayList<>(open);
+        try {
+            for (int i = 0; i < open; i++) {
+                Connection connection = pool.getConnection();
+                borrowed.add(connection);
+                UserDAO.prepareHotStatements(connection);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error preparing statements at startup: " + e.getMessage());
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    System.err.println("Error returning warmup connection: " + e.getMessage());
+                }
+            }
+        }
+        return borrowed.size();
+    }
+
+    /**
+     * Run the hot read paths
+     *
+     * @return The number of DAO calls made
+     */
+    private static int warmUpDao() {
+        int calls = 0;
+        try {
+            List<UserModel> users = UserDAO.listUsers(0, null, null, SAMPLE_USERS);
+            // Once each: later reads would be cache hits
+            for (UserModel user : users) {
+                UserDAO.getUserProfileById(user.getId());
+                calls++;
+            }
+            for (int i = 0; i < ITERATIONS; i++) {
+                UserDAO.listUsers(0, null, null, SAMPLE_USERS);
+                calls++;
+                for (UserModel user : users) {
+                    UserDAO.getUserCredentialsByEmail(user.getEmail());
+                    calls++;
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error warming up database access: " + e.getMessage());
+        }
+        return calls;
+    }
+}
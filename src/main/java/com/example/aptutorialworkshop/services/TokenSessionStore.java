@@ -0,0 +1,147 @@
+package com.example.aptutorialworkshop.services;
+
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.models.UserPrincipal;
+import com.example.aptutorialworkshop.utils.AppConfig;
+import com.example.aptutorialworkshop.utils.SessionTokenSigner;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TokenSessionStore Class
+ *
+ * Keeps no session state on the server: a signed token (SessionTokenSigner)
+ * in the auth.token.cookie_name cookie carries the user id, role, expiry and
+ * image version. Any node with the same auth.token.keys accepts it, so
+ * requests can go to any node without sticky sessions or session
+ * replication. The name and email come from UserDAO's profile cache.
+ *
+ * renew() reissues the token once half its lifetime has passed, which makes
+ * the timeout an idle timeout as with container sessions, and also picks up
+ * key rotation, role changes and new pictures. Every token carries the time
+ * of the login it descends from, and no token is valid for longer than
+ * auth.token.max_age_seconds (default 43200, 12 hours) after that login, so
+ * a stolen token cannot be kept alive by using it. A token stays valid until
+ * it expires; invalidate() only removes it from the browser.
+ */
+public class TokenSessionStore implements SessionStore {
+    // Request attribute holding the verified token claims, for renew()
+    private static final String CLAIMS_ATTRIBUTE = TokenSessionStore.class.getName() + ".claims";
+
+    private final SessionTokenSigner signer = new SessionTokenSigner(AppConfig.get("auth.token.keys"));
+    private final String cookieName = AppConfig.get("auth.token.cookie_name", "AUTH_TOKEN");
+    private final long maxAgeSeconds = AppConfig.getLong("auth.token.max_age_seconds", 43200);
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Override
+    public void create(HttpServletRequest request, HttpServletResponse response, UserPrincipal principal,
+                       int timeoutSeconds) {
+        issue(request, response, principal.getId(), principal.getRole(), System.currentTimeMillis() / 1000,
+                principal.getImageHash(), timeoutSeconds);
+    }
+
+    /**
+     * Verify the token cookie and build the principal
+     *
+     * The token decides who the user is and which role they act with; name,
+     * email and picture come from the (cached) profile.
+     *
+     * @param request HTTP request object
+     * @return The principal, or null if there is no valid token or the user no longer exists
+     */
+    @Override
+    public UserPrincipal resolve(HttpServletRequest request) {
+        String token = SessionCookies.read(request, cookieName);
+        if (token == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        SessionTokenSigner.Claims claims = signer.verify(token, now);
+        // Tokens issued before auth.token.max_age_seconds was lowered are cut off as well
+        if (claims == null || now - claims.loginAt() >= maxAgeSeconds) {
+            rejected.increment();
+            return null;
+        }
+        UserModel profile = UserDAO.getUserProfileById(claims.userId());
+        if (profile == null) {
+            return null;
+        }
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+        return new UserPrincipal(profile.getId(), profile.getName(), profile.getEmail(), claims.role(),
+                profile.getImageHash());
+    }
+
+    /**
+     * Reissue the token if it is due
+     *
+     * A token is reissued once half of its lifetime has passed, when it was
+     * signed with an older key, or when the user's role or picture has changed
+     * since it was issued. The new token keeps the login time and never
+     * expires later than auth.token.max_age_seconds after it; once a token
+     * reaches that limit it is no longer extended and the user has to log in.
+     *
+     * @param request HTTP request object
+     * @param response HTTP response object
+     * @param principal Principal resolved for the request
+     */
+    @Override
+    public void renew(HttpServletRequest request, HttpServletResponse response, UserPrincipal principal) {
+        if (!(request.getAttribute(CLAIMS_ATTRIBUTE) instanceof SessionTokenSigner.Claims claims)) {
+            return;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        long lifetime = claims.expiresAt() - claims.issuedAt();
+        // A token that already expires at the absolute limit gains nothing from a renewal
+        boolean extendable = claims.expiresAt() < claims.loginAt() + maxAgeSeconds;
+        UserModel profile = UserDAO.getUserProfileById(principal.getId());
+        UserModel.Role role = profile != null ? profile.getRole() : claims.role();
+        if (extendable && now - claims.issuedAt() >= lifetime / 2 || signer.needsReissue(claims)
+                || role != claims.role()
+                || SessionTokenSigner.imageVersionOf(principal.getImageHash()) != claims.imageVersion()) {
+            issue(request, response, principal.getId(), role, claims.loginAt(), principal.getImageHash(),
+                    (int) lifetime);
+            request.removeAttribute(CLAIMS_ATTRIBUTE);
+        }
+    }
+
+    @Override
+    public void invalidate(HttpServletRequest request, HttpServletResponse response) {
+        SessionCookies.clear(request, response, cookieName);
+        request.removeAttribute(CLAIMS_ATTRIBUTE);
+    }
+
+    /**
+     * Get the number of tokens issued, including renewals
+     *
+     * @return Issued token count
+     */
+    public long getIssuedCount() {
+        return issued.sum();
+    }
+
+    /**
+     * Get the number of token cookies that failed verification or had expired
+     *
+     * @return Rejected token count
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void issue(HttpServletRequest request, HttpServletResponse response, int userId, UserModel.Role role,
+                       long loginAt, String imageHash, int lifetimeSeconds) {
+        long now = System.currentTimeMillis() / 1000;
+        long expiresAt = Math.min(now + lifetimeSeconds, loginAt + maxAgeSeconds);
+        if (expiresAt <= now) {
+            return;
+        }
+        String token = signer.issue(userId, role, loginAt, now, expiresAt, SessionTokenSigner.imageVersionOf(imageHash));
+        SessionCookies.write(request, response, cookieName, token, (int) (expiresAt - now));
+        issued.increment();
+    }
+}
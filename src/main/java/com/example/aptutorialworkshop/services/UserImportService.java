@@ -0,0 +1,490 @@
+package com.example.aptutorialworkshop.services;
+
+import com.example.aptutorialworkshop.dao.UserDAO;
+import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.utils.AppConfig;
+import com.example.aptutorialworkshop.utils.JsonUtil;
+import com.example.aptutorialworkshop.utils.PasswordHasher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * UserImportService Class
+ *
+ * Bulk user import from CSV or JSON-lines input, for onboarding whole cohorts.
+ *
+ * The input is streamed line by line and processed in batches:
+ * 1. Rows are validated; invalid rows, emails repeated in the file and emails
+ *    that are already registered are reported and never hashed
+ * 2. Passwords of the batch are hashed in parallel on a dedicated pool, so a
+ *    large import cannot starve logins on the HashingExecutor
+ * 3. The batch is inserted with UserDAO.registerUsers (one JDBC batch, one
+ *    transaction), which reports duplicates per row instead of aborting
+ *
+ * While one batch is being inserted the next one is already hashing, so the
+ * hashing pool stays busy. At most two batches are held in memory.
+ *
+ * Imports run one at a time in the background; progress and throughput are
+ * kept up to date in an ImportJob after every batch, and a summary is logged
+ * when the import finishes.
+ *
+ * CSV input needs a header row with the columns name, email, password and
+ * optionally role; JSON-lines input has one object with the same fields per
+ * line. Passwords that are already BCrypt hashes are stored as they are.
+ *
+ * Configuration (application.properties):
+ * - import.batch_size: rows per JDBC batch (default 500)
+ * - import.hashing.threads: password hashing threads (default: processors - 1, at least 1)
+ * - import.max_reported_errors: row errors kept per job (default 1000)
+ */
+public class UserImportService {
+
+    /**
+     * Supported input formats
+     */
+    public enum Format {
+        CSV, JSONL;
+
+        /**
+         * Pick the format from a format name, content type or file name
+         *
+         * @param hint Value such as "jsonl", "application/x-ndjson" or "users.jsonl", may be null
+         * @return JSONL for JSON-lines hints, CSV otherwise
+         */
+        public static Format fromHint(String hint) {
+            if (hint == null) {
+                return CSV;
+            }
+            String value = hint.toLowerCase(Locale.ROOT);
+            return value.contains("json") ? JSONL : CSV;
+        }
+    }
+
+    // Rows per JDBC batch
+    private static final int BATCH_SIZE = AppConfig.getInt("import.batch_size", 500);
+
+    // Row errors kept per job
+    private static final int MAX_REPORTED_ERRORS = AppConfig.getInt("import.max_reported_errors", 1000);
+
+    // Finished jobs kept for status requests
+    private static final int MAX_RETAINED_JOBS = 20;
+
+    // Dedicated password hashing pool; its queue never holds more than two batches
+    private static final ThreadPoolExecutor HASHING;
+
+    // Runs imports one at a time; a couple more may wait
+    private static final ThreadPoolExecutor RUNNER;
+
+    // Recent jobs by ID, oldest first
+    private static final Map<String, ImportJob> JOBS = new LinkedHashMap<>();
+
+    static {
+        int threads = AppConfig.getInt("import.hashing.threads",
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+        AtomicInteger hasherNumber = new AtomicInteger();
+        HASHING = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "import-hasher-" + hasherNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        RUNNER = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-import");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * A validated input row waiting to be hashed and inserted
+     */
+    private static class PendingRow {
+        private final long line;
+        private final UserModel user;
+        private final String password;
+        private Future<String> passwordHash;
+
+        private PendingRow(long line, UserModel user, String password) {
+            this.line = line;
+            this.user = user;
+            this.password = password;
+        }
+    }
+
+    private UserImportService() {
+    }
+
+    /**
+     * Start an import in the background
+     *
+     * The file is deleted when the import ends.
+     *
+     * @param file Spooled input file
+     * @param format Input format
+     * @return The queued job
+     * @throws RejectedExecutionException if too many imports are already waiting
+     */
+    public static ImportJob submit(Path file, Format format) {
+        ImportJob job = new ImportJob(format.name(), MAX_REPORTED_ERRORS);
+        RUNNER.execute(() -> {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                importUsers(reader, format, job);
+            } catch (IOException e) {
+                System.err.println("Error reading import file: " + e.getMessage());
+                job.finished(e);
+            } finally {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    System.err.println("Error deleting import file " + file + ": " + e.getMessage());
+                }
+            }
+        });
+
+        synchronized (JOBS) {
+            JOBS.put(job.getId(), job);
+            // Forget the oldest finished jobs
+            JOBS.values().removeIf(old -> JOBS.size() > MAX_RETAINED_JOBS
+                    && (old.getState() == ImportJob.State.COMPLETED || old.getState() == ImportJob.State.FAILED));
+        }
+        return job;
+    }
+
+    /**
+     * Import users from a reader on the calling thread
+     *
+     * @param reader Input, read to the end
+     * @param format Input format
+     * @param job Job that receives progress and row errors
+     */
+    public static void importUsers(BufferedReader reader, Format format, ImportJob job) {
+        job.started();
+        try {
+            Set<String> seenEmails = new HashSet<>();
+            List<PendingRow> batch = new ArrayList<>(BATCH_SIZE);
+            List<PendingRow> hashing = null;
+            Map<String, Integer> columns = null;
+
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    // Byte order mark written by spreadsheet exports
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && columns == null) {
+                    columns = parseCsvHeader(line);
+                    continue;
+                }
+
+                job.rowRead();
+                PendingRow row = parseRow(line, lineNumber, format, columns, job);
+                if (row == null) {
+                    continue;
+                }
+                if (!seenEmails.add(UserDAO.normalizeEmail(row.user.getEmail()))) {
+                    job.rowFailed(lineNumber, row.user.getEmail(), "Email appears more than once in the file");
+                    continue;
+                }
+
+                batch.add(row);
+                if (batch.size() == BATCH_SIZE) {
+                    // Start hashing this batch, then insert the previous one while it runs
+                    List<PendingRow> submitted = startHashing(batch, job);
+                    insert(hashing, job);
+                    hashing = submitted;
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+
+            List<PendingRow> submitted = startHashing(batch, job);
+            insert(hashing, job);
+            insert(submitted, job);
+            job.finished(null);
+            logSummary(job);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error importing users: " + e.getMessage());
+            job.finished(e);
+        }
+    }
+
+    /**
+     * Find a recent import job
+     *
+     * @param id Job ID
+     * @return The job, or null if unknown or no longer retained
+     */
+    public static ImportJob getJob(String id) {
+        synchronized (JOBS) {
+            return JOBS.get(id);
+        }
+    }
+
+    /**
+     * Get the recent import jobs
+     *
+     * @return Jobs, oldest first
+     */
+    public static List<ImportJob> getJobs() {
+        synchronized (JOBS) {
+            return new ArrayList<>(JOBS.values());
+        }
+    }
+
+    /**
+     * Stop the import and hashing threads
+     *
+     * Called when the web application is undeployed.
+     */
+    public static void shutdown() {
+        RUNNER.shutdownNow();
+        HASHING.shutdownNow();
+    }
+
+    /**
+     * Drop already registered rows and submit the password hashes of the rest
+     *
+     * @param batch Validated rows
+     * @param job Job that receives row errors
+     * @return Rows whose hashes are being computed
+     */
+    private static List<PendingRow> startHashing(List<PendingRow> batch, ImportJob job) {
+        if (batch.isEmpty()) {
+            return batch;
+        }
+
+        // Checking first means re-running an import does not spend BCrypt time on existing users
+        List<String> emails = new ArrayList<>(batch.size());
+        for (PendingRow row : batch) {
+            emails.add(row.user.getEmail());
+        }
+        Set<String> registered = UserDAO.findRegisteredEmails(emails);
+
+        List<PendingRow> accepted = new ArrayList<>(batch.size());
+        for (PendingRow row : batch) {
+            if (registered.contains(UserDAO.normalizeEmail(row.user.getEmail()))) {
+                job.rowFailed(row.line, row.user.getEmail(), "Email is already registered");
+                continue;
+            }
+            String password = row.password;
+            row.passwordHash = PasswordHasher.isHash(password)
+                    ? HASHING.submit(() -> password)
+                    : HASHING.submit(() -> UserModel.hashPassword(password));
+            accepted.add(row);
+        }
+        return accepted;
+    }
+
+    /**
+     * Wait for the hashes of a batch and insert it
+     *
+     * @param rows Rows returned by startHashing, may be null
+     * @param job Job that receives progress and row errors
+     */
+    private static void insert(List<PendingRow> rows, ImportJob job) {
+        if (rows == null || rows.isEmpty()) {
+            return;
+        }
+
+        List<PendingRow> hashed = new ArrayList<>(rows.size());
+        List<UserModel> users = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            try {
+                row.user.setStoredPassword(row.passwordHash.get());
+                hashed.add(row);
+                users.add(row.user);
+            } catch (ExecutionException e) {
+                job.rowFailed(row.line, row.user.getEmail(), "Password could not be hashed");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", e);
+            }
+        }
+
+        int[] ids = UserDAO.registerUsers(users);
+        int inserted = 0;
+        for (int i = 0; i < ids.length; i++) {
+            PendingRow row = hashed.get(i);
+            if (ids[i] == UserDAO.BATCH_DUPLICATE_EMAIL) {
+                job.rowFailed(row.line, row.user.getEmail(), "Email is already registered");
+            } else if (ids[i] == UserDAO.BATCH_FAILED) {
+                job.rowFailed(row.line, row.user.getEmail(), "Row could not be inserted");
+            } else {
+                inserted++;
+            }
+        }
+        job.rowsImported(inserted);
+    }
+
+    /**
+     * Parse and validate one data row
+     *
+     * @param line Raw input line
+     * @param lineNumber Line number for error reports
+     * @param format Input format
+     * @param columns CSV column indexes by name, unused for JSON lines
+     * @param job Job that receives row errors
+     * @return The row, or null if it was rejected
+     */
+    private static PendingRow parseRow(String line, long lineNumber, Format format, Map<String, Integer> columns,
+                                       ImportJob job) {
+        Map<String, String> fields;
+        try {
+            fields = format == Format.JSONL ? JsonUtil.parseObject(line) : csvFields(parseCsvLine(line), columns);
+        } catch (IllegalArgumentException e) {
+            job.rowFailed(lineNumber, null, "Malformed row: " + e.getMessage());
+            return null;
+        }
+
+        String name = trimToNull(fields.get("name"));
+        String email = trimToNull(fields.get("email"));
+        String password = fields.get("password");
+        String role = trimToNull(fields.get("role"));
+
+        // Same rules as RegisterServlet
+        if (name == null) {
+            job.rowFailed(lineNumber, email, "Name is required");
+            return null;
+        }
+        if (email == null || !email.contains("@")) {
+            job.rowFailed(lineNumber, email, "Valid email is required");
+            return null;
+        }
+        if (password == null || password.isBlank()) {
+            job.rowFailed(lineNumber, email, "Password is required");
+            return null;
+        }
+
+        UserModel.Role userRole;
+        try {
+            userRole = role == null ? UserModel.Role.user : UserModel.Role.valueOf(role.toLowerCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            job.rowFailed(lineNumber, email, "Role must be admin or user");
+            return null;
+        }
+
+        UserModel user = new UserModel();
+        user.setName(name);
+        user.setEmail(email);
+        user.setRole(userRole);
+        return new PendingRow(lineNumber, user, password);
+    }
+
+    /**
+     * Map a CSV header to column indexes
+     *
+     * @param header Header line
+     * @return Column index by lower-case column name
+     */
+    private static Map<String, Integer> parseCsvHeader(String header) {
+        List<String> names = parseCsvLine(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : new String[] {"name", "email", "password"}) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing the " + required + " column");
+            }
+        }
+        return columns;
+    }
+
+    private static Map<String, String> csvFields(List<String> values, Map<String, Integer> columns) {
+        Map<String, String> fields = new HashMap<>();
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            int index = column.getValue();
+            fields.put(column.getKey(), index < values.size() ? values.get(index) : null);
+        }
+        return fields;
+    }
+
+    /**
+     * Split one CSV line
+     *
+     * Supports quoted fields with "" escapes; a quoted field cannot span lines.
+     *
+     * @param line CSV line
+     * @return Field values
+     * @throws IllegalArgumentException if a quoted field is not closed
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quote");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * Log the totals of a finished import; progress is read from the job status instead
+     *
+     * @param job Finished job
+     */
+    private static void logSummary(ImportJob job) {
+        System.out.println("User import " + job.getId() + ": " + job.getRowsRead() + " rows read, "
+                + job.getImported() + " imported, " + job.getFailed() + " failed, "
+                + Math.round(job.getRowsPerSecond()) + " rows/s");
+    }
+}
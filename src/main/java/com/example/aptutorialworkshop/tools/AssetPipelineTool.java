@@ -0,0 +1,159 @@
+package com.example.aptutorialworkshop.tools;
+
+import com.example.aptutorialworkshop.utils.StaticAssets;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Asset Pipeline Tool
+ *
+ * Prepares the files under src/main/webapp/assets for StaticAssets at
+ * package time. For every file it records the content fingerprint in
+ * WEB-INF/assets-manifest.properties; for every compressible file it writes
+ * a gzip variant (file.gz) at the highest level and, if the brotli command
+ * line tool is installed, a brotli variant (file.br) at quality 11. Variants
+ * that are not smaller than the original are skipped.
+ *
+ * The output directory is added to the WAR as a web resource, so the
+ * variants end up next to the originals. The manifest lines are sorted and
+ * carry no timestamp, so unchanged assets give an identical build.
+ *
+ * Runs in the prepare-package phase (see pom.xml); by hand:
+ *   mvn compile exec:java@build-assets
+ * The brotli command can be changed with -Dassets.brotli=/path/to/brotli.
+ */
+public class AssetPipelineTool {
+    // Seconds to wait for one brotli run
+    private static final long BROTLI_TIMEOUT_SECONDS = 60;
+
+    private AssetPipelineTool() {
+    }
+
+    /**
+     * Build the manifest and compressed variants
+     *
+     * @param args Web application source directory and output directory
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: AssetPipelineTool <webapp source dir> <output dir>");
+            System.exit(2);
+        }
+        Path assetsDir = Paths.get(args[0], StaticAssets.ASSETS_DIR.substring(1));
+        Path outputDir = Paths.get(args[1]);
+        String brotliCommand = System.getProperty("assets.brotli", "brotli");
+
+        try {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(assetsDir)) {
+                files = walk.filter(Files::isRegularFile).sorted().toList();
+            }
+
+            Map<String, String> manifest = new TreeMap<>();
+            long originalBytes = 0;
+            long gzipBytes = 0;
+            long brotliBytes = 0;
+            boolean brotliAvailable = true;
+            for (Path file : files) {
+                String path = assetsDir.relativize(file).toString().replace('\\', '/');
+                byte[] content = Files.readAllBytes(file);
+                manifest.put(path, StaticAssets.fingerprint(content));
+                if (!StaticAssets.isCompressible(path)) {
+                    continue;
+                }
+
+                Path variantBase = outputDir.resolve(StaticAssets.ASSETS_DIR.substring(1)).resolve(path);
+                Files.createDirectories(variantBase.getParent());
+                originalBytes += content.length;
+
+                byte[] gzip = StaticAssets.smallerOrNull(StaticAssets.gzip(content), content);
+                if (gzip != null) {
+                    Files.write(variantBase.resolveSibling(variantBase.getFileName() + ".gz"), gzip);
+                    gzipBytes += gzip.length;
+                }
+
+                if (brotliAvailable) {
+                    Path brotliFile = variantBase.resolveSibling(variantBase.getFileName() + ".br");
+                    brotliAvailable = compressWithBrotli(brotliCommand, file, brotliFile);
+                    if (brotliAvailable && Files.exists(brotliFile)) {
+                        if (Files.size(brotliFile) >= content.length) {
+                            Files.delete(brotliFile);
+                        } else {
+                            brotliBytes += Files.size(brotliFile);
+                        }
+                    }
+                }
+            }
+
+            writeManifest(outputDir.resolve(StaticAssets.MANIFEST_PATH.substring(1)), manifest);
+            System.out.println("Fingerprinted " + manifest.size() + " assets; compressible assets: "
+                    + originalBytes + " bytes, gzip " + gzipBytes + " bytes"
+                    + (brotliAvailable ? ", brotli " + brotliBytes + " bytes" : " (brotli not installed, skipped)"));
+        } catch (IOException e) {
+            System.err.println("Error building assets: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compress one file with the brotli command line tool
+     *
+     * @param command Brotli executable
+     * @param source File to compress
+     * @param target Compressed file to write
+     * @return false if the command is not installed, so later files skip it
+     * @throws IOException If the command fails
+     */
+    private static boolean compressWithBrotli(String command, Path source, Path target) throws IOException {
+        Process process;
+        try {
+            process = new ProcessBuilder(command, "--best", "--force", "--output=" + target, source.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException e) {
+            // Not installed: serve gzip only
+            return false;
+        }
+        try {
+            if (!process.waitFor(BROTLI_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("brotli timed out on " + source);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            throw new IOException("Interrupted while compressing " + source, e);
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("brotli exited with status " + process.exitValue() + " for " + source);
+        }
+        return true;
+    }
+
+    /**
+     * Write the manifest as sorted path=fingerprint lines
+     *
+     * @param file Manifest file
+     * @param manifest Fingerprints by path below /assets
+     * @throws IOException If I/O error occurs
+     */
+    private static void writeManifest(Path file, Map<String, String> manifest) throws IOException {
+        StringBuilder content = new StringBuilder("# Asset fingerprints, written by AssetPipelineTool\n");
+        for (Map.Entry<String, String> entry : manifest.entrySet()) {
+            content.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
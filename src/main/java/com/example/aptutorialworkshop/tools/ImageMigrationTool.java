@@ -0,0 +1,175 @@
+package com.example.aptutorialworkshop.tools;
+
+import com.example.aptutorialworkshop.utils.AppConfig;
+import com.example.aptutorialworkshop.utils.DBConnectionUtil;
+import com.example.aptutorialworkshop.utils.ImageStore;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Image Migration Tool
+ *
+ * Moves profile pictures stored as MEDIUMBLOBs in the users table into the
+ * content-addressed ImageStore. Each row gets its picture's hash in
+ * profile_picture_hash and its BLOB set to NULL.
+ *
+ * Rows are processed in batches ordered by id (keyset pagination), one
+ * transaction per batch, so the tool can be stopped and started again at any
+ * time: migrated rows no longer match the query. The profile_picture_hash
+ * column is added first if the database predates it.
+ *
+ * Usage (uses the same application.properties as the web application):
+ *   mvn compile exec:java -Dexec.mainClass=com.example.aptutorialworkshop.tools.ImageMigrationTool [-Dexec.args=50]
+ *
+ * InnoDB does not return the freed space to the file system by itself;
+ * run OPTIMIZE TABLE users afterwards to shrink the table.
+ */
+public class ImageMigrationTool {
+    // SQL query to select the next batch of rows that still hold a BLOB
+    private static final String SELECT_BLOB_BATCH =
+            "SELECT id, profile_picture FROM users WHERE id > ? AND profile_picture IS NOT NULL ORDER BY id LIMIT ?";
+
+    // SQL statement to point a row at the image store and drop its BLOB
+    private static final String UPDATE_MIGRATED_ROW =
+            "UPDATE users SET profile_picture_hash = ?, profile_picture = NULL WHERE id = ?";
+
+    // SQL statement for databases created before the hash column existed
+    private static final String ADD_HASH_COLUMN =
+            "ALTER TABLE users ADD COLUMN profile_picture_hash CHAR(64) NULL";
+
+    private ImageMigrationTool() {
+    }
+
+    /**
+     * Run the migration
+     *
+     * @param args Optional batch size
+     */
+    public static void main(String[] args) {
+        int batchSize = args.length > 0 ? Integer.parseInt(args[0]) : AppConfig.getInt("storage.migration.batch_size", 50);
+
+        try {
+            ensureHashColumn();
+            System.out.println("Moving profile pictures to " + ImageStore.getRoot().toAbsolutePath()
+                    + " in batches of " + batchSize);
+
+            int lastId = 0;
+            long migrated = 0;
+            while (true) {
+                int[] result = migrateBatch(lastId, batchSize);
+                if (result[1] == 0) {
+                    break;
+                }
+                lastId = result[0];
+                migrated += result[1];
+                System.out.println("Migrated " + migrated + " pictures (last id " + lastId + ")");
+            }
+
+            System.out.println("Done: " + migrated + " pictures moved. Run OPTIMIZE TABLE users to reclaim space.");
+        } finally {
+            DBConnectionUtil.shutdown();
+        }
+    }
+
+    /**
+     * Check whether a connection goes to MySQL through Connector/J
+     *
+     * @param connection Connection to check
+     * @return true for Connector/J, which streams result sets with fetch size Integer.MIN_VALUE
+     * @throws SQLException If a database access error occurs
+     */
+    private static boolean isMySql(Connection connection) throws SQLException {
+        return connection.getMetaData().getDriverName().startsWith("MySQL");
+    }
+
+    /**
+     * Add the profile_picture_hash column if it is missing
+     */
+    private static void ensureHashColumn() {
+        try (Connection connection = DBConnectionUtil.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, "users", "profile_picture_hash")) {
+                if (columns.next()) {
+                    return;
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(ADD_HASH_COLUMN);
+                System.out.println("Added column users.profile_picture_hash");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error preparing users table: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Migrate one batch of rows
+     *
+     * Pictures are written to the store while reading. On MySQL the rows are
+     * streamed (a forward-only, read-only statement with fetch size
+     * Integer.MIN_VALUE), because Connector/J otherwise reads the whole result
+     * set, every BLOB of the batch, into memory first; streamed, only one BLOB
+     * at a time is on the heap. The updates are then sent as one JDBC batch
+     * and committed together.
+     *
+     * @param afterId Only rows with a larger id are considered
+     * @param batchSize Maximum rows in this batch
+     * @return The last processed id and the number of rows migrated
+     */
+    private static int[] migrateBatch(int afterId, int batchSize) {
+        try (Connection connection = DBConnectionUtil.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Integer> ids = new ArrayList<>();
+                List<String> hashes = new ArrayList<>();
+                // Not taken from the pool's statement cache, which only caches the default result set type
+                try (PreparedStatement select = connection.prepareStatement(SELECT_BLOB_BATCH,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    if (isMySql(connection)) {
+                        // Row by row; no other statement may run on the connection until the result set is closed
+                        select.setFetchSize(Integer.MIN_VALUE);
+                    }
+                    select.setInt(1, afterId);
+                    select.setInt(2, batchSize);
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            byte[] picture = rs.getBytes("profile_picture");
+                            ids.add(rs.getInt("id"));
+                            // Empty uploads become "no picture"
+                            hashes.add(picture.length > 0 ? ImageStore.store(picture) : null);
+                        }
+                    }
+                }
+
+                try (PreparedStatement update = connection.prepareStatement(UPDATE_MIGRATED_ROW)) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        update.setString(1, hashes.get(i));
+                        update.setInt(2, ids.get(i));
+                        update.addBatch();
+                    }
+                    update.executeBatch();
+                }
+                connection.commit();
+
+                int lastId = ids.isEmpty() ? afterId : ids.get(ids.size() - 1);
+                return new int[] {lastId, ids.size()};
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error migrating profile pictures after id " + afterId + ": " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+}
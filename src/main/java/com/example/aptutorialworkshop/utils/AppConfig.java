@@ -0,0 +1,104 @@
+package com.example.aptutorialworkshop.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Application Configuration
+ *
+ * Loads the application.properties file from the classpath once and gives
+ * typed access to its values. Every optional setting has a default so that
+ * only the database credentials are required in application.properties.
+ */
+public class AppConfig {
+    private static final Properties PROPERTIES = new Properties();
+
+    // Static initialization block to load properties once when the class is loaded
+    static {
+        try (InputStream is = AppConfig.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (is == null) {
+                throw new RuntimeException("application.properties file not found in classpath");
+            }
+            PROPERTIES.load(is);
+        } catch (IOException e) {
+            System.err.println("Error loading application properties: " + e.getMessage());
+            throw new RuntimeException("Failed to load application properties", e);
+        }
+    }
+
+    private AppConfig() {
+    }
+
+    /**
+     * Get a string property
+     *
+     * @param key Property name
+     * @return The property value, or null if it is not set
+     */
+    public static String get(String key) {
+        return PROPERTIES.getProperty(key);
+    }
+
+    /**
+     * Get a string property with a default
+     *
+     * @param key Property name
+     * @param defaultValue Value returned when the property is not set
+     * @return The property value or the default
+     */
+    public static String get(String key, String defaultValue) {
+        return PROPERTIES.getProperty(key, defaultValue);
+    }
+
+    /**
+     * Get an integer property with a default
+     *
+     * @param key Property name
+     * @param defaultValue Value returned when the property is not set
+     * @return The parsed property value or the default
+     * @throws NumberFormatException if the property is not a valid integer
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = PROPERTIES.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Get a long property with a default
+     *
+     * @param key Property name
+     * @param defaultValue Value returned when the property is not set
+     * @return The parsed property value or the default
+     * @throws NumberFormatException if the property is not a valid long
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = PROPERTIES.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    /**
+     * Get a double property with a default
+     *
+     * @param key Property name
+     * @param defaultValue Value returned when the property is not set
+     * @return The parsed property value or the default
+     * @throws NumberFormatException if the property is not a valid number
+     */
+    public static double getDouble(String key, double defaultValue) {
+        String value = PROPERTIES.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    /**
+     * Get a boolean property with a default
+     *
+     * @param key Property name
+     * @param defaultValue Value returned when the property is not set
+     * @return The parsed property value or the default
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = PROPERTIES.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.aptutorialworkshop.utils;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Async Request
+ *
+ * The async part of a login or registration request, which waits for BCrypt
+ * and the database without holding a container thread.
+ *
+ * The request times out after auth.request_timeout_millis (default 15000).
+ * A stalled hash or query then gets the form view back with a 503 and an
+ * error message instead of hanging until the container's own timeout, and
+ * an error on the connection is answered the same way. Exactly one of the
+ * timeout, the error and the normal completion answers the request: each
+ * must win claimResponse() first, so a hash that finishes after its request
+ * timed out leaves the response alone.
+ */
+public class AsyncRequest implements AsyncListener {
+    private static final long TIMEOUT_MILLIS = AppConfig.getLong("auth.request_timeout_millis", 15000);
+
+    private final AsyncContext asyncContext;
+    private final String view;
+    private final AtomicBoolean answered = new AtomicBoolean();
+
+    private AsyncRequest(AsyncContext asyncContext, String view) {
+        this.asyncContext = asyncContext;
+        this.view = view;
+    }
+
+    /**
+     * Put a request into async mode with a timeout
+     *
+     * @param request HTTP request
+     * @param view JSP that shows the form with an error message
+     * @return The async request
+     */
+    public static AsyncRequest start(HttpServletRequest request, String view) {
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(TIMEOUT_MILLIS);
+        AsyncRequest asyncRequest = new AsyncRequest(asyncContext, view);
+        asyncContext.addListener(asyncRequest);
+        return asyncRequest;
+    }
+
+    /**
+     * Get the request
+     *
+     * @return HTTP request
+     */
+    public HttpServletRequest getRequest() {
+        return (HttpServletRequest) asyncContext.getRequest();
+    }
+
+    /**
+     * Get the response
+     *
+     * @return HTTP response
+     */
+    public HttpServletResponse getResponse() {
+        return (HttpServletResponse) asyncContext.getResponse();
+    }
+
+    /**
+     * Run blocking work or the completion of the request
+     *
+     * Runs on a container thread, or on a virtual thread when that mode is
+     * enabled, never on the thread that finished the hash. Nothing runs if the
+     * request has already been answered.
+     *
+     * @param task The work; it must claim the response before writing to it
+     */
+    public void run(Runnable task) {
+        if (answered.get()) {
+            return;
+        }
+        try {
+            BlockingIoExecutor.execute(asyncContext, task);
+        } catch (IllegalStateException e) {
+            // Timed out between the check and start()
+        }
+    }
+
+    /**
+     * Take the right to answer the request
+     *
+     * @return true for the first caller, false if the request was already answered
+     */
+    public boolean claimResponse() {
+        return answered.compareAndSet(false, true);
+    }
+
+    /**
+     * Send the user to a page and end the request
+     *
+     * @param location Redirect target
+     * @throws IOException If I/O error occurs
+     */
+    public void redirect(String location) throws IOException {
+        getResponse().sendRedirect(location);
+        asyncContext.complete();
+    }
+
+    /**
+     * Show the form again with an error message
+     *
+     * @param errorMessage Message for the errorMessage attribute
+     */
+    public void showError(String errorMessage) {
+        getRequest().setAttribute("errorMessage", errorMessage);
+        asyncContext.dispatch(view);
+    }
+
+    /**
+     * Show the form with a 503 telling the user to try again
+     *
+     * @param errorMessage Message for the errorMessage attribute
+     */
+    public void showBusy(String errorMessage) {
+        HttpServletResponse response = getResponse();
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        showError(errorMessage);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        if (claimResponse()) {
+            System.err.println("Request to " + getRequest().getRequestURI() + " timed out after "
+                    + TIMEOUT_MILLIS + "ms");
+            showBusy("The server took too long to respond. Please try again in a moment.");
+        }
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        if (claimResponse()) {
+            Throwable error = event.getThrowable();
+            System.err.println("Error processing " + getRequest().getRequestURI() + ": "
+                    + (error != null ? error.getMessage() : "unknown"));
+            try {
+                showError("An error occurred. Please try again.");
+            } catch (IllegalStateException e) {
+                // The connection is gone; nothing can be sent
+                asyncContext.complete();
+            }
+        }
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        // Nothing to release
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // A dispatched view does not start async again
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.aptutorialworkshop.utils;
+
+import jakarta.servlet.AsyncContext;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Blocking I/O Executor
+ *
+ * Runs the blocking parts of request handling (JDBC calls, streaming stored
+ * images) either on virtual threads or on the servlet container's threads.
+ *
+ * Virtual-thread mode is opt-in (app.virtual_threads.enabled=true). A blocked
+ * virtual thread costs a few hundred bytes instead of a platform thread, so
+ * thousands of requests can wait on the database without exhausting the
+ * container's thread pool. To keep MySQL from being overwhelmed, at most
+ * app.virtual_threads.max_concurrency tasks run at once (default: the
+ * connection pool size); the rest park cheaply until a slot frees up.
+ *
+ * Pinning: a virtual thread blocked inside a synchronized block pins its
+ * carrier thread. The connection pool (including its statement caches), the
+ * user cache and this class only use java.util.concurrent locks; the monitors
+ * left elsewhere (off-heap session slots, import job bookkeeping) guard short
+ * in-memory updates and never wait on I/O. MySQL Connector/J 9 guards its I/O with
+ * ReentrantLock instead of monitors, so JDBC calls unmount the virtual thread.
+ * Run with -Djdk.tracePinnedThreads=short to check for regressions.
+ *
+ * Without virtual threads, CompletableFuture stages that follow a BCrypt
+ * verification (the profile query after a login, the password update after
+ * a rehash) run on a small bounded platform pool instead: app.io.threads
+ * threads (default: the connection pool size) and app.io.queue_capacity
+ * queued stages, after which a stage fails with RejectedExecutionException.
+ * That keeps the hashing threads free for hashing.
+ */
+public class BlockingIoExecutor {
+    private static final boolean VIRTUAL_THREADS_ENABLED = AppConfig.getBoolean("app.virtual_threads.enabled", false);
+    private static final ExecutorService VIRTUAL_THREADS;
+    private static final Semaphore PERMITS;
+    private static final ThreadPoolExecutor PLATFORM_THREADS;
+
+    static {
+        if (VIRTUAL_THREADS_ENABLED) {
+            int maxConcurrency = AppConfig.getInt("app.virtual_threads.max_concurrency",
+                    DBConnectionUtil.getMaxConnections());
+            VIRTUAL_THREADS = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blocking-io-", 0).factory());
+            PERMITS = new Semaphore(maxConcurrency, true);
+            PLATFORM_THREADS = null;
+        } else {
+            int threads = AppConfig.getInt("app.io.threads", DBConnectionUtil.getMaxConnections());
+            int queueCapacity = AppConfig.getInt("app.io.queue_capacity", 1000);
+            AtomicInteger threadNumber = new AtomicInteger();
+            PLATFORM_THREADS = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "blocking-io-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+            VIRTUAL_THREADS = null;
+            PERMITS = null;
+        }
+    }
+
+    private BlockingIoExecutor() {
+    }
+
+    /**
+     * Check whether virtual-thread mode is enabled
+     *
+     * @return true if blocking work runs on virtual threads
+     */
+    public static boolean isVirtualThreadsEnabled() {
+        return VIRTUAL_THREADS_ENABLED;
+    }
+
+    /**
+     * Run blocking work for an asynchronous request
+     *
+     * Uses a virtual thread when enabled, otherwise a container thread via
+     * AsyncContext.start.
+     *
+     * @param asyncContext Async context of the request being processed
+     * @param task The blocking work; it must complete or dispatch the async context
+     */
+    public static void execute(AsyncContext asyncContext, Runnable task) {
+        if (VIRTUAL_THREADS_ENABLED) {
+            VIRTUAL_THREADS.execute(() -> runWithPermit(task));
+        } else {
+            asyncContext.start(task);
+        }
+    }
+
+    /**
+     * Get an executor for blocking CompletableFuture stages
+     *
+     * In virtual-thread mode stages run on a capped virtual thread, otherwise
+     * on the bounded platform pool; never on the thread that completed the
+     * previous stage, which is usually a hashing thread.
+     *
+     * @return Executor for blocking continuation stages
+     */
+    public static Executor executor() {
+        if (VIRTUAL_THREADS_ENABLED) {
+            return task -> VIRTUAL_THREADS.execute(() -> runWithPermit(task));
+        }
+        return PLATFORM_THREADS;
+    }
+
+    /**
+     * Stop accepting new blocking tasks
+     *
+     * Called when the web application is undeployed.
+     */
+    public static void shutdown() {
+        if (VIRTUAL_THREADS_ENABLED) {
+            VIRTUAL_THREADS.shutdown();
+        } else {
+            PLATFORM_THREADS.shutdown();
+        }
+    }
+
+    private static void runWithPermit(Runnable task) {
+        // Parking on the semaphore unmounts the virtual thread, so waiting here is cheap
+        PERMITS.acquireUninterruptibly();
+        try {
+            task.run();
+        } finally {
+            PERMITS.release();
+        }
+    }
+}
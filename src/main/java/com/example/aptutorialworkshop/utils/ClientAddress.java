@@ -0,0 +1,179 @@
+package com.example.aptutorialworkshop.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Client Address
+ *
+ * Finds the address of the client behind the load balancers, for per-client
+ * limits. Without configuration this is the remote address of the request.
+ *
+ * app.trusted_proxies lists the proxies in front of the application as IP
+ * addresses or CIDR ranges (e.g. "10.0.0.0/8, 192.168.1.5"). Only when a
+ * request comes from one of them is X-Forwarded-For read, from the right:
+ * each trusted proxy appended the address it received the request from, so
+ * the client is the first address that is not a trusted proxy. Anything left
+ * of that was sent by the client and is ignored, so a client cannot pick
+ * its own address by sending the header.
+ */
+public class ClientAddress {
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    // Only literals are parsed, so an entry never triggers a DNS lookup
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+
+    private static final List<AddressRange> TRUSTED_PROXIES = parseRanges(AppConfig.get("app.trusted_proxies", ""));
+
+    private ClientAddress() {
+    }
+
+    /**
+     * Get the client address of a request
+     *
+     * @param request HTTP request
+     * @return The first address that is not a trusted proxy
+     */
+    public static String of(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrusted(remoteAddr, TRUSTED_PROXIES)) {
+            return remoteAddr;
+        }
+        Enumeration<String> headers = request.getHeaders(FORWARDED_FOR);
+        List<String> hops = new ArrayList<>();
+        if (headers != null) {
+            for (String header : Collections.list(headers)) {
+                for (String hop : header.split(",")) {
+                    if (!hop.isBlank()) {
+                        hops.add(hop.trim());
+                    }
+                }
+            }
+        }
+        return resolve(remoteAddr, hops, TRUSTED_PROXIES);
+    }
+
+    /**
+     * Find the client in a chain of forwarding hops
+     *
+     * @param remoteAddr Address the request came from
+     * @param forwardedFor X-Forwarded-For entries, client first
+     * @param trustedProxies Proxies allowed to report the address they received the request from
+     * @return The rightmost hop that is not a trusted proxy, or the leftmost if all are trusted
+     */
+    static String resolve(String remoteAddr, List<String> forwardedFor, List<AddressRange> trustedProxies) {
+        if (!isTrusted(remoteAddr, trustedProxies)) {
+            return remoteAddr;
+        }
+        String client = remoteAddr;
+        for (int i = forwardedFor.size() - 1; i >= 0; i--) {
+            client = forwardedFor.get(i);
+            if (!isTrusted(client, trustedProxies)) {
+                break;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Parse a comma separated list of addresses and CIDR ranges
+     *
+     * @param spec List such as "10.0.0.0/8, ::1"
+     * @return The ranges; entries that are not IP literals are logged and skipped
+     */
+    static List<AddressRange> parseRanges(String spec) {
+        List<AddressRange> ranges = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int slash = entry.indexOf('/');
+            byte[] network = parseLiteral(slash < 0 ? entry : entry.substring(0, slash));
+            int prefixLength = -1;
+            if (network != null) {
+                try {
+                    prefixLength = slash < 0 ? network.length * 8 : Integer.parseInt(entry.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    prefixLength = -1;
+                }
+            }
+            if (network == null || prefixLength < 0 || prefixLength > network.length * 8) {
+                System.err.println("Ignoring invalid app.trusted_proxies entry: " + entry);
+                continue;
+            }
+            ranges.add(new AddressRange(network, prefixLength));
+        }
+        return List.copyOf(ranges);
+    }
+
+    private static boolean isTrusted(String address, List<AddressRange> trustedProxies) {
+        if (trustedProxies.isEmpty()) {
+            return false;
+        }
+        byte[] bytes = parseLiteral(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (AddressRange range : trustedProxies) {
+            if (range.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse an IPv4 or IPv6 literal
+     *
+     * @param address Address text
+     * @return The address bytes, or null if the text is not an IP literal
+     */
+    private static byte[] parseLiteral(String address) {
+        if (address == null) {
+            return null;
+        }
+        if (address.startsWith("[") && address.endsWith("]")) {
+            address = address.substring(1, address.length() - 1);
+        }
+        // A colon makes InetAddress treat the text as an IPv6 literal; dotted quads are checked first
+        if (address.indexOf(':') < 0 && !IPV4.matcher(address).matches()) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(address).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    /**
+     * An address and the number of leading bits that must match it
+     */
+    record AddressRange(byte[] network, int prefixLength) {
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xff << (8 - remainingBits) & 0xff;
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
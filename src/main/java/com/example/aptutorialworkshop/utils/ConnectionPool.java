@@ -0,0 +1,708 @@
+package com.example.aptutorialworkshop.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Connection Pool
+ *
+ * A small bounded JDBC connection pool used by DBConnectionUtil.
+ *
+ * - At most maxConnections physical connections are ever open; callers beyond
+ *   that wait in a fair queue for up to connectionTimeout milliseconds.
+ * - minConnections connections are opened up front so the first requests do
+ *   not pay the TCP, TLS and authentication handshake.
+ * - Idle connections are reused most-recently-used first and validated on
+ *   checkout unless they were used very recently.
+ * - When a leak detection threshold is set, connections held longer than it
+ *   are reported together with the stack trace of the code that borrowed
+ *   them. The trace is only captured in that case, since it costs an
+ *   exception per checkout.
+ * - Each physical connection keeps an LRU cache of up to statementCacheSize
+ *   PreparedStatements keyed by their SQL, so a DAO call that prepares the
+ *   same query as an earlier call on that connection reuses the statement
+ *   instead of having the server parse and plan it again.
+ *
+ * Callers receive a proxy whose close() returns the physical connection to the
+ * pool, so existing try-with-resources code works unchanged. Cached statements
+ * are handed out as proxies in the same way: close() closes any open result
+ * set, clears the parameters and puts the statement back in the cache.
+ * unwrap(Connection.class) and unwrap(PreparedStatement.class) return the
+ * proxies, never the physical objects, which would bypass the pool.
+ */
+public class ConnectionPool {
+    // Connections used within this window skip the validation round trip
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    // Seconds the driver may spend on Connection.isValid during checkout
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minConnections;
+    private final int maxConnections;
+    private final long connectionTimeoutMillis;
+    private final long leakDetectionThresholdMillis;
+    private final int statementCacheSize;
+
+    // Idle physical connections, most recently returned first
+    private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>();
+
+    // One permit per connection that may be checked out; waiters queue here
+    private final Semaphore permits;
+
+    // Connections currently checked out, used for leak detection
+    private final Set<PooledConnectionHandler> borrowed = ConcurrentHashMap.newKeySet();
+
+    // Prepared statement cache of every open physical connection that has prepared one
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LatencyHistogram holdTimes = new LatencyHistogram();
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+
+    /**
+     * Create a pool and open the minimum number of connections
+     *
+     * @param url JDBC URL
+     * @param user Database user
+     * @param password Database password
+     * @param minConnections Connections opened at startup and kept idle
+     * @param maxConnections Upper bound on open connections
+     * @param connectionTimeoutMillis Maximum time a caller waits for a connection
+     * @param leakDetectionThresholdMillis Hold time after which a connection is reported as leaked, 0 to disable
+     * @param statementCacheSize Prepared statements cached per connection, 0 to disable
+     */
+    public ConnectionPool(String url, String user, String password, int minConnections, int maxConnections,
+                          long connectionTimeoutMillis, long leakDetectionThresholdMillis, int statementCacheSize) {
+        if (maxConnections < 1 || minConnections < 0 || minConnections > maxConnections) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minConnections + ", max=" + maxConnections);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minConnections = minConnections;
+        this.maxConnections = maxConnections;
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.permits = new Semaphore(maxConnections, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = leakDetectionThresholdMillis > 0 ? Math.max(1000, leakDetectionThresholdMillis / 2) : 30_000;
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+
+        // Pre-warm the pool; a database that is down must not stop the webapp from deploying
+        fillToMinimum();
+    }
+
+    /**
+     * Borrow a connection
+     *
+     * Waits up to the connection timeout for a free slot, then hands out a
+     * validated idle connection or opens a new one.
+     *
+     * @return A pooled connection; closing it returns it to the pool
+     * @throws SQLTimeoutException if no connection became available in time
+     * @throws SQLException if a new physical connection could not be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        waitTimes.recordNanos(System.nanoTime() - start);
+
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLTimeoutException("Timed out after " + connectionTimeoutMillis
+                    + "ms waiting for a database connection (active=" + getActiveConnections()
+                    + ", max=" + maxConnections + ", waiting=" + getThreadsAwaitingConnection() + ")");
+        }
+
+        try {
+            Connection physical = takeIdleConnection();
+            if (physical == null) {
+                physical = openPhysicalConnection();
+            }
+            checkouts.increment();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Close every idle connection and stop accepting new checkouts
+     *
+     * Connections that are still borrowed are closed when they are returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        IdleConnection entry;
+        while ((entry = idle.pollFirst()) != null) {
+            closePhysicalConnection(entry.connection());
+        }
+    }
+
+    /**
+     * Get the number of connections currently checked out
+     *
+     * @return Active connection count
+     */
+    public int getActiveConnections() {
+        return borrowed.size();
+    }
+
+    /**
+     * Get the number of open connections waiting in the pool
+     *
+     * @return Idle connection count
+     */
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    /**
+     * Get the number of open physical connections
+     *
+     * @return Active plus idle connections
+     */
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    /**
+     * Get the number of threads waiting for a connection
+     *
+     * @return Approximate number of queued callers
+     */
+    public int getThreadsAwaitingConnection() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Get the histogram of time spent waiting for a connection
+     *
+     * @return Checkout wait time histogram
+     */
+    public LatencyHistogram getWaitTimeHistogram() {
+        return waitTimes;
+    }
+
+    /**
+     * Get the histogram of time connections were held by callers
+     *
+     * Measured from checkout to close, this is the time DAO code spent
+     * talking to the database.
+     *
+     * @return Connection hold time histogram
+     */
+    public LatencyHistogram getHoldTimeHistogram() {
+        return holdTimes;
+    }
+
+    /**
+     * Get the number of successful checkouts
+     *
+     * @return Checkout count
+     */
+    public long getCheckoutCount() {
+        return checkouts.sum();
+    }
+
+    /**
+     * Get the number of checkouts that gave up waiting
+     *
+     * @return Timeout count
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Get the number of connections reported as leaked
+     *
+     * @return Leak count
+     */
+    public long getLeakCount() {
+        return leaksDetected.sum();
+    }
+
+    /**
+     * Get the configured maximum pool size
+     *
+     * @return Maximum number of connections
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Get the number of prepared statements cached per connection
+     *
+     * @return Configured statement cache size, 0 if caching is disabled
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Get the number of prepared statements currently cached across all connections
+     *
+     * @return Cached statement count
+     */
+    public int getCachedStatementCount() {
+        int count = 0;
+        for (StatementCache cache : statementCaches.values()) {
+            count += cache.size();
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of prepareStatement calls served from a statement cache
+     *
+     * @return Hit count
+     */
+    public long getStatementCacheHitCount() {
+        return statementHits.sum();
+    }
+
+    /**
+     * Get the number of prepareStatement calls that prepared a new statement
+     *
+     * @return Miss count
+     */
+    public long getStatementCacheMissCount() {
+        return statementMisses.sum();
+    }
+
+    /**
+     * Get the number of statements closed to make room for more recently used ones
+     *
+     * @return Eviction count
+     */
+    public long getStatementCacheEvictionCount() {
+        return statementEvictions.sum();
+    }
+
+    private Connection takeIdleConnection() {
+        IdleConnection entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (System.nanoTime() - entry.returnedAt() < VALIDATION_BYPASS_NANOS || isUsable(entry.connection())) {
+                return entry.connection();
+            }
+            // Stale connection (server timeout, network drop) - discard it and try the next one
+            closePhysicalConnection(entry.connection());
+        }
+        return null;
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection openPhysicalConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        totalConnections.incrementAndGet();
+        return connection;
+    }
+
+    private void closePhysicalConnection(Connection connection) {
+        totalConnections.decrementAndGet();
+        // Closing the connection closes its statements too
+        StatementCache cache = statementCaches.remove(connection);
+        if (cache != null) {
+            cache.discard();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        PooledConnectionHandler handler = new PooledConnectionHandler(physical,
+                leakDetectionThresholdMillis > 0 ? new Exception("Connection borrowed here") : null);
+        handler.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+        borrowed.add(handler);
+        return handler.proxy;
+    }
+
+    private void release(PooledConnectionHandler handler) {
+        holdTimes.recordNanos(System.nanoTime() - handler.borrowedAt);
+        borrowed.remove(handler);
+        Connection physical = handler.physical;
+        try {
+            // Racing openers can briefly overshoot the bound; shrink back on return
+            if (shutdown || physical.isClosed() || totalConnections.get() > maxConnections) {
+                closePhysicalConnection(physical);
+                return;
+            }
+            // Never hand the next borrower a half-finished transaction
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            idle.offerFirst(new IdleConnection(physical, System.nanoTime()));
+        } catch (SQLException e) {
+            closePhysicalConnection(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        try {
+            if (leakDetectionThresholdMillis > 0) {
+                long now = System.nanoTime();
+                long threshold = TimeUnit.MILLISECONDS.toNanos(leakDetectionThresholdMillis);
+                for (PooledConnectionHandler handler : borrowed) {
+                    if (!handler.leakReported && now - handler.borrowedAt > threshold) {
+                        handler.leakReported = true;
+                        leaksDetected.increment();
+                        System.err.println("Possible connection leak: connection held for more than "
+                                + leakDetectionThresholdMillis + "ms");
+                        handler.borrowSite.printStackTrace();
+                    }
+                }
+            }
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!shutdown && idle.size() < minConnections && totalConnections.get() < maxConnections) {
+            // Opening a connection takes a permit like a checkout does, so the pool never exceeds its bound
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                idle.offerLast(new IdleConnection(openPhysicalConnection(), System.nanoTime()));
+            } catch (SQLException e) {
+                System.err.println("Could not pre-open database connection: " + e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * An idle physical connection and the time it was returned to the pool
+     */
+    private record IdleConnection(Connection connection, long returnedAt) {
+    }
+
+    /**
+     * Invocation handler behind every borrowed connection
+     *
+     * Delegates to the physical connection until close() is called, which
+     * returns the connection to the pool exactly once.
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private final Exception borrowSite;
+        private final long borrowedAt = System.nanoTime();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean leakReported;
+        // The borrower's view of this connection, handed out by Statement.getConnection()
+        private Connection proxy;
+
+        private PooledConnectionHandler(Connection physical, Exception borrowSite) {
+            this.physical = physical;
+            this.borrowSite = borrowSite;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                case "unwrap":
+                    // A caller closing the physical connection would bypass the pool
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (closed.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (statementCacheSize > 0 && method.getName().equals("prepareStatement")
+                    && (args.length == 1 || args.length == 2 && args[1] instanceof Integer)) {
+                int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : -1;
+                return prepareCached(new StatementKey((String) args[0], autoGeneratedKeys));
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private PreparedStatement prepareCached(StatementKey key) throws SQLException {
+            StatementCache cache = statementCaches.computeIfAbsent(physical, connection -> new StatementCache());
+            PreparedStatement statement = cache.take(key);
+            if (statement != null) {
+                statementHits.increment();
+            } else {
+                statementMisses.increment();
+                statement = key.autoGeneratedKeys() < 0
+                        ? physical.prepareStatement(key.sql())
+                        : physical.prepareStatement(key.sql(), key.autoGeneratedKeys());
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new CachedStatementHandler(statement, key, cache, proxy));
+        }
+    }
+
+    /**
+     * Cache key: the SQL text and whether generated keys were requested
+     *
+     * @param sql SQL passed to prepareStatement
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or NO_GENERATED_KEYS, -1 if not given
+     */
+    private record StatementKey(String sql, int autoGeneratedKeys) {
+    }
+
+    /**
+     * LRU cache of the idle prepared statements of one physical connection
+     *
+     * A statement is removed while a caller uses it, so two open statements
+     * for the same SQL never share a physical statement. The map is guarded
+     * by a ReentrantLock rather than a monitor, and evicted or duplicate
+     * statements are closed after the lock is released, so a virtual thread
+     * waiting on the driver does not pin its carrier or hold up other callers.
+     */
+    private class StatementCache {
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean discarded;
+        // Statement evicted by the current put, closed once the lock is released
+        private PreparedStatement evicted;
+        private final LinkedHashMap<StatementKey, PreparedStatement> statements =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+                        if (size() <= statementCacheSize) {
+                            return false;
+                        }
+                        statementEvictions.increment();
+                        evicted = eldest.getValue();
+                        return true;
+                    }
+                };
+
+        private PreparedStatement take(StatementKey key) {
+            lock.lock();
+            try {
+                return statements.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void put(StatementKey key, PreparedStatement statement) {
+            PreparedStatement toClose;
+            lock.lock();
+            try {
+                // Keep one statement per key; a second copy comes from nested use of the same SQL
+                if (discarded || statements.putIfAbsent(key, statement) != null) {
+                    toClose = statement;
+                } else {
+                    toClose = evicted;
+                }
+                evicted = null;
+            } finally {
+                lock.unlock();
+            }
+            if (toClose != null) {
+                closeQuietly(toClose);
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return statements.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void discard() {
+            lock.lock();
+            try {
+                discarded = true;
+                statements.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void closeQuietly(PreparedStatement statement) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // The connection is probably gone, and the statement with it
+            }
+        }
+    }
+
+    /**
+     * Invocation handler behind every prepared statement taken from a cache
+     *
+     * Delegates to the physical statement until close() is called, which
+     * resets the statement and returns it to its connection's cache exactly once.
+     */
+    private static class CachedStatementHandler implements InvocationHandler {
+        private final PreparedStatement physical;
+        private final StatementKey key;
+        private final StatementCache cache;
+        private final Connection connection;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private CachedStatementHandler(PreparedStatement physical, StatementKey key, StatementCache cache,
+                                       Connection connection) {
+            this.physical = physical;
+            this.key = key;
+            this.cache = cache;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        recycle();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() || physical.isClosed();
+                case "getConnection":
+                    // The pooled connection, never the physical one
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + physical + "]";
+                case "unwrap":
+                    // Closing the physical statement would leave a closed statement in the cache
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (closed.get()) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void recycle() {
+            try {
+                if (physical.isClosed()) {
+                    return;
+                }
+                // Callers do not always close their result sets; a cached statement must not keep one open
+                ResultSet resultSet = physical.getResultSet();
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                physical.clearParameters();
+                physical.clearBatch();
+                physical.clearWarnings();
+            } catch (SQLException e) {
+                cache.closeQuietly(physical);
+                return;
+            }
+            cache.put(key, physical);
+        }
+    }
+}
@@ -1,11 +1,7 @@
 package com.example.aptutorialworkshop.utils;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
 
 /**
  * Database Connection Utility
@@ -13,6 +9,21 @@ import java.util.Properties;
  * This class provides database connection functionality using properties
  * defined in application.properties file.
  *
+ * Connections are served from a bounded ConnectionPool sized by the
+ * db.min_connections, db.max_connections and db.connection_timeout
+ * properties, so DAO code keeps calling getConnection() and closing the
+ * connection in try-with-resources while the physical connection is reused.
+ *
+ * For MySQL URLs rewriteBatchedStatements=true is added unless the URL sets
+ * it (or db.rewrite_batched_statements=false), so JDBC batches such as the
+ * bulk user import are sent as multi-row INSERTs instead of one round trip
+ * per row.
+ *
+ * Each pooled connection caches up to db.statement_cache_size prepared
+ * statements, and useServerPrepStmts=true is added to MySQL URLs in the same
+ * way (db.server_prepared_statements), so MySQL parses each UserDAO query
+ * once per connection and later executions only send the parameters.
+ *
  * When implementing session management, this utility class will be used by:
  * 1. The DAO classes to establish database connections for user authentication
  * 2. Session validation processes that need to verify user information
@@ -25,46 +36,89 @@ public class DBConnectionUtil {
     private static final int MIN_CONNECTIONS;
     private static final int MAX_CONNECTIONS;
     private static final int CONNECTION_TIMEOUT;
+    private static final long LEAK_DETECTION_THRESHOLD;
+    private static final int STATEMENT_CACHE_SIZE;
+    private static final ConnectionPool POOL;
 
     // Static initialization block to load properties once when the class is loaded
     static {
-        try (InputStream is = DBConnectionUtil.class.getClassLoader().getResourceAsStream("application.properties")) {
-            if (is == null) {
-                throw new RuntimeException("application.properties file not found in classpath");
-            }
-
-            Properties prop = new Properties();
-            prop.load(is);
-
+        try {
             // Database connection properties
-            URL = prop.getProperty("db.url");
-            USER = prop.getProperty("db.username");
-            PASS = prop.getProperty("db.password");
-            String driver = prop.getProperty("db.driver");
+            URL = withDriverProperty(withDriverProperty(AppConfig.get("db.url"),
+                    "rewriteBatchedStatements", "db.rewrite_batched_statements"),
+                    "useServerPrepStmts", "db.server_prepared_statements");
+            USER = AppConfig.get("db.username");
+            PASS = AppConfig.get("db.password");
+            String driver = AppConfig.get("db.driver");
 
             // Connection pool properties (with defaults if not specified)
-            MIN_CONNECTIONS = Integer.parseInt(prop.getProperty("db.min_connections", "5"));
-            MAX_CONNECTIONS = Integer.parseInt(prop.getProperty("db.max_connections", "20"));
-            CONNECTION_TIMEOUT = Integer.parseInt(prop.getProperty("db.connection_timeout", "30000"));
+            MIN_CONNECTIONS = AppConfig.getInt("db.min_connections", 5);
+            MAX_CONNECTIONS = AppConfig.getInt("db.max_connections", 20);
+            CONNECTION_TIMEOUT = AppConfig.getInt("db.connection_timeout", 30000);
+            LEAK_DETECTION_THRESHOLD = AppConfig.getLong("db.leak_detection_threshold", 0);
+            STATEMENT_CACHE_SIZE = AppConfig.getInt("db.statement_cache_size", 64);
 
             // Load the JDBC driver
             Class.forName(driver);
 
             System.out.println("Database connection properties loaded successfully");
-        } catch (IOException | ClassNotFoundException | NumberFormatException e) {
+        } catch (ClassNotFoundException | NumberFormatException e) {
             System.err.println("Error loading database properties: " + e.getMessage());
             throw new RuntimeException("Failed to load database properties", e);
         }
+
+        POOL = new ConnectionPool(URL, USER, PASS, MIN_CONNECTIONS, MAX_CONNECTIONS,
+                CONNECTION_TIMEOUT, LEAK_DETECTION_THRESHOLD, STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Enable a Connector/J boolean property on a MySQL URL
+     *
+     * @param url Configured JDBC URL
+     * @param property Connector/J property, e.g. rewriteBatchedStatements
+     * @param setting Application setting that can turn the property off
+     * @return The URL with property=true appended unless it already sets the property
+     */
+    private static String withDriverProperty(String url, String property, String setting) {
+        if (url == null || !url.startsWith("jdbc:mysql:") || url.contains(property)
+                || !AppConfig.getBoolean(setting, true)) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + property + "=true";
     }
 
     /**
      * Get a database connection
      *
+     * Borrows a connection from the pool, waiting up to the configured
+     * connection timeout. Closing the returned connection gives it back.
+     *
      * @return A connection to the database
-     * @throws SQLException if a database access error occurs
+     * @throws SQLException if a database access error occurs or no connection is available in time
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASS);
+        return POOL.getConnection();
+    }
+
+    /**
+     * Get the connection pool
+     *
+     * Exposes pool metrics such as active, idle and waiting counts and the
+     * checkout wait time histogram.
+     *
+     * @return The shared connection pool
+     */
+    public static ConnectionPool getPool() {
+        return POOL;
+    }
+
+    /**
+     * Close all pooled connections
+     *
+     * Called when the web application is undeployed.
+     */
+    public static void shutdown() {
+        POOL.shutdown();
     }
 
     /**
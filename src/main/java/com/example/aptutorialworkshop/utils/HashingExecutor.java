@@ -0,0 +1,109 @@
+package com.example.aptutorialworkshop.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hashing Executor
+ *
+ * A dedicated, bounded thread pool for CPU-heavy BCrypt work.
+ *
+ * Running BCrypt on servlet container threads lets a burst of logins starve
+ * every other endpoint. This executor has one thread per core by default and a
+ * bounded queue; when both are full, submit() fails fast with a
+ * RejectedExecutionException so the caller can answer 503 instead of piling up.
+ *
+ * Configuration (application.properties):
+ * - auth.hashing.threads: worker threads (default: number of available processors)
+ * - auth.hashing.queue_capacity: queued tasks before rejecting (default: 8 per thread)
+ */
+public class HashingExecutor {
+    private static final ThreadPoolExecutor EXECUTOR;
+    private static final LongAdder REJECTED = new LongAdder();
+
+    static {
+        int threads = AppConfig.getInt("auth.hashing.threads", Runtime.getRuntime().availableProcessors());
+        int queueCapacity = AppConfig.getInt("auth.hashing.queue_capacity", threads * 8);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        EXECUTOR = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        EXECUTOR.prestartAllCoreThreads();
+    }
+
+    private HashingExecutor() {
+    }
+
+    /**
+     * Submit a hashing task
+     *
+     * @param task The CPU-bound task to run
+     * @param <T> Result type
+     * @return A future completed with the task result on a hashing thread
+     * @throws RejectedExecutionException if the executor is saturated or shut down
+     */
+    public static <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            EXECUTOR.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            REJECTED.increment();
+            throw e;
+        }
+        return future;
+    }
+
+    /**
+     * Get the number of tasks waiting for a hashing thread
+     *
+     * @return Queued task count
+     */
+    public static int getQueuedTasks() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * Get the number of tasks currently being hashed
+     *
+     * @return Active task count
+     */
+    public static int getActiveTasks() {
+        return EXECUTOR.getActiveCount();
+    }
+
+    /**
+     * Get the number of tasks rejected because the executor was saturated
+     *
+     * @return Rejected task count
+     */
+    public static long getRejectedTasks() {
+        return REJECTED.sum();
+    }
+
+    /**
+     * Stop the hashing threads
+     *
+     * Called when the web application is undeployed.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.aptutorialworkshop.utils;
+
+/**
+ * HTML Utility
+ *
+ * Escaping for user-supplied values written into JSP pages, such as names and
+ * emails in the admin user list.
+ */
+public class HtmlUtil {
+
+    private HtmlUtil() {
+    }
+
+    /**
+     * Escape text for use in HTML content and quoted attribute values
+     *
+     * @param value Text to escape, may be null
+     * @return Escaped text, empty for null
+     */
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder out = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (replacement != null) {
+                // Only copy the string once something needs escaping
+                if (out == null) {
+                    out = new StringBuilder(value.length() + 16).append(value, 0, i);
+                }
+                out.append(replacement);
+            } else if (out != null) {
+                out.append(c);
+            }
+        }
+        return out == null ? value : out.toString();
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.aptutorialworkshop.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Image Renditions
+ *
+ * Produces small square versions of stored profile pictures so pages can show
+ * a 120px avatar without shipping the full upload (up to 5MB).
+ *
+ * Each original is decoded once, with source subsampling so a large photo is
+ * never fully decoded, then center-cropped and scaled to every size in SIZES.
+ * Renditions are written next to the original in the ImageStore, as JPEG, or
+ * PNG when the original has transparency.
+ *
+ * Generation runs on a small bounded executor, so registration latency is not
+ * affected. When the queue is full the task is dropped and counted; the image
+ * endpoint serves the original meanwhile and schedules the missing renditions
+ * again the next time they are requested. Pictures that were stored before
+ * this pipeline existed are picked up the same way, and so are pictures whose
+ * generation failed on a disk or store error. Only originals the decoder
+ * cannot handle (no ImageIO reader, or too many pixels) are remembered as
+ * unsupported and not tried again, up to MAX_UNSUPPORTED hashes.
+ *
+ * Configuration (application.properties):
+ * - image.renditions.threads: worker threads (default 1)
+ * - image.renditions.queue_capacity: queued originals before dropping (default 100)
+ */
+public class ImageRenditions {
+    // Rendition edge lengths in pixels, ascending
+    private static final int[] SIZES = {64, 120, 256};
+
+    // Decode at least this many pixels along the shorter edge, so the largest rendition stays sharp
+    private static final int DECODE_TARGET = SIZES[SIZES.length - 1] * 2;
+
+    // Refuse to decode more pixels than this even after subsampling (decompression bombs)
+    private static final long MAX_DECODED_PIXELS = 40_000_000L;
+
+    // JPEG quality of the renditions
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private static final ThreadPoolExecutor EXECUTOR;
+    private static final Set<String> PENDING = ConcurrentHashMap.newKeySet();
+    // Unsupported originals remembered at most; beyond that they are retried, which only reads their header
+    private static final int MAX_UNSUPPORTED = 10_000;
+
+    // Originals that cannot be decoded; not retried, the original is served instead
+    private static final Set<String> UNSUPPORTED = ConcurrentHashMap.newKeySet();
+    private static final LongAdder GENERATED = new LongAdder();
+    private static final LongAdder DROPPED = new LongAdder();
+    private static final LongAdder FAILED = new LongAdder();
+
+    static {
+        int threads = AppConfig.getInt("image.renditions.threads", 1);
+        int queueCapacity = AppConfig.getInt("image.renditions.queue_capacity", 100);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        EXECUTOR = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-renditions-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Background work; never compete with request threads
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private ImageRenditions() {
+    }
+
+    /**
+     * Generate the renditions of a stored image in the background
+     *
+     * Does nothing if the image is already queued, cannot be decoded, or every
+     * rendition exists.
+     *
+     * @param hash ImageStore hash of the original
+     */
+    public static void schedule(String hash) {
+        if (UNSUPPORTED.contains(hash) || ImageStore.find(hash) == null || allRenditionsExist(hash)
+                || !PENDING.add(hash)) {
+            return;
+        }
+        try {
+            EXECUTOR.execute(() -> {
+                try {
+                    generate(hash);
+                } finally {
+                    PENDING.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            PENDING.remove(hash);
+            DROPPED.increment();
+        }
+    }
+
+    /**
+     * Pick the smallest rendition that is at least the requested size
+     *
+     * @param requestedSize Display size in pixels
+     * @return Rendition size, or 0 if the request is larger than every rendition
+     */
+    public static int fittingSize(int requestedSize) {
+        for (int size : SIZES) {
+            if (size >= requestedSize) {
+                return size;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the number of originals whose renditions were written
+     *
+     * @return Generated count
+     */
+    public static long getGeneratedCount() {
+        return GENERATED.sum();
+    }
+
+    /**
+     * Get the number of generation tasks dropped because the queue was full
+     *
+     * @return Dropped count
+     */
+    public static long getDroppedCount() {
+        return DROPPED.sum();
+    }
+
+    /**
+     * Get the number of originals that could not be decoded or written
+     *
+     * @return Failed count
+     */
+    public static long getFailedCount() {
+        return FAILED.sum();
+    }
+
+    /**
+     * Get the number of originals waiting for a worker
+     *
+     * @return Queued task count
+     */
+    public static int getQueuedTasks() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * Stop the worker threads
+     *
+     * Called when the web application is undeployed.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+
+    /**
+     * Decode an original once and write all of its renditions
+     *
+     * @param hash ImageStore hash of the original
+     */
+    private static void generate(String hash) {
+        Path original = ImageStore.find(hash);
+        if (original == null) {
+            return;
+        }
+        try {
+            BufferedImage source = decodeSubsampled(original);
+            if (source == null) {
+                // Not a format ImageIO can read (e.g. WebP); the original is served instead
+                markUnsupported(hash);
+                return;
+            }
+
+            boolean alpha = source.getColorModel().hasAlpha();
+            BufferedImage square = cropToSquare(source);
+            for (int size : SIZES) {
+                BufferedImage rendition = scale(square, size, alpha);
+                ImageStore.storeRendition(hash, size, out -> write(rendition, alpha, out));
+            }
+            GENERATED.increment();
+        } catch (UnsupportedImageException e) {
+            markUnsupported(hash);
+            System.err.println("Cannot generate renditions for image " + hash + ": " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            // Possibly transient (disk full, store unavailable); the next request for the image schedules it again
+            FAILED.increment();
+            System.err.println("Error generating renditions for image " + hash + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop scheduling an original the decoder cannot handle
+     *
+     * @param hash ImageStore hash of the original
+     */
+    private static void markUnsupported(String hash) {
+        FAILED.increment();
+        if (UNSUPPORTED.size() < MAX_UNSUPPORTED) {
+            UNSUPPORTED.add(hash);
+        }
+    }
+
+    /**
+     * Decode an image, skipping pixels so the shorter edge is close to DECODE_TARGET
+     *
+     * @param file Image file
+     * @return Decoded image, or null if no ImageIO reader supports the format
+     * @throws UnsupportedImageException If the image has too many pixels to decode
+     * @throws IOException If the file cannot be read
+     */
+    private static BufferedImage decodeSubsampled(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                int step = Math.max(1, Math.min(width, height) / DECODE_TARGET);
+                if ((long) (width / step) * (height / step) > MAX_DECODED_PIXELS) {
+                    throw new UnsupportedImageException("Image is too large to decode: " + width + "x" + height);
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage cropToSquare(BufferedImage source) {
+        int edge = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - edge) / 2;
+        int y = (source.getHeight() - edge) / 2;
+        return source.getSubimage(x, y, edge, edge);
+    }
+
+    private static BufferedImage scale(BufferedImage square, int size, boolean alpha) {
+        BufferedImage target = new BufferedImage(size, size, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(square, 0, 0, size, size, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static void write(BufferedImage image, boolean alpha, OutputStream stream) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(alpha ? "png" : "jpeg").next();
+        try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(stream)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!alpha) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static boolean allRenditionsExist(String hash) {
+        for (int size : SIZES) {
+            if (ImageStore.findRendition(hash, size) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An original the decoder will never be able to handle, unlike a failed read
+     */
+    private static class UnsupportedImageException extends IOException {
+        private UnsupportedImageException(String message) {
+            super(message);
+        }
+    }
+}
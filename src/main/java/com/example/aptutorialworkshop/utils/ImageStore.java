@@ -0,0 +1,297 @@
+package com.example.aptutorialworkshop.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Image Store
+ *
+ * Content-addressed file storage for profile pictures. Every image is saved
+ * under the lower-case hex SHA-256 of its bytes, so identical uploads are
+ * stored once and the database only needs to keep the 64-character hash.
+ *
+ * Layout: {storage.image_dir}/ab/abcdef... where "ab" is the first two hex
+ * characters of the hash, which keeps directories small. Renditions of an
+ * image (see ImageRenditions) sit next to it as abcdef...-120 and so on.
+ *
+ * Uploads can be stored straight from a stream: the bytes are hashed and
+ * size-checked while they are copied through a small fixed buffer, so storing
+ * an image needs the same heap no matter how large it is.
+ *
+ * Files are written to a temporary name and atomically moved into place, so
+ * readers never see a partial image. Files are never modified after that;
+ * a file whose row insert later fails is harmless and is simply not referenced.
+ */
+public class ImageStore {
+    // Root directory of the store
+    private static final Path ROOT = Paths.get(AppConfig.get("storage.image_dir",
+            Paths.get(System.getProperty("user.home"), "ap-tutorial-workshop", "images").toString()));
+
+    // Largest accepted image in bytes
+    private static final long MAX_IMAGE_BYTES = AppConfig.getLong("storage.image_max_bytes", 5L * 1024 * 1024);
+
+    // Length of a hex SHA-256 digest
+    private static final int HASH_LENGTH = 64;
+
+    // Size of the buffer used to copy streamed uploads
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private ImageStore() {
+    }
+
+    /**
+     * Store an image
+     *
+     * Does nothing but hash the bytes if the same image is already stored.
+     *
+     * @param data Image bytes
+     * @return SHA-256 hash under which the image is stored
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public static String store(byte[] data) {
+        String hash = ImageUtil.sha256Hex(data);
+        Path target = pathFor(hash);
+        if (Files.exists(target)) {
+            return hash;
+        }
+
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            try {
+                Files.write(temp, data);
+                moveIntoPlace(temp, target);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            System.err.println("Error storing image " + hash + ": " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        return hash;
+    }
+
+    /**
+     * Store an image from a stream
+     *
+     * The stream is copied to a temporary file while its SHA-256 is computed,
+     * then the file is moved to its hash name (or dropped if that image is
+     * already stored). Copying stops as soon as the size limit is exceeded.
+     *
+     * @param in Image data; read to the end and closed
+     * @return SHA-256 hash under which the image is stored, or null if the stream was empty
+     * @throws IllegalArgumentException if the image is larger than storage.image_max_bytes
+     * @throws IOException if the stream cannot be read or the file cannot be written
+     */
+    public static String store(InputStream in) throws IOException {
+        Files.createDirectories(ROOT);
+        Path temp = Files.createTempFile(ROOT, "upload", ".tmp");
+        try {
+            MessageDigest digest = ImageUtil.newSha256();
+            long size = 0;
+            try (DigestInputStream source = new DigestInputStream(in, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = source.read(buffer)) != -1) {
+                    size += read;
+                    if (size > MAX_IMAGE_BYTES) {
+                        throw new IllegalArgumentException("Profile picture must not be larger than "
+                                + (MAX_IMAGE_BYTES / (1024 * 1024)) + "MB");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (size == 0) {
+                return null;
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathFor(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                moveIntoPlace(temp, target);
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Find a stored image
+     *
+     * @param hash SHA-256 hash of the image
+     * @return Path of the image file, or null if it is not stored (or the hash is malformed)
+     */
+    public static Path find(String hash) {
+        if (!isValidHash(hash)) {
+            return null;
+        }
+        Path path = pathFor(hash);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * Find a stored rendition of an image
+     *
+     * @param hash SHA-256 hash of the original image
+     * @param size Rendition edge length in pixels
+     * @return Path of the rendition file, or null if it does not exist (or the hash is malformed)
+     */
+    public static Path findRendition(String hash, int size) {
+        if (!isValidHash(hash)) {
+            return null;
+        }
+        Path path = renditionPathFor(hash, size);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * Store a rendition of an image
+     *
+     * @param hash SHA-256 hash of the original image
+     * @param size Rendition edge length in pixels
+     * @param content Writes the encoded rendition
+     * @throws IOException If the rendition cannot be written
+     */
+    public static void storeRendition(String hash, int size, ContentWriter content) throws IOException {
+        Path target = renditionPathFor(hash, size);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                content.write(out);
+            }
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Read the first bytes of a stored image
+     *
+     * Enough to detect the content type without reading the whole file.
+     *
+     * @param channel Open channel of the image file
+     * @param length Maximum number of bytes to read
+     * @return The leading bytes (shorter if the file is smaller)
+     * @throws IOException If the file cannot be read
+     */
+    public static byte[] readHeader(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, channel.size()));
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // Positional reads until the buffer is full or the file ends
+        }
+        buffer.flip();
+        byte[] header = new byte[buffer.remaining()];
+        buffer.get(header);
+        return header;
+    }
+
+    /**
+     * Copy a whole file channel to a target channel
+     *
+     * Uses FileChannel.transferTo, which the JDK turns into sendfile or a
+     * memory-mapped copy where the target allows it, so the image is not
+     * copied through the Java heap.
+     *
+     * @param channel Open channel of the image file
+     * @param target Destination channel
+     * @return Number of bytes transferred
+     * @throws IOException If the copy fails
+     */
+    public static long transferTo(FileChannel channel, WritableByteChannel target) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            position += channel.transferTo(position, size - position, target);
+        }
+        return position;
+    }
+
+    /**
+     * Get the largest accepted image size
+     *
+     * @return Maximum image size in bytes
+     */
+    public static long getMaxImageBytes() {
+        return MAX_IMAGE_BYTES;
+    }
+
+    /**
+     * Get the root directory of the store
+     *
+     * @return Root directory
+     */
+    public static Path getRoot() {
+        return ROOT;
+    }
+
+    /**
+     * Check that a string is a lower-case hex SHA-256 digest
+     *
+     * Hashes come from the database or request parameters and are used as file
+     * names, so anything else is rejected before a path is built.
+     *
+     * @param hash Candidate hash
+     * @return true if valid
+     */
+    public static boolean isValidHash(String hash) {
+        if (hash == null || hash.length() != HASH_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            char c = hash.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Path pathFor(String hash) {
+        return ROOT.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static Path renditionPathFor(String hash, int size) {
+        return ROOT.resolve(hash.substring(0, 2)).resolve(hash + "-" + size);
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            // Make the content durable before the name becomes visible
+            channel.force(true);
+        }
+        // Replacing an existing file is fine: same name means same content
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Writes file content to a stream
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        /**
+         * Write the content
+         *
+         * @param out Destination stream, closed by the caller
+         * @throws IOException If writing fails
+         */
+        void write(OutputStream out) throws IOException;
+    }
+}
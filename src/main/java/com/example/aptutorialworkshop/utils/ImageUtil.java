@@ -0,0 +1,87 @@
+package com.example.aptutorialworkshop.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Image Utility
+ *
+ * Helpers for serving stored profile pictures: content type detection from
+ * the file signature and content hashing for strong ETags.
+ */
+public class ImageUtil {
+    // Type used when the bytes do not match a known image signature
+    public static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private ImageUtil() {
+    }
+
+    /**
+     * Detect the content type of an image
+     *
+     * Looks at the leading magic bytes, so the result does not depend on the
+     * file name or the Content-Type the browser sent at upload time.
+     *
+     * @param data Image bytes
+     * @return The MIME type, or application/octet-stream if unknown
+     */
+    public static String detectContentType(byte[] data) {
+        if (data == null) {
+            return DEFAULT_CONTENT_TYPE;
+        }
+        if (startsWith(data, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(data, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(data, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(data, 'R', 'I', 'F', 'F') && data.length >= 12
+                && data[8] == 'W' && data[9] == 'E' && data[10] == 'B' && data[11] == 'P') {
+            return "image/webp";
+        }
+        if (startsWith(data, 'B', 'M')) {
+            return "image/bmp";
+        }
+        return DEFAULT_CONTENT_TYPE;
+    }
+
+    /**
+     * Compute the SHA-256 hash of some bytes
+     *
+     * @param data Bytes to hash
+     * @return Lower-case hexadecimal digest
+     */
+    public static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(newSha256().digest(data));
+    }
+
+    /**
+     * Create a SHA-256 message digest
+     *
+     * @return A new digest instance
+     */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean startsWith(byte[] data, int... signature) {
+        if (data.length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((data[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
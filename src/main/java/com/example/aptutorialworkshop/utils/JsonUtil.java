@@ -0,0 +1,201 @@
+package com.example.aptutorialworkshop.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON Utility
+ *
+ * Minimal JSON support for the admin endpoints without adding a JSON library:
+ * string quoting for hand-written responses, and parsing of flat objects such
+ * as one line of a JSON-lines import file. Nested objects and arrays are not
+ * supported.
+ */
+public class JsonUtil {
+
+    private JsonUtil() {
+    }
+
+    /**
+     * Quote and escape a string as a JSON string literal
+     *
+     * @param value String to quote, may be null
+     * @return The JSON literal, or the literal null for a null value
+     */
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder out = new StringBuilder(value.length() + 2);
+        appendQuoted(out, value);
+        return out.toString();
+    }
+
+    /**
+     * Append a string as a JSON string literal
+     *
+     * @param out Destination
+     * @param value String to quote; null appends the literal null
+     */
+    public static void appendQuoted(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                // Keep markup-sensitive characters out of responses that might be embedded in HTML
+                case '<', '>', '&' -> out.append(String.format("\\u%04x", (int) c));
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Parse a flat JSON object
+     *
+     * Values may be strings, numbers, booleans or null; they are all returned
+     * as strings (null stays null).
+     *
+     * @param json Text of one JSON object
+     * @return Field values by name, in document order
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    public static Map<String, String> parseObject(String json) {
+        Parser parser = new Parser(json);
+        Map<String, String> fields = new LinkedHashMap<>();
+
+        parser.skipWhitespace();
+        parser.expect('{');
+        parser.skipWhitespace();
+        if (parser.peek() == '}') {
+            parser.position++;
+        } else {
+            while (true) {
+                parser.skipWhitespace();
+                String name = parser.readString();
+                parser.skipWhitespace();
+                parser.expect(':');
+                parser.skipWhitespace();
+                fields.put(name, parser.readValue());
+                parser.skipWhitespace();
+                char next = parser.next();
+                if (next == '}') {
+                    break;
+                }
+                if (next != ',') {
+                    throw new IllegalArgumentException("Expected ',' or '}' at position " + (parser.position - 1));
+                }
+            }
+        }
+        parser.skipWhitespace();
+        if (parser.position != json.length()) {
+            throw new IllegalArgumentException("Unexpected content after the object at position " + parser.position);
+        }
+        return fields;
+    }
+
+    /**
+     * Cursor over the JSON text
+     */
+    private static class Parser {
+        private final String text;
+        private int position;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        private char peek() {
+            if (position >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of JSON");
+            }
+            return text.charAt(position);
+        }
+
+        private char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' at position " + (position - 1));
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private String readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("Nested values are not supported at position " + position);
+            }
+
+            // Number, true, false or null
+            int start = position;
+            while (position < text.length() && ",}] \t\r\n".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Expected a value at position " + start);
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append(escaped);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw new IllegalArgumentException("Truncated unicode escape at position " + position);
+                        }
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                    }
+                    default -> throw new IllegalArgumentException("Invalid escape at position " + (position - 1));
+                }
+            }
+        }
+    }
+}
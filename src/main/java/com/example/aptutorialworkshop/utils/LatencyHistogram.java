@@ -0,0 +1,161 @@
+package com.example.aptutorialworkshop.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency Histogram
+ *
+ * A fixed-size, lock-free histogram of durations recorded in microseconds.
+ * Buckets are log-linear: every power of two is split into 8 equal
+ * sub-buckets, which keeps the relative error of any percentile below 12.5%
+ * while using a constant 240 counters regardless of how many values are
+ * recorded. Recording never allocates, so it is safe to call on hot paths.
+ */
+public class LatencyHistogram {
+    // Number of linear sub-buckets per power of two (2^SUB_BITS)
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    // Values below this limit get one bucket each
+    private static final int LINEAR_LIMIT = SUB_COUNT << 1;
+
+    // Largest tracked exponent; 2^32 microseconds is a little over an hour
+    private static final int MAX_EXPONENT = 31;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record a duration measured with System.nanoTime()
+     *
+     * @param nanos Elapsed time in nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1_000);
+    }
+
+    /**
+     * Record a duration in microseconds
+     *
+     * @param micros Elapsed time in microseconds (negative values count as zero)
+     */
+    public void recordMicros(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        sumMicros.add(value);
+        maxMicros.accumulate(value);
+    }
+
+    /**
+     * Get the number of recorded values
+     *
+     * @return Total count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Get the sum of all recorded values
+     *
+     * @return Sum in microseconds
+     */
+    public long getSumMicros() {
+        return sumMicros.sum();
+    }
+
+    /**
+     * Get the largest recorded value
+     *
+     * @return Maximum in microseconds
+     */
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * Get the mean of all recorded values
+     *
+     * @return Mean in microseconds, or 0 if nothing was recorded
+     */
+    public double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sumMicros.sum() / n;
+    }
+
+    /**
+     * Estimate a percentile
+     *
+     * Returns the upper bound of the bucket holding the requested rank,
+     * capped at the largest value seen, so the estimate never understates.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return Estimated value in microseconds, or 0 if nothing was recorded
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    /**
+     * Count recorded values at or below a limit
+     *
+     * Used to render cumulative buckets (for example Prometheus "le" buckets).
+     * The answer is exact when the limit is a bucket boundary.
+     *
+     * @param limitMicros Inclusive upper limit in microseconds
+     * @return Number of values recorded in buckets that end at or below the limit
+     */
+    public long countAtOrBelow(long limitMicros) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT && upperBoundOf(i) <= limitMicros; i++) {
+            total += buckets.get(i);
+        }
+        return total;
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return LINEAR_LIMIT + (exponent - SUB_BITS - 1) * SUB_COUNT + sub;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int exponent = SUB_BITS + 1 + offset / SUB_COUNT;
+        int sub = offset % SUB_COUNT;
+        long width = 1L << (exponent - SUB_BITS);
+        return ((SUB_COUNT + sub) * width) + width - 1;
+    }
+}
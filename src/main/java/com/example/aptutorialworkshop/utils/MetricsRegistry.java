@@ -0,0 +1,127 @@
+package com.example.aptutorialworkshop.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics Registry
+ *
+ * Holds the request metrics collected by MetricsFilter, one RequestStats per
+ * servlet name. Everything here is lock-free and the per-request path does not
+ * allocate once a servlet's stats exist.
+ */
+public class MetricsRegistry {
+    private static final Map<String, RequestStats> REQUEST_STATS = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Get the stats for a servlet, creating them on first use
+     *
+     * @param servletName Name of the servlet that handled the request
+     * @return The servlet's request stats
+     */
+    public static RequestStats forServlet(String servletName) {
+        RequestStats stats = REQUEST_STATS.get(servletName);
+        if (stats == null) {
+            stats = REQUEST_STATS.computeIfAbsent(servletName, RequestStats::new);
+        }
+        return stats;
+    }
+
+    /**
+     * Get the stats of every servlet seen so far
+     *
+     * @return Stats keyed by servlet name
+     */
+    public static Map<String, RequestStats> getRequestStats() {
+        return REQUEST_STATS;
+    }
+
+    /**
+     * Request Stats
+     *
+     * Latency histogram, request and error counts and the in-flight gauge
+     * for one servlet.
+     */
+    public static class RequestStats {
+        private final String servletName;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+
+        private RequestStats(String servletName) {
+            this.servletName = servletName;
+        }
+
+        /**
+         * Mark the start of a request
+         */
+        public void requestStarted() {
+            inFlight.increment();
+        }
+
+        /**
+         * Record a finished request
+         *
+         * @param elapsedNanos Time from start to completion
+         * @param error true if the request failed (exception or 5xx status)
+         */
+        public void requestFinished(long elapsedNanos, boolean error) {
+            inFlight.decrement();
+            requests.increment();
+            if (error) {
+                errors.increment();
+            }
+            latency.recordNanos(elapsedNanos);
+        }
+
+        /**
+         * Get the servlet name
+         *
+         * @return Name of the servlet these stats belong to
+         */
+        public String getServletName() {
+            return servletName;
+        }
+
+        /**
+         * Get the request latency histogram
+         *
+         * @return Latency histogram
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * Get the number of finished requests
+         *
+         * @return Request count
+         */
+        public long getRequestCount() {
+            return requests.sum();
+        }
+
+        /**
+         * Get the number of failed requests
+         *
+         * @return Error count
+         */
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        /**
+         * Get the number of requests currently being processed
+         *
+         * @return In-flight request count
+         */
+        public long getInFlight() {
+            return inFlight.sum();
+        }
+    }
+}
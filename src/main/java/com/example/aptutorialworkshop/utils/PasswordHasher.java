@@ -0,0 +1,208 @@
+package com.example.aptutorialworkshop.utils;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Password Hasher
+ *
+ * Creates and verifies BCrypt password hashes at one work factor (cost) for
+ * the whole application.
+ *
+ * The cost is either fixed with auth.bcrypt.cost, or calibrated once at
+ * startup: BCrypt is timed on this host at a cheap cost, and the highest cost
+ * whose hash still fits in auth.bcrypt.target_millis is chosen (each extra
+ * cost step doubles the work), kept between auth.bcrypt.min_cost and
+ * auth.bcrypt.max_cost. A faster server thus gets stronger hashes without
+ * anyone editing the configuration.
+ *
+ * Stored passwords come in three shapes, all accepted by verify():
+ * - $2a$ hashes written by this application (jBCrypt)
+ * - $2b$ and $2y$ hashes from other BCrypt implementations (same algorithm)
+ * - plain text, e.g. the sample users inserted by schema.sql
+ *
+ * needsRehash() tells AuthService which stored passwords should be replaced
+ * after a successful login: plain text, and hashes below the target cost.
+ * Stronger hashes are kept, so nodes that calibrated to different costs do
+ * not rehash a password back and forth; a cluster should still fix
+ * auth.bcrypt.cost so every node creates hashes of the same strength.
+ *
+ * Configuration (application.properties):
+ * - auth.bcrypt.cost: fixed cost; 0 or unset calibrates (default 0)
+ * - auth.bcrypt.target_millis: time one hash should take when calibrating (default 250)
+ * - auth.bcrypt.min_cost / auth.bcrypt.max_cost: calibration bounds (default 10 / 16)
+ */
+public class PasswordHasher {
+    // Length of a BCrypt hash: "$2a$" + 2-digit cost + "$" + 22 salt + 31 hash characters
+    private static final int HASH_LENGTH = 60;
+
+    // Cost timed during calibration; cheap enough to repeat, slow enough to measure
+    private static final int PROBE_COST = 8;
+
+    // Verifications by the cost of the stored hash; index 0 counts plain-text passwords
+    private static final LongAdder[] VERIFICATIONS = new LongAdder[32];
+
+    private static final int TARGET_COST;
+
+    static {
+        for (int i = 0; i < VERIFICATIONS.length; i++) {
+            VERIFICATIONS[i] = new LongAdder();
+        }
+
+        int configured = AppConfig.getInt("auth.bcrypt.cost", 0);
+        if (configured > 0) {
+            TARGET_COST = Math.max(4, Math.min(31, configured));
+        } else {
+            TARGET_COST = calibrate(AppConfig.getLong("auth.bcrypt.target_millis", 250),
+                    AppConfig.getInt("auth.bcrypt.min_cost", 10),
+                    AppConfig.getInt("auth.bcrypt.max_cost", 16));
+        }
+    }
+
+    private PasswordHasher() {
+    }
+
+    /**
+     * Hash a password at the target cost
+     *
+     * @param plainTextPassword Password to hash
+     * @return BCrypt hash including its salt
+     */
+    public static String hash(String plainTextPassword) {
+        return BCrypt.hashpw(plainTextPassword, BCrypt.gensalt(TARGET_COST));
+    }
+
+    /**
+     * Verify a password against a stored value
+     *
+     * @param plainTextPassword Password to check
+     * @param stored Stored BCrypt hash, or a legacy plain-text password
+     * @return true if the password matches
+     */
+    public static boolean verify(String plainTextPassword, String stored) {
+        if (plainTextPassword == null || stored == null) {
+            return false;
+        }
+        int cost = costOf(stored);
+        if (cost < 0) {
+            // Legacy plain-text row; compare in constant time for a given length
+            VERIFICATIONS[0].increment();
+            return MessageDigest.isEqual(plainTextPassword.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        VERIFICATIONS[cost].increment();
+        // jBCrypt only reads the $2a$ prefix; $2b$ and $2y$ hashes are computed the same way
+        String hash = stored.charAt(2) == 'a' ? stored : "$2a$" + stored.substring(4);
+        return BCrypt.checkpw(plainTextPassword, hash);
+    }
+
+    /**
+     * Check whether a stored password should be replaced by a new hash
+     *
+     * @param stored Stored BCrypt hash or plain-text password
+     * @return true for plain text and for hashes below the target cost
+     */
+    public static boolean needsRehash(String stored) {
+        return costOf(stored) < TARGET_COST;
+    }
+
+    /**
+     * Check whether a value is a BCrypt hash
+     *
+     * @param value Password value
+     * @return true for a $2a$, $2b$ or $2y$ hash
+     */
+    public static boolean isHash(String value) {
+        return costOf(value) > 0;
+    }
+
+    /**
+     * Get the cost of a BCrypt hash
+     *
+     * @param value Password value
+     * @return The cost, or -1 if the value is not a BCrypt hash
+     */
+    public static int costOf(String value) {
+        if (value == null || value.length() != HASH_LENGTH || value.charAt(0) != '$' || value.charAt(1) != '2'
+                || "aby".indexOf(value.charAt(2)) < 0 || value.charAt(3) != '$' || value.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = value.charAt(4);
+        char ones = value.charAt(5);
+        if (tens < '0' || tens > '3' || ones < '0' || ones > '9') {
+            return -1;
+        }
+        int cost = (tens - '0') * 10 + (ones - '0');
+        return cost >= 4 && cost <= 31 ? cost : -1;
+    }
+
+    /**
+     * Get the cost new hashes are created with
+     *
+     * @return Configured or calibrated BCrypt cost
+     */
+    public static int getTargetCost() {
+        return TARGET_COST;
+    }
+
+    /**
+     * Get the number of password verifications against hashes of a cost
+     *
+     * @param cost BCrypt cost, or 0 for plain-text passwords
+     * @return Verification count
+     */
+    public static long getVerificationCount(int cost) {
+        return VERIFICATIONS[cost].sum();
+    }
+
+    /**
+     * Run BCrypt at the lowest cost so the JIT compiles it
+     *
+     * Verifies a throwaway password at cost 4; the verification counters
+     * are not touched.
+     *
+     * @param iterations Number of verifications
+     */
+    public static void warmUp(int iterations) {
+        String hash = BCrypt.hashpw("warmup", BCrypt.gensalt(4));
+        for (int i = 0; i < iterations; i++) {
+            BCrypt.checkpw("warmup", hash);
+        }
+    }
+
+    /**
+     * Pick the highest cost whose hash takes at most the target time on this host
+     *
+     * @param targetMillis Time one hash may take
+     * @param minCost Lowest acceptable cost
+     * @param maxCost Highest acceptable cost
+     * @return The calibrated cost
+     */
+    private static int calibrate(long targetMillis, int minCost, int maxCost) {
+        // Let the JIT compile BCrypt before timing it
+        warmUp(20);
+
+        // Best of a few runs, so a pause elsewhere does not lower the cost
+        String probeSalt = BCrypt.gensalt(PROBE_COST);
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", probeSalt);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        double millis = bestNanos / 1_000_000.0;
+        int cost = PROBE_COST;
+        while (cost < maxCost && millis * 2 <= targetMillis) {
+            cost++;
+            millis *= 2;
+        }
+        cost = Math.max(minCost, Math.min(maxCost, cost));
+        System.out.println("BCrypt cost calibrated to " + cost + " (cost " + PROBE_COST + " took "
+                + String.format("%.1f", bestNanos / 1_000_000.0) + " ms, target " + targetMillis + " ms)");
+        return cost;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.aptutorialworkshop.utils;
+
+import com.example.aptutorialworkshop.models.UserModel;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Session Token Signer
+ *
+ * Issues and verifies the compact signed tokens that carry a login in a
+ * cookie when auth.session_mode=token. Any node holding the same keys can
+ * verify a token, so no session state has to be stored or replicated.
+ *
+ * A token is 39 bytes, sent as 52 base64url characters:
+ * - format version (1 byte) and key id (1 byte)
+ * - user id (4 bytes) and role (1 byte)
+ * - login time, issued-at and expiry in epoch seconds (4 bytes each, unsigned);
+ *   the login time is kept when a token is renewed, so renewals can be capped
+ * - image version (4 bytes): the first 32 bits of the profile picture hash, 0 for none
+ * - HMAC-SHA256 of the bytes above under the key, truncated to 16 bytes
+ *
+ * Keys are configured as "kid:base64key" pairs separated by commas. The first
+ * key signs new tokens; all of them verify. To rotate, put a new key first and
+ * keep the old one listed for one token lifetime; tokens signed with an old
+ * key report needsReissue() so they are replaced on the next request.
+ *
+ * There is no fallback key: a signer without keys would only accept its own
+ * tokens, which breaks every other node and every restart without a visible
+ * error, so creating one fails instead.
+ *
+ * verify() decodes into per-thread buffers and reuses a per-thread Mac, so
+ * checking a token allocates only the returned claims.
+ */
+public class SessionTokenSigner {
+    private static final int VERSION = 2;
+    private static final int PAYLOAD_LENGTH = 23;
+    private static final int MAC_LENGTH = 16;
+    private static final int TOKEN_LENGTH = PAYLOAD_LENGTH + MAC_LENGTH;
+    private static final int ENCODED_LENGTH = (TOKEN_LENGTH * 4 + 2) / 3;
+
+    // Shortest accepted key: the full HMAC-SHA256 block strength
+    private static final int MIN_KEY_BYTES = 32;
+
+    // base64url alphabet index of each ASCII character, -1 if not in the alphabet
+    private static final byte[] DECODE = new byte[128];
+
+    private static final UserModel.Role[] ROLES = UserModel.Role.values();
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final SecretKeySpec[] keys = new SecretKeySpec[256];
+    private final int signingKeyId;
+
+    // Per-thread token buffer (decoded token plus room for the full MAC) and Macs by key id
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[TOKEN_LENGTH + 32]);
+    private final ThreadLocal<Mac[]> macs = ThreadLocal.withInitial(() -> new Mac[256]);
+
+    /**
+     * Claims carried by a verified token
+     *
+     * @param userId ID of the logged-in user
+     * @param role Role the user had when the token was issued
+     * @param loginAt Time of the login the token descends from, in epoch seconds
+     * @param issuedAt Issue time in epoch seconds
+     * @param expiresAt Expiry time in epoch seconds
+     * @param imageVersion First 32 bits of the profile picture hash, 0 for none
+     * @param keyId ID of the key that signed the token
+     */
+    public record Claims(int userId, UserModel.Role role, long loginAt, long issuedAt, long expiresAt, int imageVersion,
+                         int keyId) {
+    }
+
+    /**
+     * Create a signer from a key list
+     *
+     * @param keySpec Comma-separated "kid:base64key" pairs, the signing key first
+     * @throws IllegalArgumentException if no key is given, or a key id or key is malformed or too short
+     */
+    public SessionTokenSigner(String keySpec) {
+        if (keySpec == null || keySpec.isBlank()) {
+            throw new IllegalArgumentException("auth.token.keys must be set when auth.session_mode=token");
+        }
+
+        int first = -1;
+        for (String entry : keySpec.split(",")) {
+            String trimmed = entry.trim();
+            int colon = trimmed.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Session token key must be kid:base64key");
+            }
+            int kid;
+            try {
+                kid = Integer.parseInt(trimmed.substring(0, colon));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Session token key id must be a number: " + trimmed.substring(0, colon));
+            }
+            if (kid < 0 || kid > 255) {
+                throw new IllegalArgumentException("Session token key id must be between 0 and 255: " + kid);
+            }
+            byte[] key = Base64.getDecoder().decode(trimmed.substring(colon + 1));
+            if (key.length < MIN_KEY_BYTES) {
+                throw new IllegalArgumentException("Session token key " + kid + " must be at least "
+                        + MIN_KEY_BYTES + " bytes");
+            }
+            keys[kid] = new SecretKeySpec(key, "HmacSHA256");
+            if (first < 0) {
+                first = kid;
+            }
+        }
+        signingKeyId = first;
+    }
+
+    /**
+     * Issue a token with the signing key
+     *
+     * @param userId ID of the logged-in user
+     * @param role The user's role
+     * @param loginAt Time of the login in epoch seconds; kept from the old token on renewal
+     * @param issuedAt Issue time in epoch seconds
+     * @param expiresAt Expiry time in epoch seconds
+     * @param imageVersion Image version from imageVersionOf()
+     * @return base64url token without padding
+     */
+    public String issue(int userId, UserModel.Role role, long loginAt, long issuedAt, long expiresAt,
+                        int imageVersion) {
+        byte[] token = new byte[TOKEN_LENGTH + 32];
+        token[0] = VERSION;
+        token[1] = (byte) signingKeyId;
+        putInt(token, 2, userId);
+        token[6] = (byte) role.ordinal();
+        putInt(token, 7, (int) loginAt);
+        putInt(token, 11, (int) issuedAt);
+        putInt(token, 15, (int) expiresAt);
+        putInt(token, 19, imageVersion);
+        sign(token, signingKeyId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(token, TOKEN_LENGTH));
+    }
+
+    /**
+     * Verify a token
+     *
+     * @param token Cookie value
+     * @param now Current time in epoch seconds
+     * @return The claims, or null if the token is malformed, forged, signed with an unknown key or expired
+     */
+    public Claims verify(String token, long now) {
+        if (token == null || token.length() != ENCODED_LENGTH) {
+            return null;
+        }
+        byte[] buffer = buffers.get();
+        if (!decode(token, buffer) || buffer[0] != VERSION) {
+            return null;
+        }
+        int kid = buffer[1] & 0xff;
+        if (keys[kid] == null) {
+            return null;
+        }
+
+        // Keep the received MAC aside, recompute it in place and compare in constant time
+        long received1 = getLong(buffer, PAYLOAD_LENGTH);
+        long received2 = getLong(buffer, PAYLOAD_LENGTH + 8);
+        sign(buffer, kid);
+        if (((received1 ^ getLong(buffer, PAYLOAD_LENGTH)) | (received2 ^ getLong(buffer, PAYLOAD_LENGTH + 8))) != 0) {
+            return null;
+        }
+
+        int roleIndex = buffer[6] & 0xff;
+        long expiresAt = getInt(buffer, 15) & 0xffffffffL;
+        if (roleIndex >= ROLES.length || expiresAt <= now) {
+            return null;
+        }
+        return new Claims(getInt(buffer, 2), ROLES[roleIndex], getInt(buffer, 7) & 0xffffffffL,
+                getInt(buffer, 11) & 0xffffffffL, expiresAt, getInt(buffer, 19), kid);
+    }
+
+    /**
+     * Check whether a verified token should be replaced with one signed by the current key
+     *
+     * @param claims Claims of a verified token
+     * @return true if the token was signed with an older key
+     */
+    public boolean needsReissue(Claims claims) {
+        return claims.keyId() != signingKeyId;
+    }
+
+    /**
+     * Get the image version of a profile picture
+     *
+     * @param imageHash Hex SHA-256 of the picture, or null for none
+     * @return First 32 bits of the hash, never 0 for a picture; 0 for none
+     */
+    public static int imageVersionOf(String imageHash) {
+        if (imageHash == null || imageHash.length() < 8) {
+            return 0;
+        }
+        int version = Integer.parseUnsignedInt(imageHash, 0, 8, 16);
+        return version == 0 ? 1 : version;
+    }
+
+    /**
+     * Write the truncated MAC of the payload after it
+     *
+     * @param token Buffer holding the payload, with room for the full MAC after it
+     * @param kid Key ID
+     */
+    private void sign(byte[] token, int kid) {
+        try {
+            Mac[] perKey = macs.get();
+            Mac mac = perKey[kid];
+            if (mac == null) {
+                mac = Mac.getInstance("HmacSHA256");
+                mac.init(keys[kid]);
+                perKey[kid] = mac;
+            }
+            mac.update(token, 0, PAYLOAD_LENGTH);
+            mac.doFinal(token, PAYLOAD_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Decode a base64url token into a buffer
+     *
+     * @param token Encoded token of ENCODED_LENGTH characters
+     * @param out Buffer of at least TOKEN_LENGTH bytes
+     * @return false if the token contains a character outside the alphabet
+     */
+    private static boolean decode(String token, byte[] out) {
+        int bits = 0;
+        int bitCount = 0;
+        int index = 0;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            int value = c < 128 ? DECODE[c] : -1;
+            if (value < 0) {
+                return false;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[index++] = (byte) (bits >>> bitCount);
+            }
+        }
+        // The unused low bits of the last character must be zero, so every token has one encoding
+        return index == TOKEN_LENGTH && (bits & ((1 << bitCount) - 1)) == 0;
+    }
+
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static int getInt(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xff) << 24 | (buffer[offset + 1] & 0xff) << 16
+                | (buffer[offset + 2] & 0xff) << 8 | (buffer[offset + 3] & 0xff);
+    }
+
+    private static long getLong(byte[] buffer, int offset) {
+        return (getInt(buffer, offset) & 0xffffffffL) << 32 | (getInt(buffer, offset + 4) & 0xffffffffL);
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.aptutorialworkshop.utils;
+
+import jakarta.servlet.ServletContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Static Assets
+ *
+ * Serves the files under /assets (stylesheet, script, placeholder pictures)
+ * from memory with fingerprinted URLs and precompressed variants.
+ *
+ * At package time tools.AssetPipelineTool writes a manifest of each file's
+ * content hash to WEB-INF/assets-manifest.properties, plus a gzip variant
+ * (file.gz) and, when a brotli command is available, a brotli variant
+ * (file.br) next to every compressible file. load() reads the manifest and
+ * all variants once at startup. Without a manifest (running from an
+ * unpackaged tree) the hashes and gzip variants are computed at startup
+ * instead, so URLs stay correct either way.
+ *
+ * A fingerprinted URL carries the first characters of the content hash
+ * ("css/styles.css" becomes "css/styles.1a2b3c4d5e6f.css"). It changes
+ * whenever the file does, so AssetServlet lets browsers cache it for a year
+ * without revalidating. JSPs look URLs up in the "assets" application
+ * attribute: ${assets['css/styles.css']}.
+ */
+public class StaticAssets {
+    // Context-relative location of the manifest written by AssetPipelineTool
+    public static final String MANIFEST_PATH = "/WEB-INF/assets-manifest.properties";
+
+    // Directory served by AssetServlet, relative to the web application root
+    public static final String ASSETS_DIR = "/assets/";
+
+    // Application attribute holding the logical path to URL map for JSPs
+    public static final String URLS_ATTRIBUTE = "assets";
+
+    // Hex characters of the SHA-256 kept in a fingerprinted name
+    private static final int FINGERPRINT_LENGTH = 12;
+
+    // File extensions worth compressing; pictures other than SVG are already compressed
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of(
+            "css", "js", "mjs", "map", "svg", "html", "txt", "json", "xml");
+
+    private static volatile Map<String, Asset> byPath = Collections.emptyMap();
+    private static volatile Map<String, Asset> byFingerprintedPath = Collections.emptyMap();
+
+    /**
+     * One file under /assets with its precomputed variants
+     *
+     * @param path Path below /assets, e.g. "css/styles.css"
+     * @param fingerprintedPath Path including the content hash
+     * @param hash Fingerprint, also used as the entity tag
+     * @param identity Uncompressed content
+     * @param gzip Gzip variant, or null if the file is not worth compressing
+     * @param brotli Brotli variant, or null if none was built
+     */
+    public record Asset(String path, String fingerprintedPath, String hash, byte[] identity, byte[] gzip,
+                        byte[] brotli) {
+    }
+
+    private StaticAssets() {
+    }
+
+    /**
+     * Load all assets and publish their URLs for JSPs
+     *
+     * @param context Servlet context of the web application
+     */
+    public static void load(ServletContext context) {
+        Map<String, String> manifest = readManifest(context);
+        boolean prebuilt = manifest != null;
+        if (!prebuilt) {
+            System.out.println("No " + MANIFEST_PATH + " (application not packaged); fingerprinting assets at startup");
+            manifest = new TreeMap<>();
+            collectPaths(context, ASSETS_DIR, manifest);
+        }
+
+        Map<String, Asset> paths = new HashMap<>();
+        Map<String, Asset> fingerprinted = new HashMap<>();
+        Map<String, String> urls = new TreeMap<>();
+        for (Map.Entry<String, String> entry : manifest.entrySet()) {
+            String path = entry.getKey();
+            byte[] identity = readResource(context, ASSETS_DIR + path);
+            if (identity == null) {
+                System.err.println("Asset listed in manifest is missing: " + path);
+                continue;
+            }
+
+            String hash;
+            byte[] gzip;
+            byte[] brotli;
+            if (prebuilt) {
+                hash = entry.getValue();
+                gzip = readResource(context, ASSETS_DIR + path + ".gz");
+                brotli = readResource(context, ASSETS_DIR + path + ".br");
+            } else {
+                hash = fingerprint(identity);
+                gzip = isCompressible(path) ? smallerOrNull(gzip(identity), identity) : null;
+                brotli = null;
+            }
+
+            Asset asset = new Asset(path, fingerprintedPath(path, hash), hash, identity, gzip, brotli);
+            paths.put(path, asset);
+            fingerprinted.put(asset.fingerprintedPath(), asset);
+            urls.put(path, context.getContextPath() + ASSETS_DIR + asset.fingerprintedPath());
+        }
+
+        byPath = paths;
+        byFingerprintedPath = fingerprinted;
+        context.setAttribute(URLS_ATTRIBUTE, Collections.unmodifiableMap(urls));
+    }
+
+    /**
+     * Find the asset for a request path below /assets
+     *
+     * @param path Path below /assets, with or without fingerprint
+     * @return The asset, or null if there is none
+     */
+    public static Asset find(String path) {
+        Asset asset = byFingerprintedPath.get(path);
+        return asset != null ? asset : byPath.get(path);
+    }
+
+    /**
+     * Check whether a request path is the fingerprinted URL of an asset
+     *
+     * @param path Path below /assets
+     * @return true if the path includes the current content hash
+     */
+    public static boolean isFingerprinted(String path) {
+        return byFingerprintedPath.containsKey(path);
+    }
+
+    /**
+     * Get the context-relative URL of an asset
+     *
+     * @param path Path below /assets, e.g. "images/default-profile.svg"
+     * @return The fingerprinted URL, or the plain one if the asset is unknown
+     */
+    public static String url(String path) {
+        Asset asset = byPath.get(path);
+        return ASSETS_DIR + (asset != null ? asset.fingerprintedPath() : path);
+    }
+
+    /**
+     * Get the fingerprint of some content
+     *
+     * @param content File content
+     * @return The first hex characters of its SHA-256
+     */
+    public static String fingerprint(byte[] content) {
+        return ImageUtil.sha256Hex(content).substring(0, FINGERPRINT_LENGTH);
+    }
+
+    /**
+     * Insert a fingerprint before the file extension
+     *
+     * @param path Path below /assets
+     * @param hash Fingerprint of the file's content
+     * @return The fingerprinted path, e.g. "js/script.1a2b3c4d5e6f.js"
+     */
+    public static String fingerprintedPath(String path, String hash) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash + 1) {
+            return path + "." + hash;
+        }
+        return path.substring(0, dot) + "." + hash + path.substring(dot);
+    }
+
+    /**
+     * Check whether a file is worth compressing, by its extension
+     *
+     * @param path File path
+     * @return true for text formats
+     */
+    public static boolean isCompressible(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot >= 0 && COMPRESSIBLE_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gzip content at the highest compression level
+     *
+     * Assets are compressed once, so the slowest level costs nothing per request.
+     *
+     * @param content Uncompressed bytes
+     * @return Gzip-compressed bytes
+     */
+    public static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 3 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Keep a compressed variant only if it actually saves bytes
+     *
+     * @param compressed Compressed bytes
+     * @param identity Uncompressed bytes
+     * @return The compressed bytes, or null if they are not smaller
+     */
+    public static byte[] smallerOrNull(byte[] compressed, byte[] identity) {
+        return compressed.length < identity.length ? compressed : null;
+    }
+
+    /**
+     * Check whether an Accept-Encoding header allows a content coding
+     *
+     * @param acceptEncoding Header value, may be null
+     * @param coding Content coding, e.g. "gzip" or "br"
+     * @return true if the coding is listed (or covered by "*") without q=0
+     */
+    public static boolean acceptsEncoding(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean accepted = false;
+        for (String element : acceptEncoding.split(",")) {
+            int semicolon = element.indexOf(';');
+            String name = (semicolon < 0 ? element : element.substring(0, semicolon)).trim();
+            boolean exact = name.equalsIgnoreCase(coding);
+            if (!exact && !name.equals("*")) {
+                continue;
+            }
+            boolean allowed = semicolon < 0 || !isZeroQuality(element.substring(semicolon + 1));
+            if (exact) {
+                return allowed;
+            }
+            accepted = allowed;
+        }
+        return accepted;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("q=") || trimmed.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(trimmed.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, String> readManifest(ServletContext context) {
+        byte[] content = readResource(context, MANIFEST_PATH);
+        if (content == null) {
+            return null;
+        }
+        // path=hash lines; written by AssetPipelineTool in sorted order
+        Map<String, String> manifest = new TreeMap<>();
+        for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+            String trimmed = line.trim();
+            int equals = trimmed.indexOf('=');
+            if (trimmed.isEmpty() || trimmed.startsWith("#") || equals < 0) {
+                continue;
+            }
+            manifest.put(trimmed.substring(0, equals), trimmed.substring(equals + 1));
+        }
+        return manifest;
+    }
+
+    private static void collectPaths(ServletContext context, String directory, Map<String, String> paths) {
+        Set<String> entries = context.getResourcePaths(directory);
+        if (entries == null) {
+            return;
+        }
+        for (String entry : entries) {
+            if (entry.endsWith("/")) {
+                collectPaths(context, entry, paths);
+            } else if (!entry.endsWith(".gz") && !entry.endsWith(".br")) {
+                paths.put(entry.substring(ASSETS_DIR.length()), null);
+            }
+        }
+    }
+
+    private static byte[] readResource(ServletContext context, String path) {
+        try (InputStream in = context.getResourceAsStream(path)) {
+            return in == null ? null : in.readAllBytes();
+        } catch (IOException e) {
+            System.err.println("Error reading " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
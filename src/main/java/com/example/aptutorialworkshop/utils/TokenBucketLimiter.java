@@ -0,0 +1,177 @@
+package com.example.aptutorialworkshop.utils;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token Bucket Limiter
+ *
+ * Limits how often a key (an IP address, an email) may do something: each key
+ * has a bucket of "capacity" tokens that refills over "period", and every
+ * request takes one token.
+ *
+ * The buckets live in a fixed-size table of longs, so memory is bounded no
+ * matter how many keys an attacker invents. A bucket is stored as its
+ * theoretical arrival time (the time at which it will be full again, the
+ * GCRA form of a token bucket) packed with a fingerprint of its key, and
+ * updated with a single compare-and-set, so concurrent logins never block
+ * each other.
+ *
+ * A key takes the first slot of a short probe sequence that already holds its
+ * fingerprint or whose bucket is full again, so idle keys are evicted simply
+ * by being reused. When every probed slot belongs to an active key, the new
+ * key is counted in one overflow bucket shared by all such keys, which allows
+ * PROBES times the capacity per period. It never takes tokens from the keys
+ * that hold slots, so an attacker who fills the table with invented keys
+ * (e.g. a botnet spraying emails) cannot lock out a user who is already
+ * tracked; only keys that arrive while the table is full are limited
+ * together. getOverflowCount() shows when the table is too small.
+ */
+public class TokenBucketLimiter {
+    // Slots probed for a key before it falls back to the overflow bucket
+    private static final int PROBES = 4;
+
+    // Low 40 bits: arrival time in ms since creation (about 34 years); high 24 bits: key fingerprint
+    private static final int TIME_BITS = 40;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    // Arrival time of the bucket shared by keys that found no free slot
+    private final AtomicLong overflow = new AtomicLong();
+    private final int mask;
+    private final long intervalMillis;
+    private final long toleranceMillis;
+    private final long overflowIntervalMillis;
+    private final long overflowToleranceMillis;
+    private final long originNanos = System.nanoTime();
+    // Random per instance so nobody can precompute keys that collide with a victim's
+    private final long seed = new SecureRandom().nextLong();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    /**
+     * Create a limiter
+     *
+     * @param capacity Requests allowed in a burst, and per period
+     * @param period Time in which a full bucket refills
+     * @param unit Unit of the period
+     * @param slots Table size, rounded up to a power of two; bounds the number of tracked keys
+     */
+    public TokenBucketLimiter(int capacity, long period, TimeUnit unit, int slots) {
+        int size = Integer.highestOneBit(Math.max(PROBES, slots - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.intervalMillis = Math.max(1, unit.toMillis(period) / Math.max(1, capacity));
+        this.toleranceMillis = intervalMillis * Math.max(1, capacity);
+        this.overflowIntervalMillis = Math.max(1, intervalMillis / PROBES);
+        this.overflowToleranceMillis = overflowIntervalMillis * Math.max(1, capacity) * PROBES;
+    }
+
+    /**
+     * Take a token for a key
+     *
+     * @param key Rate-limited key, e.g. a client IP address
+     * @return 0 if the request is allowed, otherwise the milliseconds until a token is available
+     */
+    public long tryAcquire(String key) {
+        long hash = hash(key);
+        long fingerprint = (hash >>> TIME_BITS) | 1; // Never 0, so an empty slot matches no key
+        int home = (int) hash & mask;
+        long now = (System.nanoTime() - originNanos) / 1_000_000;
+
+        while (true) {
+            // Find the key's slot, or else the first slot whose bucket is full again
+            int index = -1;
+            long current = 0;
+            for (int probe = 0; probe < PROBES; probe++) {
+                int candidate = (home + probe) & mask;
+                long value = slots.get(candidate);
+                if (value >>> TIME_BITS == fingerprint) {
+                    index = candidate;
+                    current = value;
+                    break;
+                }
+                if (index < 0 && (value & TIME_MASK) <= now) {
+                    index = candidate;
+                    current = value;
+                }
+            }
+            if (index < 0) {
+                // Every probed bucket is in use: count the key in the overflow bucket
+                overflowed.increment();
+                return tryAcquireOverflow(now);
+            }
+
+            long arrival = Math.max(current & TIME_MASK, now) + intervalMillis;
+            if (arrival - now > toleranceMillis) {
+                rejected.increment();
+                return arrival - now - toleranceMillis;
+            }
+            // The slot is the key's own or free again; either way it now holds the key's fingerprint
+            if (slots.compareAndSet(index, current, (fingerprint << TIME_BITS) | arrival)) {
+                return 0;
+            }
+            // Another request changed the slot first; read it again
+        }
+    }
+
+    /**
+     * Take a token from the overflow bucket
+     *
+     * @param now Milliseconds since creation
+     * @return 0 if the request is allowed, otherwise the milliseconds until a token is available
+     */
+    private long tryAcquireOverflow(long now) {
+        while (true) {
+            long current = overflow.get();
+            long arrival = Math.max(current, now) + overflowIntervalMillis;
+            if (arrival - now > overflowToleranceMillis) {
+                rejected.increment();
+                return arrival - now - overflowToleranceMillis;
+            }
+            if (overflow.compareAndSet(current, arrival)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Get the number of rejected requests
+     *
+     * @return Rejected count
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Get the number of requests whose key found no free slot
+     *
+     * @return Requests counted in the overflow bucket
+     */
+    public long getOverflowCount() {
+        return overflowed.sum();
+    }
+
+    /**
+     * Hash a key with this limiter's seed (64-bit FNV-1a, then mixed)
+     *
+     * @param key Key to hash
+     * @return 64-bit hash
+     */
+    private long hash(String key) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Spread the bits so both the slot index and the fingerprint depend on the whole key
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
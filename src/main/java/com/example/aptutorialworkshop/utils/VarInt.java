@@ -0,0 +1,183 @@
+package com.example.aptutorialworkshop.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * VarInt Utility
+ *
+ * Variable-length integer and string encoding for compact binary formats.
+ *
+ * Integers are written 7 bits per byte, least significant group first, with
+ * the high bit set on every byte but the last (the protobuf/LEB128 layout), so
+ * small non-negative values such as IDs, lengths and enum ordinals take one or
+ * two bytes instead of four. Strings are a varint byte length followed by
+ * their UTF-8 bytes; callers that need to store null write a flag first.
+ *
+ * Every operation exists for a ByteBuffer (off-heap session slots) and for a
+ * DataOutput/DataInput (Externalizable objects).
+ */
+public class VarInt {
+    // A 32-bit value never needs more than five 7-bit groups
+    private static final int MAX_INT_BYTES = 5;
+
+    private VarInt() {
+    }
+
+    /**
+     * Write an unsigned varint
+     *
+     * @param buffer Target buffer
+     * @param value Value, treated as unsigned
+     * @throws BufferOverflowException if the buffer has no room left
+     */
+    public static void writeInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Read an unsigned varint
+     *
+     * @param buffer Source buffer
+     * @return The value
+     * @throws IllegalArgumentException if the varint is longer than five bytes
+     * @throws BufferUnderflowException if the buffer ends inside the varint
+     */
+    public static int readInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int i = 0; i < MAX_INT_BYTES; i++) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << (7 * i);
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Get the number of bytes writeInt uses for a value
+     *
+     * @param value Value, treated as unsigned
+     * @return Encoded size, 1 to 5 bytes
+     */
+    public static int sizeOf(int value) {
+        return value == 0 ? 1 : (38 - Integer.numberOfLeadingZeros(value)) / 7;
+    }
+
+    /**
+     * Write a string as a varint length and UTF-8 bytes
+     *
+     * @param buffer Target buffer
+     * @param value Non-null string
+     * @throws BufferOverflowException if the buffer has no room left
+     */
+    public static void writeString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Read a string written by writeString
+     *
+     * @param buffer Source buffer
+     * @return The string
+     * @throws IllegalArgumentException if the length is malformed or exceeds the buffer
+     */
+    public static String readString(ByteBuffer buffer) {
+        int length = readInt(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds the data");
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    /**
+     * Write an unsigned varint to a stream
+     *
+     * @param out Target stream
+     * @param value Value, treated as unsigned
+     * @throws IOException if writing fails
+     */
+    public static void writeInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Read an unsigned varint from a stream
+     *
+     * @param in Source stream
+     * @return The value
+     * @throws StreamCorruptedException if the varint is longer than five bytes
+     * @throws IOException if reading fails or the stream ends inside the varint
+     */
+    public static int readInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int i = 0; i < MAX_INT_BYTES; i++) {
+            byte b = in.readByte();
+            value |= (b & 0x7f) << (7 * i);
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    /**
+     * Write a string to a stream as a varint length and UTF-8 bytes
+     *
+     * Unlike DataOutput.writeUTF this has no 64 KB limit and uses standard UTF-8.
+     *
+     * @param out Target stream
+     * @param value Non-null string
+     * @throws IOException if writing fails
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a string written by writeString(DataOutput, String)
+     *
+     * @param in Source stream
+     * @param maxBytes Longest accepted encoding, so corrupt input cannot request a huge buffer
+     * @return The string
+     * @throws StreamCorruptedException if the length is negative or above maxBytes
+     * @throws IOException if reading fails
+     */
+    public static String readString(DataInput in, int maxBytes) throws IOException {
+        int length = readInt(in);
+        if (length < 0 || length > maxBytes) {
+            throw new StreamCorruptedException("String length " + length + " out of range");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
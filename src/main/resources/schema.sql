@@ -13,9 +13,18 @@ CREATE TABLE IF NOT EXISTS users (
                                      email VARCHAR(100) NOT NULL UNIQUE,
                                      password VARCHAR(255) NOT NULL, -- Increased size for BCrypt hashes
                                      role ENUM('admin', 'user') NOT NULL DEFAULT 'user',
-                                     profile_picture MEDIUMBLOB
+                                     profile_picture MEDIUMBLOB, -- Legacy storage, moved out by ImageMigrationTool
+                                     profile_picture_hash CHAR(64) NULL, -- SHA-256 of the picture in the image store
+                                     INDEX idx_users_role_id (role, id) -- Admin user list filtered by role, paged by id
 );
 
+-- Existing databases created before the image store: add the hash column, then run ImageMigrationTool
+-- ALTER TABLE users ADD COLUMN profile_picture_hash CHAR(64) NULL;
+
+-- Existing databases created before the admin user list: add the role index
+-- (the email prefix filter uses the existing unique index on email)
+-- ALTER TABLE users ADD INDEX idx_users_role_id (role, id);
+
 -- Note: The passwords below will be hashed by the application when users log in for the first time
 
 -- Insert sample admin user if not exists
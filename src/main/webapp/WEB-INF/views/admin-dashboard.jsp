@@ -2,24 +2,31 @@
   Admin Dashboard Page
 
   This JSP file displays the admin dashboard with user information and admin-specific functionality.
-  It shows dynamic user information (name, email, ID) and static content for demonstration.
+  It shows dynamic user information (name, email, ID), a paged and filterable list of users
+  loaded by AdminDashboardServlet, and static content for demonstration.
 
   For session management implementation:
   - This page should be protected by a filter that checks for admin role
   - User information should be retrieved from the session
-  - Example: UserModel user = (UserModel) session.getAttribute("user");
+  - Example: UserPrincipal user = (UserPrincipal) session.getAttribute("user");
 
   For logout functionality:
   - Add a logout link that calls a LogoutServlet
   - The LogoutServlet would invalidate the session and redirect to the login page
   - Example: session.invalidate();
 --%>
-<%@ page contentType="text/html;charset=UTF-8" language="java" %>
+<%@ page contentType="text/html;charset=UTF-8" language="java" session="false" %>
+<%@ page import="com.example.aptutorialworkshop.models.UserPrincipal" %>
 <%@ page import="com.example.aptutorialworkshop.models.UserModel" %>
+<%@ page import="com.example.aptutorialworkshop.utils.HtmlUtil" %>
+<%@ page import="java.net.URLEncoder" %>
+<%@ page import="java.nio.charset.StandardCharsets" %>
+<%@ page import="java.util.List" %>
 <html>
 <head>
     <title>Admin Dashboard - Advanced Programming and Technologies</title>
-    <link rel="stylesheet" href="${pageContext.request.contextPath}/assets/css/styles.css">
+    <link rel="stylesheet" href="${assets['css/styles.css']}">
+    <script src="${assets['js/script.js']}"></script>
 </head>
 <body>
     <header>
@@ -31,74 +38,97 @@
         <div class="sidebar">
             <h2>Admin Menu</h2>
             <div class="menu-item"><a href="#">Dashboard</a></div>
-            <div class="menu-item"><a href="#">Manage Users</a></div>
+            <div class="menu-item"><a href="#users">Manage Users</a></div>
             <div class="menu-item"><a href="#">Profile Settings</a></div>
             <div class="menu-item"><a href="${pageContext.request.contextPath}/LogoutServlet">Logout</a></div>
         </div>
 
         <div class="main-content">
             <div class="card">
-                <h2>Welcome, <span><%= ((UserModel)session.getAttribute("user")).getName() %></span></h2>
+                <h2>Welcome, <span><%= ((UserPrincipal)request.getAttribute("user")).getName() %></span></h2>
                 <div class="admin-profile">
                     <div class="profile-image">
-                        <img src="data:image/jpeg;base64,${base64Image}" alt="Profile Picture" onerror="this.src='${pageContext.request.contextPath}/assets/images/default-profile.svg'" width="120" height="120">
+                        <img src="${profileImageUrl}" srcset="${profileImageSrcset}" alt="Profile Picture" onerror="this.srcset=''; this.src='${assets['images/default-profile.svg']}'" width="120" height="120">
                     </div>
                     <div class="profile-details">
-                        <p><strong>Email:</strong> <span><%= ((UserModel)session.getAttribute("user")).getEmail() %></span></p>
+                        <p><strong>Email:</strong> <span><%= ((UserPrincipal)request.getAttribute("user")).getEmail() %></span></p>
                         <p><strong>Role:</strong> Administrator</p>
-                        <p><strong>User ID:</strong> <span><%= ((UserModel)session.getAttribute("user")).getId() %></span></p>
+                        <p><strong>User ID:</strong> <span><%= ((UserPrincipal)request.getAttribute("user")).getId() %></span></p>
                         <p><strong>Module Leader:</strong> Binay Koirala | <strong>Module Tutor:</strong> Sujan Subedi</p>
                     </div>
                 </div>
             </div>
 
-            <div class="card">
+            <div class="card" id="users">
                 <h2>User Management</h2>
+                <%
+                    // Filters are carried over to the paging and export links
+                    String roleFilter = (String) request.getAttribute("roleFilter");
+                    String emailFilter = (String) request.getAttribute("emailFilter");
+                    String filterQuery = "role=" + URLEncoder.encode(roleFilter, StandardCharsets.UTF_8)
+                            + "&email=" + URLEncoder.encode(emailFilter, StandardCharsets.UTF_8);
+                %>
+                <form action="${pageContext.request.contextPath}/AdminDashboardServlet#users" method="get">
+                    <input type="text" name="email" value="<%= HtmlUtil.escape(emailFilter) %>" placeholder="Email starts with">
+                    <select name="role">
+                        <option value="">All roles</option>
+                        <option value="user" <%= "user".equals(roleFilter) ? "selected" : "" %>>user</option>
+                        <option value="admin" <%= "admin".equals(roleFilter) ? "selected" : "" %>>admin</option>
+                    </select>
+                    <button type="submit" class="btn btn-small">Filter</button>
+                </form>
                 <table>
                     <tr>
                         <th>ID</th>
                         <th>Name</th>
                         <th>Email</th>
                         <th>Role</th>
-                        <th>Actions</th>
-                    </tr>
-                    <tr>
-                        <td>1</td>
-                        <td>John Doe</td>
-                        <td>john@example.com</td>
-                        <td>user</td>
-                        <td>
-                            <a href="#" class="btn-small">Edit</a>
-                            <a href="#" class="btn-small btn-danger">Delete</a>
-                        </td>
                     </tr>
+                    <% for (UserModel listed : (List<UserModel>) request.getAttribute("users")) { %>
                     <tr>
-                        <td>2</td>
-                        <td>Jane Smith</td>
-                        <td>jane@example.com</td>
-                        <td>user</td>
-                        <td>
-                            <a href="#" class="btn-small">Edit</a>
-                            <a href="#" class="btn-small btn-danger">Delete</a>
-                        </td>
-                    </tr>
-                    <tr>
-                        <td>3</td>
-                        <td>Admin User</td>
-                        <td>admin@example.com</td>
-                        <td>admin</td>
-                        <td>
-                            <a href="#" class="btn-small">Edit</a>
-                            <a href="#" class="btn-small btn-danger">Delete</a>
-                        </td>
+                        <td><%= listed.getId() %></td>
+                        <td><%= HtmlUtil.escape(listed.getName()) %></td>
+                        <td><%= HtmlUtil.escape(listed.getEmail()) %></td>
+                        <td><%= listed.getRole() %></td>
                     </tr>
+                    <% } %>
                 </table>
+                <% if (request.getParameter("after") != null) { %>
+                <a href="${pageContext.request.contextPath}/AdminDashboardServlet?<%= HtmlUtil.escape(filterQuery) %>#users" class="btn btn-small">First page</a>
+                <% } %>
+                <% if (request.getAttribute("nextAfterId") != null) { %>
+                <a href="${pageContext.request.contextPath}/AdminDashboardServlet?<%= HtmlUtil.escape(filterQuery) %>&amp;after=${nextAfterId}#users" class="btn btn-small">Next page</a>
+                <% } %>
+                <a href="${pageContext.request.contextPath}/admin/export?<%= HtmlUtil.escape(filterQuery) %>" class="btn btn-small">Export as CSV</a>
+            </div>
+
+            <div class="card">
+                <h2>Find a User</h2>
+                <input type="search" id="userSearch" placeholder="Part of an email or name" autocomplete="off">
+                <ul id="userSearchResults"></ul>
+                <script>
+                    initUserSearch('userSearch', 'userSearchResults', '${pageContext.request.contextPath}/admin/search');
+                </script>
+            </div>
+
+            <div class="card">
+                <h2>Import Users</h2>
+                <p>Upload a CSV file (columns: name, email, password, role) or a JSON-lines file with the same fields.
+                    The import runs in the background; its progress link is shown below the form.</p>
+                <form id="userImportForm" action="${pageContext.request.contextPath}/admin/import" method="post" enctype="multipart/form-data">
+                    <input type="file" name="file" accept=".csv,.jsonl,.ndjson,text/csv" required>
+                    <button type="submit" class="btn">Import</button>
+                </form>
+                <pre id="userImportResult"></pre>
+                <script>
+                    initUserImport('userImportForm', 'userImportResult');
+                </script>
             </div>
 
             <div class="card">
                 <h2>Quick Actions</h2>
                 <a href="#" class="btn">Add New User</a>
-                <a href="#" class="btn">Export User Data</a>
+                <a href="${pageContext.request.contextPath}/admin/export" class="btn">Export User Data</a>
                 <a href="#" class="btn">System Settings</a>
             </div>
         </div>
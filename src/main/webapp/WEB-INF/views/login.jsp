@@ -13,13 +13,13 @@
   - The servlet will create a cookie if this is checked
   - The cookie can be used for auto-login on subsequent visits
 --%>
-<%@ page contentType="text/html;charset=UTF-8" language="java" %>
+<%@ page contentType="text/html;charset=UTF-8" language="java" session="false" %>
 <html>
 <head>
     <title>Login - Advanced Programming and Technologies</title>
-    <link rel="stylesheet" href="${pageContext.request.contextPath}/assets/css/styles.css">
+    <link rel="stylesheet" href="${assets['css/styles.css']}">
     <link rel="stylesheet" href="https://cdnjs.cloudflare.com/ajax/libs/font-awesome/6.0.0/css/all.min.css">
-    <script src="${pageContext.request.contextPath}/assets/js/script.js"></script>
+    <script src="${assets['js/script.js']}"></script>
     <meta name="viewport" content="width=device-width, initial-scale=1.0">
 </head>
 <body>
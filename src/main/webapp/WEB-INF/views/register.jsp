@@ -12,13 +12,13 @@
   - Consider adding CSRF protection with a token
   - Add more client-side validation for password strength, etc.
 --%>
-<%@ page contentType="text/html;charset=UTF-8" language="java" %>
+<%@ page contentType="text/html;charset=UTF-8" language="java" session="false" %>
 <html>
 <head>
     <title>Register - Advanced Programming and Technologies</title>
-    <link rel="stylesheet" href="${pageContext.request.contextPath}/assets/css/styles.css">
+    <link rel="stylesheet" href="${assets['css/styles.css']}">
     <link rel="stylesheet" href="https://cdnjs.cloudflare.com/ajax/libs/font-awesome/6.0.0/css/all.min.css">
-    <script src="${pageContext.request.contextPath}/assets/js/script.js"></script>
+    <script src="${assets['js/script.js']}"></script>
     <meta name="viewport" content="width=device-width, initial-scale=1.0">
 </head>
 <body>
@@ -82,7 +82,7 @@
                     <label for="image">Profile Picture</label>
                     <input type="file" id="image" name="image" accept="image/*" onchange="previewImage(event)">
                     <div class="image-preview-container">
-                        <img id="imagePreview" class="image-preview" src="${pageContext.request.contextPath}/assets/images/default-profile.svg" alt="Image Preview" style="display: block;" />
+                        <img id="imagePreview" class="image-preview" src="${assets['images/default-profile.svg']}" alt="Image Preview" style="display: block;" />
                         <p class="preview-text">Upload an image to change the default profile picture</p>
                     </div>
                 </div>
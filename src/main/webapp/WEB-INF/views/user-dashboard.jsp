@@ -7,19 +7,19 @@
   For session management implementation:
   - This page should be protected by a filter that checks for authentication
   - User information should be retrieved from the session
-  - Example: UserModel user = (UserModel) session.getAttribute("user");
+  - Example: UserPrincipal user = (UserPrincipal) session.getAttribute("user");
 
   For logout functionality:
   - Add a logout link that calls a LogoutServlet
   - The LogoutServlet would invalidate the session and redirect to the login page
   - Example: session.invalidate();
 --%>
-<%@ page contentType="text/html;charset=UTF-8" language="java" %>
-<%@ page import="com.example.aptutorialworkshop.models.UserModel" %>
+<%@ page contentType="text/html;charset=UTF-8" language="java" session="false" %>
+<%@ page import="com.example.aptutorialworkshop.models.UserPrincipal" %>
 <html>
 <head>
     <title>Student Dashboard - Advanced Programming and Technologies</title>
-    <link rel="stylesheet" href="${pageContext.request.contextPath}/assets/css/styles.css">
+    <link rel="stylesheet" href="${assets['css/styles.css']}">
 </head>
 <body>
     <header>
@@ -38,15 +38,15 @@
 
         <div class="main-content">
             <div class="card">
-                <h2>Welcome, <span><%= ((UserModel)request.getAttribute("user")).getName() %></span></h2>
+                <h2>Welcome, <span><%= ((UserPrincipal)request.getAttribute("user")).getName() %></span></h2>
                 <div class="user-profile">
                     <div class="profile-image">
-                        <img src="data:image/jpeg;base64,${base64Image}" alt="Profile Picture" onerror="this.src='${pageContext.request.contextPath}/assets/images/default-profile.svg'" width="120" height="120">
+                        <img src="${profileImageUrl}" srcset="${profileImageSrcset}" alt="Profile Picture" onerror="this.srcset=''; this.src='${assets['images/default-profile.svg']}'" width="120" height="120">
                     </div>
                     <div class="profile-details">
-                        <p><strong>Email:</strong> <span><%= ((UserModel)request.getAttribute("user")).getEmail() %></span></p>
+                        <p><strong>Email:</strong> <span><%= ((UserPrincipal)request.getAttribute("user")).getEmail() %></span></p>
                         <p><strong>Role:</strong> Student</p>
-                        <p><strong>User ID:</strong> <span><%= ((UserModel)request.getAttribute("user")).getId() %></span></p>
+                        <p><strong>User ID:</strong> <span><%= ((UserPrincipal)request.getAttribute("user")).getId() %></span></p>
                         <p><strong>Module Leader:</strong> Binay Koirala | <strong>Module Tutor:</strong> Sujan Subedi</p>
                     </div>
                 </div>
@@ -61,6 +61,64 @@ function validateForm(formId) {
     return isValid;
 }
 
+// Typeahead user search for the admin dashboard
+function initUserSearch(inputId, resultsId, searchUrl) {
+    const input = document.getElementById(inputId);
+    const results = document.getElementById(resultsId);
+    if (!input || !results) return;
+
+    let timer = null;
+    let latestQuery = '';
+    input.addEventListener('input', function() {
+        clearTimeout(timer);
+        // Wait for a pause in typing before asking the server
+        timer = setTimeout(function() {
+            const query = input.value.trim();
+            latestQuery = query;
+            if (!query) {
+                results.innerHTML = '';
+                return;
+            }
+            fetch(searchUrl + '?q=' + encodeURIComponent(query))
+                .then(response => response.json())
+                .then(data => {
+                    // Ignore answers to queries the user has already typed past
+                    if (query !== latestQuery) return;
+                    results.innerHTML = '';
+                    (data.results || []).forEach(user => {
+                        const item = document.createElement('li');
+                        item.textContent = user.id + ' - ' + user.name + ' <' + user.email + '> (' + user.role + ')';
+                        results.appendChild(item);
+                    });
+                });
+        }, 150);
+    });
+}
+
+// Bulk user import for the admin dashboard; the server only accepts it with the X-Requested-With header
+function initUserImport(formId, resultId) {
+    const form = document.getElementById(formId);
+    const result = document.getElementById(resultId);
+    if (!form || !result) return;
+
+    form.addEventListener('submit', function(event) {
+        event.preventDefault();
+        result.textContent = 'Uploading...';
+        fetch(form.action, {
+            method: 'POST',
+            headers: { 'X-Requested-With': 'XMLHttpRequest' },
+            body: new FormData(form)
+        })
+            .then(response => response.text().then(text => {
+                const location = response.headers.get('Location');
+                result.textContent = (location ? 'Progress: ' + location + '\n' : '') + text;
+            }))
+            .catch(error => {
+                result.textContent = 'Upload failed: ' + error;
+            });
+    });
+}
+
 // Initialize tooltips and other UI elements
 document.addEventListener('DOMContentLoaded', function() {
     // Add event listeners for form validation
@@ -0,0 +1,66 @@
+package com.example.aptutorialworkshop.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserImportServletTest {
+
+    @Test
+    void dashboardUploadIsAccepted() {
+        assertTrue(UserImportServlet.isSameOriginRequest(request(
+                "X-Requested-With", "XMLHttpRequest", "Origin", "https://app.example.com")));
+    }
+
+    @Test
+    void scriptWithoutBrowserHeadersIsAccepted() {
+        assertTrue(UserImportServlet.isSameOriginRequest(request("X-Requested-With", "curl")));
+    }
+
+    @Test
+    void plainFormPostIsRejected() {
+        // A cross-site form cannot add headers, so even a same-origin one without the header is refused
+        assertFalse(UserImportServlet.isSameOriginRequest(request("Origin", "https://app.example.com")));
+        assertFalse(UserImportServlet.isSameOriginRequest(request()));
+    }
+
+    @Test
+    void foreignOriginIsRejected() {
+        assertFalse(UserImportServlet.isSameOriginRequest(request(
+                "X-Requested-With", "XMLHttpRequest", "Origin", "https://evil.example.net")));
+        assertFalse(UserImportServlet.isSameOriginRequest(request(
+                "X-Requested-With", "XMLHttpRequest", "Origin", "null")));
+    }
+
+    @Test
+    void refererIsCheckedWhenOriginIsMissing() {
+        assertTrue(UserImportServlet.isSameOriginRequest(request(
+                "X-Requested-With", "XMLHttpRequest", "Referer", "https://app.example.com/app/AdminDashboardServlet")));
+        assertFalse(UserImportServlet.isSameOriginRequest(request(
+                "X-Requested-With", "XMLHttpRequest", "Referer", "https://app.example.com.evil.net/")));
+    }
+
+    /**
+     * A request to app.example.com with the given header name/value pairs
+     */
+    private static HttpServletRequest request(String... headers) {
+        Map<String, String> values = new HashMap<>();
+        values.put("Host", "app.example.com");
+        for (int i = 0; i < headers.length; i += 2) {
+            values.put(headers[i], headers[i + 1]);
+        }
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getHeader")) {
+                        return values.get((String) args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.aptutorialworkshop.dao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void sizedForTheTargetRate() {
+        EmailBloomFilter filter = new EmailBloomFilter(true, 100_000, 0.01);
+
+        // About 9.6 bits and 7 hashes per expected email at 1%
+        assertEquals(7, filter.getHashCount());
+        assertTrue(filter.getMemoryBytes() >= 119_000 && filter.getMemoryBytes() <= 121_000,
+                "memory " + filter.getMemoryBytes());
+    }
+
+    @Test
+    void estimatedRateStaysNearTheTargetAtCapacity() {
+        EmailBloomFilter filter = new EmailBloomFilter(true, 10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+
+        assertEquals(10_000, filter.getAdditionCount());
+        double rate = filter.getEstimatedFalsePositiveRate();
+        assertTrue(rate > 0.005 && rate < 0.02, "estimated rate " + rate);
+    }
+
+    @Test
+    void unloadedFilterNeverRulesAnEmailOut() {
+        EmailBloomFilter filter = new EmailBloomFilter(true, 1000, 0.01);
+        filter.add("known@example.com");
+
+        assertFalse(filter.isLoaded());
+        assertTrue(filter.mightContain("unknown@example.com"));
+        assertEquals(0, filter.getNegativeCount());
+
+        // A "maybe" before loading is no false positive of the filter
+        filter.recordFalsePositive();
+        assertEquals(0, filter.getFalsePositiveCount());
+    }
+
+    @Test
+    void missedEmailsAreCountedAndAdded() {
+        EmailBloomFilter filter = new EmailBloomFilter(true, 1000, 0.01);
+        filter.addMissed("late@example.com");
+
+        assertEquals(1, filter.getMissedCount());
+        assertEquals(1, filter.getAdditionCount());
+    }
+
+    @Test
+    void disabledFilterStaysEmpty() {
+        EmailBloomFilter filter = new EmailBloomFilter(false, 1_000_000, 0.01);
+        filter.add("known@example.com");
+
+        assertEquals(8, filter.getMemoryBytes());
+        assertEquals(0, filter.getAdditionCount());
+        assertTrue(filter.mightContain("anyone@example.com"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.aptutorialworkshop.dao;
+
+import com.example.aptutorialworkshop.models.UserModel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserCacheTest {
+
+    @Test
+    void emailLookupIgnoresCaseAndAccentsLikeMySql() {
+        UserCache cache = new UserCache(10, 60);
+        cache.put(user(1, "José@Example.com"));
+
+        assertEquals(1, cache.getByEmail("jose@example.com").getId());
+        assertEquals(1, cache.getByEmail(" JOSÉ@example.COM ").getId());
+        assertNull(cache.getByEmail("josie@example.com"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        UserCache cache = new UserCache(2, 60);
+        cache.put(user(1, "a@example.com"));
+        cache.put(user(2, "b@example.com"));
+        // Reading 1 makes 2 the least recently used
+        assertNotNull(cache.getById(1));
+        cache.put(user(3, "c@example.com"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.getById(2));
+        assertNull(cache.getByEmail("b@example.com"));
+        assertNotNull(cache.getById(1));
+        assertNotNull(cache.getByEmail("c@example.com"));
+    }
+
+    @Test
+    void expiredEntryIsAMiss() throws InterruptedException {
+        UserCache cache = new UserCache(10, 0);
+        cache.put(user(1, "a@example.com"));
+        Thread.sleep(2);
+
+        assertNull(cache.getById(1));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0, cache.size());
+        assertNull(cache.getByEmail("a@example.com"));
+    }
+
+    @Test
+    void invalidationRemovesBothKeys() {
+        UserCache cache = new UserCache(10, 60);
+        cache.put(user(1, "a@example.com"));
+        cache.put(user(2, "b@example.com"));
+
+        cache.invalidate(1);
+        cache.invalidateEmail("B@example.com");
+
+        assertNull(cache.getByEmail("a@example.com"));
+        assertNull(cache.getById(2));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void replacedEmailNoLongerFindsTheUser() {
+        UserCache cache = new UserCache(10, 60);
+        cache.put(user(1, "old@example.com"));
+        cache.put(user(1, "new@example.com"));
+
+        assertNull(cache.getByEmail("old@example.com"));
+        assertEquals(1, cache.getByEmail("new@example.com").getId());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void callersGetCopiesAndADisabledCacheStaysEmpty() {
+        UserCache cache = new UserCache(10, 60);
+        UserModel original = user(1, "a@example.com");
+        cache.put(original);
+        original.setName("Changed");
+
+        UserModel first = cache.getById(1);
+        first.setName("Changed too");
+        assertEquals("User 1", cache.getById(1).getName());
+        assertNotSame(first, cache.getById(1));
+
+        UserCache disabled = new UserCache(0, 60);
+        disabled.put(user(1, "a@example.com"));
+        assertEquals(0, disabled.size());
+    }
+
+    private static UserModel user(int id, String email) {
+        UserModel user = new UserModel();
+        user.setId(id);
+        user.setName("User " + id);
+        user.setEmail(email);
+        user.setRole(UserModel.Role.user);
+        return user;
+    }
+}
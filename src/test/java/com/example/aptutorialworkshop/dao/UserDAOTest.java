@@ -0,0 +1,23 @@
+package com.example.aptutorialworkshop.dao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserDAOTest {
+
+    @Test
+    void normalizeEmailIgnoresCaseAndSurroundingSpace() {
+        assertEquals("student@example.com", UserDAO.normalizeEmail("  Student@Example.COM "));
+        assertNull(UserDAO.normalizeEmail(null));
+    }
+
+    @Test
+    void normalizeEmailIgnoresAccentsLikeMySql() {
+        assertEquals("jose@example.com", UserDAO.normalizeEmail("José@example.com"));
+        // Decomposed input: e followed by a combining acute accent
+        assertEquals("jose@example.com", UserDAO.normalizeEmail("José@example.com"));
+        assertEquals("zoe@example.com", UserDAO.normalizeEmail("ZoË@EXAMPLE.com"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.aptutorialworkshop.dao;
+
+import com.example.aptutorialworkshop.models.UserModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserSearchIndexTest {
+
+    @Test
+    void prefixMatchesComeBeforeMatchesInside() {
+        UserSearchIndex index = new UserSearchIndex(true);
+        index.add(1, user("Carol Smith", "carol@example.com"));
+        index.add(2, user("Ada Lovelace", "ada@example.com"));
+        index.add(3, user("Bob Builder", "bob.lovell@example.com"));
+
+        // Ada's last name starts with the query; Bob only contains it in his email
+        assertEquals(List.of(2, 3), ids(index.search("LOVEL", 10)));
+        assertEquals(List.of(2), ids(index.search("LOVEL", 1)));
+    }
+
+    @Test
+    void shortQueriesOnlyMatchTheStart() {
+        UserSearchIndex index = new UserSearchIndex(true);
+        index.add(1, user("Ada Lovelace", "ada@example.com"));
+        index.add(2, user("Grace Hopper", "grace@example.com"));
+
+        assertEquals(List.of(2), ids(index.search("gr", 10)));
+        assertEquals(List.of(1), ids(index.search("l", 10)));
+        // "ce" occurs inside both names but starts neither
+        assertTrue(index.search("ce", 10).isEmpty());
+    }
+
+    @Test
+    void everyTrigramPresentIsNotEnough() {
+        UserSearchIndex index = new UserSearchIndex(true);
+        // Contains the trigrams "aba" and "bab" of the query, but not "abab" itself
+        index.add(1, user("Xbabax", "x@example.com"));
+
+        assertTrue(index.search("abab", 10).isEmpty());
+        assertEquals(List.of(1), ids(index.search("baba", 10)));
+    }
+
+    @Test
+    void disabledIndexFindsNothing() {
+        UserSearchIndex index = new UserSearchIndex(false);
+        index.add(1, user("Ada Lovelace", "ada@example.com"));
+
+        assertEquals(0, index.size());
+        assertTrue(index.search("ada", 10).isEmpty());
+    }
+
+    private static UserModel user(String name, String email) {
+        UserModel user = new UserModel();
+        user.setName(name);
+        user.setEmail(email);
+        user.setRole(UserModel.Role.user);
+        return user;
+    }
+
+    private static List<Integer> ids(List<UserModel> users) {
+        return users.stream().map(UserModel::getId).toList();
+    }
+}
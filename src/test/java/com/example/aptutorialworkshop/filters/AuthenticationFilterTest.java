@@ -0,0 +1,101 @@
+package com.example.aptutorialworkshop.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthenticationFilterTest {
+    private final AuthenticationFilter filter = new AuthenticationFilter();
+
+    @Test
+    void scraperWithTheMetricsTokenIsLetIn() throws Exception {
+        Exchange exchange = new Exchange("/metrics", "Bearer test-metrics-token");
+        filter.doFilter(exchange.request(), exchange.response(), exchange.chain());
+
+        assertTrue(exchange.passed);
+        assertEquals(0, exchange.status);
+    }
+
+    @Test
+    void wrongMetricsTokenIsRejected() throws Exception {
+        Exchange exchange = new Exchange("/metrics", "Bearer guessed");
+        filter.doFilter(exchange.request(), exchange.response(), exchange.chain());
+
+        assertFalse(exchange.passed);
+        assertEquals(HttpServletResponse.SC_UNAUTHORIZED, exchange.status);
+    }
+
+    @Test
+    void anonymousMetricsRequestIsSentToTheLogin() throws Exception {
+        Exchange exchange = new Exchange("/metrics", null);
+        filter.doFilter(exchange.request(), exchange.response(), exchange.chain());
+
+        assertFalse(exchange.passed);
+        assertEquals("/app/LoginServlet", exchange.redirect);
+    }
+
+    @Test
+    void publicPathsPassWithoutASession() throws Exception {
+        Exchange exchange = new Exchange("/LoginServlet", null);
+        filter.doFilter(exchange.request(), exchange.response(), exchange.chain());
+
+        assertTrue(exchange.passed);
+    }
+
+    /**
+     * A request to the filter with just enough of the servlet API behind it
+     */
+    private static class Exchange {
+        private final String servletPath;
+        private final String authorization;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private boolean passed;
+        private int status;
+        private String redirect;
+
+        private Exchange(String servletPath, String authorization) {
+            this.servletPath = servletPath;
+            this.authorization = authorization;
+        }
+
+        private HttpServletRequest request() {
+            return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "getServletPath" -> servletPath;
+                        case "getHeader" -> "Authorization".equals(args[0]) ? authorization : null;
+                        case "getRemoteAddr" -> "192.0.2.1";
+                        case "getContextPath" -> "/app";
+                        case "getAttribute" -> attributes.get((String) args[0]);
+                        case "setAttribute" -> attributes.put((String) args[0], args[1]);
+                        case "getCookies" -> null;
+                        default -> null;
+                    });
+        }
+
+        private HttpServletResponse response() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "sendError" -> status = (Integer) args[0];
+                            case "sendRedirect" -> redirect = (String) args[0];
+                            default -> {
+                            }
+                        }
+                        return null;
+                    });
+        }
+
+        private FilterChain chain() {
+            return (request, response) -> passed = true;
+        }
+    }
+}
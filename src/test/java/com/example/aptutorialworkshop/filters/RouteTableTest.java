@@ -0,0 +1,68 @@
+package com.example.aptutorialworkshop.filters;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RouteTableTest {
+
+    @Test
+    void exactRuleWinsOverPrefix() {
+        RouteTable routes = new RouteTable(RouteTable.Access.USER)
+                .prefix("/admin/", RouteTable.Access.ADMIN)
+                .exact("/admin/health", RouteTable.Access.PUBLIC);
+
+        assertEquals(RouteTable.Access.PUBLIC, routes.match("/admin", "/health"));
+        assertEquals(RouteTable.Access.ADMIN, routes.match("/admin", "/healthz"));
+        assertEquals(RouteTable.Access.ADMIN, routes.match("/admin", "/"));
+    }
+
+    @Test
+    void longestPrefixWins() {
+        RouteTable routes = new RouteTable(RouteTable.Access.USER)
+                .prefix("/a/", RouteTable.Access.PUBLIC)
+                .prefix("/a/b/", RouteTable.Access.ADMIN);
+
+        assertEquals(RouteTable.Access.PUBLIC, routes.match("/a/x", null));
+        assertEquals(RouteTable.Access.ADMIN, routes.match("/a/b/c", null));
+        assertEquals(RouteTable.Access.PUBLIC, routes.match("/a/bc", null));
+    }
+
+    @Test
+    void unmatchedPathsGetTheDefault() {
+        RouteTable routes = new RouteTable(RouteTable.Access.USER)
+                .exact("/LoginServlet", RouteTable.Access.PUBLIC);
+
+        assertEquals(RouteTable.Access.USER, routes.match("/LoginServletX", null));
+        assertEquals(RouteTable.Access.USER, routes.match("/Login", null));
+        assertEquals(RouteTable.Access.USER, routes.match("/NewServlet", null));
+        assertEquals(RouteTable.Access.USER, routes.match("", null));
+    }
+
+    @Test
+    void servletPathAndPathInfoAreMatchedAsOnePath() {
+        RouteTable routes = new RouteTable(RouteTable.Access.USER)
+                .exact("/admin/import", RouteTable.Access.ADMIN);
+
+        assertEquals(RouteTable.Access.ADMIN, routes.match("/admin", "/import"));
+        assertEquals(RouteTable.Access.ADMIN, routes.match("/admin/import", null));
+    }
+
+    @Test
+    void applicationRoutes() {
+        RouteTable routes = AuthenticationFilter.ROUTES;
+
+        assertEquals(RouteTable.Access.PUBLIC, routes.match("/LoginServlet", null));
+        assertEquals(RouteTable.Access.PUBLIC, routes.match("/RegisterServlet", null));
+        assertEquals(RouteTable.Access.PUBLIC, routes.match("/assets", "/css/styles.css"));
+        assertEquals(RouteTable.Access.USER, routes.match("/UserDashboardServlet", null));
+        assertEquals(RouteTable.Access.USER, routes.match("/ImageServlet", null));
+        assertEquals(RouteTable.Access.ADMIN, routes.match("/AdminDashboardServlet", null));
+        assertEquals(RouteTable.Access.ADMIN, routes.match("/admin", "/export"));
+        assertEquals(RouteTable.Access.ADMIN, routes.match("/admin", "/import"));
+        // Pool, login and password cost figures are not public
+        assertEquals(RouteTable.Access.METRICS, routes.match("/metrics", null));
+        // Servlets without a rule need a login
+        assertEquals(RouteTable.Access.USER, routes.match("/SomeNewServlet", null));
+    }
+}
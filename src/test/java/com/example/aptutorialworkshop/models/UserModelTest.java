@@ -0,0 +1,132 @@
+package com.example.aptutorialworkshop.models;
+
+import com.example.aptutorialworkshop.utils.VarInt;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserModelTest {
+    private static final String IMAGE_HASH = "0123456789abcdef".repeat(4);
+
+    @Test
+    void fullProfileSurvivesARoundTrip() throws Exception {
+        UserModel user = new UserModel();
+        user.setId(300_000);
+        user.setName("Zoë Ångström");
+        user.setEmail("zoe@example.com");
+        user.setStoredPassword("$2a$10$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234");
+        user.setRole(UserModel.Role.admin);
+        user.setImageHash(IMAGE_HASH);
+
+        UserModel copy = (UserModel) readAll(serialize(user))[0];
+
+        assertEquals(300_000, copy.getId());
+        assertEquals("Zoë Ångström", copy.getName());
+        assertEquals("zoe@example.com", copy.getEmail());
+        assertEquals(user.getPassword(), copy.getPassword());
+        assertEquals(UserModel.Role.admin, copy.getRole());
+        assertEquals(IMAGE_HASH, copy.getImageHash());
+    }
+
+    @Test
+    void missingFieldsStayNull() throws Exception {
+        UserModel user = new UserModel();
+        user.setId(7);
+        user.setEmail("nobody@example.com");
+        // Picture bytes without a hash are left out rather than hashed
+        user.setImage(new byte[] {1, 2, 3});
+
+        UserModel copy = (UserModel) readAll(serialize(user))[0];
+
+        assertEquals(7, copy.getId());
+        assertEquals("nobody@example.com", copy.getEmail());
+        assertNull(copy.getName());
+        assertNull(copy.getPassword());
+        assertNull(copy.getRole());
+        assertNull(copy.getImageHash());
+        assertNull(copy.getImage());
+    }
+
+    @Test
+    void unknownFormatVersionIsRejected() throws Exception {
+        FutureUserModel future = new FutureUserModel();
+        future.version = 2;
+
+        assertThrows(InvalidObjectException.class, () -> readAll(serialize(future)));
+    }
+
+    @Test
+    void fieldsAddedByANewerWriterAreSkipped() throws Exception {
+        byte[] bytes;
+        try (ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+             ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(new FutureUserModel());
+            out.writeObject("next");
+            out.flush();
+            bytes = buffer.toByteArray();
+        }
+
+        Object[] objects = readAll(bytes, 2);
+        UserModel user = (UserModel) objects[0];
+        assertEquals(42, user.getId());
+        assertEquals("Student", user.getName());
+        assertEquals(UserModel.Role.user, user.getRole());
+        assertNull(user.getEmail());
+        assertEquals("next", objects[1]);
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        try (ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+             ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(object);
+            out.flush();
+            return buffer.toByteArray();
+        }
+    }
+
+    private static Object[] readAll(byte[] bytes) throws IOException, ClassNotFoundException {
+        return readAll(bytes, 1);
+    }
+
+    private static Object[] readAll(byte[] bytes, int count) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            Object[] objects = new Object[count];
+            for (int i = 0; i < count; i++) {
+                objects[i] = in.readObject();
+            }
+            return objects;
+        }
+    }
+
+    /**
+     * Writes the layout a later version would: an extra flag bit and a field after the known ones
+     */
+    public static class FutureUserModel extends UserModel {
+        private int version = 1;
+
+        public FutureUserModel() {
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeByte(version);
+            VarInt.writeInt(out, 42);
+            // HAS_NAME, HAS_ROLE and a flag this reader does not know
+            VarInt.writeInt(out, 1 | 1 << 3 | 1 << 5);
+            out.writeByte(UserModel.Role.user.ordinal());
+            VarInt.writeString(out, "Student");
+            VarInt.writeString(out, "a field added later");
+            out.writeLong(Long.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.aptutorialworkshop.services;
+
+import com.example.aptutorialworkshop.models.UserModel;
+import com.example.aptutorialworkshop.models.UserPrincipal;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapSessionStoreTest {
+    // 100 characters of four UTF-8 bytes each, the most the VARCHAR(100) utf8mb4 columns hold
+    private static final String LONGEST = "😀".repeat(100);
+
+    @Test
+    void longestPrincipalFitsASmallConfiguredSlot() {
+        OffHeapSessionStore store = new OffHeapSessionStore(1, 768, null, 60, "SESSION_ID");
+        try {
+            UserPrincipal principal = new UserPrincipal(Integer.MAX_VALUE, LONGEST, LONGEST, UserModel.Role.admin,
+                    "ab".repeat(32));
+            Browser browser = new Browser();
+            store.create(browser.request(), browser.response(), principal, 60);
+
+            UserPrincipal resolved = store.resolve(browser.request());
+            assertNotNull(resolved);
+            assertEquals(LONGEST, resolved.getName());
+            assertEquals(LONGEST, resolved.getEmail());
+            assertEquals("ab".repeat(32), resolved.getImageHash());
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void fullStoreRejectsTheNextSession() {
+        OffHeapSessionStore store = new OffHeapSessionStore(1, 1056, null, 60, "SESSION_ID");
+        try {
+            UserPrincipal principal = new UserPrincipal(1, "Student", "student@example.com", UserModel.Role.user, null);
+            Browser first = new Browser();
+            store.create(first.request(), first.response(), principal, 60);
+
+            Browser second = new Browser();
+            assertThrows(SessionRejectedException.class,
+                    () -> store.create(second.request(), second.response(), principal, 60));
+            assertEquals(1, store.getRejectedCount());
+            assertEquals(1, store.getSessionCount());
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void sessionSurvivesReopeningTheFile(@TempDir Path dir) {
+        String file = dir.resolve("sessions.bin").toString();
+        UserPrincipal principal = new UserPrincipal(7, "Student", "student@example.com", UserModel.Role.user, null);
+        Browser browser = new Browser();
+
+        OffHeapSessionStore store = new OffHeapSessionStore(4, 1056, file, 60, "SESSION_ID");
+        store.create(browser.request(), browser.response(), principal, 60);
+        store.shutdown();
+
+        OffHeapSessionStore reopened = new OffHeapSessionStore(4, 1056, file, 60, "SESSION_ID");
+        try {
+            assertEquals(1, reopened.getSessionCount());
+            UserPrincipal resolved = reopened.resolve(browser.request());
+            assertNotNull(resolved);
+            assertEquals(7, resolved.getId());
+            assertEquals("student@example.com", resolved.getEmail());
+        } finally {
+            reopened.shutdown();
+        }
+    }
+
+    @Test
+    void fileWithAnotherLayoutIsDiscarded(@TempDir Path dir) throws Exception {
+        String file = dir.resolve("sessions.bin").toString();
+        UserPrincipal principal = new UserPrincipal(7, "Student", "student@example.com", UserModel.Role.user, null);
+        Browser browser = new Browser();
+
+        OffHeapSessionStore store = new OffHeapSessionStore(4, 1056, file, 60, "SESSION_ID");
+        store.create(browser.request(), browser.response(), principal, 60);
+        store.shutdown();
+
+        // A different slot size changes the layout, so the old sessions cannot be read
+        OffHeapSessionStore resized = new OffHeapSessionStore(4, 2048, file, 60, "SESSION_ID");
+        try {
+            assertEquals(0, resized.getSessionCount());
+            assertNull(resized.resolve(browser.request()));
+        } finally {
+            resized.shutdown();
+        }
+
+        // A file that is not a session file at all is replaced too
+        Files.write(Path.of(file), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+        OffHeapSessionStore overwritten = new OffHeapSessionStore(4, 1056, file, 60, "SESSION_ID");
+        try {
+            assertEquals(0, overwritten.getSessionCount());
+            Browser next = new Browser();
+            overwritten.create(next.request(), next.response(), principal, 60);
+            assertNotNull(overwritten.resolve(next.request()));
+        } finally {
+            overwritten.shutdown();
+        }
+    }
+
+    @Test
+    void idleSessionExpiresOnAccess() throws Exception {
+        OffHeapSessionStore store = new OffHeapSessionStore(1, 1056, null, 60, "SESSION_ID");
+        try {
+            UserPrincipal principal = new UserPrincipal(1, "Student", "student@example.com", UserModel.Role.user, null);
+            Browser browser = new Browser();
+            store.create(browser.request(), browser.response(), principal, 0);
+            Thread.sleep(20);
+
+            assertNull(store.resolve(browser.request()));
+            assertEquals(1, store.getExpiredCount());
+            assertEquals(0, store.getSessionCount());
+
+            // The freed slot takes a new session although the capacity is one
+            Browser next = new Browser();
+            store.create(next.request(), next.response(), principal, 60);
+            assertNotNull(store.resolve(next.request()));
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void sweeperFreesIdleSessions() throws Exception {
+        OffHeapSessionStore store = new OffHeapSessionStore(1, 1056, null, 1, "SESSION_ID");
+        try {
+            UserPrincipal principal = new UserPrincipal(1, "Student", "student@example.com", UserModel.Role.user, null);
+            Browser browser = new Browser();
+            store.create(browser.request(), browser.response(), principal, 0);
+
+            // The first sweep runs one interval after the store is created
+            long deadline = System.currentTimeMillis() + 5000;
+            while (store.getSessionCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, store.getSessionCount());
+            assertTrue(store.getExpiredCount() >= 1);
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    /**
+     * A client that keeps the cookies it is sent
+     */
+    private static class Browser {
+        private final List<Cookie> cookies = new ArrayList<>();
+
+        private HttpServletRequest request() {
+            return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "getCookies" -> cookies.isEmpty() ? null : cookies.toArray(new Cookie[0]);
+                        case "getContextPath" -> "/app";
+                        case "isSecure" -> false;
+                        default -> null;
+                    });
+        }
+
+        private HttpServletResponse response() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("addCookie")) {
+                            cookies.add((Cookie) args[0]);
+                        }
+                        return null;
+                    });
+        }
+    }
+}
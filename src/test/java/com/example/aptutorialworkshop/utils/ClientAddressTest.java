@@ -0,0 +1,48 @@
+package com.example.aptutorialworkshop.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClientAddressTest {
+    private static final List<ClientAddress.AddressRange> PROXIES =
+            ClientAddress.parseRanges("10.0.0.0/8, 192.168.1.5, 2001:db8::/32");
+
+    @Test
+    void ignoresTheHeaderFromUntrustedAddresses() {
+        assertEquals("203.0.113.7", ClientAddress.resolve("203.0.113.7", List.of("1.2.3.4"), PROXIES));
+        assertEquals("203.0.113.7", ClientAddress.resolve("203.0.113.7", List.of("1.2.3.4"), List.of()));
+    }
+
+    @Test
+    void takesTheFirstUntrustedHopFromTheRight() {
+        assertEquals("198.51.100.2", ClientAddress.resolve("10.1.2.3", List.of("198.51.100.2"), PROXIES));
+        // The client sent a forged entry; the proxies appended the real address after it
+        assertEquals("198.51.100.2",
+                ClientAddress.resolve("10.1.2.3", List.of("1.2.3.4", "198.51.100.2", "192.168.1.5"), PROXIES));
+        assertEquals("2001:db9::1", ClientAddress.resolve("2001:db8::5", List.of("2001:db9::1"), PROXIES));
+    }
+
+    @Test
+    void fallsBackWhenEveryHopIsTrusted() {
+        assertEquals("10.1.2.3", ClientAddress.resolve("10.1.2.3", List.of(), PROXIES));
+        assertEquals("10.9.9.9", ClientAddress.resolve("10.1.2.3", List.of("10.9.9.9", "192.168.1.5"), PROXIES));
+    }
+
+    @Test
+    void matchesCidrRangesBitByBit() {
+        List<ClientAddress.AddressRange> ranges = ClientAddress.parseRanges("172.16.0.0/12");
+
+        assertEquals("1.1.1.1", ClientAddress.resolve("172.31.255.255", List.of("1.1.1.1"), ranges));
+        assertEquals("172.32.0.1", ClientAddress.resolve("172.32.0.1", List.of("1.1.1.1"), ranges));
+    }
+
+    @Test
+    void skipsEntriesThatAreNotIpLiterals() {
+        assertEquals(1, ClientAddress.parseRanges("proxy.example.com, 10.0.0.1, 10.0.0.0/33, ").size());
+        // A hostname in the header is not trusted and becomes the key as sent
+        assertEquals("unknown", ClientAddress.resolve("10.1.2.3", List.of("unknown"), PROXIES));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.aptutorialworkshop.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+    // Salt and hash characters of a BCrypt value; only the prefix matters to costOf
+    private static final String BODY = "$abcdefghijklmnopqrstuvabcdefghijklmnopqrstuvwxyz01234";
+
+    @Test
+    void hashesAtTheConfiguredCost() {
+        String hash = PasswordHasher.hash("secret");
+
+        assertEquals(4, PasswordHasher.getTargetCost());
+        assertEquals(4, PasswordHasher.costOf(hash));
+        assertTrue(PasswordHasher.verify("secret", hash));
+        assertFalse(PasswordHasher.verify("Secret", hash));
+    }
+
+    @Test
+    void verifiesPlainTextAndOtherPrefixes() {
+        String hash = PasswordHasher.hash("secret");
+
+        assertTrue(PasswordHasher.verify("student123", "student123"));
+        assertFalse(PasswordHasher.verify("student12", "student123"));
+        assertTrue(PasswordHasher.verify("secret", "$2b$" + hash.substring(4)));
+        assertTrue(PasswordHasher.verify("secret", "$2y$" + hash.substring(4)));
+    }
+
+    @Test
+    void rehashesOnlyPlainTextAndWeakerHashes() {
+        assertTrue(PasswordHasher.needsRehash("student123"));
+        assertTrue(PasswordHasher.needsRehash(null));
+        assertFalse(PasswordHasher.needsRehash("$2a$04" + BODY));
+        // A node that calibrated higher must not be undone by one that calibrated lower
+        assertFalse(PasswordHasher.needsRehash("$2a$12" + BODY));
+        assertFalse(PasswordHasher.needsRehash("$2y$31" + BODY));
+    }
+
+    @Test
+    void costOfRejectsMalformedValues() {
+        assertEquals(12, PasswordHasher.costOf("$2b$12" + BODY));
+        assertEquals(-1, PasswordHasher.costOf("$2x$12" + BODY));
+        assertEquals(-1, PasswordHasher.costOf("$2a$03" + BODY));
+        assertEquals(-1, PasswordHasher.costOf("$2a$32" + BODY));
+        assertEquals(-1, PasswordHasher.costOf("$2a$12" + BODY.substring(1)));
+    }
+}
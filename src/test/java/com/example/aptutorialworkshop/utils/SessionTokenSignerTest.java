@@ -0,0 +1,110 @@
+package com.example.aptutorialworkshop.utils;
+
+import com.example.aptutorialworkshop.models.UserModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTokenSignerTest {
+    private static final String KEY_1 = "1:" + key(1);
+    private static final String KEY_2 = "2:" + key(2);
+    private static final long NOW = 1_750_000_000L;
+
+    private static String key(int seed) {
+        byte[] key = new byte[32];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) (seed * 31 + i);
+        }
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+    @Test
+    void verifiesTheClaimsItIssued() {
+        SessionTokenSigner signer = new SessionTokenSigner(KEY_1);
+        String token = signer.issue(42, UserModel.Role.admin, NOW - 600, NOW, NOW + 1800, 0xCAFEBABE);
+
+        assertEquals(52, token.length());
+        SessionTokenSigner.Claims claims = signer.verify(token, NOW + 1);
+        assertNotNull(claims);
+        assertEquals(42, claims.userId());
+        assertEquals(UserModel.Role.admin, claims.role());
+        assertEquals(NOW - 600, claims.loginAt());
+        assertEquals(NOW, claims.issuedAt());
+        assertEquals(NOW + 1800, claims.expiresAt());
+        assertEquals(0xCAFEBABE, claims.imageVersion());
+        assertEquals(1, claims.keyId());
+        assertFalse(signer.needsReissue(claims));
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        SessionTokenSigner signer = new SessionTokenSigner(KEY_1);
+        String token = signer.issue(42, UserModel.Role.user, NOW, NOW, NOW + 1800, 0);
+
+        assertNotNull(signer.verify(token, NOW + 1799));
+        assertNull(signer.verify(token, NOW + 1800));
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        SessionTokenSigner signer = new SessionTokenSigner(KEY_1);
+        String token = signer.issue(42, UserModel.Role.user, NOW, NOW, NOW + 1800, 0);
+
+        for (int i = 0; i < token.length(); i++) {
+            char replacement = token.charAt(i) == 'A' ? 'B' : 'A';
+            String tampered = token.substring(0, i) + replacement + token.substring(i + 1);
+            assertNull(signer.verify(tampered, NOW), "changed character " + i);
+        }
+        assertNull(signer.verify(token.substring(1), NOW));
+        assertNull(signer.verify(token.substring(1) + "=", NOW));
+        assertNull(signer.verify(null, NOW));
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherKey() {
+        String token = new SessionTokenSigner(KEY_2).issue(42, UserModel.Role.admin, NOW, NOW, NOW + 1800, 0);
+
+        assertNull(new SessionTokenSigner(KEY_1).verify(token, NOW));
+        // Same key id, different key
+        assertNull(new SessionTokenSigner("2:" + key(3)).verify(token, NOW));
+    }
+
+    @Test
+    void acceptsOldKeysDuringRotation() {
+        String oldToken = new SessionTokenSigner(KEY_1).issue(42, UserModel.Role.user, NOW, NOW, NOW + 1800, 0);
+        SessionTokenSigner rotated = new SessionTokenSigner(KEY_2 + "," + KEY_1);
+
+        SessionTokenSigner.Claims claims = rotated.verify(oldToken, NOW);
+        assertNotNull(claims);
+        assertTrue(rotated.needsReissue(claims));
+        SessionTokenSigner.Claims renewed = rotated.verify(
+                rotated.issue(42, UserModel.Role.user, claims.loginAt(), NOW, NOW + 1800, 0), NOW);
+        assertEquals(2, renewed.keyId());
+        assertFalse(rotated.needsReissue(renewed));
+    }
+
+    @Test
+    void requiresValidKeys() {
+        assertThrows(IllegalArgumentException.class, () -> new SessionTokenSigner(null));
+        assertThrows(IllegalArgumentException.class, () -> new SessionTokenSigner(" "));
+        assertThrows(IllegalArgumentException.class, () -> new SessionTokenSigner(key(1)));
+        assertThrows(IllegalArgumentException.class, () -> new SessionTokenSigner("x:" + key(1)));
+        assertThrows(IllegalArgumentException.class, () -> new SessionTokenSigner("256:" + key(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SessionTokenSigner("1:" + Base64.getEncoder().encodeToString(new byte[16])));
+    }
+
+    @Test
+    void imageVersionIsNeverZeroForAPicture() {
+        assertEquals(0, SessionTokenSigner.imageVersionOf(null));
+        assertEquals(0xCAFEBABE, SessionTokenSigner.imageVersionOf("cafebabe" + "0".repeat(56)));
+        assertEquals(1, SessionTokenSigner.imageVersionOf("0".repeat(64)));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.aptutorialworkshop.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticAssetsTest {
+
+    @Test
+    void listedCodingIsAccepted() {
+        assertTrue(StaticAssets.acceptsEncoding("gzip, deflate, br", "gzip"));
+        assertTrue(StaticAssets.acceptsEncoding("deflate, GZIP;q=0.5", "gzip"));
+        assertFalse(StaticAssets.acceptsEncoding("deflate, br", "gzip"));
+        assertFalse(StaticAssets.acceptsEncoding(null, "gzip"));
+        // A coding whose name merely contains the requested one
+        assertFalse(StaticAssets.acceptsEncoding("x-gzip2", "gzip"));
+    }
+
+    @Test
+    void zeroQualityRefusesACoding() {
+        assertFalse(StaticAssets.acceptsEncoding("gzip;q=0", "gzip"));
+        assertFalse(StaticAssets.acceptsEncoding("br, gzip; q=0.000", "gzip"));
+        assertTrue(StaticAssets.acceptsEncoding("gzip;q=0.001", "gzip"));
+    }
+
+    @Test
+    void wildcardCoversUnlistedCodingsOnly() {
+        assertTrue(StaticAssets.acceptsEncoding("*", "br"));
+        assertFalse(StaticAssets.acceptsEncoding("*;q=0", "br"));
+        // The explicit entry wins over the wildcard, in either order
+        assertFalse(StaticAssets.acceptsEncoding("*, gzip;q=0", "gzip"));
+        assertTrue(StaticAssets.acceptsEncoding("gzip, *;q=0", "gzip"));
+    }
+
+    @Test
+    void fingerprintGoesBeforeTheExtension() {
+        assertEquals("css/styles.1a2b3c4d5e6f.css", StaticAssets.fingerprintedPath("css/styles.css", "1a2b3c4d5e6f"));
+        assertEquals("js/vendor.min.1a2b.js", StaticAssets.fingerprintedPath("js/vendor.min.js", "1a2b"));
+        // No extension, or a dot only in a directory name or as a leading dot
+        assertEquals("fonts.v2/LICENSE.1a2b", StaticAssets.fingerprintedPath("fonts.v2/LICENSE", "1a2b"));
+        assertEquals("misc/.htaccess.1a2b", StaticAssets.fingerprintedPath("misc/.htaccess", "1a2b"));
+    }
+
+    @Test
+    void gzipIsKeptOnlyWhenSmaller() throws IOException {
+        byte[] text = "body { margin: 0; }\n".repeat(50).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = StaticAssets.gzip(text);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(text, in.readAllBytes());
+        }
+        assertArrayEquals(compressed, StaticAssets.smallerOrNull(compressed, text));
+
+        byte[] tiny = "a".getBytes(StandardCharsets.UTF_8);
+        assertNull(StaticAssets.smallerOrNull(StaticAssets.gzip(tiny), tiny));
+        assertTrue(StaticAssets.isCompressible("css/Styles.CSS"));
+        assertFalse(StaticAssets.isCompressible("images/logo.png"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.aptutorialworkshop.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+
+    @Test
+    void allowsABurstOfCapacityThenLimits() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 1, TimeUnit.HOURS, 1024);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        }
+        long wait = limiter.tryAcquire("10.0.0.1");
+        assertTrue(wait > 0 && wait <= TimeUnit.MINUTES.toMillis(12), "wait " + wait);
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 1, TimeUnit.HOURS, 1024);
+
+        assertEquals(0, limiter.tryAcquire("alice@example.com"));
+        assertEquals(0, limiter.tryAcquire("alice@example.com"));
+        assertTrue(limiter.tryAcquire("alice@example.com") > 0);
+        assertEquals(0, limiter.tryAcquire("bob@example.com"));
+        assertEquals(0, limiter.tryAcquire("bob@example.com"));
+    }
+
+    @Test
+    void refillsOverThePeriod() throws InterruptedException {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 100, TimeUnit.MILLISECONDS, 1024);
+
+        assertEquals(0, limiter.tryAcquire("key"));
+        assertEquals(0, limiter.tryAcquire("key"));
+        assertTrue(limiter.tryAcquire("key") > 0);
+        Thread.sleep(150);
+        assertEquals(0, limiter.tryAcquire("key"));
+    }
+
+    @Test
+    void aFullTableDoesNotDrainTrackedKeys() {
+        // The smallest table (8 slots); fill it with keys that each got a slot of their own
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 1, TimeUnit.HOURS, 4);
+        List<String> tracked = new ArrayList<>();
+        for (int i = 0; tracked.size() < 8; i++) {
+            long overflowBefore = limiter.getOverflowCount();
+            limiter.tryAcquire("user" + i + "@example.com");
+            if (limiter.getOverflowCount() == overflowBefore) {
+                tracked.add("user" + i + "@example.com");
+            }
+        }
+
+        // A spray of new keys only reaches the overflow bucket, which limits them together
+        long overflowBefore = limiter.getOverflowCount();
+        int allowed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (limiter.tryAcquire("sprayed" + i + "@example.com") == 0) {
+                allowed++;
+            }
+        }
+        assertEquals(1000, limiter.getOverflowCount() - overflowBefore);
+        assertTrue(allowed <= 3 * 4, "allowed " + allowed);
+
+        // The tracked keys still have the rest of their own allowance
+        for (String key : tracked) {
+            assertEquals(0, limiter.tryAcquire(key));
+            assertEquals(0, limiter.tryAcquire(key));
+            assertTrue(limiter.tryAcquire(key) > 0);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.aptutorialworkshop.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VarIntTest {
+    private static final int[] VALUES = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+
+    @Test
+    void bufferRoundTripUsesSizeOfBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        for (int value : VALUES) {
+            buffer.clear();
+            VarInt.writeInt(buffer, value);
+            assertEquals(VarInt.sizeOf(value), buffer.position(), "size of " + value);
+            buffer.flip();
+            assertEquals(value, VarInt.readInt(buffer));
+        }
+    }
+
+    @Test
+    void streamAndBufferFormsMatch() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        for (int value : VALUES) {
+            VarInt.writeInt(out, value);
+            VarInt.writeInt(buffer, value);
+        }
+        VarInt.writeString(out, "Zoë 😀");
+        VarInt.writeString(buffer, "Zoë 😀");
+        assertEquals(ByteBuffer.wrap(bytes.toByteArray()), buffer.flip());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int value : VALUES) {
+            assertEquals(value, VarInt.readInt(in));
+        }
+        assertEquals("Zoë 😀", VarInt.readString(in, 64));
+    }
+
+    @Test
+    void malformedInputIsRejected() throws IOException {
+        ByteBuffer tooLong = ByteBuffer.wrap(new byte[] {-1, -1, -1, -1, -1, 1});
+        assertThrows(IllegalArgumentException.class, () -> VarInt.readInt(tooLong));
+
+        ByteBuffer truncated = ByteBuffer.allocate(8);
+        VarInt.writeInt(truncated, 10);
+        truncated.put((byte) 'x').flip();
+        assertThrows(IllegalArgumentException.class, () -> VarInt.readString(truncated));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        VarInt.writeString(new DataOutputStream(bytes), "x".repeat(100));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThrows(IOException.class, () -> VarInt.readString(in, 50));
+    }
+}